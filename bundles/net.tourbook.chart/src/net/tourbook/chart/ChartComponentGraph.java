@@ -18,6 +18,7 @@ package net.tourbook.chart;
 import java.io.InputStream;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 
@@ -76,8 +77,6 @@ import org.eclipse.swt.widgets.Widget;
  */
 public class ChartComponentGraph extends Canvas {
 
-   private static final double       FLOAT_ZERO        = ChartDataYSerie.FLOAT_ZERO;
-
    private static final double       ZOOM_RATIO        = 1.3;
    private static double             ZOOM_RATIO_FACTOR = ZOOM_RATIO;
 
@@ -340,6 +339,21 @@ public class ChartComponentGraph extends Canvas {
    private ArrayList<RectangleLong[]> _lineFocusRectangles         = new ArrayList<>();
    private ArrayList<PointLong[]>     _lineDevPositions            = new ArrayList<>();
 
+   /**
+    * Hovered line value index for each device x position in the visible chart or -1 when a value
+    * is not painted at this position. It is created from {@link #_lineFocusRectangles} when a line
+    * value is hovered the first time after the graph is painted, it is <code>null</code> when it
+    * is not yet created.
+    */
+   private int[]                      _hoveredLineValueIndices;
+   private RectangleLong[]            _hoveredLineRectangles;
+
+   /**
+    * Decimated values of the line graphs, key is the y-value serie of the graph. They are reused
+    * until the graph is zoomed or a new data model is set.
+    */
+   private final HashMap<float[], LineGraphDecimation> _lineGraphDecimations = new HashMap<>();
+
    /**
     * Tooltip for value points, can be <code>null</code> when not set.
     */
@@ -388,6 +402,7 @@ public class ChartComponentGraph extends Canvas {
    private boolean[]                  _selectedBarItems;
 
    private final int[]                _drawAsyncCounter            = new int[1];
+   private final int[]                _hoveredValueAsyncCounter    = new int[1];
 
    private boolean                    _isAutoScroll;
    private boolean                    _isDisableHoveredLineValueIndex;
@@ -1633,6 +1648,7 @@ public class ChartComponentGraph extends Canvas {
       // reset line positions, they are set when a line graph is painted
       _lineDevPositions.clear();
       _lineFocusRectangles.clear();
+      _hoveredLineValueIndices = null;
 
       final Color chartBackgroundColor = _chart.getBackgroundColor();
       final Rectangle graphBounds = _chartImage_10_Graphs.getBounds();
@@ -2759,18 +2775,45 @@ public class ChartComponentGraph extends Canvas {
       final long[] devXPositions = new long[endIndex];
       final float devY0 = devY0Inverse - devY_XAxisLine;
 
+      /*
+       * Paint only the values which are visible in a pixel column, this is null when all values are
+       * painted
+       */
+      final int[] decimatedIndices = getLineGraphDecimation(
+            xValues,
+            yValues,
+            yValues2,
+            lineGaps,
+            noFill,
+            scaleX).getIndices(startIndex, endIndex);
+
+      final int numPaintedValues = decimatedIndices == null
+            ? endIndex - startIndex
+            : decimatedIndices.length;
+
+      int devXPositionIndex = startIndex;
+
       /*
        * draw the lines into the paths
        */
-      int valueIndex = startIndex;
       double devX = 999;
-      for (; valueIndex < endIndex; valueIndex++) {
+      for (int paintedIndex = 0; paintedIndex < numPaintedValues; paintedIndex++) {
+
+         final int valueIndex = decimatedIndices == null
+               ? startIndex + paintedIndex
+               : decimatedIndices[paintedIndex];
 
          // check array bounds
          if (valueIndex >= yValueLength) {
             break;
          }
 
+         // set the positions of the skipped values, they are used by the custom fill painter
+         for (; devXPositionIndex < valueIndex; devXPositionIndex++) {
+            devXPositions[devXPositionIndex] = (long) ((xValues[devXPositionIndex] - graphValueOffset) * scaleX);
+         }
+         devXPositionIndex = valueIndex + 1;
+
          final double graphX = xValues[valueIndex] - graphValueOffset;
          devX = graphX * scaleX;
          final float devXf = (float) devX;
@@ -5609,6 +5652,43 @@ public class ChartComponentGraph extends Canvas {
       }
    }
 
+   /**
+    * Fire the hovered value event async, when the mouse is moved faster than the listeners can
+    * process the events, then only the last event is fired.
+    */
+   private void fireEvent_HoveredValue(final IHoveredValueListener hoveredListener,
+                                       final long eventTime,
+                                       final int devXMouseMove,
+                                       final int devYMouseMove,
+                                       final int hoveredValuePointIndex,
+                                       final PointLong devHoveredValueDevPosition) {
+
+      _hoveredValueAsyncCounter[0]++;
+
+      getDisplay().asyncExec(new Runnable() {
+
+         final int __runnableCounter = _hoveredValueAsyncCounter[0];
+
+         @Override
+         public void run() {
+
+            /*
+             * fire the event only when a new mouse move event has not occured
+             */
+            if (__runnableCounter != _hoveredValueAsyncCounter[0] || isDisposed()) {
+               return;
+            }
+
+            hoveredListener.hoveredValue(
+                  eventTime,
+                  devXMouseMove,
+                  devYMouseMove,
+                  hoveredValuePointIndex,
+                  devHoveredValueDevPosition);
+         }
+      });
+   }
+
    private int getAlphaFill(final boolean isTopGraph) {
 
       int graphFillingAlpha = (int) (_chart.graphTransparencyFilling * _chart.graphTransparencyAdjustment);
@@ -5748,6 +5828,30 @@ public class ChartComponentGraph extends Canvas {
       return posSliderA < posSliderB ? _xSliderA : _xSliderB;
    }
 
+   /**
+    * @return Returns the decimated values of a line graph, they are created when the graph values
+    *         or the zoom level have changed
+    */
+   private LineGraphDecimation getLineGraphDecimation(final double[] xValues,
+                                                      final float[] yValues,
+                                                      final float[] yValues2,
+                                                      final boolean[] lineGaps,
+                                                      final boolean[] noLine,
+                                                      final double scaleX) {
+
+      LineGraphDecimation lineGraphDecimation = _lineGraphDecimations.get(yValues);
+
+      if (lineGraphDecimation == null
+            || lineGraphDecimation.isValid(xValues, yValues, yValues2, lineGaps, noLine, scaleX) == false) {
+
+         lineGraphDecimation = new LineGraphDecimation(xValues, yValues, yValues2, lineGaps, noLine, scaleX);
+
+         _lineGraphDecimations.put(yValues, lineGraphDecimation);
+      }
+
+      return lineGraphDecimation;
+   }
+
    /**
     * @return Returns the right most slider
     */
@@ -7034,7 +7138,8 @@ public class ChartComponentGraph extends Canvas {
 
             if (hoveredListener != null && canShowHoveredValueTooltip) {
 
-               hoveredListener.hoveredValue(
+               fireEvent_HoveredValue(
+                     hoveredListener,
                      eventTime,
                      _devXMouseMove,
                      _devYMouseMove,
@@ -7488,6 +7593,15 @@ public class ChartComponentGraph extends Canvas {
       redraw();
    }
 
+   /**
+    * Remove the decimated line graph values, this is necessary when the data model has changed
+    * because the values could be modified in the same arrays.
+    */
+   void resetLineGraphDecimations() {
+
+      _lineGraphDecimations.clear();
+   }
+
    /**
     * set the slider position when the data model has changed
     */
@@ -7880,6 +7994,7 @@ public class ChartComponentGraph extends Canvas {
          _hoveredValuePointIndex = -1;
          _lineDevPositions.clear();
          _lineFocusRectangles.clear();
+         _hoveredLineValueIndices = null;
       }
 
       // hide previous tooltip
@@ -8008,6 +8123,28 @@ public class ChartComponentGraph extends Canvas {
          return;
       }
 
+      if (_hoveredLineValueIndices == null) {
+         setHoveredLineValue_10_CreateIndices();
+      }
+
+      if (_devXMouseMove >= 0 && _devXMouseMove < _hoveredLineValueIndices.length) {
+
+         // get the hovered value from the device x position
+
+         final RectangleLong lineRect = _hoveredLineRectangles[_devXMouseMove];
+
+         _hoveredValuePointIndex = lineRect != null
+               && _devYMouseMove >= lineRect.y
+               && _devYMouseMove < (lineRect.y + lineRect.height)
+
+                     ? _hoveredLineValueIndices[_devXMouseMove]
+                     : -1;
+
+         return;
+      }
+
+      // mouse is outside of the visible chart, e.g. when a slider is dragged
+
       RectangleLong lineRect = null;
 
       for (final RectangleLong[] lineFocusRectangles : _lineFocusRectangles) {
@@ -8039,6 +8176,47 @@ public class ChartComponentGraph extends Canvas {
       _hoveredValuePointIndex = -1;
    }
 
+   /**
+    * Create the hovered value index for each device x position from the line focus rectangles,
+    * the first rectangle which contains a x position is used.
+    */
+   private void setHoveredLineValue_10_CreateIndices() {
+
+      final int numDevPositions = Math.max(0, getDevVisibleChartWidth() + 1);
+
+      final int[] hoveredLineValueIndices = new int[numDevPositions];
+      final RectangleLong[] hoveredLineRectangles = new RectangleLong[numDevPositions];
+
+      Arrays.fill(hoveredLineValueIndices, -1);
+
+      for (final RectangleLong[] lineFocusRectangles : _lineFocusRectangles) {
+
+         for (int valueIndex = 0; valueIndex < lineFocusRectangles.length; valueIndex++) {
+
+            final RectangleLong lineRect = lineFocusRectangles[valueIndex];
+
+            if (lineRect == null) {
+               continue;
+            }
+
+            final long devXStart = Math.max(0, lineRect.x);
+            final long devXEnd = Math.min(numDevPositions, lineRect.x + lineRect.width);
+
+            for (int devX = (int) devXStart; devX < devXEnd; devX++) {
+
+               if (hoveredLineRectangles[devX] == null) {
+
+                  hoveredLineRectangles[devX] = lineRect;
+                  hoveredLineValueIndices[devX] = valueIndex;
+               }
+            }
+         }
+      }
+
+      _hoveredLineRectangles = hoveredLineRectangles;
+      _hoveredLineValueIndices = hoveredLineValueIndices;
+   }
+
    void setHoveredTitleSegment(final ChartTitleSegment chartTitleSegment) {
 
       _hoveredTitleSegment = chartTitleSegment;
@@ -8485,35 +8663,49 @@ public class ChartComponentGraph extends Canvas {
       }
 
       /*
-       * get value index for the left and right border of the visible area
+       * get value index for the left and right border of the visible area, the x-values are sorted
        */
-      int xValueIndexLeft = 0;
-      for (int serieIndex = 0; serieIndex < xValues.length; serieIndex++) {
 
-         final double xValue = xValues[serieIndex];
+      // get first value which is >= left border
+      int searchLow = 0;
+      int searchHigh = xValues.length;
+      while (searchLow < searchHigh) {
 
-         if (xValue == valueLeftBorder) {
-            xValueIndexLeft = serieIndex;
-            break;
+         final int searchMid = (searchLow + searchHigh) >>> 1;
+
+         if (xValues[searchMid] < valueLeftBorder) {
+            searchLow = searchMid + 1;
+         } else {
+            searchHigh = searchMid;
          }
+      }
 
-         if (xValue > valueLeftBorder) {
-            xValueIndexLeft = serieIndex == 0
-                  ? 0
+      int xValueIndexLeft = 0;
+      if (searchLow < xValues.length) {
 
-                  // get index from last invisible value
-                  : serieIndex - 1;
-            break;
-         }
+         xValueIndexLeft = xValues[searchLow] == valueLeftBorder || searchLow == 0
+               ? searchLow
+
+               // get index from last invisible value
+               : searchLow - 1;
       }
 
-      int xValueIndexRight = xValueIndexLeft;
-      for (; xValueIndexRight < xValues.length; xValueIndexRight++) {
-         if (xValues[xValueIndexRight] > valueRightBorder) {
-            break;
+      // get first value which is > right border
+      searchLow = xValueIndexLeft;
+      searchHigh = xValues.length;
+      while (searchLow < searchHigh) {
+
+         final int searchMid = (searchLow + searchHigh) >>> 1;
+
+         if (xValues[searchMid] <= valueRightBorder) {
+            searchLow = searchMid + 1;
+         } else {
+            searchHigh = searchMid;
          }
       }
 
+      int xValueIndexRight = searchLow;
+
       /*
        * get visible min/max value for the x-data serie which fills the visible area in the chart
        */
@@ -8530,9 +8722,9 @@ public class ChartComponentGraph extends Canvas {
       /*
        * get min/max value for each y-data serie to fill the visible area with the chart
        */
-      for (final ChartDataYSerie yData : yDataList) {
+      final float[] rangeMinMax = new float[2];
 
-         final boolean isIgnoreMinMaxZero = yData.isIgnoreMinMaxZero();
+      for (final ChartDataYSerie yData : yDataList) {
 
          final float[][] yValueSeries = yData.getHighValuesFloat();
          final float yValues[] = yValueSeries[0];
@@ -8548,46 +8740,40 @@ public class ChartComponentGraph extends Canvas {
          float dataMinValue = Float.MIN_VALUE;
          float dataMaxValue = Float.MIN_VALUE;
 
-         for (final float[] yValueSerie : yValueSeries) {
+         for (int serieIndex = 0; serieIndex < yValueSeries.length; serieIndex++) {
+
+            // the min/max values are precomputed, NaN, infinity and ignored 0 values are skipped
+            final MinMaxPyramid minMaxPyramid = yData.getMinMaxPyramid(serieIndex);
 
-            if (yValueSerie == null) {
+            if (minMaxPyramid == null) {
                continue;
             }
 
-            for (int valueIndex = xValueIndexLeft; valueIndex <= xValueIndexRight; valueIndex++) {
+            minMaxPyramid.getMinMax(xValueIndexLeft, xValueIndexRight, rangeMinMax);
 
-               final float yValue = yValueSerie[valueIndex];
+            final float rangeMinValue = rangeMinMax[0];
+            final float rangeMaxValue = rangeMinMax[1];
 
-               if (yValue != yValue) {
-                  // ignore NaN
-                  continue;
-               }
-
-               if (yValue == Float.POSITIVE_INFINITY) {
-                  // ignore infinity
-                  continue;
-               }
-
-               if (isIgnoreMinMaxZero && (yValue > -FLOAT_ZERO && yValue < FLOAT_ZERO)) {
-                  // value is zero (almost) -> ignore
-                  continue;
-               }
+            if (rangeMinValue != rangeMinValue) {
+               // all values are ignored
+               continue;
+            }
 
-               if (dataMinValue == Float.MIN_VALUE) {
+            if (dataMinValue == Float.MIN_VALUE) {
 
-                  // setup first value
-                  dataMinValue = dataMaxValue = yValue;
+               // setup first value
+               dataMinValue = rangeMinValue;
+               dataMaxValue = rangeMaxValue;
 
-               } else {
+            } else {
 
-                  // check subsequent values
+               // check subsequent values
 
-                  if (yValue < dataMinValue) {
-                     dataMinValue = yValue;
-                  }
-                  if (yValue > dataMaxValue) {
-                     dataMaxValue = yValue;
-                  }
+               if (rangeMinValue < dataMinValue) {
+                  dataMinValue = rangeMinValue;
+               }
+               if (rangeMaxValue > dataMaxValue) {
+                  dataMaxValue = rangeMaxValue;
                }
             }
          }
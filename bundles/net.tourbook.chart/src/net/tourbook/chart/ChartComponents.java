@@ -2349,6 +2349,8 @@ public class ChartComponents extends Composite {
 
 		_chartDataModel = chartModel;
 
+		componentGraph.resetLineGraphDecimations();
+
 		/*
 		 * when data model has changed, update the visible y-values to use the full visible area for
 		 * drawing the chart
@@ -123,6 +123,11 @@ public class ChartDataYSerie extends ChartDataSerie {
     */
    private boolean                _isIgnoreMinMaxZero;
 
+   /**
+    * Precomputed min/max values for each high value serie, they are created when they are used
+    */
+   private MinMaxPyramid[]        _minMaxPyramids;
+
    /**
     * When this value is > 0 a line chart will not draw a line to the next value point when the
     * difference in the x-data values is greater than this value.
@@ -362,6 +367,41 @@ public class ChartDataYSerie extends ChartDataSerie {
       return _lowValuesFloat;
    }
 
+   /**
+    * @param serieIndex
+    *           Index of the high value serie
+    * @return Returns the precomputed min/max values for a high value serie or <code>null</code>
+    *         when the serie is not available
+    */
+   MinMaxPyramid getMinMaxPyramid(final int serieIndex) {
+
+      if (_highValuesFloat == null || serieIndex >= _highValuesFloat.length) {
+         return null;
+      }
+
+      final float[] values = _highValuesFloat[serieIndex];
+
+      if (values == null) {
+         return null;
+      }
+
+      if (_minMaxPyramids == null || _minMaxPyramids.length != _highValuesFloat.length) {
+         _minMaxPyramids = new MinMaxPyramid[_highValuesFloat.length];
+      }
+
+      MinMaxPyramid minMaxPyramid = _minMaxPyramids[serieIndex];
+
+      // values could be replaced
+      if (minMaxPyramid == null || minMaxPyramid.isValid(values, _isIgnoreMinMaxZero) == false) {
+
+         minMaxPyramid = new MinMaxPyramid(values, _isIgnoreMinMaxZero);
+
+         _minMaxPyramids[serieIndex] = minMaxPyramid;
+      }
+
+      return minMaxPyramid;
+   }
+
    /**
     * @return Returns the format how the slider label will be formatted, which can be <br>
     *         {@link #SLIDER_LABEL_FORMAT_DEFAULT}<br>
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.chart;
+
+import java.util.Arrays;
+
+/**
+ * Reduces the values of a line graph to the values which are visible when the graph is painted
+ * with a horizontal scaling, e.g. a tour with 43'000 values is painted into 1'800 pixels.
+ * <p>
+ * For each pixel column the first, last, min and max values are kept, so that the painted graph
+ * looks the same as when all values are painted. Values where a line gap or a "no line" section
+ * starts or ends and values which are 0 are also kept because they are painted differently.
+ * <p>
+ * The decimation is done for the whole graph in virtual pixels, so it can be reused when the
+ * graph is scrolled or repainted with the same zoom level.
+ */
+class LineGraphDecimation {
+
+   /**
+    * Values are decimated only when a pixel column contains more values than this
+    */
+   private static final int MIN_VALUES_PER_COLUMN = 4;
+
+   private final double[]   _xValues;
+   private final float[]    _yValues;
+   private final float[]    _yValues2;
+   private final boolean[]  _lineGaps;
+   private final boolean[]  _noLine;
+   private final double     _scaleX;
+
+   /**
+    * Sorted value indices which are painted or <code>null</code> when all values are painted
+    */
+   private int[]            _allDecimatedIndices;
+
+   /**
+    * @param xValues
+    * @param yValues
+    * @param yValues2
+    *           2nd graph which is painted with the same x-values, can be <code>null</code>
+    * @param lineGaps
+    *           Can be <code>null</code>
+    * @param noLine
+    *           Can be <code>null</code>
+    * @param scaleX
+    *           Horizontal scaling from graph values into virtual pixels
+    */
+   LineGraphDecimation(final double[] xValues,
+                       final float[] yValues,
+                       final float[] yValues2,
+                       final boolean[] lineGaps,
+                       final boolean[] noLine,
+                       final double scaleX) {
+
+      _xValues = xValues;
+      _yValues = yValues;
+      _yValues2 = yValues2;
+      _lineGaps = lineGaps;
+      _noLine = noLine;
+      _scaleX = scaleX;
+
+      decimateValues();
+   }
+
+   private void decimateValues() {
+
+      final int numValues = Math.min(_xValues.length, _yValues.length);
+
+      if (numValues == 0) {
+         return;
+      }
+
+      final double numColumns = (_xValues[numValues - 1] - _xValues[0]) * _scaleX + 1;
+
+      if (numValues <= numColumns * MIN_VALUES_PER_COLUMN) {
+
+         // there are not enough values which could be skipped
+         return;
+      }
+
+      final boolean[] isKeepValue = new boolean[numValues];
+
+      long column = (long) Math.floor(_xValues[0] * _scaleX);
+
+      int columnFirstIndex = 0;
+      int columnMinIndex = 0;
+      int columnMaxIndex = 0;
+      int columnMinIndex2 = 0;
+      int columnMaxIndex2 = 0;
+
+      for (int valueIndex = 1; valueIndex < numValues; valueIndex++) {
+
+         final long valueColumn = (long) Math.floor(_xValues[valueIndex] * _scaleX);
+
+         if (valueColumn != column) {
+
+            // keep values of the previous column
+
+            isKeepValue[columnFirstIndex] = true;
+            isKeepValue[columnMinIndex] = true;
+            isKeepValue[columnMaxIndex] = true;
+            isKeepValue[columnMinIndex2] = true;
+            isKeepValue[columnMaxIndex2] = true;
+            isKeepValue[valueIndex - 1] = true;
+
+            column = valueColumn;
+
+            columnFirstIndex = valueIndex;
+            columnMinIndex = valueIndex;
+            columnMaxIndex = valueIndex;
+            columnMinIndex2 = valueIndex;
+            columnMaxIndex2 = valueIndex;
+
+         } else {
+
+            final float yValue = _yValues[valueIndex];
+
+            if (yValue < _yValues[columnMinIndex]) {
+               columnMinIndex = valueIndex;
+            }
+            if (yValue > _yValues[columnMaxIndex]) {
+               columnMaxIndex = valueIndex;
+            }
+
+            if (_yValues2 != null && valueIndex < _yValues2.length) {
+
+               final float yValue2 = _yValues2[valueIndex];
+
+               if (yValue2 < _yValues2[columnMinIndex2]) {
+                  columnMinIndex2 = valueIndex;
+               }
+               if (yValue2 > _yValues2[columnMaxIndex2]) {
+                  columnMaxIndex2 = valueIndex;
+               }
+            }
+         }
+
+         // keep the values which are painted differently
+         if (isKeepSpecialValue(valueIndex)) {
+
+            isKeepValue[valueIndex - 1] = true;
+            isKeepValue[valueIndex] = true;
+         }
+      }
+
+      // keep values of the last column
+      isKeepValue[columnFirstIndex] = true;
+      isKeepValue[columnMinIndex] = true;
+      isKeepValue[columnMaxIndex] = true;
+      isKeepValue[columnMinIndex2] = true;
+      isKeepValue[columnMaxIndex2] = true;
+      isKeepValue[numValues - 1] = true;
+
+      int numKeptValues = 0;
+      for (final boolean isKeep : isKeepValue) {
+         if (isKeep) {
+            numKeptValues++;
+         }
+      }
+
+      final int[] allDecimatedIndices = new int[numKeptValues];
+
+      int keptIndex = 0;
+      for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+         if (isKeepValue[valueIndex]) {
+            allDecimatedIndices[keptIndex++] = valueIndex;
+         }
+      }
+
+      _allDecimatedIndices = allDecimatedIndices;
+   }
+
+   /**
+    * @param startIndex
+    * @param endIndex
+    * @return Returns the sorted value indices which are painted between the start index and the
+    *         end index (exclusive), the start index and the last index are always contained.
+    *         Returns <code>null</code> when all values are painted.
+    */
+   int[] getIndices(final int startIndex, final int endIndex) {
+
+      if (_allDecimatedIndices == null || endIndex - startIndex < 2) {
+         return null;
+      }
+
+      final int lastIndex = endIndex - 1;
+
+      int firstPos = Arrays.binarySearch(_allDecimatedIndices, startIndex);
+      int lastPos = Arrays.binarySearch(_allDecimatedIndices, lastIndex);
+
+      // skip start and last index, they are added separately
+      firstPos = firstPos < 0 ? -firstPos - 1 : firstPos + 1;
+      lastPos = lastPos < 0 ? -lastPos - 1 : lastPos;
+
+      final int numInnerIndices = Math.max(0, lastPos - firstPos);
+
+      final int[] allIndices = new int[numInnerIndices + 2];
+
+      allIndices[0] = startIndex;
+      System.arraycopy(_allDecimatedIndices, firstPos, allIndices, 1, numInnerIndices);
+      allIndices[numInnerIndices + 1] = lastIndex;
+
+      return allIndices;
+   }
+
+   private boolean isKeepSpecialValue(final int valueIndex) {
+
+      final int prevIndex = valueIndex - 1;
+
+      if (_lineGaps != null
+            && valueIndex < _lineGaps.length
+            && (_lineGaps[valueIndex] || _lineGaps[prevIndex])) {
+         return true;
+      }
+
+      if (_noLine != null
+            && valueIndex < _noLine.length
+            && _noLine[valueIndex] != _noLine[prevIndex]) {
+         return true;
+      }
+
+      if ((_yValues[valueIndex] == 0) != (_yValues[prevIndex] == 0)) {
+         return true;
+      }
+
+      if (_yValues2 != null
+            && valueIndex < _yValues2.length
+            && (_yValues2[valueIndex] == 0) != (_yValues2[prevIndex] == 0)) {
+         return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * @return Returns <code>true</code> when this decimation was created for the same values and
+    *         the same horizontal scaling
+    */
+   boolean isValid(final double[] xValues,
+                   final float[] yValues,
+                   final float[] yValues2,
+                   final boolean[] lineGaps,
+                   final boolean[] noLine,
+                   final double scaleX) {
+
+      return xValues == _xValues
+            && yValues == _yValues
+            && yValues2 == _yValues2
+            && lineGaps == _lineGaps
+            && noLine == _noLine
+            && scaleX == _scaleX;
+   }
+}
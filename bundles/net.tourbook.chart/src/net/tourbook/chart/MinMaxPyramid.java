@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.chart;
+
+/**
+ * Precomputed min/max values of a y-value serie, so that the min/max values of a visible range can
+ * be retrieved without scanning all values of the range.
+ * <p>
+ * The values are grouped into blocks of {@link #BLOCK_SIZE} values, the min/max values of the
+ * blocks are kept in a segment tree. A range query scans only the values of the partial blocks at
+ * the range borders.
+ * <p>
+ * Values which are NaN or positive infinity are ignored, values which are (almost) 0 are ignored
+ * when <code>isIgnoreZero</code> is set, this is the same as when the visible min/max values are
+ * computed from the raw values.
+ */
+class MinMaxPyramid {
+
+   private static final int BLOCK_SIZE = 16;
+
+   private final float[]    _values;
+   private final boolean    _isIgnoreZero;
+
+   private final int        _numBlocks;
+
+   /**
+    * Segment tree with the min/max values of the blocks, the blocks are at the positions
+    * <code>numBlocks...2*numBlocks-1</code>, a node contains NaN when all values are ignored.
+    */
+   private final float[]    _treeMin;
+   private final float[]    _treeMax;
+
+   /**
+    * @param values
+    * @param isIgnoreZero
+    *           When <code>true</code> then values which are (almost) 0 are ignored
+    */
+   MinMaxPyramid(final float[] values, final boolean isIgnoreZero) {
+
+      _values = values;
+      _isIgnoreZero = isIgnoreZero;
+
+      final int numValues = values.length;
+
+      _numBlocks = Math.max(1, (numValues + BLOCK_SIZE - 1) / BLOCK_SIZE);
+
+      _treeMin = new float[_numBlocks * 2];
+      _treeMax = new float[_numBlocks * 2];
+
+      // set min/max for each block
+      for (int blockIndex = 0; blockIndex < _numBlocks; blockIndex++) {
+
+         final int firstIndex = blockIndex * BLOCK_SIZE;
+         final int lastIndex = Math.min(firstIndex + BLOCK_SIZE, numValues) - 1;
+
+         float blockMin = Float.NaN;
+         float blockMax = Float.NaN;
+
+         for (int valueIndex = firstIndex; valueIndex <= lastIndex; valueIndex++) {
+
+            final float value = values[valueIndex];
+
+            if (isIgnoredValue(value)) {
+               continue;
+            }
+
+            if (blockMin != blockMin) {
+
+               // setup first value
+               blockMin = blockMax = value;
+
+            } else {
+
+               if (value < blockMin) {
+                  blockMin = value;
+               }
+               if (value > blockMax) {
+                  blockMax = value;
+               }
+            }
+         }
+
+         _treeMin[_numBlocks + blockIndex] = blockMin;
+         _treeMax[_numBlocks + blockIndex] = blockMax;
+      }
+
+      // set min/max for the parent nodes
+      for (int nodeIndex = _numBlocks - 1; nodeIndex > 0; nodeIndex--) {
+
+         _treeMin[nodeIndex] = min(_treeMin[nodeIndex * 2], _treeMin[nodeIndex * 2 + 1]);
+         _treeMax[nodeIndex] = max(_treeMax[nodeIndex * 2], _treeMax[nodeIndex * 2 + 1]);
+      }
+   }
+
+   /**
+    * @return Returns the larger value, NaN values are ignored
+    */
+   private static float max(final float value1, final float value2) {
+
+      if (value1 != value1) {
+         return value2;
+      }
+      if (value2 != value2) {
+         return value1;
+      }
+
+      return value1 > value2 ? value1 : value2;
+   }
+
+   /**
+    * @return Returns the smaller value, NaN values are ignored
+    */
+   private static float min(final float value1, final float value2) {
+
+      if (value1 != value1) {
+         return value2;
+      }
+      if (value2 != value2) {
+         return value1;
+      }
+
+      return value1 < value2 ? value1 : value2;
+   }
+
+   /**
+    * @param firstIndex
+    * @param lastIndex
+    *           Inclusive
+    * @param minMax
+    *           Is set with the min value at index 0 and the max value at index 1, they are NaN
+    *           when all values in the range are ignored
+    */
+   void getMinMax(final int firstIndex, final int lastIndex, final float[] minMax) {
+
+      float rangeMin = Float.NaN;
+      float rangeMax = Float.NaN;
+
+      final int firstBlock = firstIndex / BLOCK_SIZE;
+      final int lastBlock = lastIndex / BLOCK_SIZE;
+
+      if (lastBlock - firstBlock < 2) {
+
+         // range is small, scan the values
+
+         for (int valueIndex = firstIndex; valueIndex <= lastIndex; valueIndex++) {
+
+            final float value = _values[valueIndex];
+
+            if (isIgnoredValue(value) == false) {
+
+               rangeMin = min(rangeMin, value);
+               rangeMax = max(rangeMax, value);
+            }
+         }
+
+      } else {
+
+         // scan the values of the partial blocks at the borders
+
+         final int firstFullIndex = (firstBlock + 1) * BLOCK_SIZE;
+         final int lastFullIndex = lastBlock * BLOCK_SIZE - 1;
+
+         for (int valueIndex = firstIndex; valueIndex < firstFullIndex; valueIndex++) {
+
+            final float value = _values[valueIndex];
+
+            if (isIgnoredValue(value) == false) {
+
+               rangeMin = min(rangeMin, value);
+               rangeMax = max(rangeMax, value);
+            }
+         }
+
+         for (int valueIndex = lastFullIndex + 1; valueIndex <= lastIndex; valueIndex++) {
+
+            final float value = _values[valueIndex];
+
+            if (isIgnoredValue(value) == false) {
+
+               rangeMin = min(rangeMin, value);
+               rangeMax = max(rangeMax, value);
+            }
+         }
+
+         // get min/max of the full blocks from the tree
+
+         int leftNode = _numBlocks + firstBlock + 1;
+         int rightNode = _numBlocks + lastBlock;
+
+         while (leftNode < rightNode) {
+
+            if ((leftNode & 1) == 1) {
+
+               rangeMin = min(rangeMin, _treeMin[leftNode]);
+               rangeMax = max(rangeMax, _treeMax[leftNode]);
+
+               leftNode++;
+            }
+
+            if ((rightNode & 1) == 1) {
+
+               rightNode--;
+
+               rangeMin = min(rangeMin, _treeMin[rightNode]);
+               rangeMax = max(rangeMax, _treeMax[rightNode]);
+            }
+
+            leftNode >>= 1;
+            rightNode >>= 1;
+         }
+      }
+
+      minMax[0] = rangeMin;
+      minMax[1] = rangeMax;
+   }
+
+   private boolean isIgnoredValue(final float value) {
+
+      if (value != value) {
+         // ignore NaN
+         return true;
+      }
+
+      if (value == Float.POSITIVE_INFINITY) {
+         // ignore infinity
+         return true;
+      }
+
+      if (_isIgnoreZero && (value > -ChartDataYSerie.FLOAT_ZERO && value < ChartDataYSerie.FLOAT_ZERO)) {
+         // value is zero (almost) -> ignore
+         return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * @return Returns <code>true</code> when this pyramid was created for the values and ignore
+    *         flag
+    */
+   boolean isValid(final float[] values, final boolean isIgnoreZero) {
+
+      return values == _values && isIgnoreZero == _isIgnoreZero;
+   }
+}
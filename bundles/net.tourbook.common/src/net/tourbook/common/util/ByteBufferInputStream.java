@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the remaining bytes of a {@link ByteBuffer}, e.g. the image data which is read from a
+ * pack file, without copying them into another byte array.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+   private final ByteBuffer _byteBuffer;
+
+   public ByteBufferInputStream(final ByteBuffer byteBuffer) {
+      _byteBuffer = byteBuffer;
+   }
+
+   @Override
+   public int available() throws IOException {
+      return _byteBuffer.remaining();
+   }
+
+   @Override
+   public int read() throws IOException {
+
+      if (_byteBuffer.hasRemaining() == false) {
+         return -1;
+      }
+
+      return _byteBuffer.get() & 0xff;
+   }
+
+   @Override
+   public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+
+      if (offset < 0 || length < 0 || length > bytes.length - offset) {
+         throw new IndexOutOfBoundsException();
+      }
+
+      // nothing is read, also at the end of the stream
+      if (length == 0) {
+         return 0;
+      }
+
+      if (_byteBuffer.hasRemaining() == false) {
+         return -1;
+      }
+
+      final int numBytes = Math.min(length, _byteBuffer.remaining());
+
+      _byteBuffer.get(bytes, offset, numBytes);
+
+      return numBytes;
+   }
+}
@@ -30,6 +30,7 @@ import net.tourbook.common.util.Util;
 import net.tourbook.data.GearData;
 import net.tourbook.data.SwimData;
 import net.tourbook.data.TimeData;
+import net.tourbook.data.TimeSeriesBuilder;
 import net.tourbook.data.TourData;
 import net.tourbook.data.TourMarker;
 import net.tourbook.tour.TourLogManager;
@@ -68,14 +69,18 @@ public class FitData {
    private String                  _sessionIndex;
    private ZonedDateTime           _sessionStartTime;
 
-   private final List<TimeData>    _allTimeData          = new ArrayList<>();
+   private final TimeSeriesBuilder _timeSeriesBuilder    = new TimeSeriesBuilder();
+
+   /**
+    * Power data source of the first time slice which has a power data source
+    */
+   private String                  _powerDataSource;
 
    private final List<GearData>    _allGearData          = new ArrayList<>();
    private final List<SwimData>    _allSwimData          = new ArrayList<>();
    private final List<TourMarker>  _allTourMarker        = new ArrayList<>();
 
    private TimeData                _current_TimeData;
-   private TimeData                _previous_TimeData;
 
    private TourMarker              _current_TourMarker;
 
@@ -99,11 +104,6 @@ public class FitData {
 
    public void finalizeTour() {
 
-      // reset speed at first position
-      if (_allTimeData.size() > 0) {
-         _allTimeData.get(0).speed = Float.MIN_VALUE;
-      }
-
 // disabled, this is annoying
 //    tourData.setTourTitle(getTourTitle());
 //    tourData.setTourDescription(getTourDescription());
@@ -116,11 +116,11 @@ public class FitData {
       _tourData.setDeviceTimeInterval((short) -1);
 
       long recordStartTime;
-      if (_allTimeData.size() > 0) {
+      if (_timeSeriesBuilder.size() > 0) {
 
          // this is the normal case
 
-         recordStartTime = _allTimeData.get(0).absoluteTime;
+         recordStartTime = _timeSeriesBuilder.getAbsoluteTime(0);
 
       } else if (_sessionStartTime != null) {
 
@@ -162,7 +162,7 @@ public class FitData {
 
       _tourData.setTourStartTime(zonedStartTime);
 
-      _tourData.createTimeSeries(_allTimeData, false);
+      _tourData.createTimeSeries(_timeSeriesBuilder, false);
 
       // after all data are added, the tour id can be created
       final String uniqueId = _fitDataReader.createUniqueId(_tourData, Util.UNIQUE_ID_SUFFIX_GARMIN_FIT);
@@ -381,10 +381,6 @@ public class FitData {
       tourData.setTourMarkers(tourTourMarkers);
    }
 
-   public List<TimeData> getAllTimeData() {
-      return _allTimeData;
-   }
-
    public TimeData getCurrent_TimeData() {
 
       if (_current_TimeData == null) {
@@ -423,6 +419,14 @@ public class FitData {
       return _allGearData;
    }
 
+   /**
+    * @return Returns the power data source of the first time slice which has a power data source
+    *         or <code>null</code> when not available
+    */
+   public String getPowerDataSource() {
+      return _powerDataSource;
+   }
+
    public List<SwimData> getSwimData() {
       return _allSwimData;
    }
@@ -431,6 +435,13 @@ public class FitData {
       return _timeDiffMS;
    }
 
+   /**
+    * @return Returns the time slices of all records
+    */
+   public TimeSeriesBuilder getTimeSeriesBuilder() {
+      return _timeSeriesBuilder;
+   }
+
    public TourData getTourData() {
       return _tourData;
    }
@@ -466,66 +477,33 @@ public class FitData {
          return;
       }
 
-      boolean useThisTimeSlice = true;
-
-      if (_previous_TimeData != null) {
-
-         final long prevTime = _previous_TimeData.absoluteTime;
-         final long currentTime = _current_TimeData.absoluteTime;
-
-         if (prevTime == currentTime) {
-
-            /*
-             * Ignore and merge duplicated records. The device Bryton 210 creates duplicated
-             * entries,
-             * to have valid data for this device, they must be merged.
-             */
-
-            useThisTimeSlice = false;
-
-            if (_previous_TimeData.absoluteAltitude == Float.MIN_VALUE) {
-               _previous_TimeData.absoluteAltitude = _current_TimeData.absoluteAltitude;
-            }
-
-            if (_previous_TimeData.absoluteDistance == Float.MIN_VALUE) {
-               _previous_TimeData.absoluteDistance = _current_TimeData.absoluteDistance;
-            }
-
-            if (_previous_TimeData.cadence == Float.MIN_VALUE) {
-               _previous_TimeData.cadence = _current_TimeData.cadence;
-            }
-
-            if (_previous_TimeData.latitude == Double.MIN_VALUE) {
-               _previous_TimeData.latitude = _current_TimeData.latitude;
-            }
-
-            if (_previous_TimeData.longitude == Double.MIN_VALUE) {
-               _previous_TimeData.longitude = _current_TimeData.longitude;
-            }
+      final int numTimeSlices = _timeSeriesBuilder.size();
+      final long currentTime = _current_TimeData.absoluteTime;
 
-            if (_previous_TimeData.power == Float.MIN_VALUE) {
-               _previous_TimeData.power = _current_TimeData.power;
-            }
+      /*
+       * Ignore and merge duplicated records. The device Bryton 210 creates duplicated entries, to
+       * have valid data for this device, they must be merged into the previous time slice.
+       */
+      final boolean isMergeTimeSlice = numTimeSlices > 0
+            && _timeSeriesBuilder.getAbsoluteTime(numTimeSlices - 1) == currentTime;
 
-            if (_previous_TimeData.pulse == Float.MIN_VALUE) {
-               _previous_TimeData.pulse = _current_TimeData.pulse;
-            }
+      if (isMergeTimeSlice == false) {
 
-            if (_previous_TimeData.speed == Float.MIN_VALUE) {
-               _previous_TimeData.speed = _current_TimeData.speed;
-            }
+         _timeSeriesBuilder.addTimeSlice(currentTime);
 
-            if (_previous_TimeData.temperature == Float.MIN_VALUE) {
-               _previous_TimeData.temperature = _current_TimeData.temperature;
-            }
+         if (_powerDataSource == null) {
+            _powerDataSource = _current_TimeData.powerDataSource;
          }
       }
 
-      if (useThisTimeSlice) {
-         _allTimeData.add(_current_TimeData);
+      if (_timeSeriesBuilder.size() == 1) {
+
+         // reset speed at first position
+         _current_TimeData.speed = Float.MIN_VALUE;
       }
 
-      _previous_TimeData = _current_TimeData;
+      _timeSeriesBuilder.setTimeData(_current_TimeData, isMergeTimeSlice);
+
       _current_TimeData = null;
    }
 
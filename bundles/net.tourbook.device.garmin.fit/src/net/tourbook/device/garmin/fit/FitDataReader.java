@@ -103,6 +103,11 @@ public class FitDataReader extends TourbookDevice {
       return 0;
    }
 
+   @Override
+   public boolean isParallelImportSupported() {
+      return true;
+   }
+
    private void onMessage_Mesg(final Mesg mesg) {
 
       long garminTimestamp = 0;
@@ -19,9 +19,7 @@ import com.garmin.fit.DateTime;
 import com.garmin.fit.HrMesg;
 import com.garmin.fit.HrMesgListener;
 
-import java.util.List;
-
-import net.tourbook.data.TimeData;
+import net.tourbook.data.TimeSeriesBuilder;
 import net.tourbook.device.garmin.fit.FitData;
 import net.tourbook.tour.TourLogManager;
 
@@ -103,7 +101,7 @@ public class MesgListener_Hr extends AbstractMesgListener implements HrMesgListe
          return;
       }
 
-      final List<TimeData> allTimeData = fitData.getAllTimeData();
+      final TimeSeriesBuilder timeSeriesBuilder = fitData.getTimeSeriesBuilder();
 
       /*
        * Get time diff between tour and hr recording. It is complicated because it also contains the
@@ -112,7 +110,7 @@ public class MesgListener_Hr extends AbstractMesgListener implements HrMesgListe
        */
       if (hrTime != null && fitData.getTimeDiffMS() == Long.MIN_VALUE && allEventTime.length > 0) {
 
-         final long firstTourTimeMS = allTimeData.get(0).absoluteTime;
+         final long firstTourTimeMS = timeSeriesBuilder.getAbsoluteTime(0);
          final long firstHrTimestampMS = hrTime.getDate().getTime();
 
          final long hr2TourTimeDiffMS = firstTourTimeMS - firstHrTimestampMS;
@@ -135,11 +133,11 @@ public class MesgListener_Hr extends AbstractMesgListener implements HrMesgListe
          final long sliceJavaTime = sliceGarminTimeMS + timeDiffMS;
 
          // merge HR data into an already existing time data
-         for (final TimeData timeData : allTimeData) {
+         for (int serieIndex = 0; serieIndex < timeSeriesBuilder.size(); serieIndex++) {
 
-            if (timeData.absoluteTime == sliceJavaTime) {
+            if (timeSeriesBuilder.getAbsoluteTime(serieIndex) == sliceJavaTime) {
 
-               timeData.pulse = filteredBpm;
+               timeSeriesBuilder.setPulse(serieIndex, filteredBpm);
                isTimeAvailable = true;
 
 //             System.out.println(String.format(""
@@ -24,7 +24,6 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 
 import net.tourbook.common.time.TimeTools;
-import net.tourbook.data.TimeData;
 import net.tourbook.data.TourData;
 import net.tourbook.device.garmin.fit.FitData;
 import net.tourbook.device.garmin.fit.FitDataReaderException;
@@ -120,16 +119,20 @@ public class MesgListener_Session extends AbstractMesgListener implements Sessio
       // Looking if the power was retrieved from the developer fields
       if (mesg.getMaxPower() == null && mesg.getAvgPower() == null) {
          final ArrayList<Float> powerDataList = new ArrayList<>();
-         for (final TimeData timeData : fitData.getAllTimeData()) {
-            if (timeData.power != Float.MIN_VALUE) {
-               powerDataList.add(timeData.power);
-            }
+         final float[] allPowers = fitData.getTimeSeriesBuilder().getPower();
 
-            if (tourData.getPower_DataSource() == null && timeData.powerDataSource != null) {
-               tourData.setPower_DataSource(timeData.powerDataSource);
+         if (allPowers != null) {
+            for (final float power : allPowers) {
+               if (power != Float.MIN_VALUE) {
+                  powerDataList.add(power);
+               }
             }
          }
 
+         if (tourData.getPower_DataSource() == null && fitData.getPowerDataSource() != null) {
+            tourData.setPower_DataSource(fitData.getPowerDataSource());
+         }
+
          if (powerDataList.size() > 0) {
 
             fitData.isComputeAveragePower = true;
@@ -63,6 +63,11 @@ public class GarminDeviceDataReader extends TourbookDevice {
 		return -1;
 	}
 
+	@Override
+	public boolean isParallelImportSupported() {
+		return true;
+	}
+
 	@Override
 	public boolean processDeviceData(	final String importFilePath,
 										final DeviceData deviceData,
@@ -82,10 +82,6 @@ public class GarminSAXHandler extends DefaultHandler {
    private static final String           SENSOR_STATE_PRESENT        = "Present";                                                    //$NON-NLS-1$
    private static final String           ATTR_VALUE_SPORT            = "Sport";                                                      //$NON-NLS-1$
 
-   private static final SimpleDateFormat TIME_FORMAT;
-   private static final SimpleDateFormat TIME_FORMAT_SSSZ;
-   private static final SimpleDateFormat TIME_FORMAT_RFC822;
-
    private static final int              DEFAULT_YEAR                = 2007;
    private static final int              DEFAULT_MONTH               = 4;
    private static final int              DEFAULT_DAY                 = 1;
@@ -98,14 +94,20 @@ public class GarminSAXHandler extends DefaultHandler {
             .of(DEFAULT_YEAR, DEFAULT_MONTH, DEFAULT_DAY, 0, 0, 0, 0, TimeTools.getDefaultTimeZone())
             .toInstant()
             .toEpochMilli();
+   }
 
-      TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'"); //$NON-NLS-1$
-      TIME_FORMAT_SSSZ = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"); //$NON-NLS-1$
-      TIME_FORMAT_RFC822 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ"); //$NON-NLS-1$
-
-      TIME_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
-      TIME_FORMAT_SSSZ.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
-      TIME_FORMAT_RFC822.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
+   /**
+    * {@link SimpleDateFormat} is not thread safe, each handler has it's own instances because files
+    * can be imported concurrently
+    */
+   private final SimpleDateFormat  _timeFormat        = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");     //$NON-NLS-1$
+   private final SimpleDateFormat  _timeFormat_SSSZ   = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"); //$NON-NLS-1$
+   private final SimpleDateFormat  _timeFormat_RFC822 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");       //$NON-NLS-1$
+
+   {
+      _timeFormat.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
+      _timeFormat_SSSZ.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
+      _timeFormat_RFC822.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
    }
 
    private boolean                 _importState_IsIgnoreSpeedValues;
@@ -881,13 +883,13 @@ public class GarminSAXHandler extends DefaultHandler {
             _currentTime = ZonedDateTime.parse(timeString).toInstant().toEpochMilli();
          } catch (final Exception e0) {
             try {
-               _currentTime = TIME_FORMAT.parse(timeString).getTime();
+               _currentTime = _timeFormat.parse(timeString).getTime();
             } catch (final ParseException e1) {
                try {
-                  _currentTime = TIME_FORMAT_SSSZ.parse(timeString).getTime();
+                  _currentTime = _timeFormat_SSSZ.parse(timeString).getTime();
                } catch (final ParseException e2) {
                   try {
-                     _currentTime = TIME_FORMAT_RFC822.parse(timeString).getTime();
+                     _currentTime = _timeFormat_RFC822.parse(timeString).getTime();
                   } catch (final ParseException e3) {
                      
                      TourLogManager.logError(e3.getMessage() + " in " + _importFilePath); //$NON-NLS-1$
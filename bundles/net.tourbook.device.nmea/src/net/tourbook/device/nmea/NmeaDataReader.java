@@ -27,7 +27,7 @@ import java.util.HashMap;
 import net.tourbook.common.util.MtMath;
 import net.tourbook.common.util.StatusUtil;
 import net.tourbook.common.util.Util;
-import net.tourbook.data.TimeData;
+import net.tourbook.data.TimeSeriesBuilder;
 import net.tourbook.data.TourData;
 import net.tourbook.importdata.DeviceData;
 import net.tourbook.importdata.SerialParameters;
@@ -43,8 +43,9 @@ public class NmeaDataReader extends TourbookDevice {
 
    private static final Calendar   _calendar     = GregorianCalendar.getInstance();
 
-   private ArrayList<TimeData>     _timeDataList = new ArrayList<>();
-   private TimeData                _prevTimeData;
+   private TimeSeriesBuilder       _timeSeriesBuilder;
+   private double                  _prevLatitude;
+   private double                  _prevLongitude;
 
    private float                   _absoluteDistance;
 
@@ -127,37 +128,41 @@ public class NmeaDataReader extends TourbookDevice {
       }
 //   End     of O. Budischewski, 2008.03.19
 
-      // create new time item
-      final TimeData timeData = new TimeData();
-      _timeDataList.add(timeData);
+      long absoluteTime = nmea.getFixtime() * 1000;
 
-      timeData.latitude = latitude == 90.0 ? Double.MIN_VALUE : latitude;
-      timeData.longitude = longitude == 180.0 ? Double.MIN_VALUE : longitude;
+      // set virtual time if time is not available
+      if (absoluteTime == Long.MIN_VALUE) {
+         _calendar.set(2000, 0, 1, 0, 0, 0);
+         absoluteTime = _calendar.getTimeInMillis();
+      }
+
+      final boolean isFirstTimeSlice = _timeSeriesBuilder.size() == 0;
+
+      // create new time slice
+      _timeSeriesBuilder.addTimeSlice(absoluteTime);
 
-      timeData.absoluteTime = nmea.getFixtime() * 1000;
-      timeData.absoluteAltitude = (int) nmea.getAltitudeMeters();
+      final double timeSliceLatitude = latitude == 90.0 ? Double.MIN_VALUE : latitude;
+      final double timeSliceLongitude = longitude == 180.0 ? Double.MIN_VALUE : longitude;
+
+      _timeSeriesBuilder.setLatLon(timeSliceLatitude, timeSliceLongitude);
+      _timeSeriesBuilder.setAbsoluteAltitude((int) nmea.getAltitudeMeters());
 
       // calculate distance
-      if (_prevTimeData == null) {
+      if (isFirstTimeSlice) {
          // first time data
-         timeData.absoluteDistance = 0;
+         _timeSeriesBuilder.setAbsoluteDistance(0);
       } else {
          _absoluteDistance += MtMath.distanceVincenty(
-               _prevTimeData.latitude,
-               _prevTimeData.longitude,
+               _prevLatitude,
+               _prevLongitude,
                latitude,
                longitude);
 
-         timeData.absoluteDistance = _absoluteDistance;
-      }
-
-      // set virtual time if time is not available
-      if (timeData.absoluteTime == Long.MIN_VALUE) {
-         _calendar.set(2000, 0, 1, 0, 0, 0);
-         timeData.absoluteTime = _calendar.getTimeInMillis();
+         _timeSeriesBuilder.setAbsoluteDistance(_absoluteDistance);
       }
 
-      _prevTimeData = timeData;
+      _prevLatitude = timeSliceLatitude;
+      _prevLongitude = timeSliceLongitude;
    }
 
    @Override
@@ -177,9 +182,8 @@ public class NmeaDataReader extends TourbookDevice {
       _importFilePath = importFilePath;
       _alreadyImportedTours = alreadyImportedTours;
       _newlyImportedTours = newlyImportedTours;
-      _prevTimeData = null;
       _isNullCoordinates = false;
-      _timeDataList.clear();
+      _timeSeriesBuilder = new TimeSeriesBuilder();
 //   End of O. Budischewski, 2008.03.19
 
       // if we are so far, we can assume that the file actually exists,
@@ -278,7 +282,7 @@ public class NmeaDataReader extends TourbookDevice {
 
    private boolean setTourData() {
 
-      if (_timeDataList == null || _timeDataList.size() == 0) {
+      if (_timeSeriesBuilder == null || _timeSeriesBuilder.size() == 0) {
          return false;
       }
 
@@ -288,7 +292,7 @@ public class NmeaDataReader extends TourbookDevice {
       /*
        * set tour start date/time
        */
-      _calendar.setTimeInMillis(_timeDataList.get(0).absoluteTime);
+      _calendar.setTimeInMillis(_timeSeriesBuilder.getAbsoluteTime(0));
 
       tourData.setTourStartTime(
             _calendar.get(Calendar.YEAR),
@@ -304,7 +308,7 @@ public class NmeaDataReader extends TourbookDevice {
       tourData.setDeviceId(deviceId);
       tourData.setDeviceName(visibleName);
 
-      tourData.createTimeSeries(_timeDataList, true);
+      tourData.createTimeSeries(_timeSeriesBuilder, true);
 
       // after all data are added, the tour id can be created
       final String uniqueId = createUniqueId(tourData, Util.UNIQUE_ID_SUFFIX_NMEA);
@@ -164,6 +164,11 @@ public class GPXDeviceDataReader extends TourbookDevice {
 		return false;
 	}
 
+	@Override
+	public boolean isParallelImportSupported() {
+		return true;
+	}
+
 	@Override
 	public boolean processDeviceData(	final String importFilePath,
 										final DeviceData deviceData,
@@ -21,8 +21,6 @@ import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
@@ -33,6 +31,7 @@ import net.tourbook.common.time.TimeTools;
 import net.tourbook.common.util.MtMath;
 import net.tourbook.common.util.Util;
 import net.tourbook.data.TimeData;
+import net.tourbook.data.TimeSeriesBuilder;
 import net.tourbook.data.TourData;
 import net.tourbook.data.TourMarker;
 import net.tourbook.data.TourTag;
@@ -208,17 +207,10 @@ public class GPX_SAX_Handler extends DefaultHandler {
 
 // SET_FORMATTING_ON
 
-   private static final SimpleDateFormat GPX_TIME_FORMAT;
-   private static final SimpleDateFormat GPX_TIME_FORMAT_SSSZ;
-   private static final SimpleDateFormat GPX_TIME_FORMAT_RFC822;
    private static final long             DEFAULT_DATE_TIME;
 
    static {
 
-      GPX_TIME_FORMAT_RFC822 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ"); //$NON-NLS-1$
-      GPX_TIME_FORMAT_SSSZ = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"); //$NON-NLS-1$
-      GPX_TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'"); //$NON-NLS-1$
-
       DEFAULT_DATE_TIME = ZonedDateTime
             .of(2000, 1, 1, 0, 0, 0, 0, TimeTools.getDefaultTimeZone())
             .toInstant()
@@ -273,7 +265,7 @@ public class GPX_SAX_Handler extends DefaultHandler {
    private boolean                       _isInWpt_UrlAddress;
    private boolean                       _isInWpt_UrlText;
 
-   private final ArrayList<TimeData>     _timeDataList        = new ArrayList<>();
+   private TimeSeriesBuilder             _timeSeriesBuilder   = new TimeSeriesBuilder();
    private TimeData                      _timeSlice;
    private TimeData                      _prevTimeSlice;
    private String                        _trkDesc;
@@ -315,10 +307,18 @@ public class GPX_SAX_Handler extends DefaultHandler {
     */
    private boolean                       _isMTData;
 
+   /**
+    * {@link SimpleDateFormat} is not thread safe, each handler has it's own instances because files
+    * can be imported concurrently
+    */
+   private final SimpleDateFormat        _gpxTimeFormat              = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");     //$NON-NLS-1$
+   private final SimpleDateFormat        _gpxTimeFormat_SSSZ         = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"); //$NON-NLS-1$
+   private final SimpleDateFormat        _gpxTimeFormat_RFC822       = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");       //$NON-NLS-1$
+
    {
-      GPX_TIME_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
-      GPX_TIME_FORMAT_SSSZ.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
-      GPX_TIME_FORMAT_RFC822.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
+      _gpxTimeFormat.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
+      _gpxTimeFormat_SSSZ.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
+      _gpxTimeFormat_RFC822.setTimeZone(TimeZone.getTimeZone("UTC")); //$NON-NLS-1$
    }
 
    private class GPXDataLap {
@@ -707,13 +707,13 @@ public class GPX_SAX_Handler extends DefaultHandler {
                _timeSlice.absoluteTime = ZonedDateTime.parse(charData).toInstant().toEpochMilli();
             } catch (final Exception e0) {
                try {
-                  _timeSlice.absoluteTime = GPX_TIME_FORMAT.parse(charData).getTime();
+                  _timeSlice.absoluteTime = _gpxTimeFormat.parse(charData).getTime();
                } catch (final ParseException e1) {
                   try {
-                     _timeSlice.absoluteTime = GPX_TIME_FORMAT_SSSZ.parse(charData).getTime();
+                     _timeSlice.absoluteTime = _gpxTimeFormat_SSSZ.parse(charData).getTime();
                   } catch (final ParseException e2) {
                      try {
-                        _timeSlice.absoluteTime = GPX_TIME_FORMAT_RFC822.parse(charData).getTime();
+                        _timeSlice.absoluteTime = _gpxTimeFormat_RFC822.parse(charData).getTime();
                      } catch (final ParseException e3) {
 
                         _isError = true;
@@ -845,13 +845,13 @@ public class GPX_SAX_Handler extends DefaultHandler {
                _gpxDataLap.absoluteTime = ZonedDateTime.parse(charData).toInstant().toEpochMilli();
             } catch (final Exception e0) {
                try {
-                  _gpxDataLap.absoluteTime = GPX_TIME_FORMAT.parse(charData).getTime();
+                  _gpxDataLap.absoluteTime = _gpxTimeFormat.parse(charData).getTime();
                } catch (final ParseException e1) {
                   try {
-                     _gpxDataLap.absoluteTime = GPX_TIME_FORMAT_SSSZ.parse(charData).getTime();
+                     _gpxDataLap.absoluteTime = _gpxTimeFormat_SSSZ.parse(charData).getTime();
                   } catch (final ParseException e2) {
                      try {
-                        _gpxDataLap.absoluteTime = GPX_TIME_FORMAT_RFC822.parse(charData).getTime();
+                        _gpxDataLap.absoluteTime = _gpxTimeFormat_RFC822.parse(charData).getTime();
                      } catch (final ParseException e3) {
 
                         _isError = true;
@@ -895,13 +895,13 @@ public class GPX_SAX_Handler extends DefaultHandler {
             _wayPoint.setTime(ZonedDateTime.parse(charData).toInstant().toEpochMilli());
          } catch (final Exception e0) {
             try {
-               _wayPoint.setTime(GPX_TIME_FORMAT.parse(charData).getTime());
+               _wayPoint.setTime(_gpxTimeFormat.parse(charData).getTime());
             } catch (final ParseException e1) {
                try {
-                  _wayPoint.setTime(GPX_TIME_FORMAT_SSSZ.parse(charData).getTime());
+                  _wayPoint.setTime(_gpxTimeFormat_SSSZ.parse(charData).getTime());
                } catch (final ParseException e2) {
                   try {
-                     _wayPoint.setTime(GPX_TIME_FORMAT_RFC822.parse(charData).getTime());
+                     _wayPoint.setTime(_gpxTimeFormat_RFC822.parse(charData).getTime());
                   } catch (final ParseException e3) {
 
                      _isError = true;
@@ -1023,13 +1023,13 @@ public class GPX_SAX_Handler extends DefaultHandler {
 
    private void finalizeTour() {
 
-      if (_timeDataList.size() == 0) {
+      if (_timeSeriesBuilder.size() == 0) {
          // there is not data
 // disabled to imports tour without tracks
 //			return;
       }
 
-      // insert Laps into _timeDataList
+      // insert Laps into the time slices
       insertLapData();
 
       // create data object for each tour
@@ -1045,12 +1045,11 @@ public class GPX_SAX_Handler extends DefaultHandler {
          _tourData.setTourDescription(_trkDesc);
       }
 
-      if (_timeDataList.size() > 0) {
+      if (_timeSeriesBuilder.size() > 0) {
 
          // set tour start date/time
 
-         final TimeData firstTimeData = _timeDataList.get(0);
-         final Instant tourStartInstant = Instant.ofEpochMilli(firstTimeData.absoluteTime);
+         final Instant tourStartInstant = Instant.ofEpochMilli(_timeSeriesBuilder.getAbsoluteTime(0));
 
          ZonedDateTime dtTourStart;
 
@@ -1076,7 +1075,7 @@ public class GPX_SAX_Handler extends DefaultHandler {
       _tourData.setDeviceId(_device.deviceId);
       _tourData.setDeviceName(_device.visibleName);
 
-      _tourData.createTimeSeries(_timeDataList, true);
+      _tourData.createTimeSeries(_timeSeriesBuilder, true);
 
       // after all data are added, the tour id can be created
       final String uniqueId = _device.createUniqueId(_tourData, Util.UNIQUE_ID_SUFFIX_GPX);
@@ -1143,7 +1142,11 @@ public class GPX_SAX_Handler extends DefaultHandler {
          TourTag tourTag = TourDatabase.findTourTag(tagName, dbTags);
 
          if (tourTag == null) {
-            tourTag = TourDatabase.findTourTag(tagName, tempTags);
+
+            // files can be imported concurrently
+            synchronized (tempTags) {
+               tourTag = TourDatabase.findTourTag(tagName, tempTags);
+            }
          }
 
          if (tourTag == null) {
@@ -1168,6 +1171,14 @@ public class GPX_SAX_Handler extends DefaultHandler {
 
       final ArrayList<TourType> tempTourTypes = RawDataManager.getInstance().getTempTourTypes();
 
+      // files can be imported concurrently, a new tour type must be created only once
+      synchronized (tempTourTypes) {
+         finalizeTour_TourType_Temp(tempTourTypes, tourType);
+      }
+   }
+
+   private void finalizeTour_TourType_Temp(final ArrayList<TourType> tempTourTypes, TourType tourType) {
+
       if (tourType == null) {
          tourType = TourDatabase.findTourType(_tourTypeName, tempTourTypes);
       }
@@ -1203,8 +1214,6 @@ public class GPX_SAX_Handler extends DefaultHandler {
          return;
       }
 
-      _timeDataList.add(_timeSlice);
-
       /*
        * calculate distance
        */
@@ -1257,6 +1266,9 @@ public class GPX_SAX_Handler extends DefaultHandler {
          _timeSlice.markerLabel = markerLabel;
       }
 
+      _timeSeriesBuilder.addTimeSlice(_timeSlice.absoluteTime);
+      _timeSeriesBuilder.setTimeData(_timeSlice, false);
+
       _prevTimeSlice = _timeSlice;
    }
 
@@ -1397,7 +1409,7 @@ public class GPX_SAX_Handler extends DefaultHandler {
          _tourData = new TourData();
       }
 
-      _timeDataList.clear();
+      _timeSeriesBuilder = new TimeSeriesBuilder();
 
       _allImportedTagNames.clear();
       _tourTypeName = null;
@@ -1417,54 +1429,33 @@ public class GPX_SAX_Handler extends DefaultHandler {
 
       for (final GPXDataLap lap : _gpxDataList) {
 
-         boolean found = false;
          absoluteDistance += lap.distance;
 
-         for (final TimeData timeData : _timeDataList) {
+         final String markerLabel = NLS.bind(Messages.Marker_Label_Lap, Integer.parseInt(lap.index) + 1);
+         final int serieIndex = _timeSeriesBuilder.getSerieIndex(lap.latitude, lap.longitude);
 
-            if ((lap.latitude == timeData.latitude) && (lap.longitude == timeData.longitude)) {
+         if (serieIndex != -1) {
 
-               /* timeslice already exists */
-               timeData.marker = 1;
-               timeData.markerLabel = NLS.bind(Messages.Marker_Label_Lap, Integer.parseInt(lap.index) + 1);
+            /* timeslice already exists */
+            _timeSeriesBuilder.setMarker(serieIndex, markerLabel);
+
+         } else {
+
+            /* append new timeSlice with Lap Data */
+            _timeSeriesBuilder.addTimeSlice(lap.absoluteTime + Integer.parseInt(lap.elapsedTime) * 1000);
+            _timeSeriesBuilder.setLatLon(lap.latitude, lap.longitude);
+            _timeSeriesBuilder.setMarker(markerLabel);
+            _timeSeriesBuilder.setAbsoluteDistance(absoluteDistance);
 
-               found = true;
-               break;
-            }
-         }
-         if (!found) {
-            /* create new timeSlice with Lap Data */
-            final TimeData timeSlice = new TimeData();
-            timeSlice.absoluteTime = lap.absoluteTime + Integer.parseInt(lap.elapsedTime) * 1000;
-            timeSlice.latitude = lap.latitude;
-            timeSlice.longitude = lap.longitude;
-            timeSlice.marker = 1;
-            timeSlice.markerLabel = NLS.bind(Messages.Marker_Label_Lap, Integer.parseInt(lap.index) + 1);
-            timeSlice.absoluteDistance = absoluteDistance;
-
-            _timeDataList.add(timeSlice);
             needsSort = true;
          }
-
       }
 
       if (needsSort) {
-         /* sort the _timeDataList */
-         Collections.sort(_timeDataList, new Comparator<TimeData>() {
-            @Override
-            public int compare(final TimeData td1, final TimeData td2) {
-               if (td1.absoluteTime < td2.absoluteTime) {
-                  return -1;
-               }
-               if (td1.absoluteTime > td2.absoluteTime) {
-                  return 1;
-               }
 
-               return 0;
-            }
-         });
+         /* sort the time slices with an index, the appended laps are moved to their time */
+         _timeSeriesBuilder.sortByTime();
       }
-
    }
 
    /**
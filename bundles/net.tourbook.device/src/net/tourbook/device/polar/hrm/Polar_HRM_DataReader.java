@@ -29,7 +29,7 @@ import java.util.StringTokenizer;
 import net.tourbook.common.time.TimeTools;
 import net.tourbook.common.util.StatusUtil;
 import net.tourbook.common.util.Util;
-import net.tourbook.data.TimeData;
+import net.tourbook.data.TimeSeriesBuilder;
 import net.tourbook.data.TourData;
 import net.tourbook.data.TourMarker;
 import net.tourbook.importdata.DeviceData;
@@ -479,14 +479,13 @@ public class Polar_HRM_DataReader extends TourbookDevice {
 			tourData.setStartDistance(_sectionTrip.odometer == Integer.MIN_VALUE ? 0 : _sectionTrip.odometer);
 		}
 
-		final ArrayList<TimeData> timeSeries = createTourData_10_CreateTimeSeries(dtTourStart);
-		createTourData_20_SetTemperature(tourData, timeSeries);
+		final TimeSeriesBuilder timeSeriesBuilder = createTourData_10_CreateTimeSeries(dtTourStart);
 
 		tourData.setDeviceId(deviceId);
 		tourData.setDeviceName(_sectionParams.monitorName);
 		tourData.setDeviceFirmwareVersion(Integer.toString(_hrmVersion));
 
-		tourData.createTimeSeries(timeSeries, true);
+		tourData.createTimeSeries(timeSeriesBuilder, true);
 
 		// after all data are added, the tour id can be created
 		final String uniqueId = createUniqueId(tourData, Util.UNIQUE_ID_SUFFIX_POLAR_HRM);
@@ -508,30 +507,31 @@ public class Polar_HRM_DataReader extends TourbookDevice {
 	}
 
 	/**
-	 * Converts {@link HRDataSlice} into {@link TimeData}
+	 * Converts {@link HRDataSlice} into the columns of a {@link TimeSeriesBuilder}, the temperature
+	 * of a lap is set into all time slices of the lap.
 	 * 
 	 * @param dtTourStart
 	 * @return
 	 */
-	private ArrayList<TimeData> createTourData_10_CreateTimeSeries(final ZonedDateTime dtTourStart) {
+	private TimeSeriesBuilder createTourData_10_CreateTimeSeries(final ZonedDateTime dtTourStart) {
 
 		final boolean isImperial = _sectionParams.isUSUnit;
 		final int sliceTimeInterval = _sectionParams.interval;
 
+		final long tourStartTime = dtTourStart.toInstant().toEpochMilli();
+
 		int relativeTime = 0;
 		float absoluteDistance = 0;
+		int lapIndex = 0;
 
-		final ArrayList<TimeData> timeDataList = new ArrayList<TimeData>();
+		final TimeSeriesBuilder timeSeriesBuilder = new TimeSeriesBuilder(_sectionHRData.size());
 
 		for (final HRDataSlice hrSlice : _sectionHRData) {
 
-			final TimeData tourSlice = new TimeData();
-
-			tourSlice.relativeTime = relativeTime;
-			tourSlice.absoluteTime = dtTourStart.plusSeconds(relativeTime).toInstant().toEpochMilli();
+			timeSeriesBuilder.addTimeSlice(tourStartTime + relativeTime * 1000L);
 
 			if (hrSlice.pulse != Integer.MIN_VALUE) {
-				tourSlice.pulse = hrSlice.pulse;
+				timeSeriesBuilder.setPulse(hrSlice.pulse);
 			}
 
 			if (hrSlice.speed != Integer.MIN_VALUE) {
@@ -544,63 +544,42 @@ public class Polar_HRM_DataReader extends TourbookDevice {
 
 				absoluteDistance += distanceDiff;
 
-				tourSlice.absoluteDistance = absoluteDistance;
+				timeSeriesBuilder.setAbsoluteDistance(absoluteDistance);
 			}
 
 			if (hrSlice.altitude != Integer.MIN_VALUE) {
-				tourSlice.absoluteAltitude = hrSlice.altitude / (isImperial ? UI.UNIT_FOOT : 1);
+				timeSeriesBuilder.setAbsoluteAltitude(hrSlice.altitude / (isImperial ? UI.UNIT_FOOT : 1));
 			}
 
 			if (hrSlice.cadence != Integer.MIN_VALUE) {
-				tourSlice.cadence = hrSlice.cadence;
+				timeSeriesBuilder.setCadence(hrSlice.cadence);
 			}
 
 			if (hrSlice.power != Integer.MIN_VALUE) {
-				tourSlice.power = hrSlice.power;
+				timeSeriesBuilder.setPower(hrSlice.power);
 			}
 
-			timeDataList.add(tourSlice);
-
-			relativeTime += sliceTimeInterval;
-		}
-
-		return timeDataList;
-	}
-
-	private void createTourData_20_SetTemperature(final TourData tourData, final ArrayList<TimeData> timeSeries) {
-
-		if (_sectionLapData.size() == 0) {
-			return;
-		}
-
-		final boolean isImperial = _sectionParams.isUSUnit;
-
-		final TimeData[] timeSlices = timeSeries.toArray(new TimeData[timeSeries.size()]);
-		int serieIndex = 0;
-
-		for (final LapData lapData : _sectionLapData) {
-
-			final int lapRelativeTime = lapData.time;
-
-			for (; serieIndex < timeSlices.length; serieIndex++) {
-
-				final TimeData currentTimeSlice = timeSlices[serieIndex];
+			// check if time is within current lap
+			while (lapIndex < _sectionLapData.size() && relativeTime > _sectionLapData.get(lapIndex).time) {
+				lapIndex++;
+			}
 
-				// check if time is within current lap
-				if (currentTimeSlice.relativeTime > lapRelativeTime) {
-					break;
-				}
+			if (lapIndex < _sectionLapData.size()) {
 
 				// temperature is scaled by 10 in the raw data
-				float metricTemperature = (float) lapData.temperature / 10;
+				float metricTemperature = (float) _sectionLapData.get(lapIndex).temperature / 10;
 
 				if (isImperial) {
 					metricTemperature = metricTemperature * UI.UNIT_FAHRENHEIT_MULTI + UI.UNIT_FAHRENHEIT_ADD;
 				}
 
-				currentTimeSlice.temperature = metricTemperature;
+				timeSeriesBuilder.setTemperature(metricTemperature);
 			}
+
+			relativeTime += sliceTimeInterval;
 		}
+
+		return timeSeriesBuilder;
 	}
 
 	/**
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ * 
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.device.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StreamCorruptedException;
+
+import net.tourbook.data.SerieData;
+import net.tourbook.data.SerieDataPacked;
+
+import org.junit.Test;
+
+/**
+ * Encode/decode round trip of the packed serie data format which is saved in the database.
+ * <p>
+ * Run as "JUnit Plug-in Test", as application "[No Application] - Headless Mode" (Main Tab)
+ */
+public class SerieDataPackedTest {
+
+	private static void assertSerieData(final SerieData expected, final SerieData actual) {
+
+		assertArrayEquals(expected.timeSerie, actual.timeSerie);
+
+		assertArrayEquals(expected.distanceSerie20, actual.distanceSerie20, 0);
+		assertArrayEquals(expected.altitudeSerie20, actual.altitudeSerie20, 0);
+		assertArrayEquals(expected.pulseSerie20, actual.pulseSerie20, 0);
+		assertArrayEquals(expected.temperatureSerie20, actual.temperatureSerie20, 0);
+
+		// lazy columns
+		assertArrayEquals(expected.cadenceSerie20, actual.getCadenceSerie20(), 0);
+		assertArrayEquals(expected.speedSerie20, actual.getSpeedSerie20(), 0);
+		assertArrayEquals(expected.powerSerie20, actual.getPowerSerie20(), 0);
+
+		assertArrayEquals(expected.gears, actual.gears);
+		assertArrayEquals(expected.latitude, actual.latitude, 0);
+		assertArrayEquals(expected.longitude, actual.longitude, 0);
+		assertArrayEquals(expected.pulseTimes, actual.pulseTimes);
+
+		assertArrayEquals(expected.runDyn_StanceTime, actual.runDyn_StanceTime);
+		assertArrayEquals(expected.runDyn_StanceTimeBalance, actual.runDyn_StanceTimeBalance);
+		assertArrayEquals(expected.runDyn_StepLength, actual.runDyn_StepLength);
+		assertArrayEquals(expected.runDyn_VerticalOscillation, actual.runDyn_VerticalOscillation);
+		assertArrayEquals(expected.runDyn_VerticalRatio, actual.runDyn_VerticalRatio);
+
+		assertArrayEquals(expected.swim_LengthType, actual.swim_LengthType);
+		assertArrayEquals(expected.swim_Cadence, actual.swim_Cadence);
+		assertArrayEquals(expected.swim_Strokes, actual.swim_Strokes);
+		assertArrayEquals(expected.swim_StrokeStyle, actual.swim_StrokeStyle);
+		assertArrayEquals(expected.swim_Time, actual.swim_Time);
+
+		assertArrayEquals(expected.visiblePoints_Surfing, actual.visiblePoints_Surfing);
+
+		assertArrayEquals(expected.distanceSerie, actual.distanceSerie);
+		assertArrayEquals(expected.altitudeSerie, actual.altitudeSerie);
+		assertArrayEquals(expected.deviceMarker, actual.deviceMarker);
+	}
+
+	private static SerieData roundTrip(final SerieData serieData) throws Exception {
+		return SerieDataPacked.deserialize(SerieDataPacked.serialize(serieData));
+	}
+
+	/**
+	 * A corrupted packed length must not allocate the declared length.
+	 */
+	@Test
+	public void testCorruptedLength() throws Exception {
+
+		final byte[] blob = SerieDataPacked.serialize(new SerieData());
+
+		// packed data of an empty serie: format version 1, packed length 1, column end 0
+		final byte[] packedData = { 1, 0, 0, 0, 1, 0 };
+
+		int packedIndex = -1;
+		for (int blobIndex = 0; blobIndex <= blob.length - packedData.length; blobIndex++) {
+
+			boolean isEqual = true;
+			for (int dataIndex = 0; dataIndex < packedData.length && isEqual; dataIndex++) {
+				isEqual = blob[blobIndex + dataIndex] == packedData[dataIndex];
+			}
+
+			if (isEqual) {
+				packedIndex = blobIndex;
+				break;
+			}
+		}
+
+		assertTrue(packedIndex >= 0);
+
+		// set packed length to Integer.MAX_VALUE
+		blob[packedIndex + 1] = 0x7f;
+		blob[packedIndex + 2] = (byte) 0xff;
+		blob[packedIndex + 3] = (byte) 0xff;
+		blob[packedIndex + 4] = (byte) 0xff;
+
+		try {
+
+			SerieDataPacked.deserialize(blob);
+
+			fail("Corrupted packed length is not detected"); //$NON-NLS-1$
+
+		} catch (final StreamCorruptedException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testEmptySeries() throws Exception {
+
+		final SerieData serieData = new SerieData();
+
+		serieData.timeSerie = new int[0];
+		serieData.distanceSerie20 = new float[0];
+		serieData.cadenceSerie20 = new float[0];
+		serieData.gears = new long[0];
+		serieData.latitude = new double[0];
+		serieData.longitude = new double[0];
+		serieData.runDyn_StanceTime = new short[0];
+		serieData.visiblePoints_Surfing = new boolean[0];
+
+		assertSerieData(serieData, roundTrip(serieData));
+	}
+
+	@Test
+	public void testLargeDeltas() throws Exception {
+
+		final SerieData serieData = new SerieData();
+
+		serieData.timeSerie = new int[] { 0, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, Integer.MAX_VALUE, -1 };
+
+		serieData.distanceSerie20 = new float[] { 0, Float.MAX_VALUE, -Float.MAX_VALUE, 0.1f, 1e-30f, 12345.678f };
+		serieData.altitudeSerie20 = new float[] { Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -8000, 8000, 1 };
+		serieData.speedSerie20 = new float[] { Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, -0f, 0, 1 };
+
+		serieData.gears = new long[] { Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, Long.MAX_VALUE, Long.MIN_VALUE };
+
+		serieData.latitude = new double[] { -90, 90, 47.1234567, -47.1234567, 0, 1e-7 };
+		serieData.longitude = new double[] { -180, 180, Math.PI, -Math.E, Double.MAX_VALUE, -Double.MAX_VALUE };
+
+		serieData.runDyn_StepLength = new short[] { Short.MIN_VALUE, Short.MAX_VALUE, 0, -1, Short.MAX_VALUE, 1 };
+
+		serieData.distanceSerie = new int[] { Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, 1, -1 };
+
+		assertSerieData(serieData, roundTrip(serieData));
+	}
+
+	/**
+	 * Many values are compressed with deflate.
+	 */
+	@Test
+	public void testLongSeries() throws Exception {
+
+		final int numValues = 86400;
+
+		final SerieData serieData = new SerieData();
+
+		serieData.timeSerie = new int[numValues];
+		serieData.altitudeSerie20 = new float[numValues];
+		serieData.pulseSerie20 = new float[numValues];
+		serieData.cadenceSerie20 = new float[numValues];
+		serieData.powerSerie20 = new float[numValues];
+		serieData.latitude = new double[numValues];
+		serieData.longitude = new double[numValues];
+		serieData.visiblePoints_Surfing = new boolean[numValues];
+
+		for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+
+			serieData.timeSerie[valueIndex] = valueIndex;
+			serieData.altitudeSerie20[valueIndex] = 500 + (float) Math.sin(valueIndex / 100.0) * 200;
+			serieData.pulseSerie20[valueIndex] = 120 + valueIndex % 40;
+			serieData.cadenceSerie20[valueIndex] = valueIndex % 3 == 0 ? Float.MIN_VALUE : 85.5f;
+			serieData.powerSerie20[valueIndex] = valueIndex % 250;
+			serieData.latitude[valueIndex] = 47 + valueIndex * 1e-5;
+			serieData.longitude[valueIndex] = 9 - valueIndex * 1e-5;
+			serieData.visiblePoints_Surfing[valueIndex] = valueIndex % 7 == 0;
+		}
+
+		assertSerieData(serieData, roundTrip(serieData));
+	}
+
+	/**
+	 * The MIN_VALUE markers are used for values which are not available.
+	 */
+	@Test
+	public void testMinValueMarkers() throws Exception {
+
+		final SerieData serieData = new SerieData();
+
+		serieData.timeSerie = new int[] { 0, 1, 2, 3 };
+
+		serieData.distanceSerie20 = new float[] { Float.MIN_VALUE, 10, Float.MIN_VALUE, 30 };
+		serieData.pulseSerie20 = new float[] { Float.MIN_VALUE, Float.MIN_VALUE, 120, 121 };
+		serieData.cadenceSerie20 = new float[] { 80, Float.MIN_VALUE, 82, Float.MIN_VALUE };
+		serieData.powerSerie20 = new float[] { Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE, Float.MIN_VALUE };
+
+		serieData.gears = new long[] { Long.MIN_VALUE, 0x3422000000000000L, Long.MIN_VALUE, 0 };
+
+		serieData.latitude = new double[] { Double.MIN_VALUE, 47.5, Double.MIN_VALUE, 47.6 };
+		serieData.longitude = new double[] { Double.MIN_VALUE, 9.5, Double.MIN_VALUE, 9.6 };
+
+		serieData.runDyn_StanceTime = new short[] { Short.MIN_VALUE, 250, Short.MIN_VALUE, 260 };
+
+		serieData.altitudeSerie = new int[] { Integer.MIN_VALUE, 400, Integer.MIN_VALUE, 410 };
+
+		assertSerieData(serieData, roundTrip(serieData));
+	}
+
+	@Test
+	public void testNoSeries() throws Exception {
+
+		final SerieData actual = roundTrip(new SerieData());
+
+		assertNull(actual.timeSerie);
+		assertNull(actual.getCadenceSerie20());
+		assertNull(actual.latitude);
+	}
+
+	@Test
+	public void testSingleValue() throws Exception {
+
+		final SerieData serieData = new SerieData();
+
+		serieData.timeSerie = new int[] { 42 };
+		serieData.distanceSerie20 = new float[] { 1.5f };
+		serieData.altitudeSerie20 = new float[] { -12 };
+		serieData.cadenceSerie20 = new float[] { 90 };
+		serieData.speedSerie20 = new float[] { 33.3f };
+		serieData.powerSerie20 = new float[] { 250 };
+		serieData.gears = new long[] { 0x3422000000000000L };
+		serieData.latitude = new double[] { 47.1234567 };
+		serieData.longitude = new double[] { 9.1234567 };
+		serieData.pulseTimes = new int[] { 800 };
+		serieData.swim_Cadence = new short[] { 30 };
+		serieData.swim_Time = new int[] { 120 };
+		serieData.visiblePoints_Surfing = new boolean[] { true };
+		serieData.deviceMarker = new int[] { 1 };
+
+		assertSerieData(serieData, roundTrip(serieData));
+	}
+}
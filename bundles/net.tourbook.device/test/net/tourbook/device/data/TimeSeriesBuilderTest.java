@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ * 
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.device.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import net.tourbook.data.TimeData;
+import net.tourbook.data.TimeSeriesBuilder;
+import net.tourbook.data.TourData;
+import net.tourbook.data.TourMarker;
+
+import org.junit.Test;
+
+/**
+ * The data series which are created from a {@link TimeSeriesBuilder} must be the same as the data
+ * series which are created from a {@link TimeData} list with the same time slices.
+ * <p>
+ * Run as "JUnit Plug-in Test", as application "[No Application] - Headless Mode" (Main Tab)
+ */
+public class TimeSeriesBuilderTest {
+
+	private static final long	START_TIME		= 1_500_000_000_000L;
+
+	private static final int	NUM_TIME_SLICES	= 30;
+
+	/**
+	 * Creates the builder from the time data before the time data are modified when the
+	 * {@link TimeData} list is converted.
+	 */
+	private static void assertSameTourData(final List<TimeData> allTimeData, final boolean isCreateMarker) {
+
+		assertSameTourData(allTimeData, createBuilder(allTimeData), isCreateMarker);
+	}
+
+	private static void assertSameTourData(	final List<TimeData> allTimeData,
+											final TimeSeriesBuilder timeSeriesBuilder,
+											final boolean isCreateMarker) {
+
+		final TourData expected = new TourData();
+		expected.createTimeSeries(allTimeData, isCreateMarker);
+
+		final TourData actual = new TourData();
+		actual.createTimeSeries(timeSeriesBuilder, isCreateMarker);
+
+		assertArrayEquals(expected.timeSerie, actual.timeSerie);
+
+		assertArrayEquals(expected.distanceSerie, actual.distanceSerie, 0);
+		assertArrayEquals(expected.altitudeSerie, actual.altitudeSerie, 0);
+		assertArrayEquals(expected.pulseSerie, actual.pulseSerie, 0);
+		assertArrayEquals(expected.pulseTimeSerie, actual.pulseTimeSerie);
+		assertArrayEquals(expected.temperatureSerie, actual.temperatureSerie, 0);
+
+		assertArrayEquals(expected.getCadenceSerie(), actual.getCadenceSerie(), 0);
+		assertArrayEquals(expected.getSpeedSerieFromDevice(), actual.getSpeedSerieFromDevice(), 0);
+		assertEquals(expected.isPowerSerieFromDevice(), actual.isPowerSerieFromDevice());
+
+		if (expected.isPowerSerieFromDevice()) {
+
+			// otherwise the power is computed from the smoothed series
+			assertArrayEquals(expected.getPowerSerie(), actual.getPowerSerie(), 0);
+		}
+
+		assertArrayEquals(expected.gearSerie, actual.gearSerie);
+		assertArrayEquals(expected.latitudeSerie, actual.latitudeSerie, 0);
+		assertArrayEquals(expected.longitudeSerie, actual.longitudeSerie, 0);
+
+		assertArrayEquals(expected.runDyn_StanceTime, actual.runDyn_StanceTime);
+		assertArrayEquals(expected.runDyn_StanceTimeBalance, actual.runDyn_StanceTimeBalance);
+		assertArrayEquals(expected.runDyn_StepLength, actual.runDyn_StepLength);
+		assertArrayEquals(expected.runDyn_VerticalOscillation, actual.runDyn_VerticalOscillation);
+		assertArrayEquals(expected.runDyn_VerticalRatio, actual.runDyn_VerticalRatio);
+
+		assertEquals(expected.getTourDistance(), actual.getTourDistance(), 0);
+		assertEquals(expected.getTourRecordingTime(), actual.getTourRecordingTime());
+
+		assertEquals(getMarkers(expected), getMarkers(actual));
+	}
+
+	private static TimeSeriesBuilder createBuilder(final List<TimeData> allTimeData) {
+
+		final TimeSeriesBuilder timeSeriesBuilder = new TimeSeriesBuilder(1);
+
+		for (final TimeData timeData : allTimeData) {
+
+			timeSeriesBuilder.addTimeSlice(timeData.absoluteTime);
+			timeSeriesBuilder.setTimeData(timeData, false);
+		}
+
+		return timeSeriesBuilder;
+	}
+
+	/**
+	 * @return Returns time slices with all values, the first values of some series are not
+	 *         available and some values are missing in the middle
+	 */
+	private static List<TimeData> createTimeData() {
+
+		final List<TimeData> allTimeData = new ArrayList<>();
+
+		for (int serieIndex = 0; serieIndex < NUM_TIME_SLICES; serieIndex++) {
+
+			final TimeData timeData = new TimeData();
+
+			timeData.absoluteTime = START_TIME + serieIndex * 2000;
+			timeData.absoluteDistance = serieIndex * 10.5f;
+
+			if (serieIndex > 2) {
+
+				timeData.absoluteAltitude = 400 + serieIndex % 7;
+				timeData.cadence = 80 + serieIndex % 5;
+				timeData.power = 200 + serieIndex;
+				timeData.pulse = 120 + serieIndex;
+				timeData.speed = 25 + serieIndex % 3;
+				timeData.temperature = 15 + serieIndex / 10f;
+
+				timeData.runDyn_StanceTime = (short) (250 + serieIndex);
+				timeData.runDyn_StanceTimeBalance = (short) (5000 + serieIndex);
+				timeData.runDyn_StepLength = (short) (1200 + serieIndex);
+				timeData.runDyn_VerticalOscillation = (short) (800 + serieIndex);
+				timeData.runDyn_VerticalRatio = (short) (700 + serieIndex);
+			}
+
+			if (serieIndex > 0) {
+
+				timeData.latitude = 47 + serieIndex * 0.0001;
+				timeData.longitude = 9 + serieIndex * 0.0001;
+			}
+
+			if (serieIndex > 4) {
+				timeData.gear = serieIndex < 15 ? 0x3412_0000_3412_0000L : 0x3412_0000_3212_0000L;
+			}
+
+			if (serieIndex % 4 == 0) {
+				timeData.pulseTime = new int[] { 500 + serieIndex, 0, 510 + serieIndex };
+			}
+
+			if (serieIndex % 8 == 1) {
+				timeData.marker = 1;
+				timeData.markerLabel = serieIndex == 9 ? null : "Marker " + serieIndex; //$NON-NLS-1$
+			}
+
+			// values which are interpolated or set to 0
+			if (serieIndex == 10 || serieIndex == 11) {
+
+				timeData.absoluteAltitude = Float.MIN_VALUE;
+				timeData.absoluteDistance = Float.MIN_VALUE;
+				timeData.cadence = Float.MIN_VALUE;
+				timeData.power = Float.MIN_VALUE;
+				timeData.pulse = Float.MIN_VALUE;
+				timeData.speed = Float.MIN_VALUE;
+				timeData.temperature = Float.MIN_VALUE;
+
+				timeData.runDyn_StepLength = Short.MIN_VALUE;
+			}
+
+			if (serieIndex == 20) {
+
+				timeData.latitude = Double.MIN_VALUE;
+				timeData.longitude = Double.MIN_VALUE;
+			}
+
+			allTimeData.add(timeData);
+		}
+
+		return allTimeData;
+	}
+
+	private static List<String> getMarkers(final TourData tourData) {
+
+		final List<String> allMarkers = new ArrayList<>();
+
+		for (final TourMarker tourMarker : tourData.getTourMarkers()) {
+
+			allMarkers.add(tourMarker.getSerieIndex()
+					+ " " + tourMarker.getTime() //$NON-NLS-1$
+					+ " " + tourMarker.getDistance() //$NON-NLS-1$
+					+ " " + tourMarker.getLabel()); //$NON-NLS-1$
+		}
+
+		Collections.sort(allMarkers);
+
+		return allMarkers;
+	}
+
+	@Test
+	public void testAllValues() {
+
+		assertSameTourData(createTimeData(), true);
+		assertSameTourData(createTimeData(), false);
+	}
+
+	/**
+	 * Time slices which are in the past or do not have a time are set to the last valid time.
+	 */
+	@Test
+	public void testInvalidTimes() {
+
+		final List<TimeData> allTimeData = createTimeData();
+
+		allTimeData.get(5).absoluteTime = START_TIME + 1000;
+		allTimeData.get(6).absoluteTime = Long.MIN_VALUE;
+		allTimeData.get(12).absoluteTime = allTimeData.get(11).absoluteTime;
+		allTimeData.get(13).absoluteDistance = -1;
+
+		assertSameTourData(allTimeData, true);
+	}
+
+	/**
+	 * Duplicated records are merged into the previous time slice, only values which are not
+	 * available in the previous time slice are set.
+	 */
+	@Test
+	public void testMergeTimeSlice() {
+
+		final List<TimeData> allTimeData = createTimeData();
+
+		final TimeData lastTimeData = allTimeData.get(NUM_TIME_SLICES - 1);
+		lastTimeData.absoluteAltitude = Float.MIN_VALUE;
+
+		final TimeSeriesBuilder timeSeriesBuilder = createBuilder(allTimeData);
+
+		final TimeData duplicatedTimeData = new TimeData();
+
+		duplicatedTimeData.absoluteTime = lastTimeData.absoluteTime;
+		duplicatedTimeData.absoluteAltitude = 1;
+		duplicatedTimeData.pulse = 1;
+		duplicatedTimeData.marker = 1;
+
+		timeSeriesBuilder.setTimeData(duplicatedTimeData, true);
+
+		// the missing altitude is merged, the pulse is already available
+		lastTimeData.absoluteAltitude = 1;
+
+		assertEquals(NUM_TIME_SLICES, timeSeriesBuilder.size());
+
+		assertSameTourData(allTimeData, timeSeriesBuilder, true);
+	}
+
+	@Test
+	public void testNoTimeSlices() {
+
+		final TourData tourData = new TourData();
+		tourData.createTimeSeries(new TimeSeriesBuilder(), true);
+
+		assertEquals(null, tourData.timeSerie);
+	}
+
+	/**
+	 * Only pulse values, the other series are not available.
+	 */
+	@Test
+	public void testOnlyPulse() {
+
+		final List<TimeData> allTimeData = new ArrayList<>();
+
+		for (int serieIndex = 0; serieIndex < NUM_TIME_SLICES; serieIndex++) {
+
+			final TimeData timeData = new TimeData();
+
+			timeData.absoluteTime = START_TIME + serieIndex * 1000;
+			timeData.pulse = serieIndex < 3 ? 0 : 100 + serieIndex;
+
+			allTimeData.add(timeData);
+		}
+
+		assertSameTourData(allTimeData, true);
+	}
+
+	/**
+	 * The values are set with the setters like the device readers are doing it.
+	 */
+	@Test
+	public void testSetters() {
+
+		final List<TimeData> allTimeData = createTimeData();
+		final TimeSeriesBuilder timeSeriesBuilder = new TimeSeriesBuilder(NUM_TIME_SLICES / 4);
+
+		for (final TimeData timeData : allTimeData) {
+
+			timeSeriesBuilder.addTimeSlice(timeData.absoluteTime);
+
+			if (timeData.absoluteAltitude != Float.MIN_VALUE) {
+				timeSeriesBuilder.setAbsoluteAltitude(timeData.absoluteAltitude);
+			}
+			if (timeData.absoluteDistance != Float.MIN_VALUE) {
+				timeSeriesBuilder.setAbsoluteDistance(timeData.absoluteDistance);
+			}
+			if (timeData.cadence != Float.MIN_VALUE) {
+				timeSeriesBuilder.setCadence(timeData.cadence);
+			}
+			if (timeData.gear != 0) {
+				timeSeriesBuilder.setGear(timeData.gear);
+			}
+			if (timeData.latitude != Double.MIN_VALUE) {
+				timeSeriesBuilder.setLatLon(timeData.latitude, timeData.longitude);
+			}
+			if (timeData.power != Float.MIN_VALUE) {
+				timeSeriesBuilder.setPower(timeData.power);
+			}
+			if (timeData.pulse != Float.MIN_VALUE) {
+				timeSeriesBuilder.setPulse(timeData.pulse);
+			}
+			if (timeData.pulseTime != null) {
+				timeSeriesBuilder.setPulseTimes(timeData.pulseTime);
+			}
+			if (timeData.speed != Float.MIN_VALUE) {
+				timeSeriesBuilder.setSpeed(timeData.speed);
+			}
+			if (timeData.temperature != Float.MIN_VALUE) {
+				timeSeriesBuilder.setTemperature(timeData.temperature);
+			}
+			if (timeData.runDyn_StanceTime != Short.MIN_VALUE) {
+				timeSeriesBuilder.setRunDyn_StanceTime(timeData.runDyn_StanceTime);
+			}
+			if (timeData.runDyn_StanceTimeBalance != Short.MIN_VALUE) {
+				timeSeriesBuilder.setRunDyn_StanceTimeBalance(timeData.runDyn_StanceTimeBalance);
+			}
+			if (timeData.runDyn_StepLength != Short.MIN_VALUE) {
+				timeSeriesBuilder.setRunDyn_StepLength(timeData.runDyn_StepLength);
+			}
+			if (timeData.runDyn_VerticalOscillation != Short.MIN_VALUE) {
+				timeSeriesBuilder.setRunDyn_VerticalOscillation(timeData.runDyn_VerticalOscillation);
+			}
+			if (timeData.runDyn_VerticalRatio != Short.MIN_VALUE) {
+				timeSeriesBuilder.setRunDyn_VerticalRatio(timeData.runDyn_VerticalRatio);
+			}
+			if (timeData.marker != 0) {
+				timeSeriesBuilder.setMarker(timeData.markerLabel);
+			}
+		}
+
+		assertSameTourData(allTimeData, timeSeriesBuilder, true);
+	}
+
+	/**
+	 * Appended time slices, e.g. GPX laps, are sorted by their time, a lap at an existing position
+	 * replaces the marker label.
+	 */
+	@Test
+	public void testSortByTime() {
+
+		final List<TimeData> allTimeData = createTimeData();
+		final TimeSeriesBuilder timeSeriesBuilder = createBuilder(allTimeData);
+
+		for (int lapIndex = 0; lapIndex < 3; lapIndex++) {
+
+			final TimeData lapTimeData = new TimeData();
+
+			lapTimeData.absoluteTime = START_TIME + lapIndex * 20_000 + 1000;
+			lapTimeData.absoluteDistance = lapIndex * 100;
+			lapTimeData.latitude = 48 + lapIndex;
+			lapTimeData.longitude = 10 + lapIndex;
+			lapTimeData.marker = 1;
+			lapTimeData.markerLabel = "Lap " + lapIndex; //$NON-NLS-1$
+
+			allTimeData.add(lapTimeData);
+
+			timeSeriesBuilder.addTimeSlice(lapTimeData.absoluteTime);
+			timeSeriesBuilder.setLatLon(lapTimeData.latitude, lapTimeData.longitude);
+			timeSeriesBuilder.setAbsoluteDistance(lapTimeData.absoluteDistance);
+			timeSeriesBuilder.setMarker(lapTimeData.markerLabel);
+		}
+
+		// lap at the position of an existing time slice
+		final TimeData existingTimeData = allTimeData.get(17);
+		existingTimeData.marker = 1;
+		existingTimeData.markerLabel = "Lap 3"; //$NON-NLS-1$
+
+		final int serieIndex = timeSeriesBuilder.getSerieIndex(existingTimeData.latitude, existingTimeData.longitude);
+
+		assertEquals(17, serieIndex);
+
+		timeSeriesBuilder.setMarker(serieIndex, existingTimeData.markerLabel);
+		timeSeriesBuilder.sortByTime();
+
+		Collections.sort(allTimeData, Comparator.comparingLong(timeData -> timeData.absoluteTime));
+
+		assertSameTourData(allTimeData, timeSeriesBuilder, true);
+	}
+}
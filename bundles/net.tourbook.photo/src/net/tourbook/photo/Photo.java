@@ -32,6 +32,7 @@ import net.tourbook.common.map.GeoPosition;
 import net.tourbook.common.time.TimeTools;
 import net.tourbook.common.util.StatusUtil;
 import net.tourbook.common.util.Util;
+import net.tourbook.photo.internal.manager.ExifStore;
 
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingConstants;
@@ -789,7 +790,23 @@ public class Photo {
 			return null;
 		}
 
+		if (isReadThumbnail == false) {
+
+			// get metadata from the exif store, this do not open the image file
+			final PhotoImageMetadata storedMetadata = ExifStore.get(imageFile);
+
+			if (storedMetadata != null) {
+
+				storedMetadata.fileDateTime = _imageFileLastModified;
+
+				updateImageMetadata(storedMetadata);
+
+				return null;
+			}
+		}
+
 		ImageMetadata imageFileMetadata = null;
+		boolean isMetadataRead = false;
 
 		try {
 
@@ -804,6 +821,8 @@ public class Photo {
 
 			imageFileMetadata = Imaging.getMetadata(imageFile, params);
 
+			isMetadataRead = true;
+
 //			System.out.println(UI.timeStamp()
 //					+ Thread.currentThread().getName()
 //					+ "read exif\t"
@@ -829,6 +848,12 @@ public class Photo {
 
 			final PhotoImageMetadata photoImageMetadata = createPhotoMetadata(imageFileMetadata);
 
+			if (isMetadataRead) {
+
+				// keep metadata for the next session
+				ExifStore.put(imageFile, photoImageMetadata);
+			}
+
 			updateImageMetadata(photoImageMetadata);
 		}
 
@@ -58,8 +58,18 @@ public class PhotoLoadManager {
 
 // SET_FORMATTING_ON
 
+	/**
+	 * Loading the exif data is I/O bound, the threads are mostly waiting for the file system,
+	 * therefore more threads are used than for the CPU bound image scaling.
+	 */
+	private static final int									EXIF_THREADS_PER_PROCESSOR		= 2;
+
 	private static Display										_display;
 
+	/**
+	 * Exif executor is sized independently from the CPU bound image executors, see
+	 * {@link #EXIF_THREADS_PER_PROCESSOR}
+	 */
 	private static ThreadPoolExecutor							_executorExif;
 	private static ThreadPoolExecutor							_executorThumb;
 
@@ -78,6 +88,13 @@ public class PhotoLoadManager {
 	private static final LinkedBlockingDeque<PhotoImageLoader>	_waitingQueueOriginal			= new LinkedBlockingDeque<PhotoImageLoader>();
 	private static final LinkedBlockingDeque<PhotoSqlLoader>	_waitingQueueSql				= new LinkedBlockingDeque<PhotoSqlLoader>();
 
+	/**
+	 * Gallery items of the image loaders in the thumb and HQ waiting queue, they are used to load
+	 * visible items first and to discard items which are scrolled out of view. Image loaders without
+	 * a gallery item, e.g. from the map, are always loaded.
+	 */
+	private static final ConcurrentHashMap<PhotoImageLoader, GalleryMT20Item>	_loaderGalleryItems	= new ConcurrentHashMap<PhotoImageLoader, GalleryMT20Item>();
+
 	/*
 	 * key is the photo image file path
 	 */
@@ -191,7 +208,9 @@ public class PhotoLoadManager {
 			}
 		};
 
-		_executorExif = (ThreadPoolExecutor) Executors.newFixedThreadPool(numberOfProcessors, threadFactoryExif);
+		final int numberOfExifThreads = numberOfProcessors * EXIF_THREADS_PER_PROCESSOR;
+
+		_executorExif = (ThreadPoolExecutor) Executors.newFixedThreadPool(numberOfExifThreads, threadFactoryExif);
 		_executorThumb = (ThreadPoolExecutor) Executors.newFixedThreadPool(numberOfProcessors, threadFactoryThumb);
 		_executorHQ = (ThreadPoolExecutor) Executors.newFixedThreadPool(1, threadFactoryHQ);
 		_executorOriginal = (ThreadPoolExecutor) Executors.newFixedThreadPool(1, threadFactoryOriginal);
@@ -307,6 +326,34 @@ public class PhotoLoadManager {
 		return _photoWithThumbSaveError.containsKey(imageFilePath);
 	}
 
+	/**
+	 * Removes the image loaders from the head of the waiting queue until a loader for a visible
+	 * image is found, the removed loaders of images which are scrolled out of view are discarded.
+	 * 
+	 * @param waitingQueue
+	 * @return Returns the first image loader for a visible image or <code>null</code> when the
+	 *         waiting queue do not contain a visible image.
+	 */
+	private static PhotoImageLoader pollVisibleLoader(final LinkedBlockingDeque<PhotoImageLoader> waitingQueue) {
+
+		PhotoImageLoader imageLoader;
+
+		while ((imageLoader = waitingQueue.pollFirst()) != null) {
+
+			final GalleryMT20Item galleryItem = _loaderGalleryItems.get(imageLoader);
+
+			if (galleryItem == null || isImageVisible(galleryItem)) {
+				return imageLoader;
+			}
+
+			// image is not visible, it will be loaded again when it is painted
+			_loaderGalleryItems.remove(imageLoader);
+			resetLoadingState(imageLoader.getPhoto(), imageLoader.getRequestedImageQuality());
+		}
+
+		return null;
+	}
+
 	public static void putImageInLoadingQueueExif(final Photo photo, final ILoadCallBack imageLoadCallback) {
 
 		// put image loading item into the waiting queue
@@ -354,34 +401,35 @@ public class PhotoLoadManager {
 		photo.setLoadingState(PhotoLoadingState.IMAGE_IS_IN_LOADING_QUEUE, imageQuality);
 
 		// set HQ image loading item into the waiting queue
-		_waitingQueueHQ.add(new PhotoImageLoader(
+		final PhotoImageLoader hqImageLoader = new PhotoImageLoader(
 				_display,
 				photo,
 				imageQuality,
 				_imageFramework,
 				_hqImageSize,
-				loadCallBack));
+				loadCallBack);
+
+		if (galleryItem != null) {
+			_loaderGalleryItems.put(hqImageLoader, galleryItem);
+		}
+
+		_waitingQueueHQ.add(hqImageLoader);
 
 		final Runnable executorTask = new Runnable() {
 			public void run() {
 
-				// get last added loader itme
-				final PhotoImageLoader imageLoader = _waitingQueueHQ.pollFirst();
+				// get first visible loader item
+				final PhotoImageLoader imageLoader = pollVisibleLoader(_waitingQueueHQ);
 
 				if (imageLoader == null) {
 					return;
 				}
 
-				if (galleryItem != null && isImageVisible(galleryItem) == false) {
-
-					resetLoadingState(photo, imageQuality);
-
-					return;
-				}
+				_loaderGalleryItems.remove(imageLoader);
 
 				imageLoader.loadImageHQ(_waitingQueueThumb, _waitingQueueExif);
 
-				checkLoadingState(photo, imageQuality);
+				checkLoadingState(imageLoader.getPhoto(), imageLoader.getRequestedImageQuality());
 			}
 		};
 		_executorHQ.submit(executorTask);
@@ -469,6 +517,10 @@ public class PhotoLoadManager {
 	}
 
 	/**
+	 * All thumb executor tasks are equal, each task is loading the first visible image from the
+	 * waiting queue and not the image for which the task was submitted. This loads the currently
+	 * visible images first and allows to remove a submitted task when an image is discarded.
+	 * 
 	 * @param galleryItem
 	 *            Gallery item is used to check if it is still visible. Can be <code>null</code>,
 	 *            then the visibility is not checked.
@@ -476,15 +528,15 @@ public class PhotoLoadManager {
 	 * @param imageQuality
 	 * @param imageLoadCallback
 	 */
-	public static void putImageInLoadingQueueThumbGallery(	final GalleryMT20Item galleryItem,
-															final Photo photo,
-															final ImageQuality imageQuality,
-															final ILoadCallBack imageLoadCallback) {
+	private static void putImageInLoadingQueueThumb(final GalleryMT20Item galleryItem,
+													final Photo photo,
+													final ImageQuality imageQuality,
+													final ILoadCallBack imageLoadCallback) {
 		// set state
 		photo.setLoadingState(PhotoLoadingState.IMAGE_IS_IN_LOADING_QUEUE, imageQuality);
 
 		// put image loading item into the waiting queue
-		final PhotoImageLoader imageLoader = new PhotoImageLoader(
+		final PhotoImageLoader thumbImageLoader = new PhotoImageLoader(
 				_display,
 				photo,
 				imageQuality,
@@ -492,6 +544,10 @@ public class PhotoLoadManager {
 				_hqImageSize,
 				imageLoadCallback);
 
+		if (galleryItem != null) {
+			_loaderGalleryItems.put(thumbImageLoader, galleryItem);
+		}
+
 		final Runnable executorTask = new Runnable() {
 			public void run() {
 
@@ -507,90 +563,74 @@ public class PhotoLoadManager {
 //					e.printStackTrace();
 //				}
 
-				// get last added loader item
-				final PhotoImageLoader imageLoader = _waitingQueueThumb.pollFirst();
+				// get first visible loader item
+				final PhotoImageLoader imageLoader = pollVisibleLoader(_waitingQueueThumb);
 
 				if (imageLoader == null) {
 					return;
 				}
 
-				final String errorKey = imageLoader.getPhoto().imageFilePathName;
+				final GalleryMT20Item loaderGalleryItem = _loaderGalleryItems.remove(imageLoader);
+
+				final Photo loaderPhoto = imageLoader.getPhoto();
+				final ImageQuality loaderImageQuality = imageLoader.getRequestedImageQuality();
+
+				final String errorKey = loaderPhoto.imageFilePathName;
 
 				if (_photoWithLoadingError.containsKey(errorKey)) {
 
-					photo.setLoadingState(PhotoLoadingState.IMAGE_IS_INVALID, imageQuality);
+					loaderPhoto.setLoadingState(PhotoLoadingState.IMAGE_IS_INVALID, loaderImageQuality);
 
 				} else {
 
-					if (galleryItem != null && isImageVisible(galleryItem) == false) {
+					final boolean isLoadHQ = imageLoader.loadImageThumb(_waitingQueueOriginal);
 
-						resetLoadingState(photo, imageQuality);
-
-						return;
-					}
-
-					if (imageLoader.loadImageThumb(_waitingQueueOriginal)) {
+					/*
+					 * HQ images are loaded only for the gallery, the map displays only thumb images and
+					 * has no gallery item
+					 */
+					if (isLoadHQ && loaderGalleryItem != null) {
 
 						// HQ image is requested
 
 						putImageInLoadingQueueHQ(//
-								galleryItem,
-								photo,
-								imageQuality,
-								imageLoadCallback);
+								loaderGalleryItem,
+								loaderPhoto,
+								loaderImageQuality,
+								imageLoader.getLoadCallBack());
 					} else {
 
-						checkLoadingState(photo, imageQuality);
+						checkLoadingState(loaderPhoto, loaderImageQuality);
 					}
 				}
-
 			}
 		};
 
-		_waitingQueueThumb.add(imageLoader);
+		_waitingQueueThumb.add(thumbImageLoader);
 		_executorThumb.submit(executorTask);
 	}
 
+	/**
+	 * @param galleryItem
+	 *            Gallery item is used to check if it is still visible. Can be <code>null</code>,
+	 *            then the visibility is not checked.
+	 * @param photo
+	 * @param imageQuality
+	 * @param imageLoadCallback
+	 */
+	public static void putImageInLoadingQueueThumbGallery(	final GalleryMT20Item galleryItem,
+															final Photo photo,
+															final ImageQuality imageQuality,
+															final ILoadCallBack imageLoadCallback) {
+
+		putImageInLoadingQueueThumb(galleryItem, photo, imageQuality, imageLoadCallback);
+	}
+
 	public static void putImageInLoadingQueueThumbMap(	final Photo photo,
 														final ImageQuality imageQuality,
 														final ILoadCallBack imageLoadCallback) {
-		// set state
-		photo.setLoadingState(PhotoLoadingState.IMAGE_IS_IN_LOADING_QUEUE, imageQuality);
-
-		// put image loading item into the waiting queue
-		_waitingQueueThumb.add(new PhotoImageLoader(
-				_display,
-				photo,
-				imageQuality,
-				_imageFramework,
-				_hqImageSize,
-				imageLoadCallback));
-
-		final Runnable executorTask = new Runnable() {
-			public void run() {
-
-				// get last added loader item
-				final PhotoImageLoader imageLoader = _waitingQueueThumb.pollFirst();
-
-				if (imageLoader == null) {
-					return;
-				}
-
-				final String errorKey = imageLoader.getPhoto().imageFilePathName;
-
-				if (_photoWithLoadingError.containsKey(errorKey)) {
-
-					photo.setLoadingState(PhotoLoadingState.IMAGE_IS_INVALID, imageQuality);
-
-				} else {
-
-					imageLoader.loadImageThumb(_waitingQueueOriginal);
-				}
 
-				checkLoadingState(photo, imageQuality);
-			}
-		};
-		_executorThumb.submit(executorTask);
+		putImageInLoadingQueueThumb(null, photo, imageQuality, imageLoadCallback);
 	}
 
 	public static void putPhotoInLoadingErrorMap(final String errorKey) {
@@ -628,6 +668,50 @@ public class PhotoLoadManager {
 		_photoWithThumbSaveError.clear();
 	}
 
+	/**
+	 * Discard the image loaders of gallery items which are not visible in the thumb and HQ waiting
+	 * queue, one submitted executor task is removed for each discarded image loader. This is called
+	 * when a gallery is scrolled, so that fast scrolling do not fill the executors with obsolete
+	 * tasks.
+	 */
+	public static void removeInvisibleImages() {
+
+		removeInvisibleImages(_waitingQueueThumb, _executorThumb);
+		removeInvisibleImages(_waitingQueueHQ, _executorHQ);
+	}
+
+	private static void removeInvisibleImages(	final LinkedBlockingDeque<PhotoImageLoader> waitingQueue,
+												final ThreadPoolExecutor executorService) {
+
+		final BlockingQueue<Runnable> taskQueue = executorService.getQueue();
+
+		for (final PhotoImageLoader imageLoader : waitingQueue) {
+
+			final GalleryMT20Item galleryItem = _loaderGalleryItems.get(imageLoader);
+
+			if (galleryItem == null || isImageVisible(galleryItem)) {
+				continue;
+			}
+
+			if (waitingQueue.remove(imageLoader) == false) {
+				// loader is already polled by an executor task
+				continue;
+			}
+
+			_loaderGalleryItems.remove(imageLoader);
+			resetLoadingState(imageLoader.getPhoto(), imageLoader.getRequestedImageQuality());
+
+			/*
+			 * all tasks are polling the first visible loader from the waiting queue, any of the
+			 * submitted tasks can be removed
+			 */
+			final Runnable task = taskQueue.poll();
+			if (task != null) {
+				((FutureTask<?>) task).cancel(false);
+			}
+		}
+	}
+
 	private static void resetLoadingState(final Object[] waitingQueueItems) {
 
 		// reset loading state for not loaded images
@@ -674,6 +758,8 @@ public class PhotoLoadManager {
 		final Object[] hqWaitingQueueItems = clearWaitingQueue(_waitingQueueHQ, _executorHQ);
 		resetLoadingState(hqWaitingQueueItems);
 
+		_loaderGalleryItems.clear();
+
 		final Object[] originalWaitingQueueItems = clearWaitingQueue(_waitingQueueOriginal, _executorOriginal);
 		resetLoadingState(originalWaitingQueueItems);
 
@@ -24,6 +24,7 @@ import net.tourbook.common.util.StatusUtil;
 import net.tourbook.photo.IExternalGalleryListener;
 import net.tourbook.photo.IPhotoProvider;
 import net.tourbook.photo.Photo;
+import net.tourbook.photo.PhotoLoadManager;
 import net.tourbook.photo.internal.Messages;
 import net.tourbook.photo.internal.preferences.PrefPagePhotoDirectory;
 
@@ -2206,6 +2207,9 @@ public abstract class GalleryMT20 extends Canvas {
 
 		_clientAreaItemsIndices = getAreaItemsIndices(_clientArea);
 
+		// discard loading of images which are scrolled out of view
+		PhotoLoadManager.removeInvisibleImages();
+
 		hideTooltip();
 	}
 
@@ -2283,6 +2287,9 @@ public abstract class GalleryMT20 extends Canvas {
 
 		_clientAreaItemsIndices = getAreaItemsIndices(_clientArea);
 
+		// discard loading of images which are scrolled out of view
+		PhotoLoadManager.removeInvisibleImages();
+
 		hideTooltip();
 	}
 
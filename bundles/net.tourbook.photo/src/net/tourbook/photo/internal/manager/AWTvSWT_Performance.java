@@ -12,6 +12,12 @@ import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
+import net.tourbook.photo.PhotoLoadManager;
+
+import org.apache.commons.imaging.ImageReadException;
+import org.apache.commons.imaging.Imaging;
+import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.formats.jpeg.JpegImageMetadata;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
@@ -273,7 +279,7 @@ public class AWTvSWT_Performance {
 		gc.dispose();
 	}
 
-	public static void main(final String[] args) throws IOException {
+	public static void main(final String[] args) throws IOException, ImageReadException {
 
 		final int runs = 1;
 
@@ -295,6 +301,28 @@ public class AWTvSWT_Performance {
 //				swtSource.getBounds().height / 2);
 		System.out.println("SWT load: " + (System.currentTimeMillis() - start)); //$NON-NLS-1$
 
+		// load with source subsampling like the HQ image is loaded with AWT
+		start = System.currentTimeMillis();
+		final int[] originalImageSize = { 0, 0 };
+		final BufferedImage awtSubsampled = PhotoImageLoader.loadImageSubsampled(
+				new File(args[0]),
+				PhotoLoadManager.IMAGE_SIZE_LARGE_DEFAULT,
+				originalImageSize);
+		System.out.println("AWT subsampled load: " + (System.currentTimeMillis() - start) //$NON-NLS-1$
+				+ ("\t" + originalImageSize[0] + "x" + originalImageSize[1]) //$NON-NLS-1$ //$NON-NLS-2$
+				+ (" -> " + awtSubsampled.getWidth() + "x" + awtSubsampled.getHeight())); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// load the EXIF thumbnail like the thumb image is loaded
+		start = System.currentTimeMillis();
+		final ImageMetadata metadata = Imaging.getMetadata(new File(args[0]));
+		final BufferedImage exifThumbnail = metadata instanceof JpegImageMetadata
+				? ((JpegImageMetadata) metadata).getEXIFThumbnail()
+				: null;
+		System.out.println("EXIF thumbnail load: " + (System.currentTimeMillis() - start) //$NON-NLS-1$
+				+ (exifThumbnail == null
+						? " not available" //$NON-NLS-1$
+						: "\t" + exifThumbnail.getWidth() + "x" + exifThumbnail.getHeight())); //$NON-NLS-1$ //$NON-NLS-2$
+
 		// run AWT performance test
 		final long awtStartTime = System.currentTimeMillis();
 		for (int i = 0; i < runs; i++) {
@@ -304,6 +332,14 @@ public class AWTvSWT_Performance {
 		final long awtEndTime = System.currentTimeMillis();
 		System.out.println("convertToSWT: " + (awtEndTime - awtStartTime) /* / runs */); //$NON-NLS-1$
 
+		// run AWT performance test with the subsampled image
+		final long awtSubsampledStartTime = System.currentTimeMillis();
+		for (int i = 0; i < runs; i++) {
+			convertToSWT(awtSubsampled);
+		}
+		final long awtSubsampledEndTime = System.currentTimeMillis();
+		System.out.println("convertToSWT subsampled: " + (awtSubsampledEndTime - awtSubsampledStartTime)); //$NON-NLS-1$
+
 		// run SWT performance test
 		final long swtStartTime = System.currentTimeMillis();
 		for (int i = 0; i < runs; i++) {
@@ -38,7 +38,10 @@ public class ExifCache {
    }
 
    public static void clear() {
+
       _exifCache.cleanUp();
+
+      ExifStore.clear();
    }
 
    public static PhotoImageMetadata get(final String imageFilePathName) {
@@ -50,7 +53,8 @@ public class ExifCache {
    }
 
    /**
-    * Remove all cached metadata which starts with the folder path.
+    * Remove all cached metadata which starts with the folder path and the stored metadata of the
+    * folder.
     *
     * @param folderPath
     */
@@ -62,5 +66,7 @@ public class ExifCache {
             _exifCache.invalidate(cachedPath);
          }
       }
+
+      ExifStore.removeFolder(folderPath);
    }
 }
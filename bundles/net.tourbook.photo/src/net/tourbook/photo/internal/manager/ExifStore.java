@@ -0,0 +1,477 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.photo.internal.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+
+import net.tourbook.common.util.StatusUtil;
+import net.tourbook.common.util.Util;
+import net.tourbook.photo.PhotoImageMetadata;
+
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * Persistent store for the exif meta data of the photo images, so that the image files do not need
+ * to be opened again when a folder is displayed in another session.
+ * <p>
+ * The meta data of the images in one folder are appended to one store file, a stored meta data
+ * entry is used only when the last modified date and the length of the image file are not
+ * modified.
+ */
+public class ExifStore {
+
+   private static final String                      EXIF_STORE_OS_PATH       = "exif-store";                //$NON-NLS-1$
+   private static final String                      STORE_FILE_EXTENSION     = ".exif";                     //$NON-NLS-1$
+
+   /**
+    * Is written at the start of a store file, the store file is ignored when the version is
+    * different
+    */
+   private static final int                         STORE_VERSION            = 1;
+
+   /**
+    * Date/time value for <code>null</code>
+    */
+   private static final long                        NO_DATE_TIME             = Long.MIN_VALUE;
+
+   /**
+    * The store file is compacted when it contains more entries than this factor * number of images
+    */
+   private static final int                         COMPACT_FACTOR           = 2;
+
+   /**
+    * An entry contains a few numbers and max 5 strings, each string is written with max 64k bytes
+    */
+   private static final int                         MAX_ENTRY_LENGTH         = 1024 * 1024;
+
+   private static final int                         MAX_LOADED_FOLDER_STORES = 200;
+
+   /**
+    * Loaded folder stores, key is the folder path
+    */
+   private static final Cache<String, FolderStore> _folderStores;
+
+   private static File                              _storeFolder;
+
+   static {
+
+      _folderStores = Caffeine.newBuilder()
+            .maximumSize(MAX_LOADED_FOLDER_STORES)
+            .build();
+   }
+
+   /**
+    * Stored exif entries of the images in one folder
+    */
+   private static class FolderStore {
+
+      private final File                    _storeFile;
+
+      /**
+       * Key is the image file name, value is the encoded store entry
+       */
+      private final HashMap<String, byte[]> _allEntries = new HashMap<>();
+
+      private FolderStore(final File storeFile) {
+
+         _storeFile = storeFile;
+
+         final int numEntries = readStoreFile();
+
+         if (numEntries > _allEntries.size() * COMPACT_FACTOR) {
+
+            // remove replaced entries
+            writeStoreFile();
+         }
+      }
+
+      private synchronized byte[] get(final String imageFileName) {
+         return _allEntries.get(imageFileName);
+      }
+
+      private synchronized void put(final String imageFileName, final byte[] storeEntry) {
+
+         final boolean isNewFile = _storeFile.exists() == false;
+
+         try (DataOutputStream outStream = new DataOutputStream(
+               new BufferedOutputStream(new FileOutputStream(_storeFile, true)))) {
+
+            if (isNewFile) {
+               outStream.writeInt(STORE_VERSION);
+            }
+
+            outStream.writeInt(storeEntry.length);
+            outStream.write(storeEntry);
+
+         } catch (final IOException e) {
+            StatusUtil.log(e);
+            return;
+         }
+
+         _allEntries.put(imageFileName, storeEntry);
+      }
+
+      /**
+       * @return Returns the number of entries in the store file, an image can have several
+       *         entries when it was modified
+       */
+      private int readStoreFile() {
+
+         if (_storeFile.exists() == false) {
+            return 0;
+         }
+
+         final long storeFileLength = _storeFile.length();
+
+         int numEntries = 0;
+         boolean isValid = true;
+
+         // length of the version and all completely written entries
+         long validLength = 0;
+
+         try (DataInputStream inStream = new DataInputStream(
+               new BufferedInputStream(new FileInputStream(_storeFile)))) {
+
+            if (inStream.readInt() != STORE_VERSION) {
+               isValid = false;
+            } else {
+
+               validLength = 4;
+
+               while (true) {
+
+                  final int entryLength = inStream.readInt();
+
+                  if (entryLength < 0 || entryLength > MAX_ENTRY_LENGTH) {
+
+                     // entry is corrupted
+                     isValid = false;
+                     break;
+                  }
+
+                  if (validLength + 4 + entryLength > storeFileLength) {
+
+                     // entry was not completely written
+                     break;
+                  }
+
+                  final byte[] storeEntry = new byte[entryLength];
+                  inStream.readFully(storeEntry);
+
+                  final String imageFileName = new DataInputStream(new ByteArrayInputStream(storeEntry)).readUTF();
+
+                  _allEntries.put(imageFileName, storeEntry);
+
+                  validLength += 4 + entryLength;
+                  numEntries++;
+               }
+            }
+
+         } catch (final EOFException e) {
+            // end of the store file or a partly written entry
+         } catch (final IOException e) {
+            isValid = false;
+         }
+
+         if (isValid == false || validLength == 0) {
+
+            // store file is corrupted or from another version, the exif data are read again
+            _allEntries.clear();
+            _storeFile.delete();
+
+            return 0;
+         }
+
+         if (validLength < storeFileLength) {
+
+            // remove a partly written entry, otherwise the appended entries cannot be read
+            try (RandomAccessFile storeRAF = new RandomAccessFile(_storeFile, "rw")) { //$NON-NLS-1$
+               storeRAF.setLength(validLength);
+            } catch (final IOException e) {
+               StatusUtil.log(e);
+            }
+         }
+
+         return numEntries;
+      }
+
+      private void writeStoreFile() {
+
+         try (DataOutputStream outStream = new DataOutputStream(
+               new BufferedOutputStream(new FileOutputStream(_storeFile, false)))) {
+
+            outStream.writeInt(STORE_VERSION);
+
+            for (final byte[] storeEntry : _allEntries.values()) {
+
+               outStream.writeInt(storeEntry.length);
+               outStream.write(storeEntry);
+            }
+
+         } catch (final IOException e) {
+            StatusUtil.log(e);
+         }
+      }
+   }
+
+   /**
+    * Delete all stored exif data
+    */
+   public static void clear() {
+
+      _folderStores.invalidateAll();
+
+      final File[] allStoreFiles = getStoreFolder().listFiles();
+
+      if (allStoreFiles != null) {
+         for (final File storeFile : allStoreFiles) {
+            storeFile.delete();
+         }
+      }
+   }
+
+   private static PhotoImageMetadata decodeEntry(final byte[] storeEntry,
+                                                 final long lastModified,
+                                                 final long fileLength) throws IOException {
+
+      final DataInputStream inStream = new DataInputStream(new ByteArrayInputStream(storeEntry));
+
+      // image file name
+      inStream.readUTF();
+
+      if (inStream.readLong() != lastModified || inStream.readLong() != fileLength) {
+
+         // image file is modified
+         return null;
+      }
+
+      final PhotoImageMetadata metadata = new PhotoImageMetadata();
+
+      metadata.isExifFromImage = inStream.readBoolean();
+
+      metadata.exifDateTime = readDateTime(inStream);
+
+      metadata.imageWidth = inStream.readInt();
+      metadata.imageHeight = inStream.readInt();
+      metadata.orientation = inStream.readInt();
+
+      metadata.imageDirection = inStream.readDouble();
+      metadata.altitude = inStream.readDouble();
+      metadata.latitude = inStream.readDouble();
+      metadata.longitude = inStream.readDouble();
+
+      metadata.gpsAreaInfo = readString(inStream);
+      metadata.objectName = readString(inStream);
+      metadata.captionAbstract = readString(inStream);
+      metadata.model = readString(inStream);
+
+      return metadata;
+   }
+
+   private static byte[] encodeEntry(final String imageFileName,
+                                     final long lastModified,
+                                     final long fileLength,
+                                     final PhotoImageMetadata metadata) throws IOException {
+
+      final ByteArrayOutputStream entryStream = new ByteArrayOutputStream();
+      final DataOutputStream outStream = new DataOutputStream(entryStream);
+
+      outStream.writeUTF(imageFileName);
+      outStream.writeLong(lastModified);
+      outStream.writeLong(fileLength);
+
+      outStream.writeBoolean(metadata.isExifFromImage);
+
+      writeDateTime(outStream, metadata.exifDateTime);
+
+      outStream.writeInt(metadata.imageWidth);
+      outStream.writeInt(metadata.imageHeight);
+      outStream.writeInt(metadata.orientation);
+
+      outStream.writeDouble(metadata.imageDirection);
+      outStream.writeDouble(metadata.altitude);
+      outStream.writeDouble(metadata.latitude);
+      outStream.writeDouble(metadata.longitude);
+
+      writeString(outStream, metadata.gpsAreaInfo);
+      writeString(outStream, metadata.objectName);
+      writeString(outStream, metadata.captionAbstract);
+      writeString(outStream, metadata.model);
+
+      outStream.flush();
+
+      return entryStream.toByteArray();
+   }
+
+   /**
+    * @param imageFile
+    * @return Returns the stored exif data of the image file or <code>null</code> when the exif
+    *         data are not stored or the image file was modified after the exif data were stored.
+    *         {@link PhotoImageMetadata#fileDateTime} is not set.
+    */
+   public static PhotoImageMetadata get(final File imageFile) {
+
+      final FolderStore folderStore = getFolderStore(imageFile);
+
+      if (folderStore == null) {
+         return null;
+      }
+
+      final byte[] storeEntry = folderStore.get(imageFile.getName());
+
+      if (storeEntry == null) {
+         return null;
+      }
+
+      try {
+
+         return decodeEntry(storeEntry, imageFile.lastModified(), imageFile.length());
+
+      } catch (final IOException e) {
+         StatusUtil.log(e);
+      }
+
+      return null;
+   }
+
+   private static FolderStore getFolderStore(final File imageFile) {
+
+      final File folder = imageFile.getParentFile();
+
+      if (folder == null) {
+         return null;
+      }
+
+      final String folderPath = folder.getAbsolutePath();
+
+      return _folderStores.get(folderPath, key -> new FolderStore(getStoreFile(key)));
+   }
+
+   private static File getStoreFile(final String folderPath) {
+
+      return new File(getStoreFolder(), Util.computeMD5(folderPath) + STORE_FILE_EXTENSION);
+   }
+
+   private static synchronized File getStoreFolder() {
+
+      if (_storeFolder == null) {
+
+         _storeFolder = new File(Platform.getInstanceLocation().getURL().getPath(), EXIF_STORE_OS_PATH);
+
+         if (_storeFolder.exists() == false) {
+            _storeFolder.mkdirs();
+         }
+      }
+
+      return _storeFolder;
+   }
+
+   /**
+    * Store the exif data of an image file.
+    *
+    * @param imageFile
+    * @param metadata
+    */
+   public static void put(final File imageFile, final PhotoImageMetadata metadata) {
+
+      final FolderStore folderStore = getFolderStore(imageFile);
+
+      if (folderStore == null) {
+         return;
+      }
+
+      final String imageFileName = imageFile.getName();
+
+      try {
+
+         final byte[] storeEntry = encodeEntry(imageFileName, imageFile.lastModified(), imageFile.length(), metadata);
+
+         folderStore.put(imageFileName, storeEntry);
+
+      } catch (final IOException e) {
+
+         // e.g. a text is too long for writeUTF, the exif data are read again from the image file
+         StatusUtil.log(e);
+      }
+   }
+
+   private static LocalDateTime readDateTime(final DataInputStream inStream) throws IOException {
+
+      final long epochSecond = inStream.readLong();
+
+      if (epochSecond == NO_DATE_TIME) {
+         return null;
+      }
+
+      return LocalDateTime.ofEpochSecond(epochSecond, inStream.readInt(), ZoneOffset.UTC);
+   }
+
+   private static String readString(final DataInputStream inStream) throws IOException {
+
+      return inStream.readBoolean() ? inStream.readUTF() : null;
+   }
+
+   /**
+    * Remove the stored exif data of the images in a folder.
+    *
+    * @param folderPath
+    */
+   public static void removeFolder(final String folderPath) {
+
+      _folderStores.invalidate(folderPath);
+
+      getStoreFile(folderPath).delete();
+   }
+
+   private static void writeDateTime(final DataOutputStream outStream, final LocalDateTime dateTime) throws IOException {
+
+      if (dateTime == null) {
+
+         outStream.writeLong(NO_DATE_TIME);
+
+      } else {
+
+         outStream.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+         outStream.writeInt(dateTime.getNano());
+      }
+   }
+
+   private static void writeString(final DataOutputStream outStream, final String text) throws IOException {
+
+      outStream.writeBoolean(text != null);
+
+      if (text != null) {
+         outStream.writeUTF(text);
+      }
+   }
+}
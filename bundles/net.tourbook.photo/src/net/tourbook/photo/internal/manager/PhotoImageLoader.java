@@ -18,17 +18,17 @@ package net.tourbook.photo.internal.manager;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Properties;
+import java.util.Iterator;
 import java.util.concurrent.LinkedBlockingDeque;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import net.tourbook.common.UI;
-import net.tourbook.common.time.TimeTools;
 import net.tourbook.common.util.SWT2Dutil;
 import net.tourbook.common.util.StatusUtil;
 import net.tourbook.photo.ILoadCallBack;
@@ -39,6 +39,7 @@ import net.tourbook.photo.PhotoImageCache;
 import net.tourbook.photo.PhotoImageMetadata;
 import net.tourbook.photo.PhotoLoadManager;
 import net.tourbook.photo.PhotoLoadingState;
+import net.tourbook.photo.internal.manager.ThumbnailPack.StoreImage;
 
 import org.apache.commons.imaging.ImageReadException;
 import org.apache.commons.imaging.common.ImageMetadata;
@@ -56,7 +57,13 @@ import org.imgscalr.Scalr.Rotation;
 
 public class PhotoImageLoader {
 
-   private static String[] awtImageFileSuffixes;
+   /**
+    * The EXIF thumbnail is used as thumb image only when it has at least this size, a smaller
+    * image would be displayed blurred.
+    */
+   private static final int MIN_EXIF_THUMBNAIL_SIZE = PhotoLoadManager.IMAGE_SIZE_THUMBNAIL * 3 / 4;
+
+   private static String[]  awtImageFileSuffixes;
 
    static {
 
@@ -187,6 +194,10 @@ public class PhotoImageLoader {
       _trackedSWTImages.clear();
    }
 
+   public ILoadCallBack getLoadCallBack() {
+      return _loadCallBack;
+   }
+
    public Photo getPhoto() {
       return _photo;
    }
@@ -267,6 +278,12 @@ public class PhotoImageLoader {
                return null;
             }
 
+            if (Math.max(awtBufferedImage.getWidth(), awtBufferedImage.getHeight()) < MIN_EXIF_THUMBNAIL_SIZE) {
+
+               // EXIF thumbnail is too small, the thumb image is created from the subsampled original image
+               return null;
+            }
+
             Image swtThumbnailImage = null;
             try {
 
@@ -372,9 +389,11 @@ public class PhotoImageLoader {
       final IPath requestedStoreImageFilePath = ThumbnailStore.getStoreImagePath(_photo, requestedImageQuality);
 
       final String imageStoreFilePath = requestedStoreImageFilePath.toOSString();
-      final File storeImageFile = new File(imageStoreFilePath);
 
-      if (storeImageFile.isFile() == false) {
+      // the last access day of the store image is updated when it is read
+      StoreImage packImage = ThumbnailStore.getStoreImage(requestedStoreImageFilePath);
+
+      if (packImage == null) {
          return null;
       }
 
@@ -382,22 +401,11 @@ public class PhotoImageLoader {
 
       Image storeImage = null;
 
-      /*
-       * touch store file when it is not yet done today, this is done to track last access time so
-       * that a store cleanup can check the date
-       */
-      final LocalDate dtModified = TimeTools.getZonedDateTime(storeImageFile.lastModified()).toLocalDate();
-
-      if (dtModified.equals(LocalDate.now()) == false) {
-
-         storeImageFile.setLastModified(TimeTools.now().toInstant().toEpochMilli());
-      }
-
       try {
 
-         storeImage = new Image(_display, imageStoreFilePath);
+         storeImage = new Image(_display, packImage.imageStream);
 
-         loadImageProperties(requestedStoreImageFilePath);
+         _photo.setPhotoDimension(packImage.originalWidth, packImage.originalHeight);
 
       } catch (final Exception e) {
          StatusUtil.log(NLS.bind("Image cannot be loaded with SWT (1): \"{0}\"", //$NON-NLS-1$
@@ -418,7 +426,11 @@ public class PhotoImageLoader {
              */
             try {
 
-               storeImage = new Image(_display, imageStoreFilePath);
+               packImage = ThumbnailStore.getStoreImage(requestedStoreImageFilePath);
+
+               if (packImage != null) {
+                  storeImage = new Image(_display, packImage.imageStream);
+               }
 
             } catch (final Exception e) {
                StatusUtil.log(NLS.bind("Image cannot be loaded with SWT (2): \"{0}\"", //$NON-NLS-1$
@@ -616,10 +628,6 @@ public class PhotoImageLoader {
       int imageWidth = originalImageWidth;
       int imageHeight = originalImageHeight;
 
-      final Properties originalImageProperties = new Properties();
-      originalImageProperties.put(ThumbnailStore.ORIGINAL_IMAGE_WIDTH, Integer.toString(originalImageWidth));
-      originalImageProperties.put(ThumbnailStore.ORIGINAL_IMAGE_HEIGHT, Integer.toString(originalImageHeight));
-
       // update dimension
       updateImageSize(imageWidth, imageHeight, true);
 
@@ -687,7 +695,7 @@ public class PhotoImageLoader {
          final long startSaveHQ = System.currentTimeMillis();
          final IPath storeHQImagePath = ThumbnailStore.getStoreImagePath(_photo, ImageQuality.HQ);
 
-         ThumbnailStore.saveThumbImageWithSWT(scaledHQImage, storeHQImagePath, originalImageProperties);
+         ThumbnailStore.saveThumbImageWithSWT(scaledHQImage, storeHQImagePath, originalImageWidth, originalImageHeight);
 
          isHQCreated = true;
 
@@ -773,7 +781,7 @@ public class PhotoImageLoader {
             final long startSaveThumb = System.currentTimeMillis();
             final IPath storeThumbImagePath = ThumbnailStore.getStoreImagePath(_photo, ImageQuality.THUMB);
 
-            ThumbnailStore.saveThumbImageWithSWT(scaledThumbImage, storeThumbImagePath, originalImageProperties);
+            ThumbnailStore.saveThumbImageWithSWT(scaledThumbImage, storeThumbImagePath, originalImageWidth, originalImageHeight);
 
             endSaveThumb = System.currentTimeMillis() - startSaveThumb;
          }
@@ -836,11 +844,12 @@ public class PhotoImageLoader {
        */
       BufferedImage awtOriginalImage = null;
       final String originalImagePathName = _photo.imageFilePathName;
+      final int[] originalImageSize = { 0, 0 };
       try {
 
          final long startHqLoad = System.currentTimeMillis();
          {
-            awtOriginalImage = ImageIO.read(_photo.imageFile);
+            awtOriginalImage = loadImageSubsampled(_photo.imageFile, _hqImageSize, originalImageSize);
 
             _trackedAWTImages.add(awtOriginalImage);
          }
@@ -890,18 +899,15 @@ public class PhotoImageLoader {
 
          boolean isHQCreated = false;
 
-         final int originalImageWidth = awtOriginalImage.getWidth();
-         final int originalImageHeight = awtOriginalImage.getHeight();
-
-         final Properties originalImageProperties = new Properties();
-         originalImageProperties.put(ThumbnailStore.ORIGINAL_IMAGE_WIDTH, Integer.toString(originalImageWidth));
-         originalImageProperties.put(ThumbnailStore.ORIGINAL_IMAGE_HEIGHT, Integer.toString(originalImageHeight));
-
-         int imageWidth = originalImageWidth;
-         int imageHeight = originalImageHeight;
+         final int originalImageWidth = originalImageSize[0];
+         final int originalImageHeight = originalImageSize[1];
 
          // update dimension
-         updateImageSize(imageWidth, imageHeight, true);
+         updateImageSize(originalImageWidth, originalImageHeight, true);
+
+         // the loaded image can be subsampled
+         int imageWidth = awtOriginalImage.getWidth();
+         int imageHeight = awtOriginalImage.getHeight();
 
          BufferedImage hqImage;
 
@@ -942,7 +948,8 @@ public class PhotoImageLoader {
                final boolean isSaved = ThumbnailStore.saveThumbImageWithAWT(
                      scaledHQImage,
                      ThumbnailStore.getStoreImagePath(_photo, ImageQuality.HQ),
-                     originalImageProperties);
+                     originalImageWidth,
+                     originalImageHeight);
 
                if (isSaved == false) {
                   // AWT save error has occured, possible error: "Bogus input colorspace"
@@ -1081,7 +1088,8 @@ public class PhotoImageLoader {
                   isSaved = ThumbnailStore.saveThumbImageWithAWT(
                         saveThumbAWT,
                         storeThumbImagePath,
-                        originalImageProperties);
+                        originalImageWidth,
+                        originalImageHeight);
                }
                endSaveThumb = System.currentTimeMillis() - startSaveThumb;
             }
@@ -1321,66 +1329,6 @@ public class PhotoImageLoader {
       }
    }
 
-   /**
-    * @param requestedStoreImageFilePath
-    * @return Returns <code>null</code> when properties cannot be loaded.
-    */
-   private void loadImageProperties(final IPath requestedStoreImageFilePath) {
-
-      final IPath propPath = ThumbnailStore.getPropertiesPathFromImagePath(requestedStoreImageFilePath);
-      FileInputStream fileStream = null;
-
-      Properties imageProperties = null;
-
-      try {
-
-         final File propFile = propPath.toFile();
-
-         if (propFile.isFile() == false) {
-            return;
-         }
-
-         fileStream = new FileInputStream(propPath.toOSString());
-
-         imageProperties = new Properties();
-
-         imageProperties.load(fileStream);
-
-      } catch (final IOException e) {
-         StatusUtil.log(NLS.bind("Image properties cannot be loaded from: \"{0}\"", //$NON-NLS-1$
-               propPath.toOSString()), e);
-      } finally {
-
-         if (fileStream != null) {
-            try {
-               fileStream.close();
-            } catch (final IOException e) {
-               StatusUtil.log(e);
-            }
-         }
-      }
-
-      if (imageProperties != null) {
-
-         final String originalImageWidth = imageProperties.getProperty(ThumbnailStore.ORIGINAL_IMAGE_WIDTH);
-         final String originalImageHeight = imageProperties.getProperty(ThumbnailStore.ORIGINAL_IMAGE_HEIGHT);
-
-         if (originalImageWidth != null && originalImageHeight != null) {
-            try {
-
-               final int width = Integer.parseInt(originalImageWidth);
-               final int height = Integer.parseInt(originalImageHeight);
-
-               _photo.setPhotoDimension(width, height);
-
-            } catch (final NumberFormatException e) {
-               StatusUtil.log(e);
-            }
-         }
-      }
-
-   }
-
 // JAI implementation to read tiff images with AWT
 //
 //	private BufferedImage loadImageHQ_22_ExtendedAWT(final PhotoWrapper photoWrapper) throws IOException {
@@ -1416,6 +1364,60 @@ public class PhotoImageLoader {
 //		}
 //	}
 
+   /**
+    * Load an image with source subsampling, only every n-th pixel of every n-th row is decoded, so
+    * that e.g. a 6000 pixel camera image is not fully decoded when only a HQ or thumb image is
+    * created from it. The loaded image is not smaller than the minimum image size.
+    *
+    * @param imageFile
+    * @param minImageSize
+    *           Minimum width or height of the loaded image
+    * @param originalImageSize
+    *           Is set with the width and height of the original image
+    * @return Returns the loaded image or <code>null</code> when the image format is not supported
+    * @throws IOException
+    */
+   static BufferedImage loadImageSubsampled(final File imageFile,
+                                            final int minImageSize,
+                                            final int[] originalImageSize) throws IOException {
+
+      try (ImageInputStream imageStream = ImageIO.createImageInputStream(imageFile)) {
+
+         if (imageStream == null) {
+            return null;
+         }
+
+         final Iterator<ImageReader> allImageReaders = ImageIO.getImageReaders(imageStream);
+
+         if (allImageReaders.hasNext() == false) {
+            return null;
+         }
+
+         final ImageReader imageReader = allImageReaders.next();
+
+         try {
+
+            imageReader.setInput(imageStream, true, true);
+
+            final int originalWidth = imageReader.getWidth(0);
+            final int originalHeight = imageReader.getHeight(0);
+
+            originalImageSize[0] = originalWidth;
+            originalImageSize[1] = originalHeight;
+
+            final int subsampling = Math.max(1, Math.max(originalWidth, originalHeight) / minImageSize);
+
+            final ImageReadParam readParam = imageReader.getDefaultReadParam();
+            readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+            return imageReader.read(0, readParam);
+
+         } finally {
+            imageReader.dispose();
+         }
+      }
+   }
+
    /**
     * This is called from the executor when the loading task is starting. It loads an image and
     * puts it into the image cache from where it is fetched when painted.
@@ -0,0 +1,600 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.photo.internal.manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.tourbook.common.util.ByteBufferInputStream;
+import net.tourbook.common.util.StatusUtil;
+
+/**
+ * Contains the store images of one thumbnail store folder in a pack file, instead of one image file
+ * and one properties file for each store image.
+ * <p>
+ * The pack file contains the appended image data, the index file contains for each image the key,
+ * offset and length in the pack file, the size of the original image and the day when the image
+ * was accessed the last time. A replaced or removed image is kept in the pack file until the pack
+ * is compacted when old images are evicted.
+ * <p>
+ * Both files start with the same generation number which is increased when the pack is compacted,
+ * so that a pack and an index file which do not belong together are detected, e.g. when the app was
+ * terminated while the compacted files replaced the old files.
+ */
+class ThumbnailPack {
+
+   static final String                                PACK_FILE_EXTENSION  = "pack";                  //$NON-NLS-1$
+   static final String                                INDEX_FILE_EXTENSION = "idx";                   //$NON-NLS-1$
+
+   private static final String                        TEMP_FILE_EXTENSION  = ".tmp";                  //$NON-NLS-1$
+
+   /**
+    * Image length in the index file for a removed image
+    */
+   private static final int                           REMOVED_IMAGE        = -1;
+
+   private static final int                           MAX_KEY_LENGTH       = 1024;
+
+   private static final int                           FILE_VERSION         = 1;
+
+   /**
+    * File version and generation number at the start of the pack and index file
+    */
+   private static final int                           HEADER_LENGTH        = 4 + 8;
+
+   /**
+    * The pack is compacted when the index file contains more entries than this factor multiplied
+    * with the number of images, each access day of an image is appended to the index file.
+    */
+   private static final int                           MAX_INDEX_FACTOR     = 2;
+
+   private final File                                 _packFile;
+   private final File                                 _indexFile;
+
+   private final ConcurrentHashMap<String, PackEntry> _index               = new ConcurrentHashMap<>();
+
+   private FileChannel                                _packChannel;
+   private DataOutputStream                           _indexStream;
+
+   /**
+    * Generation number of the pack and index file
+    */
+   private long                                       _generation;
+
+   /**
+    * Number of entries in the index file, this contains also the replaced and removed images
+    */
+   private int                                        _numIndexEntries;
+
+   private static class PackEntry {
+
+      private final long offset;
+      private final int  length;
+
+      private final int  originalWidth;
+      private final int  originalHeight;
+
+      /**
+       * Epoch day when the image was accessed the last time
+       */
+      private final int  accessDay;
+
+      private PackEntry(final long offset,
+                        final int length,
+                        final int originalWidth,
+                        final int originalHeight,
+                        final int accessDay) {
+
+         this.offset = offset;
+         this.length = length;
+         this.originalWidth = originalWidth;
+         this.originalHeight = originalHeight;
+         this.accessDay = accessDay;
+      }
+   }
+
+   /**
+    * Image data and original image size of a store image
+    */
+   static class StoreImage {
+
+      final InputStream imageStream;
+
+      final int         originalWidth;
+      final int         originalHeight;
+
+      private StoreImage(final InputStream imageStream, final int originalWidth, final int originalHeight) {
+
+         this.imageStream = imageStream;
+         this.originalWidth = originalWidth;
+         this.originalHeight = originalHeight;
+      }
+   }
+
+   /**
+    * @param storeFolder
+    * @param packName
+    *           Name of the pack and index file without extension
+    * @throws IOException
+    */
+   ThumbnailPack(final File storeFolder, final String packName) throws IOException {
+
+      _packFile = new File(storeFolder, packName + '.' + PACK_FILE_EXTENSION);
+      _indexFile = new File(storeFolder, packName + '.' + INDEX_FILE_EXTENSION);
+
+      open();
+   }
+
+   private void appendIndexEntry(final String key, final PackEntry packEntry) throws IOException {
+
+      writeIndexEntry(_indexStream, key, packEntry);
+
+      _numIndexEntries++;
+   }
+
+   synchronized void close() {
+
+      try {
+
+         _indexStream.close();
+         _packChannel.close();
+
+      } catch (final IOException e) {
+         StatusUtil.log(e);
+      }
+   }
+
+   /**
+    * Remove the pack from the thumbnail store, the pack cannot be used any more.
+    *
+    * @return Returns <code>true</code> when the pack and index files are deleted
+    */
+   synchronized boolean delete() {
+
+      close();
+
+      _index.clear();
+
+      final boolean isPackDeleted = _packFile.delete() || _packFile.exists() == false;
+      final boolean isIndexDeleted = _indexFile.delete() || _indexFile.exists() == false;
+
+      return isPackDeleted && isIndexDeleted;
+   }
+
+   /**
+    * Remove images which are not accessed since a day and remove the unused data from the pack
+    * file.
+    *
+    * @param oldestAccessDay
+    *           Images which are accessed before this epoch day are removed
+    * @return Returns the number of bytes which are removed from the pack file
+    * @throws IOException
+    */
+   synchronized long evictImages(final int oldestAccessDay) throws IOException {
+
+      final ArrayList<Entry<String, PackEntry>> allKeptEntries = new ArrayList<>();
+
+      for (final Entry<String, PackEntry> indexEntry : _index.entrySet()) {
+
+         if (indexEntry.getValue().accessDay >= oldestAccessDay) {
+            allKeptEntries.add(indexEntry);
+         }
+      }
+
+      final long packLength = _packChannel.size();
+
+      long keptLength = HEADER_LENGTH;
+      for (final Entry<String, PackEntry> keptEntry : allKeptEntries) {
+         keptLength += keptEntry.getValue().length;
+      }
+
+      final boolean isIndexGrown = _numIndexEntries > allKeptEntries.size() * MAX_INDEX_FACTOR;
+
+      if (keptLength == packLength && isIndexGrown == false) {
+
+         // there is no unused data
+         return 0;
+      }
+
+      final long compactedGeneration = _generation + 1;
+
+      // copy the kept images in the pack order, this is faster than copying them randomly
+      allKeptEntries.sort(Comparator.comparingLong(indexEntry -> indexEntry.getValue().offset));
+
+      final File tempPackFile = new File(_packFile.getPath() + TEMP_FILE_EXTENSION);
+      final File tempIndexFile = new File(_indexFile.getPath() + TEMP_FILE_EXTENSION);
+
+      try (FileChannel tempPackChannel = FileChannel.open(tempPackFile.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+
+            DataOutputStream tempIndexStream = new DataOutputStream(
+                  new BufferedOutputStream(new FileOutputStream(tempIndexFile)))) {
+
+         writeHeader(tempPackChannel, compactedGeneration);
+         writeHeader(tempIndexStream, compactedGeneration);
+
+         long tempOffset = HEADER_LENGTH;
+
+         for (final Entry<String, PackEntry> keptEntry : allKeptEntries) {
+
+            final PackEntry packEntry = keptEntry.getValue();
+
+            long numCopied = 0;
+            while (numCopied < packEntry.length) {
+
+               numCopied += _packChannel.transferTo(
+                     packEntry.offset + numCopied,
+                     packEntry.length - numCopied,
+                     tempPackChannel);
+            }
+
+            writeIndexEntry(tempIndexStream,
+                  keptEntry.getKey(),
+                  new PackEntry(
+                        tempOffset,
+                        packEntry.length,
+                        packEntry.originalWidth,
+                        packEntry.originalHeight,
+                        packEntry.accessDay));
+
+            tempOffset += packEntry.length;
+         }
+      }
+
+      close();
+
+      try {
+
+         Files.move(tempPackFile.toPath(), _packFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+         Files.move(tempIndexFile.toPath(), _indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+      } catch (final IOException e) {
+
+         /*
+          * A file can be locked by another process, the images are evicted in the next cleanup.
+          * When only the pack file is replaced, the generation numbers are different and the pack
+          * is emptied when it is opened.
+          */
+         StatusUtil.log(e);
+
+         tempPackFile.delete();
+         tempIndexFile.delete();
+
+         open();
+
+         return 0;
+      }
+
+      open();
+
+      return packLength - keptLength;
+   }
+
+   int getNumImages() {
+      return _index.size();
+   }
+
+   /**
+    * @param key
+    * @param today
+    *           Epoch day which is set as last access day of the image
+    * @return Returns the image data, which is read directly from the pack file, or
+    *         <code>null</code> when the image is not available
+    * @throws IOException
+    */
+   synchronized StoreImage getStoreImage(final String key, final int today) throws IOException {
+
+      PackEntry packEntry = _index.get(key);
+
+      if (packEntry == null) {
+         return null;
+      }
+
+      if (packEntry.accessDay != today) {
+
+         // track the last access day, so that a store cleanup can check the date
+
+         packEntry = new PackEntry(
+               packEntry.offset,
+               packEntry.length,
+               packEntry.originalWidth,
+               packEntry.originalHeight,
+               today);
+
+         appendIndexEntry(key, packEntry);
+
+         _index.put(key, packEntry);
+      }
+
+      final ByteBuffer imageBuffer = ByteBuffer.allocate(packEntry.length);
+
+      // a positional read is much faster than mapping a small image
+      long position = packEntry.offset;
+      while (imageBuffer.hasRemaining()) {
+
+         final int numRead = _packChannel.read(imageBuffer, position);
+
+         if (numRead < 0) {
+            throw new EOFException("Store image is not completely written: " + key); //$NON-NLS-1$
+         }
+
+         position += numRead;
+      }
+
+      imageBuffer.flip();
+
+      return new StoreImage(new ByteBufferInputStream(imageBuffer), packEntry.originalWidth, packEntry.originalHeight);
+   }
+
+   private void open() throws IOException {
+
+      _index.clear();
+      _numIndexEntries = 0;
+
+      _packChannel = FileChannel.open(_packFile.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+
+      _generation = readPackGeneration();
+
+      final long validIndexLength = _generation < 0
+            ? 0
+            : readIndex(_packChannel.size());
+
+      try (RandomAccessFile indexRAF = new RandomAccessFile(_indexFile, "rw")) { //$NON-NLS-1$
+
+         if (validIndexLength == 0) {
+
+            /*
+             * This is a new pack or the pack and index file do not belong together -> start with an
+             * empty pack, the store images are created again
+             */
+            _index.clear();
+            _numIndexEntries = 0;
+
+            _generation = Math.max(_generation, 0);
+
+            _packChannel.truncate(0);
+            writeHeader(_packChannel, _generation);
+
+            indexRAF.setLength(0);
+            indexRAF.writeInt(FILE_VERSION);
+            indexRAF.writeLong(_generation);
+
+         } else {
+
+            // remove a partly written index entry
+            indexRAF.setLength(validIndexLength);
+         }
+      }
+
+      _indexStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_indexFile, true)));
+   }
+
+   /**
+    * Put the image data into the pack file, an existing image with the same key is replaced.
+    *
+    * @param key
+    * @param imageData
+    *           Encoded image, e.g. jpg
+    * @param originalWidth
+    * @param originalHeight
+    * @param today
+    *           Epoch day which is set as last access day of the image
+    * @throws IOException
+    */
+   synchronized void put(final String key,
+                         final byte[] imageData,
+                         final int originalWidth,
+                         final int originalHeight,
+                         final int today) throws IOException {
+
+      final long offset = _packChannel.size();
+
+      final ByteBuffer imageBuffer = ByteBuffer.wrap(imageData);
+
+      long position = offset;
+      while (imageBuffer.hasRemaining()) {
+         position += _packChannel.write(imageBuffer, position);
+      }
+
+      final PackEntry packEntry = new PackEntry(offset, imageData.length, originalWidth, originalHeight, today);
+
+      // the index entry is written after the image data, so it is valid when it is read
+      appendIndexEntry(key, packEntry);
+
+      _index.put(key, packEntry);
+   }
+
+   /**
+    * @param packLength
+    * @return Returns the length of the header and the valid index entries or 0 when the index
+    *         does not belong to the pack file
+    * @throws IOException
+    */
+   private long readIndex(final long packLength) throws IOException {
+
+      if (_indexFile.exists() == false) {
+         return 0;
+      }
+
+      long validIndexLength = 0;
+
+      try (DataInputStream inStream = new DataInputStream(new BufferedInputStream(new FileInputStream(_indexFile)))) {
+
+         final int fileVersion = inStream.readInt();
+         final long generation = inStream.readLong();
+
+         if (fileVersion != FILE_VERSION || generation != _generation) {
+            return 0;
+         }
+
+         validIndexLength = HEADER_LENGTH;
+
+         while (true) {
+
+            final int keyLength = inStream.readInt();
+
+            if (keyLength < 0 || keyLength > MAX_KEY_LENGTH) {
+
+               // index entry is corrupted
+               break;
+            }
+
+            final byte[] keyBytes = new byte[keyLength];
+            inStream.readFully(keyBytes);
+
+            final long offset = inStream.readLong();
+            final int length = inStream.readInt();
+            final int originalWidth = inStream.readInt();
+            final int originalHeight = inStream.readInt();
+            final int accessDay = inStream.readInt();
+
+            if (length != REMOVED_IMAGE && (offset < HEADER_LENGTH || length < 0 || offset + length > packLength)) {
+
+               // image data was not completely written or the index entry is corrupted
+               break;
+            }
+
+            final String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+            if (length == REMOVED_IMAGE) {
+               _index.remove(key);
+            } else {
+               _index.put(key, new PackEntry(offset, length, originalWidth, originalHeight, accessDay));
+            }
+
+            validIndexLength += 4 + keyLength + 8 + 4 + 4 + 4 + 4;
+            _numIndexEntries++;
+         }
+
+      } catch (final EOFException e) {
+         // end of the index or a partly written index entry
+      }
+
+      return validIndexLength;
+   }
+
+   /**
+    * @return Returns the generation number of the pack file or -1 when the pack file has no valid
+    *         header
+    * @throws IOException
+    */
+   private long readPackGeneration() throws IOException {
+
+      if (_packChannel.size() < HEADER_LENGTH) {
+         return -1;
+      }
+
+      final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_LENGTH);
+
+      long position = 0;
+      while (headerBuffer.hasRemaining()) {
+         position += _packChannel.read(headerBuffer, position);
+      }
+
+      headerBuffer.flip();
+
+      final int fileVersion = headerBuffer.getInt();
+      final long generation = headerBuffer.getLong();
+
+      if (fileVersion != FILE_VERSION || generation < 0) {
+         return -1;
+      }
+
+      return generation;
+   }
+
+   /**
+    * Remove the image from the pack index
+    *
+    * @param key
+    * @return Returns <code>true</code> when the image was available
+    * @throws IOException
+    */
+   synchronized boolean remove(final String key) throws IOException {
+
+      if (_index.remove(key) == null) {
+         return false;
+      }
+
+      appendIndexEntry(key, new PackEntry(0, REMOVED_IMAGE, 0, 0, 0));
+
+      return true;
+   }
+
+   private void writeHeader(final DataOutputStream indexStream, final long generation) throws IOException {
+
+      indexStream.writeInt(FILE_VERSION);
+      indexStream.writeLong(generation);
+   }
+
+   /**
+    * Write the header at the current position of an empty pack file, the image data are appended
+    * after the header.
+    */
+   private void writeHeader(final FileChannel packChannel, final long generation) throws IOException {
+
+      final ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_LENGTH);
+
+      headerBuffer.putInt(FILE_VERSION);
+      headerBuffer.putLong(generation);
+      headerBuffer.flip();
+
+      while (headerBuffer.hasRemaining()) {
+         packChannel.write(headerBuffer);
+      }
+   }
+
+   private void writeIndexEntry(final DataOutputStream indexStream,
+                                final String key,
+                                final PackEntry packEntry) throws IOException {
+
+      final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+      indexStream.writeInt(keyBytes.length);
+      indexStream.write(keyBytes);
+      indexStream.writeLong(packEntry.offset);
+      indexStream.writeInt(packEntry.length);
+      indexStream.writeInt(packEntry.originalWidth);
+      indexStream.writeInt(packEntry.originalHeight);
+      indexStream.writeInt(packEntry.accessDay);
+
+      indexStream.flush();
+   }
+}
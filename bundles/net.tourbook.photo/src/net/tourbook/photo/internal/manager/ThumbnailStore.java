@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2005, 2016 Wolfgang Schramm and Contributors
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
  *
  * This program is free software; you can redistribute it and/or modify it under
  * the terms of the GNU General Public License as published by the Free Software
@@ -16,14 +16,14 @@
 package net.tourbook.photo.internal.manager;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Properties;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.imageio.ImageIO;
 
@@ -34,6 +34,7 @@ import net.tourbook.photo.ImageQuality;
 import net.tourbook.photo.Photo;
 import net.tourbook.photo.internal.Activator;
 import net.tourbook.photo.internal.Messages;
+import net.tourbook.photo.internal.manager.ThumbnailPack.StoreImage;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -49,6 +50,15 @@ import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.ImageLoader;
 import org.eclipse.swt.widgets.Display;
 
+/**
+ * Thumbnail store for the photo images, the store images of a store folder are saved in one
+ * {@link ThumbnailPack} together with the size of the original image.
+ * <p>
+ * A store image is still located with it's store image path
+ * <code>&lt;store&gt;/&lt;folder&gt;/&lt;image file name&gt;</code>, the folder is the pack name
+ * and the image file name is the key in the pack. Store folders with image files from previous
+ * versions are deleted when the store is cleaned up.
+ */
 public class ThumbnailStore {
 
 	private static final long			MBYTE							= 1024 * 1024;
@@ -56,19 +66,18 @@ public class ThumbnailStore {
 	static final String					THUMBNAIL_IMAGE_EXTENSION_JPG	= "jpg";						//$NON-NLS-1$
 	private static final String			THUMBNAIL_STORE_OS_PATH			= "thumbnail-store";			//$NON-NLS-1$
 
-	/*
-	 * photo image properties saved in a properties file
-	 */
-	private static final String			PROPERTIES_FILE_EXTENSION		= "properties";				//$NON-NLS-1$
-//	private static final String			PROPERTIES_FILE_HEADER			= "Image properties ";		//$NON-NLS-1$
-	public static final String			ORIGINAL_IMAGE_WIDTH			= "OriginalImageWidth";		//$NON-NLS-1$
-	public static final String			ORIGINAL_IMAGE_HEIGHT			= "OriginalImageHeight";		//$NON-NLS-1$
-
 	private static IPreferenceStore		_prefStore						= Activator.getDefault()//
 																				.getPreferenceStore();
 
 	private static IPath				_storePath						= getThumbnailStorePath();
 
+	/**
+	 * Key is the pack name which is the name of the store folder
+	 */
+	private static final ConcurrentHashMap<String, ThumbnailPack>	_allPacks	= new ConcurrentHashMap<>();
+
+	private static final Object			PACK_LOCK						= new Object();
+
 	/**
 	 * Images will be deleted when they are older than this date (in milliseconds)
 	 */
@@ -80,41 +89,6 @@ public class ThumbnailStore {
 	private static long					_deleteUI_FilesSize;
 	private static File					_errorFile;
 
-	private static final ReentrantLock	SAVE_LOCK						= new ReentrantLock();
-
-	private static IPath checkPath(final IPath storeImageFilePath) {
-
-		final IPath imagePathWithoutExt = storeImageFilePath.removeFileExtension();
-
-		// check store sub directory
-		final File storeSubDir = imagePathWithoutExt.removeLastSegments(1).toFile();
-		if (storeSubDir.exists() == false) {
-
-			SAVE_LOCK.lock();
-
-			try {
-				// check again
-				if (storeSubDir.exists() == false) {
-
-					// create store sub directory
-
-					if (storeSubDir.mkdirs() == false) {
-
-						StatusUtil.log(NLS.bind(//
-								"Thumbnail image path \"{0}\" cannot be created", //$NON-NLS-1$
-								storeSubDir.getAbsolutePath()), new Exception());
-
-						return null;
-					}
-				}
-
-			} finally {
-				SAVE_LOCK.unlock();
-			}
-		}
-		return imagePathWithoutExt;
-	}
-
 	/**
 	 * @param isDeleteAllImages
 	 *            When <code>true</code> all images will be deleted and
@@ -209,38 +183,39 @@ public class ThumbnailStore {
 													final String imageKey) {
 
 		final IPath storeImagePath = getStoreImagePath(imageFile.getName(), imageKey, imageQuality);
-		final IPath propImagePath = getPropertiesPathFromImagePath(storeImagePath);
 
-		cleanupStoreFiles_20_Delete(storeImagePath);
-		cleanupStoreFiles_20_Delete(propImagePath);
-	}
+		final String[] packNameAndKey = getPackNameAndKey(storeImagePath);
+		if (packNameAndKey == null) {
+			return;
+		}
 
-	private static void cleanupStoreFiles_20_Delete(final IPath storeImagePath) {
+		final ThumbnailPack pack = getPack(packNameAndKey[0], false);
+		if (pack == null) {
+			return;
+		}
 
-		final String storeFilePath = storeImagePath.toOSString();
+		try {
 
-		final File storeFile = new File(storeFilePath);
+			pack.remove(packNameAndKey[1]);
 
-		if (storeFile.isFile()) {
+		} catch (final IOException e) {
+			StatusUtil.log(NLS.bind("cannot remove image: {0}", storeImagePath.toOSString()), e); //$NON-NLS-1$
+		}
+	}
 
-//			/*
-//			 * Java 7
-//			 */
-//			try {
-//
-//				final java.nio.file.Path path = FileSystems.getDefault().getPath(storeFilePath);
-//
-//				Files.delete(path);
-//
-//			} catch (final Exception e) {
-//				StatusUtil.log(NLS.bind("cannot delete file: {0}", storeFilePath)); //$NON-NLS-1$
-//			}
+	/**
+	 * Close all packs, this must be done before the pack files are deleted or the store location
+	 * is changed.
+	 */
+	private static void closePacks() {
 
-			final boolean isDeleted = storeFile.delete();
+		synchronized (PACK_LOCK) {
 
-			if (isDeleted == false) {
-				StatusUtil.log(NLS.bind("cannot delete file: {0}", storeFilePath)); //$NON-NLS-1$
+			for (final ThumbnailPack pack : _allPacks.values()) {
+				pack.close();
 			}
+
+			_allPacks.clear();
 		}
 	}
 
@@ -277,10 +252,22 @@ public class ThumbnailStore {
 
 					for (final File folder : rootFiles) {
 
-						if (isDeleteAll) {
+						final String fileName = folder.getName();
+
+						if (folder.isFile()) {
+
+							if (fileName.endsWith('.' + ThumbnailPack.PACK_FILE_EXTENSION)) {
+
+								final String packName = new Path(fileName).removeFileExtension().toString();
+
+								doCleanupPack(packName, isDeleteAll, monitor);
+							}
+
+						} else if (isDeleteAll) {
 							doCleanupAll(folder, monitor);
 						} else {
 
+							// store folder with image files from previous versions
 							doCleanupDeleteFiles(folder, monitor);
 						}
 
@@ -439,16 +426,156 @@ public class ThumbnailStore {
 		return isFileFolderDeleted ? 1 : 0;
 	}
 
-	static IPath getPropertiesPathFromImagePath(final IPath storeImageFilePath) {
+	/**
+	 * Evicts the images of a pack which are not accessed since the cleanup date, the pack is
+	 * deleted when it do not contain images any more.
+	 *
+	 * @param packName
+	 * @param isDeleteAll
+	 * @param monitor
+	 */
+	private static void doCleanupPack(final String packName, final boolean isDeleteAll, final IProgressMonitor monitor) {
+
+		final ThumbnailPack pack = getPack(packName, false);
+		if (pack == null) {
+			return;
+		}
+
+		final int numImages = pack.getNumImages();
+		int numDeletedImages = numImages;
+
+		try {
+
+			if (isDeleteAll == false) {
+
+				final int oldestAccessDay = (int) TimeTools
+						.getZonedDateTime(_dateToDeleteOlderImagesMillis)
+						.toLocalDate()
+						.toEpochDay();
+
+				_deleteUI_FilesSize += pack.evictImages(oldestAccessDay);
+
+				numDeletedImages = numImages - pack.getNumImages();
+			}
+
+			if (isDeleteAll || pack.getNumImages() == 0) {
+
+				synchronized (PACK_LOCK) {
+
+					_allPacks.remove(packName);
+
+					if (pack.delete() == false) {
+						_errorFile = new File(_storePath.toFile(), packName + '.' + ThumbnailPack.PACK_FILE_EXTENSION);
+						monitor.setCanceled(true);
+					}
+				}
+			}
+
+		} catch (final IOException e) {
+			StatusUtil.log(NLS.bind("cannot cleanup thumbnail pack: {0}", packName), e); //$NON-NLS-1$
+		}
+
+		_deleteUI_CheckedFiles += numImages;
+		_deleteUI_DeletedFiles += numDeletedImages;
+
+		monitor.subTask(NLS.bind(Messages.Thumbnail_Store_CleanupTask_Subtask, //
+				new Object[] {
+						_deleteUI_CheckedFiles,
+						_deleteUI_DeletedFiles,
+						Long.toString(_deleteUI_FilesSize / MBYTE),
+						packName }));
+	}
+
+	/**
+	 * @param packName
+	 * @param isCreatePack
+	 *            When <code>true</code> the pack files are created when not available
+	 * @return Returns the pack or <code>null</code> when not available
+	 */
+	private static ThumbnailPack getPack(final String packName, final boolean isCreatePack) {
+
+		final ThumbnailPack pack = _allPacks.get(packName);
+
+		if (pack != null) {
+			return pack;
+		}
+
+		final File storeFolder = _storePath.toFile();
+
+		if (isCreatePack == false
+				&& new File(storeFolder, packName + '.' + ThumbnailPack.INDEX_FILE_EXTENSION).exists() == false) {
+			return null;
+		}
+
+		synchronized (PACK_LOCK) {
+
+			// check again, it could be opened in another thread
+			ThumbnailPack openedPack = _allPacks.get(packName);
+
+			if (openedPack == null) {
+
+				try {
+
+					openedPack = new ThumbnailPack(storeFolder, packName);
+
+					_allPacks.put(packName, openedPack);
+
+				} catch (final IOException e) {
+					StatusUtil.log(e);
+				}
+			}
+
+			return openedPack;
+		}
+	}
+
+	/**
+	 * @param storeImageFilePath
+	 * @return Returns the pack name and the key of the image in the pack or <code>null</code> when
+	 *         the image path is not a store image path
+	 */
+	private static String[] getPackNameAndKey(final IPath storeImageFilePath) {
 
-		final String rawFileName = storeImageFilePath.removeFileExtension().lastSegment();
+		final IPath storePath = _storePath;
 
-		final IPath propImageFilePath = storeImageFilePath
-				.removeLastSegments(1)
-				.append(rawFileName)
-				.addFileExtension(PROPERTIES_FILE_EXTENSION);
+		if (storePath.isPrefixOf(storeImageFilePath) == false
+				|| storeImageFilePath.segmentCount() != storePath.segmentCount() + 2) {
+			return null;
+		}
 
-		return propImageFilePath;
+		return new String[] {
+				storeImageFilePath.segment(storePath.segmentCount()),
+				storeImageFilePath.lastSegment() };
+	}
+
+	/**
+	 * @param storeImageFilePath
+	 * @return Returns the image data and the original image size of the store image or
+	 *         <code>null</code> when the image is not available in the thumbnail store.
+	 */
+	static StoreImage getStoreImage(final IPath storeImageFilePath) {
+
+		final String[] packNameAndKey = getPackNameAndKey(storeImageFilePath);
+		if (packNameAndKey == null) {
+			return null;
+		}
+
+		final ThumbnailPack pack = getPack(packNameAndKey[0], false);
+		if (pack == null) {
+			return null;
+		}
+
+		try {
+
+			return pack.getStoreImage(packNameAndKey[1], (int) LocalDate.now().toEpochDay());
+
+		} catch (final IOException e) {
+			StatusUtil.log(NLS.bind(//
+					"Cannot read thumbnail image: \"{0}\"", //$NON-NLS-1$
+					storeImageFilePath.toOSString()), e);
+		}
+
+		return null;
 	}
 
 	static synchronized IPath getStoreImagePath(final Photo photo, final ImageQuality imageQuality) {
@@ -558,58 +685,59 @@ public class ThumbnailStore {
 		return tnFolderPath.addTrailingSeparator();
 	}
 
-	private static void saveProperties(final IPath storeImageFilePath, final Properties originalImageProperties) {
-
-		IPath propImageFilePath = null;
-		FileOutputStream fileStream = null;
-
-		try {
-
-			propImageFilePath = getPropertiesPathFromImagePath(storeImageFilePath);
-
-			final File propFile = new File(propImageFilePath.toOSString());
-
-			fileStream = new FileOutputStream(propFile);
-
-			originalImageProperties.store(fileStream, null);
-
-		} catch (final Exception e) {
+	/**
+	 * Put the encoded image into the pack of the store folder.
+	 *
+	 * @param imageData
+	 * @param storeImageFilePath
+	 * @param originalImageWidth
+	 * @param originalImageHeight
+	 * @throws IOException
+	 */
+	private static void saveStoreImage(	final byte[] imageData,
+										final IPath storeImageFilePath,
+										final int originalImageWidth,
+										final int originalImageHeight) throws IOException {
 
-			StatusUtil.log(NLS.bind(//
-					"Cannot save properties file: \"{0}\"", //$NON-NLS-1$
-					propImageFilePath.toOSString()), e);
-		} finally {
+		final String[] packNameAndKey = getPackNameAndKey(storeImageFilePath);
+		if (packNameAndKey == null) {
+			throw new IOException("Image path is not in the thumbnail store"); //$NON-NLS-1$
+		}
 
-			if (fileStream != null) {
-				try {
-					fileStream.close();
-				} catch (final IOException e) {
-					e.printStackTrace();
-				}
-			}
+		final ThumbnailPack pack = getPack(packNameAndKey[0], true);
+		if (pack == null) {
+			throw new IOException("Thumbnail pack cannot be opened"); //$NON-NLS-1$
 		}
+
+		pack.put(
+				packNameAndKey[1],
+				imageData,
+				originalImageWidth,
+				originalImageHeight,
+				(int) LocalDate.now().toEpochDay());
 	}
 
 	/**
 	 * @param thumbImg
 	 * @param storeImageFilePath
-	 * @param originalImageProperties
+	 * @param originalImageWidth
+	 * @param originalImageHeight
 	 * @return Returns <code>true</code>when the image could be saved in the thumb store.
 	 */
 	static boolean saveThumbImageWithAWT(	final BufferedImage thumbImg,
 											final IPath storeImageFilePath,
-											final Properties originalImageProperties) {
+											final int originalImageWidth,
+											final int originalImageHeight) {
 
 		try {
 
-			final IPath imagePathWithoutExt = checkPath(storeImageFilePath);
-			if (imagePathWithoutExt == null) {
+			final ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+
+			if (ImageIO.write(thumbImg, THUMBNAIL_IMAGE_EXTENSION_JPG, imageStream) == false) {
 				return false;
 			}
 
-			ImageIO.write(thumbImg, THUMBNAIL_IMAGE_EXTENSION_JPG, new File(storeImageFilePath.toOSString()));
-
-			saveProperties(storeImageFilePath, originalImageProperties);
+			saveStoreImage(imageStream.toByteArray(), storeImageFilePath, originalImageWidth, originalImageHeight);
 
 		} catch (final Exception e) {
 
@@ -625,28 +753,24 @@ public class ThumbnailStore {
 
 	static void saveThumbImageWithSWT(	final Image thumbnailImage,
 										final IPath storeImageFilePath,
-										final Properties originalImageProperties) {
+										final int originalImageWidth,
+										final int originalImageHeight) {
 
 		try {
 
-			final IPath imagePathWithoutExt = checkPath(storeImageFilePath);
-			if (imagePathWithoutExt == null) {
-				return;
-			}
-
 			final ImageLoader imageLoader = new ImageLoader();
 			imageLoader.data = new ImageData[] { thumbnailImage.getImageData() };
 
-			final IPath fullImageFilePath = imagePathWithoutExt.addFileExtension(THUMBNAIL_IMAGE_EXTENSION_JPG);
-
 			/*
 			 * save thumbnail as jpg image, Eclipse 3.8 M5 saves it with better quality, default is
 			 * 75%, compression in the imageloader could be set
 			 */
+			final ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+
 			imageLoader.compression = 75;
-			imageLoader.save(fullImageFilePath.toOSString(), SWT.IMAGE_JPEG);
+			imageLoader.save(imageStream, SWT.IMAGE_JPEG);
 
-			saveProperties(storeImageFilePath, originalImageProperties);
+			saveStoreImage(imageStream.toByteArray(), storeImageFilePath, originalImageWidth, originalImageHeight);
 
 		} catch (final Exception e) {
 
@@ -657,6 +781,9 @@ public class ThumbnailStore {
 	}
 
 	public static void updateStoreLocation() {
+
+		closePacks();
+
 		_storePath = getThumbnailStorePath();
 	}
 }
@@ -19,6 +19,8 @@ import java.time.ZonedDateTime;
 
 import net.tourbook.common.time.TimeTools;
 import net.tourbook.data.TourPerson;
+import net.tourbook.database.TourStatisticRollup;
+import net.tourbook.ui.SQLFilter;
 import net.tourbook.ui.TourTypeFilter;
 
 public abstract class DataProvider {
@@ -72,6 +74,17 @@ public abstract class DataProvider {
       return sb.toString();
    }
 
+   /**
+    * @param sqlFilter
+    * @return Returns <code>true</code> when the statistic values can be read from the tours which
+    *         are summarized in {@link TourStatisticRollup#TABLE_TOUR_STATISTIC_DAY}, this is
+    *         possible when only the person and tour type filter are used.
+    */
+   static boolean isUseRollup(final SQLFilter sqlFilter) {
+
+      return sqlFilter.isPersonAndTourTypeFilterOnly() && TourStatisticRollup.isRollupAvailable();
+   }
+
    /**
     * @param currentYear
     * @param numberOfYears
@@ -25,6 +25,7 @@ import java.util.Arrays;
 import net.tourbook.data.TourPerson;
 import net.tourbook.data.TourType;
 import net.tourbook.database.TourDatabase;
+import net.tourbook.database.TourStatisticRollup;
 import net.tourbook.statistic.DurationTime;
 import net.tourbook.statistics.StatisticServices;
 import net.tourbook.ui.SQLFilter;
@@ -81,6 +82,8 @@ public class DataProvider_Tour_Month extends DataProvider {
       String fromTourData;
 
       final SQLFilter sqlFilter = new SQLFilter(SQLFilter.TAG_FILTER);
+      final boolean isUseRollup = isUseRollup(sqlFilter);
+
       if (sqlFilter.isTagFilterActive()) {
 
          // with tag filter
@@ -112,6 +115,19 @@ public class DataProvider_Tour_Month extends DataProvider {
                + ") td" //$NON-NLS-1$
          ;
 
+      } else if (isUseRollup) {
+
+         // without tag filter, read the tours which are summarized by day
+
+         fromTourData = NL
+
+               + (" FROM " + TourStatisticRollup.TABLE_TOUR_STATISTIC_DAY + " TourData") + NL //$NON-NLS-1$ //$NON-NLS-2$
+
+               + (" WHERE StartYear IN (" + getYearList(lastYear, numYears) + ")") + NL //$NON-NLS-1$ //$NON-NLS-2$
+               + sqlFilter.getWhereClause()
+
+         ;
+
       } else {
 
          // without tag filter
@@ -142,7 +158,12 @@ public class DataProvider_Tour_Month extends DataProvider {
       case MOVING:
       default:
          // this is also the old implementation for the duration values
-         sqlDurationTime = " SUM(CASE WHEN TourDrivingTime > 0 THEN TourDrivingTime ELSE TourRecordingTime END),"; //$NON-NLS-1$
+         sqlDurationTime = isUseRollup
+
+               // the moving time is summarized in the rollup
+               ? " SUM(TourMovingTime)," //$NON-NLS-1$
+
+               : " SUM(CASE WHEN TourDrivingTime > 0 THEN TourDrivingTime ELSE TourRecordingTime END),"; //$NON-NLS-1$
          break;
       }
 
@@ -157,7 +178,7 @@ public class DataProvider_Tour_Month extends DataProvider {
             + sqlDurationTime + "         " + NL //       5 //$NON-NLS-1$
             + " SUM(TourRecordingTime),	" + NL //       6 //$NON-NLS-1$
             + " SUM(TourDrivingTime),		" + NL //       7 //$NON-NLS-1$
-            + " SUM(1), 						" + NL //       8 //$NON-NLS-1$
+            + (isUseRollup ? " SUM(NumTours)," : " SUM(1),") + NL //       8 //$NON-NLS-1$ //$NON-NLS-2$
             + " TourType_TypeId 				" + NL //       9 //$NON-NLS-1$
 
             + fromTourData
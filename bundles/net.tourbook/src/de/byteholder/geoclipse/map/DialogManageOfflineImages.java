@@ -962,7 +962,7 @@ public class DialogManageOfflineImages extends TitleAreaDialog implements ITileL
       }
 
       // initialize progress bar
-      _maxQueue = MP.getTileWaitingQueue().size();
+      _maxQueue = MP.getNumQueuedTiles();
       _progbarQueue.setMaximum(_maxQueue);
    }
 
@@ -1018,7 +1018,7 @@ public class DialogManageOfflineImages extends TitleAreaDialog implements ITileL
    @Override
    public void tileEvent(final TileEventId tileEventId, final Tile tile) {
 
-      final int tileWaitingQueueSize = MP.getTileWaitingQueue().size();
+      final int tileWaitingQueueSize = MP.getNumQueuedTiles();
 
       _updateCounter[0]++;
 
@@ -2474,6 +2474,10 @@ public class Map extends Canvas {
       if (_mp != null) {
          _mp.resetAll(false);
       }
+
+      // tiles of this map do not need to be kept in the caches any more
+      MP.removeVisibleTileKeys(this);
+
       if (_dropTarget != null) {
          _dropTarget.dispose();
       }
@@ -3313,6 +3317,14 @@ public class Map extends Canvas {
     */
    private void paint_30_Tiles(final GC gcMapImage) {
 
+      // load tiles which are near the viewport center first
+      MP.setTileLoadingViewport(
+            _mapZoomLevel,
+            (_worldPixel_TopLeft_Viewport.x + _worldPixel_TopLeft_Viewport.width / 2.0) / _tilePixelSize,
+            (_worldPixel_TopLeft_Viewport.y + _worldPixel_TopLeft_Viewport.height / 2.0) / _tilePixelSize);
+
+      final Set<String> allVisibleTileKeys = new HashSet<>();
+
       for (int tilePosX = _tilePos_MinX, tileIndexX = 0; tilePosX <= _tilePos_MaxX; tilePosX++, tileIndexX++) {
          for (int tilePosY = _tilePos_MinY, tileIndexY = 0; tilePosY <= _tilePos_MaxY; tilePosY++, tileIndexY++) {
 
@@ -3338,6 +3350,8 @@ public class Map extends Canvas {
 
                   _allPaintedTiles[tileIndexX][tileIndexY] = paintedTile;
 
+                  allVisibleTileKeys.add(paintedTile.getTileKey());
+
                } else {
 
                   gcMapImage.setBackground(_defaultBackgroundColor);
@@ -3346,6 +3360,9 @@ public class Map extends Canvas {
             }
          }
       }
+
+      // keep visible tiles and their images in the caches and cancel loading of hidden tiles
+      MP.setVisibleTileKeys(this, allVisibleTileKeys);
    }
 
    private void paint_40_Legend(final GC gc) {
@@ -5103,6 +5120,11 @@ public class Map extends Canvas {
 
          paint_TileInfo_Path(tile, sb);
 
+         // cache statistics
+         sb.append("Tiles: " + MP.getTileCache()); //$NON-NLS-1$
+         sb.append(UI.NEW_LINE);
+         sb.append("Images: " + _mp.getTileImageCache()); //$NON-NLS-1$
+
          _textWrapper.printText(
                gc,
                sb.toString(),
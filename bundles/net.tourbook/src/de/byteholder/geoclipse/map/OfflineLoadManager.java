@@ -19,7 +19,6 @@ import java.io.File;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.LinkedBlockingDeque;
 
 import net.tourbook.application.TourbookPlugin;
 import net.tourbook.common.util.StatusUtil;
@@ -68,8 +67,7 @@ public class OfflineLoadManager {
 				tile.deleteObserver(this);
 
 				// update loading state
-				final LinkedBlockingDeque<Tile> waitingQueue = MP.getTileWaitingQueue();
-				if (waitingQueue.size() == 0) {
+				if (MP.getNumQueuedTiles() == 0) {
 					_isLoading = false;
 				}
 			}
@@ -160,6 +158,10 @@ public class OfflineLoadManager {
 				return false;
 			}
 
+			if (TileImageCache.isUseTilePackStore()) {
+				return TilePackStore.remove(tilePath);
+			}
+
 			final File tileFile = tilePath.toFile();
 			if (tileFile.exists()) {
 
@@ -200,6 +202,10 @@ public class OfflineLoadManager {
 				return false;
 			}
 
+			if (TileImageCache.isUseTilePackStore()) {
+				return TilePackStore.contains(tilePath);
+			}
+
 			final File tileFile = tilePath.toFile();
 			if (tileFile.exists()) {
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2005, 2010  Wolfgang Schramm and Contributors
+ * Copyright (C) 2005, 2020  Wolfgang Schramm and Contributors
  * 
  * This program is free software; you can redistribute it and/or modify it under
  * the terms of the GNU General Public License as published by the Free Software
@@ -16,50 +16,57 @@
 package de.byteholder.geoclipse.map;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Set;
 import java.util.concurrent.Future;
 
 /**
- * cache for tiles
+ * cache for tiles, the least recently used tiles are removed when the max number of tiles is
+ * exceeded, tiles which are visible in the map are not removed
  */
 public class TileCache {
 
-	private final int								_maxTiles;
-
-	private final ConcurrentHashMap<String, Tile>	_tileCache		= new ConcurrentHashMap<String, Tile>();
-	private final ConcurrentLinkedQueue<String>		_tileCacheFifo	= new ConcurrentLinkedQueue<String>();
+	private final WeightedTileCache<Tile>	_tileCache;
 
 	public TileCache(final int maxTiles) {
-		_maxTiles = maxTiles;
-	}
 
-	public void add(final String tileKey, final Tile tile) {
+		_tileCache = new WeightedTileCache<Tile>(maxTiles) {
 
-		// check if space is available in the cache
-		final int cacheSize = _tileCacheFifo.size();
-		if (cacheSize > _maxTiles) {
+			@Override
+			protected long getWeight(final Tile tile) {
 
-			// remove cached tiles
-			for (int cacheIndex = _maxTiles; cacheIndex < cacheSize; cacheIndex++) {
-				removeTile(_tileCacheFifo.poll());
+				// the number of tiles is limited
+				return 1;
 			}
-		}
 
+			@Override
+			protected void onEvict(final String tileKey, final Tile tile) {
+				removeTileRelations(tile);
+			}
+		};
+	}
+
+	public void add(final String tileKey, final Tile tile) {
 		_tileCache.put(tileKey, tile);
-		_tileCacheFifo.add(tileKey);
 	}
 
 	public Tile get(final String tileKey) {
 		return _tileCache.get(tileKey);
 	}
 
+	/**
+	 * @return Returns the cache which contains the cache statistics
+	 */
+	public WeightedTileCache<Tile> getCache() {
+		return _tileCache;
+	}
+
 	public void remove(final String tileKey) {
 
-		_tileCacheFifo.remove(tileKey);
+		final Tile removedTile = _tileCache.remove(tileKey);
 
-		removeTile(tileKey);
+		if (removedTile != null) {
+			removeTileRelations(removedTile);
+		}
 	}
 
 	/**
@@ -67,14 +74,7 @@ public class TileCache {
 	 */
 	public synchronized void removeAll() {
 
-		Tile checkedTile = null;
-
-		final Collection<Tile> tiles = _tileCache.values();
-		for (final Tile tile : tiles) {
-
-			if (checkedTile == null) {
-				checkedTile = tile;
-			}
+		for (final Tile tile : _tileCache.getValues()) {
 
 			// remove children to prevent memory leaks
 			final ArrayList<Tile> tileChildren = tile.getChildren();
@@ -88,12 +88,7 @@ public class TileCache {
 			}
 		}
 
-		_tileCache.clear();
-		_tileCacheFifo.clear();
-
-		if (checkedTile != null) {
-			checkedTile = null;
-		}
+		_tileCache.removeAll();
 	}
 
 	/**
@@ -101,7 +96,7 @@ public class TileCache {
 	 */
 	public void removeParentTiles() {
 
-		for (final Tile tile : _tileCache.values()) {
+		for (final Tile tile : _tileCache.getValues()) {
 
 			/*
 			 * check if this is a parent tile, child tiles are not removed to prevent
@@ -116,20 +111,17 @@ public class TileCache {
 				}
 
 				// remove parent
-				final String parentTileKey = tile.getTileKey();
-				_tileCache.remove(parentTileKey);
-				_tileCacheFifo.remove(parentTileKey);
+				_tileCache.remove(tile.getTileKey());
 			}
 		}
 	}
 
-	private void removeTile(final String tileKey) {
-
-		final Tile removedTile = _tileCache.remove(tileKey);
-
-		if (removedTile == null) {
-			return;
-		}
+	/**
+	 * Removes the parent or child tiles of a removed tile
+	 * 
+	 * @param removedTile
+	 */
+	private void removeTileRelations(final Tile removedTile) {
 
 		ArrayList<Tile> tileChildren = removedTile.getChildren();
 		if (tileChildren != null) {
@@ -185,24 +177,34 @@ public class TileCache {
 	 */
 	public void resetOverlays() {
 
-		for (final Tile tile : _tileCache.values()) {
+		for (final Tile tile : _tileCache.getValues()) {
 			tile.resetOverlay();
 		}
 	}
 
 	public void resetTileImageAvailability() {
 
-		for (final Tile tile : _tileCache.values()) {
+		for (final Tile tile : _tileCache.getValues()) {
 			tile.setIsOfflineImageAvailable(false);
 		}
 	}
 
+	/**
+	 * Set the keys of the tiles which are visible in the map, these tiles are not removed from the
+	 * cache when the max number of tiles is exceeded.
+	 * 
+	 * @param visibleTileKeys
+	 */
+	public void setVisibleTileKeys(final Set<String> visibleTileKeys) {
+		_tileCache.setPinnedKeys(visibleTileKeys);
+	}
+
 	/**
 	 * Stop downloading tiles
 	 */
 	public void stopLoadingTiles() {
 
-		for (final Tile tile : _tileCache.values()) {
+		for (final Tile tile : _tileCache.getValues()) {
 
 			if (tile.isLoading()) {
 
@@ -221,4 +223,9 @@ public class TileCache {
 		}
 	}
 
+	@Override
+	public String toString() {
+		return _tileCache.toString();
+	}
+
 }
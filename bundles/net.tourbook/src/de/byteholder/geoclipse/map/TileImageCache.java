@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2005, 2019  Wolfgang Schramm and Contributors
+ * Copyright (C) 2005, 2020  Wolfgang Schramm and Contributors
  *
  * This program is free software; you can redistribute it and/or modify it under
  * the terms of the GNU General Public License as published by the Free Software
@@ -19,11 +19,10 @@ import de.byteholder.geoclipse.mapprovider.MP;
 import de.byteholder.geoclipse.mapprovider.MapProviderManager;
 import de.byteholder.geoclipse.preferences.IMappingPreferences;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
 import net.tourbook.application.TourbookPlugin;
@@ -47,6 +46,9 @@ import org.eclipse.swt.widgets.Display;
 /**
  * This cache manages map images by caching and saving the images for the offline mode. The cached
  * images can be dimmed, saved offline image are not dimmed.
+ * <p>
+ * The cache is limited by the pixel memory of the native images, the least used images are
+ * disposed when the limit is exceeded, images of the tiles which are visible in the map are kept.
  *
  * @author joshua.marinacci@sun.com
  * @author Michael Kanis
@@ -59,10 +61,15 @@ public class TileImageCache {
     */
    public static final String                            TILE_OFFLINE_CACHE_OS_PATH = "offline-map";                //$NON-NLS-1$
 
-   private static final ConcurrentHashMap<String, Image> _imageCache                = new ConcurrentHashMap<>();
-   private static final ConcurrentLinkedQueue<String>    _imageCacheFifo            = new ConcurrentLinkedQueue<>();
+   /**
+    * Number of bytes for one image pixel, SWT images are mostly 32 bit images
+    */
+   private static final int                              BYTES_PER_PIXEL            = 4;
 
-   private static final ArrayList<Image>                 _allImages                 = new ArrayList();
+   /**
+    * Offline images which are loaded but can be not yet in the image cache
+    */
+   private static final Set<Image>                       _allImages                 = ConcurrentHashMap.newKeySet();
 
    /**
     * Path from user preferences where tile images are stored
@@ -71,8 +78,13 @@ public class TileImageCache {
 
    private static boolean                                _useOffLineCache;
 
+   /**
+    * When <code>true</code> the offline images are stored in a {@link TilePackStore}, otherwise
+    * each image is stored in an own file
+    */
+   private static boolean                                _isUseTilePackStore;
+
    private static final ReentrantLock                    CREATE_DIR_LOCK            = new ReentrantLock();
-   private static final ReentrantLock                    CACHE_LOCK                 = new ReentrantLock();
 
    /**
     * This display is used because {@link Display#getDefault()} is synchronized which propably
@@ -80,15 +92,33 @@ public class TileImageCache {
     */
    private Display                                       _display;
 
-   private int                                           _maxCacheSize;
+   private final WeightedTileCache<Image>                _imageCache;
 
    /**
-    * @param factoryInfo
-    * @param display
+    * @param maxCacheMemory
+    *           Max number of bytes for the pixels of all cached images
     */
-   public TileImageCache(final int maxCacheSize) {
+   public TileImageCache(final long maxCacheMemory) {
+
+      _imageCache = new WeightedTileCache<Image>(maxCacheMemory) {
+
+         @Override
+         protected long getWeight(final Image image) {
+
+            if (image.isDisposed()) {
+               return 0;
+            }
+
+            final Rectangle imageBounds = image.getBounds();
+
+            return (long) imageBounds.width * imageBounds.height * BYTES_PER_PIXEL;
+         }
 
-      _maxCacheSize = maxCacheSize;
+         @Override
+         protected void onEvict(final String tileKey, final Image image) {
+            disposeImage(image);
+         }
+      };
 
       _display = Display.getDefault();
 
@@ -109,11 +139,34 @@ public class TileImageCache {
       return null;
    }
 
+   /**
+    * @param offlineImagePath
+    * @return Returns <code>true</code> when the offline image is available as file or in the tile
+    *         pack store
+    */
+   private static boolean isOfflineImageAvailable(final IPath offlineImagePath) {
+
+      if (_isUseTilePackStore) {
+         return TilePackStore.contains(offlineImagePath);
+      }
+
+      return offlineImagePath.toFile().exists();
+   }
+
+   /**
+    * @return Returns <code>true</code> when the offline images are stored in a
+    *         {@link TilePackStore}
+    */
+   public static boolean isUseTilePackStore() {
+      return _isUseTilePackStore;
+   }
+
    private static void setTileCachePath() {
 
       // get status if the tile is offline cache is activated
       final IPreferenceStore prefStore = TourbookPlugin.getDefault().getPreferenceStore();
       _useOffLineCache = prefStore.getBoolean(IMappingPreferences.OFFLINE_CACHE_USE_OFFLINE);
+      _isUseTilePackStore = prefStore.getBoolean(IMappingPreferences.OFFLINE_CACHE_USE_TILE_PACK_STORE);
 
       if (_useOffLineCache) {
 
@@ -143,6 +196,8 @@ public class TileImageCache {
          }
 
          _osTileCachePath = tileCachePath.toOSString();
+
+         TilePackStore.setTileCachePath(_isUseTilePackStore ? _osTileCachePath : null);
       }
    }
 
@@ -151,32 +206,47 @@ public class TileImageCache {
     */
    public synchronized void dispose() {
 
-      final Collection<Image> allImages = _imageCache.values();
-
-      for (final Image image : allImages) {
-         if (image != null) {
-            try {
-               image.dispose();
-            } catch (final Exception e) {
-               // ignore, another thread can have set the image to null
-            }
-         }
+      for (final Image image : _imageCache.getValues()) {
+         disposeImage(image);
       }
 
       for (final Image image : _allImages) {
-         if (image != null) {
-            try {
-               image.dispose();
-            } catch (final Exception e) {}
-         }
+         disposeImage(image);
       }
 
-      _imageCache.clear();
-      _imageCacheFifo.clear();
+      _imageCache.removeAll();
 
       _allImages.clear();
    }
 
+   /**
+    * Dispose the native image
+    *
+    * @param image
+    */
+   private void disposeImage(final Image image) {
+
+      if (image == null) {
+         return;
+      }
+
+      _allImages.remove(image);
+
+      try {
+         image.dispose();
+      } catch (final Exception e) {
+         // it is possible that the image is already disposed by another thread
+      }
+   }
+
+   /**
+    * @return Returns the cache which contains the cache statistics, the weight is the number of
+    *         bytes of the native images
+    */
+   public WeightedTileCache<Image> getCache() {
+      return _imageCache;
+   }
+
    /**
     * @param tileImagePath
     * @return Returns the path for the offline image or <code>null</code> when the image is not
@@ -184,9 +254,7 @@ public class TileImageCache {
     */
    private IPath getCheckedOfflineImagePath(final IPath tileImagePath) {
 
-      File tileImageFile = tileImagePath.toFile();
-
-      if (tileImageFile.exists()) {
+      if (isOfflineImageAvailable(tileImagePath)) {
 
          return tileImagePath;
 
@@ -204,9 +272,7 @@ public class TileImageCache {
                .append(partFileName)
                .addFileExtension(fileExt);
 
-         tileImageFile = partFilePath.toFile();
-
-         if (tileImageFile.exists()) {
+         if (isOfflineImageAvailable(partFilePath)) {
             return partFilePath;
          }
       }
@@ -248,12 +314,22 @@ public class TileImageCache {
 
             try {
 
-               /*
-                * load image with the constructor which is 20 times faster than loading the
-                * image with an imageloader
-                */
+               final Image loadedImage;
 
-               final Image loadedImage = new Image(_display, osTileImagePath);
+               if (_isUseTilePackStore) {
+
+                  // decode the image data directly from the pack file
+                  loadedImage = new Image(_display, TilePackStore.getInputStream(offlineImagePath));
+
+               } else {
+
+                  /*
+                   * load image with the constructor which is 20 times faster than loading the
+                   * image with an imageloader
+                   */
+
+                  loadedImage = new Image(_display, osTileImagePath);
+               }
 
                /*
                 * It can happen that these images are not in the image cache. Keep all created
@@ -402,86 +478,22 @@ public class TileImageCache {
     */
    private void putIntoImageCache(final String tileKey, final Image tileImage) {
 
-      /*
-       * check if the max number of images is reached, remove oldest image from the cache
-       */
-      final int cacheSize = _imageCacheFifo.size();
-      if (cacheSize >= _maxCacheSize + 10) {
-
-         CACHE_LOCK.lock();
-         {
-            try {
-
-               // remove cache items
-               for (int cacheIndex = _maxCacheSize; cacheIndex < cacheSize; cacheIndex++) {
-
-                  // remove and dispose oldest image
-
-                  final String headTileKey = _imageCacheFifo.poll();
-                  if (headTileKey == null) {
-                     // queue is empty -> nothing more to do
-                     break;
-                  }
-
-                  final Image oldestImage = _imageCache.remove(headTileKey);
-
-                  if (oldestImage != null) {
-                     try {
-                        oldestImage.dispose();
-                     } catch (final Exception e) {
-                        // it is possible that the image is already disposed by another thread
-                     }
-                  }
-               }
-
-            } finally {
-               CACHE_LOCK.unlock();
-            }
-         }
-      }
-
       try {
 
          /*
-          * check if the image is already in the cache
+          * put image into the cache, the least used images are disposed when the max cache memory
+          * is exceeded
           */
-         final Image cachedImage = _imageCache.get(tileKey);
-         if (cachedImage == null) {
-
-            // put a new image into the cache
-
-            _imageCache.put(tileKey, tileImage);
-            _imageCacheFifo.add(tileKey);
-
-            return;
-
-         } else {
-
-            // image is already in the cache
-
-            if (cachedImage == tileImage) {
-
-               // keep image in the cache, it is the same as the new image
-
-               return;
-
-            } else {
+         final Image cachedImage = _imageCache.put(tileKey, tileImage);
 
-               // dispose cached image which has the same key but is another image
+         // the image is now disposed by the cache
+         _allImages.remove(tileImage);
 
-               if (cachedImage != null) {
-                  try {
-                     cachedImage.dispose();
-                  } catch (final Exception e) {
-                     // it is possible that the image is already disposed by another thread
-                  }
-               }
+         if (cachedImage != null && cachedImage != tileImage) {
 
-               // replace existing image, the image must be already in the fifo queue
-               _imageCache.put(tileKey, tileImage);
+            // dispose cached image which has the same key but is another image
 
-               return;
-            }
+            disposeImage(cachedImage);
          }
 
       } catch (final Exception e) {
@@ -515,7 +527,7 @@ public class TileImageCache {
 
       // check tile directory
       final File tileDir = tilePathWithoutExt.removeLastSegments(1).toFile();
-      if (tileDir.exists() == false) {
+      if (_isUseTilePackStore == false && tileDir.exists() == false) {
 
          /*
           * create tile directory
@@ -582,7 +594,18 @@ public class TileImageCache {
 
          final IPath fullImageFilePath = tilePathWithoutExt.addFileExtension(extension);
 
-         imageLoader.save(fullImageFilePath.toOSString(), imageType);
+         if (_isUseTilePackStore) {
+
+            final ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+
+            imageLoader.save(imageStream, imageType);
+
+            TilePackStore.put(fullImageFilePath, imageStream.toByteArray());
+
+         } else {
+
+            imageLoader.save(fullImageFilePath.toOSString(), imageType);
+         }
 
          // update map provider with the image format
          mp.setImageFormat(MapProviderManager.getImageMimeType(imageType));
@@ -733,7 +756,7 @@ public class TileImageCache {
                dimColor.dispose();
                gcTileImage.dispose();
 
-               tileImage.dispose();
+               disposeImage(tileImage);
             }
          });
 
@@ -743,4 +766,19 @@ public class TileImageCache {
       }
    }
 
+   /**
+    * Set the keys of the tiles which are visible in the map, the images of these tiles are not
+    * disposed when the max cache memory is exceeded.
+    *
+    * @param visibleTileKeys
+    */
+   public void setVisibleTileKeys(final Set<String> visibleTileKeys) {
+      _imageCache.setPinnedKeys(visibleTileKeys);
+   }
+
+   @Override
+   public String toString() {
+      return _imageCache.toString();
+   }
+
 }
@@ -25,7 +25,6 @@ import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.UnknownHostException;
-import java.util.concurrent.LinkedBlockingDeque;
 
 import net.tourbook.common.util.StatusUtil;
 import net.tourbook.common.util.Util;
@@ -41,15 +40,22 @@ import org.eclipse.swt.graphics.PaletteData;
  */
 public class TileImageLoader implements Runnable {
 
-   private static final String HTTP_HEADER_USER_AGENT = "User-Agent"; //$NON-NLS-1$
+   private static final String     HTTP_HEADER_USER_AGENT = "User-Agent"; //$NON-NLS-1$
 
-   private static int          _stackTraceCounter;
+   private static int              _stackTraceCounter;
+
+   private final TileLoadScheduler _tileLoadScheduler;
 
    /**
-    * Loads a tile image from a map provider which is contained in the tile. Tiles are retrieved
-    * from the tile waiting queue {@link MP#getTileWaitingQueue()}
+    * Loads a tile image from a map provider which is contained in the tile. The tile with the
+    * highest priority is retrieved from the queue of the {@link TileLoadScheduler}.
+    *
+    * @param tileLoadScheduler
     */
-   public TileImageLoader() {}
+   public TileImageLoader(final TileLoadScheduler tileLoadScheduler) {
+
+      _tileLoadScheduler = tileLoadScheduler;
+   }
 
    private void finalizeTile(final Tile tile, final boolean isNotifyObserver) {
 
@@ -452,9 +458,7 @@ public class TileImageLoader implements Runnable {
        * load/create tile image
        */
       // get tile from queue
-      final LinkedBlockingDeque<Tile> tileWaitingQueue = MP.getTileWaitingQueue();
-
-      final Tile tile = tileWaitingQueue.pollFirst();
+      final Tile tile = _tileLoadScheduler.pollTile();
 
       if (tile == null) {
          // it's possible that the waiting queue was reset
@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package de.byteholder.geoclipse.map;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.tourbook.application.TourbookPlugin;
+
+/**
+ * Queue and thread pool to load or create tile images.
+ * <p>
+ * The tiles are not loaded in the order in which they are queued, the tiles at the current zoom
+ * level which are near the viewport center are loaded first, tiles which are loaded in the
+ * background, e.g. when offline images are created, are loaded last. Tiles which are not visible
+ * any more after the map is zoomed or panned are removed from the queue.
+ */
+public class TileLoadScheduler {
+
+   /**
+    * Tiles at the viewport zoom level
+    */
+   private static final int                PRIORITY_VIEWPORT_ZOOM = 0;
+
+   /**
+    * Tiles which are queued for another zoom level
+    */
+   private static final int                PRIORITY_OTHER_ZOOM    = 1;
+
+   /**
+    * Tiles which are not displayed in the map
+    */
+   private static final int                PRIORITY_BACKGROUND    = 2;
+
+   private static volatile Viewport        _viewport;
+
+   private static final AtomicLong         _queueSequence         = new AtomicLong();
+
+   private static final Comparator<QueuedTile> _tilePriorityComparator = new Comparator<QueuedTile>() {
+      @Override
+      public int compare(final QueuedTile queuedTile1, final QueuedTile queuedTile2) {
+
+         final int priorityCompare = Integer.compare(queuedTile1.priority, queuedTile2.priority);
+
+         if (priorityCompare != 0) {
+            return priorityCompare;
+         }
+
+         final int distanceCompare = Double.compare(queuedTile1.distance, queuedTile2.distance);
+
+         if (distanceCompare != 0) {
+            return distanceCompare;
+         }
+
+         if (queuedTile1.priority == PRIORITY_BACKGROUND) {
+
+            // background tiles are loaded in the queued order
+            return Long.compare(queuedTile1.sequence, queuedTile2.sequence);
+         }
+
+         // the last requested tile is loaded first
+         return Long.compare(queuedTile2.sequence, queuedTile1.sequence);
+      }
+   };
+
+   private final String                    _threadName;
+   private final String                    _prefKeyNumberOfThreads;
+
+   private volatile ExecutorService        _executorService;
+   private final ReentrantLock             _executorLock          = new ReentrantLock();
+
+   private PriorityQueue<QueuedTile>       _tileQueue             = createTileQueue(16);
+   private final ReentrantLock             _queueLock             = new ReentrantLock();
+
+   private static class QueuedTile {
+
+      private final Tile    tile;
+      private final boolean isBackground;
+      private final long    sequence;
+
+      private int           priority;
+      private double        distance;
+
+      private QueuedTile(final Tile tile, final boolean isBackground) {
+
+         this.tile = tile;
+         this.isBackground = isBackground;
+
+         sequence = _queueSequence.incrementAndGet();
+
+         setPriority(_viewport);
+      }
+
+      /**
+       * Tiles of a map profile are not removed from the queue, the parent tile is finalized when
+       * all child tiles are loaded.
+       *
+       * @return Returns <code>true</code> when this tile can be removed from the queue
+       */
+      private boolean isCancelable() {
+
+         return isBackground == false
+               && tile.getParentTile() == null
+               && tile.getMP() instanceof ITileChildrenCreator == false;
+      }
+
+      private void setPriority(final Viewport viewport) {
+
+         if (isBackground) {
+
+            priority = PRIORITY_BACKGROUND;
+            distance = 0;
+
+         } else if (viewport == null) {
+
+            priority = PRIORITY_VIEWPORT_ZOOM;
+            distance = 0;
+
+         } else if (tile.getZoom() != viewport.zoom) {
+
+            priority = PRIORITY_OTHER_ZOOM;
+            distance = Math.abs(tile.getZoom() - viewport.zoom);
+
+         } else {
+
+            // distance between the tile center and the viewport center in tiles
+            final double diffX = tile.getX() + 0.5 - viewport.centerTileX;
+            final double diffY = tile.getY() + 0.5 - viewport.centerTileY;
+
+            priority = PRIORITY_VIEWPORT_ZOOM;
+            distance = diffX * diffX + diffY * diffY;
+         }
+      }
+   }
+
+   private static class Viewport {
+
+      private final int    zoom;
+      private final double centerTileX;
+      private final double centerTileY;
+
+      private Viewport(final int zoom, final double centerTileX, final double centerTileY) {
+
+         this.zoom = zoom;
+         this.centerTileX = centerTileX;
+         this.centerTileY = centerTileY;
+      }
+   }
+
+   /**
+    * @param threadName
+    *           Prefix for the names of the loading threads
+    * @param prefKeyNumberOfThreads
+    *           Preference key for the number of threads which are loading tiles at the same time
+    */
+   public TileLoadScheduler(final String threadName, final String prefKeyNumberOfThreads) {
+
+      _threadName = threadName;
+      _prefKeyNumberOfThreads = prefKeyNumberOfThreads;
+   }
+
+   private static PriorityQueue<QueuedTile> createTileQueue(final int initialCapacity) {
+
+      return new PriorityQueue<>(Math.max(1, initialCapacity), _tilePriorityComparator);
+   }
+
+   /**
+    * Set the map viewport, tiles which are near the viewport center are loaded first. This must be
+    * called before the tiles for the viewport are requested.
+    *
+    * @param zoom
+    *           Zoom level of the map
+    * @param centerTileX
+    *           Horizontal viewport center in tile units
+    * @param centerTileY
+    *           Vertical viewport center in tile units
+    */
+   public static void setViewport(final int zoom, final double centerTileX, final double centerTileY) {
+
+      _viewport = new Viewport(zoom, centerTileX, centerTileY);
+   }
+
+   /**
+    * Remove tiles from the queue which are not visible in the map any more, e.g. after the map is
+    * zoomed or panned. The other tiles are sorted again by the distance to the current viewport
+    * center.
+    *
+    * @param visibleTileKeys
+    *           Keys of the tiles which are displayed in all maps
+    * @return Returns the tiles which are removed from the queue
+    */
+   public List<Tile> cancelStaleTiles(final Set<String> visibleTileKeys) {
+
+      final ArrayList<Tile> allCanceledTiles = new ArrayList<>();
+      final Viewport viewport = _viewport;
+
+      _queueLock.lock();
+      try {
+
+         if (_tileQueue.isEmpty()) {
+            return allCanceledTiles;
+         }
+
+         final PriorityQueue<QueuedTile> newTileQueue = createTileQueue(_tileQueue.size());
+
+         for (final QueuedTile queuedTile : _tileQueue) {
+
+            if (queuedTile.isCancelable() && visibleTileKeys.contains(queuedTile.tile.getTileKey()) == false) {
+
+               allCanceledTiles.add(queuedTile.tile);
+
+            } else {
+
+               queuedTile.setPriority(viewport);
+
+               newTileQueue.add(queuedTile);
+            }
+         }
+
+         _tileQueue = newTileQueue;
+
+      } finally {
+         _queueLock.unlock();
+      }
+
+      return allCanceledTiles;
+   }
+
+   /**
+    * @return Returns the executor which is created when it is used the first time, the number of
+    *         threads is read from the preferences
+    */
+   private ExecutorService getExecutor() {
+
+      if (_executorService != null) {
+         return _executorService;
+      }
+
+      _executorLock.lock();
+      try {
+
+         // check again
+         if (_executorService != null) {
+            return _executorService;
+         }
+
+         final int numThreads = Math.max(1, TourbookPlugin.getPrefStore().getInt(_prefKeyNumberOfThreads));
+
+         final ThreadFactory threadFactory = new ThreadFactory() {
+
+            private int _threadCounter = 0;
+
+            @Override
+            public Thread newThread(final Runnable r) {
+
+               final String threadName = _threadName + "-" + _threadCounter++; //$NON-NLS-1$
+
+               final Thread thread = new Thread(r, threadName);
+
+               thread.setPriority(Thread.MIN_PRIORITY);
+               thread.setDaemon(true);
+
+               return thread;
+            }
+         };
+
+         _executorService = Executors.newFixedThreadPool(numThreads, threadFactory);
+
+      } finally {
+         _executorLock.unlock();
+      }
+
+      return _executorService;
+   }
+
+   /**
+    * @return Returns the number of tiles which are waiting to be loaded
+    */
+   public int getNumQueuedTiles() {
+
+      _queueLock.lock();
+      try {
+         return _tileQueue.size();
+      } finally {
+         _queueLock.unlock();
+      }
+   }
+
+   /**
+    * @return Returns the tile with the highest priority or <code>null</code> when the queue is
+    *         empty
+    */
+   Tile pollTile() {
+
+      _queueLock.lock();
+      try {
+
+         final QueuedTile queuedTile = _tileQueue.poll();
+
+         return queuedTile == null ? null : queuedTile.tile;
+
+      } finally {
+         _queueLock.unlock();
+      }
+   }
+
+   /**
+    * Put a tile into the queue and start a loading task.
+    *
+    * @param tile
+    * @param isBackground
+    *           When <code>true</code> the tile is not displayed in the map, it is loaded after
+    *           the map tiles
+    * @return Returns the loading task
+    */
+   public Future<?> queueTile(final Tile tile, final boolean isBackground) {
+
+      final QueuedTile queuedTile = new QueuedTile(tile, isBackground);
+
+      _queueLock.lock();
+      try {
+         _tileQueue.add(queuedTile);
+      } finally {
+         _queueLock.unlock();
+      }
+
+      // each task is loading the tile with the highest priority
+      return getExecutor().submit(new TileImageLoader(this));
+   }
+
+   /**
+    * Remove all tiles from the queue, tasks which are already started are not stopped.
+    */
+   public void removeAll() {
+
+      _queueLock.lock();
+      try {
+         _tileQueue.clear();
+      } finally {
+         _queueLock.unlock();
+      }
+   }
+
+   @Override
+   public String toString() {
+
+      return _threadName + " queued:" + getNumQueuedTiles(); //$NON-NLS-1$
+   }
+}
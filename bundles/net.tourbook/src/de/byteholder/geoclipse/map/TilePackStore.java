@@ -0,0 +1,597 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package de.byteholder.geoclipse.map;
+
+import de.byteholder.geoclipse.mapprovider.MPProfile;
+import de.byteholder.geoclipse.mapprovider.MapProviderManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.tourbook.common.util.ByteBufferInputStream;
+import net.tourbook.common.util.StatusUtil;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Stores offline tile images in one pack file for each map provider offline folder, instead of one
+ * file for each tile image.
+ * <p>
+ * The pack file {@link #PACK_FILE_NAME} contains the appended image data, the index file
+ * {@link #INDEX_FILE_NAME} contains for each image the key, offset and length in the pack file. A
+ * key is the relative tile image path in the offline folder, e.g. <code>12/2145/1434.png</code>,
+ * so the tile images can be located with the same paths as the image files.
+ * <p>
+ * Both files are only appended, a replaced or removed image is kept in the pack file until the
+ * offline folder is deleted. All images of a map provider are deleted by deleting the offline
+ * folder which contains only these 2 files.
+ */
+public class TilePackStore {
+
+   public static final String                               PACK_FILE_NAME  = "tiles.pack";            //$NON-NLS-1$
+   public static final String                               INDEX_FILE_NAME = "tiles.idx";             //$NON-NLS-1$
+
+   /**
+    * Image length in the index file for a removed image
+    */
+   private static final int                                 REMOVED_IMAGE   = -1;
+
+   private static final int                                 MAX_KEY_LENGTH  = 1024;
+
+   /**
+    * Key is the absolute OS path of the offline folder
+    */
+   private static final ConcurrentHashMap<String, TilePack> _allTilePacks   = new ConcurrentHashMap<>();
+
+   private static final Object                              PACK_LOCK       = new Object();
+
+   /**
+    * Root path of all offline folders
+    */
+   private static IPath                                     _tileCachePath;
+
+   private static class PackEntry {
+
+      private final long offset;
+      private final int  length;
+
+      private PackEntry(final long offset, final int length) {
+
+         this.offset = offset;
+         this.length = length;
+      }
+   }
+
+   /**
+    * Pack file and index of one offline folder
+    */
+   private static class TilePack {
+
+      private final ConcurrentHashMap<String, PackEntry> _index = new ConcurrentHashMap<>();
+
+      private final FileChannel                          _packChannel;
+      private final DataOutputStream                     _indexStream;
+
+      private TilePack(final File packFolder) throws IOException {
+
+         if (packFolder.exists() == false && packFolder.mkdirs() == false) {
+            throw new IOException("Cannot create tile pack folder: " + packFolder); //$NON-NLS-1$
+         }
+
+         final File packFile = new File(packFolder, PACK_FILE_NAME);
+         final File indexFile = new File(packFolder, INDEX_FILE_NAME);
+
+         _packChannel = FileChannel.open(packFile.toPath(),
+               StandardOpenOption.CREATE,
+               StandardOpenOption.READ,
+               StandardOpenOption.WRITE);
+
+         final long validIndexLength = readIndex(indexFile, _packChannel.size());
+
+         // remove a partly written index entry
+         try (RandomAccessFile indexRAF = new RandomAccessFile(indexFile, "rw")) { //$NON-NLS-1$
+            indexRAF.setLength(validIndexLength);
+         }
+
+         _indexStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)));
+      }
+
+      private synchronized void close() {
+
+         try {
+
+            _indexStream.close();
+            _packChannel.close();
+
+         } catch (final IOException e) {
+            StatusUtil.log(e);
+         }
+      }
+
+      private InputStream getInputStream(final String key) throws IOException {
+
+         final PackEntry packEntry = _index.get(key);
+
+         if (packEntry == null) {
+            return null;
+         }
+
+         /*
+          * Read the image data with a positional read, a mapped buffer would keep the pack file
+          * mapped until the buffer is garbage collected and a map() for each tile is expensive
+          */
+         final ByteBuffer imageBuffer = ByteBuffer.allocate(packEntry.length);
+
+         long position = packEntry.offset;
+         while (imageBuffer.hasRemaining()) {
+
+            final int numRead = _packChannel.read(imageBuffer, position);
+
+            if (numRead < 0) {
+               throw new EOFException("Tile image is not completely written: " + key); //$NON-NLS-1$
+            }
+
+            position += numRead;
+         }
+
+         imageBuffer.flip();
+
+         return new ByteBufferInputStream(imageBuffer);
+      }
+
+      private synchronized void put(final String key, final byte[] imageData) throws IOException {
+
+         final long offset = _packChannel.size();
+
+         final ByteBuffer imageBuffer = ByteBuffer.wrap(imageData);
+
+         long position = offset;
+         while (imageBuffer.hasRemaining()) {
+            position += _packChannel.write(imageBuffer, position);
+         }
+
+         // the index entry is written after the image data, so it is valid when it is read
+         writeIndexEntry(key, offset, imageData.length);
+
+         _index.put(key, new PackEntry(offset, imageData.length));
+      }
+
+      /**
+       * @param indexFile
+       * @param packLength
+       * @return Returns the length of the valid index entries
+       * @throws IOException
+       */
+      private long readIndex(final File indexFile, final long packLength) throws IOException {
+
+         if (indexFile.exists() == false) {
+            return 0;
+         }
+
+         long validIndexLength = 0;
+
+         try (DataInputStream inStream = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+
+            while (true) {
+
+               final int keyLength = inStream.readInt();
+
+               if (keyLength < 0 || keyLength > MAX_KEY_LENGTH) {
+
+                  // index entry is corrupted
+                  break;
+               }
+
+               final byte[] keyBytes = new byte[keyLength];
+               inStream.readFully(keyBytes);
+
+               final long offset = inStream.readLong();
+               final int length = inStream.readInt();
+
+               if (length != REMOVED_IMAGE && offset + length > packLength) {
+
+                  // image data was not completely written
+                  break;
+               }
+
+               final String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+               if (length == REMOVED_IMAGE) {
+                  _index.remove(key);
+               } else {
+                  _index.put(key, new PackEntry(offset, length));
+               }
+
+               validIndexLength += 4 + keyLength + 8 + 4;
+            }
+
+         } catch (final EOFException e) {
+            // end of the index or a partly written index entry
+         }
+
+         return validIndexLength;
+      }
+
+      private synchronized boolean remove(final String key) throws IOException {
+
+         if (_index.remove(key) == null) {
+            return false;
+         }
+
+         writeIndexEntry(key, 0, REMOVED_IMAGE);
+
+         return true;
+      }
+
+      private void writeIndexEntry(final String key, final long offset, final int length) throws IOException {
+
+         final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+         _indexStream.writeInt(keyBytes.length);
+         _indexStream.write(keyBytes);
+         _indexStream.writeLong(offset);
+         _indexStream.writeInt(length);
+
+         _indexStream.flush();
+      }
+   }
+
+   private TilePackStore() {}
+
+   /**
+    * Close all pack files, this must be done before the offline folders are deleted.
+    */
+   public static void closeAll() {
+
+      synchronized (PACK_LOCK) {
+
+         for (final TilePack tilePack : _allTilePacks.values()) {
+            tilePack.close();
+         }
+
+         _allTilePacks.clear();
+      }
+   }
+
+   /**
+    * Close the pack files in an offline folder, this must be done before the folder is deleted.
+    *
+    * @param offlineFolder
+    */
+   public static void closePack(final File offlineFolder) {
+
+      synchronized (PACK_LOCK) {
+
+         final TilePack tilePack = _allTilePacks.remove(offlineFolder.getAbsolutePath());
+
+         if (tilePack != null) {
+            tilePack.close();
+         }
+      }
+   }
+
+   /**
+    * @param tileImagePath
+    * @return Returns <code>true</code> when the image for the tile image path is available
+    */
+   public static boolean contains(final IPath tileImagePath) {
+
+      final String[] packFolderAndKey = getPackFolderAndKey(tileImagePath);
+
+      if (packFolderAndKey == null) {
+         return false;
+      }
+
+      final TilePack tilePack = getTilePack(packFolderAndKey[0], false);
+
+      return tilePack != null && tilePack._index.containsKey(packFolderAndKey[1]);
+   }
+
+   /**
+    * @param tileImagePath
+    * @return Returns a stream with the image data, which is read directly from the pack file, or
+    *         <code>null</code> when the image is not available
+    */
+   public static InputStream getInputStream(final IPath tileImagePath) {
+
+      final String[] packFolderAndKey = getPackFolderAndKey(tileImagePath);
+
+      if (packFolderAndKey == null) {
+         return null;
+      }
+
+      final TilePack tilePack = getTilePack(packFolderAndKey[0], false);
+
+      if (tilePack == null) {
+         return null;
+      }
+
+      try {
+
+         return tilePack.getInputStream(packFolderAndKey[1]);
+
+      } catch (final IOException e) {
+         StatusUtil.log(e);
+      }
+
+      return null;
+   }
+
+   /**
+    * @param offlineFolder
+    * @return Returns the number of images and the size in bytes of the pack and index file in the
+    *         offline folder or <code>null</code> when the offline folder do not contain a pack
+    */
+   public static long[] getPackInfo(final File offlineFolder) {
+
+      final TilePack tilePack = getTilePack(offlineFolder.getAbsolutePath(), false);
+
+      if (tilePack == null) {
+         return null;
+      }
+
+      final long packSize = new File(offlineFolder, PACK_FILE_NAME).length()
+            + new File(offlineFolder, INDEX_FILE_NAME).length();
+
+      return new long[] { tilePack._index.size(), packSize };
+   }
+
+   /**
+    * @param tileImagePath
+    * @return Returns the OS path of the offline folder and the key of the tile image in the pack
+    *         file or <code>null</code> when the image path is not in the tile cache path
+    */
+   private static String[] getPackFolderAndKey(final IPath tileImagePath) {
+
+      final IPath tileCachePath = _tileCachePath;
+
+      if (tileImagePath == null || tileCachePath == null || tileCachePath.isPrefixOf(tileImagePath) == false) {
+         return null;
+      }
+
+      final IPath relativePath = tileImagePath.removeFirstSegments(tileCachePath.segmentCount()).setDevice(null);
+
+      // wms images of a map profile are in a sub folder of the profile folder
+      final int numFolderSegments = MPProfile.WMS_CUSTOM_TILE_PATH.equals(relativePath.segment(0)) ? 2 : 1;
+
+      if (relativePath.segmentCount() <= numFolderSegments) {
+         return null;
+      }
+
+      final IPath packFolder = tileCachePath.append(relativePath.uptoSegment(numFolderSegments));
+      final String key = relativePath.removeFirstSegments(numFolderSegments).makeRelative().toPortableString();
+
+      return new String[] { packFolder.toFile().getAbsolutePath(), key };
+   }
+
+   /**
+    * @param packFolderPath
+    * @param isCreatePack
+    *           When <code>true</code> the pack files are created when not available
+    * @return Returns the pack for the offline folder or <code>null</code> when not available
+    */
+   private static TilePack getTilePack(final String packFolderPath, final boolean isCreatePack) {
+
+      final TilePack tilePack = _allTilePacks.get(packFolderPath);
+
+      if (tilePack != null) {
+         return tilePack;
+      }
+
+      final File packFolder = new File(packFolderPath);
+
+      if (isCreatePack == false && new File(packFolder, INDEX_FILE_NAME).exists() == false) {
+         return null;
+      }
+
+      synchronized (PACK_LOCK) {
+
+         // check again, it could be opened in another thread
+         TilePack openedPack = _allTilePacks.get(packFolderPath);
+
+         if (openedPack == null) {
+
+            try {
+
+               openedPack = new TilePack(packFolder);
+
+               _allTilePacks.put(packFolderPath, openedPack);
+
+            } catch (final IOException e) {
+               StatusUtil.log(e);
+            }
+         }
+
+         return openedPack;
+      }
+   }
+
+   /**
+    * Put the image data into the pack file, an existing image with the same path is replaced.
+    *
+    * @param tileImagePath
+    * @param imageData
+    *           Encoded image, e.g. png
+    * @return Returns <code>true</code> when the image is saved
+    */
+   public static boolean put(final IPath tileImagePath, final byte[] imageData) {
+
+      final String[] packFolderAndKey = getPackFolderAndKey(tileImagePath);
+
+      if (packFolderAndKey == null) {
+         return false;
+      }
+
+      final TilePack tilePack = getTilePack(packFolderAndKey[0], true);
+
+      if (tilePack == null) {
+         return false;
+      }
+
+      try {
+
+         tilePack.put(packFolderAndKey[1], imageData);
+
+         return true;
+
+      } catch (final IOException e) {
+         StatusUtil.log(e);
+      }
+
+      return false;
+   }
+
+   /**
+    * Remove the image from the pack index
+    *
+    * @param tileImagePath
+    * @return Returns <code>true</code> when the image was available
+    */
+   public static boolean remove(final IPath tileImagePath) {
+
+      final String[] packFolderAndKey = getPackFolderAndKey(tileImagePath);
+
+      if (packFolderAndKey == null) {
+         return false;
+      }
+
+      final TilePack tilePack = getTilePack(packFolderAndKey[0], false);
+
+      if (tilePack == null) {
+         return false;
+      }
+
+      try {
+
+         return tilePack.remove(packFolderAndKey[1]);
+
+      } catch (final IOException e) {
+         StatusUtil.log(e);
+      }
+
+      return false;
+   }
+
+   /**
+    * Remove all images in a sub folder of an offline folder, e.g. the images of a SRTM profile.
+    *
+    * @param imageFolderPath
+    * @return Returns the number of removed images
+    */
+   public static int removeFolder(final IPath imageFolderPath) {
+
+      final String[] packFolderAndKey = getPackFolderAndKey(imageFolderPath);
+
+      if (packFolderAndKey == null) {
+         return 0;
+      }
+
+      final TilePack tilePack = getTilePack(packFolderAndKey[0], false);
+
+      if (tilePack == null) {
+         return 0;
+      }
+
+      final String keyPrefix = packFolderAndKey[1] + IPath.SEPARATOR;
+
+      int numRemoved = 0;
+
+      for (final String key : new ArrayList<>(tilePack._index.keySet())) {
+
+         if (key.startsWith(keyPrefix)) {
+
+            try {
+
+               if (tilePack.remove(key)) {
+                  numRemoved++;
+               }
+
+            } catch (final IOException e) {
+               StatusUtil.log(e);
+               break;
+            }
+         }
+      }
+
+      return numRemoved;
+   }
+
+   /**
+    * Remove all part images, which are images where not all children are loaded, from the pack in
+    * the offline folder.
+    *
+    * @param offlineFolder
+    * @return Returns the number of removed images
+    */
+   public static int removePartImages(final File offlineFolder) {
+
+      final TilePack tilePack = getTilePack(offlineFolder.getAbsolutePath(), false);
+
+      if (tilePack == null) {
+         return 0;
+      }
+
+      int numRemoved = 0;
+
+      for (final String key : new ArrayList<>(tilePack._index.keySet())) {
+
+         final String fileName = new Path(key).removeFileExtension().lastSegment();
+
+         if (fileName != null && fileName.endsWith(MapProviderManager.PART_IMAGE_FILE_NAME_SUFFIX)) {
+
+            try {
+
+               if (tilePack.remove(key)) {
+                  numRemoved++;
+               }
+
+            } catch (final IOException e) {
+               StatusUtil.log(e);
+               break;
+            }
+         }
+      }
+
+      return numRemoved;
+   }
+
+   /**
+    * @param tileCachePath
+    *           Root path of all offline folders
+    */
+   public static void setTileCachePath(final String tileCachePath) {
+
+      closeAll();
+
+      _tileCachePath = tileCachePath == null ? null : new Path(tileCachePath);
+   }
+}
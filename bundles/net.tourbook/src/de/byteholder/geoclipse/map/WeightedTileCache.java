@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package de.byteholder.geoclipse.map;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache for map tiles and tile images which is limited by the weight of the cached values, e.g.
+ * the number of tiles or the pixel memory of the tile images.
+ * <p>
+ * Reading and adding values is lock free. When the max weight is exceeded, the values which are
+ * used only once are evicted before the values which are used more often, both in least recently
+ * used order. Values for the tiles which are currently visible in the map are pinned and are not
+ * evicted.
+ *
+ * @param <V>
+ */
+public abstract class WeightedTileCache<V> {
+
+   /**
+    * When the max weight is exceeded, values are evicted until this part of the max weight is
+    * reached, so that not each new value is evicting another value.
+    */
+   private static final float                             LOW_MARK_FACTOR = 0.9f;
+
+   private final ConcurrentHashMap<String, CacheEntry<V>> _cache          = new ConcurrentHashMap<>();
+
+   /**
+    * Is incremented for each access, the entry with the smallest access number is the least
+    * recently used entry.
+    */
+   private final AtomicLong                               _accessCounter  = new AtomicLong();
+
+   private final AtomicLong                               _usedWeight     = new AtomicLong();
+
+   private final AtomicLong                               _numHits        = new AtomicLong();
+   private final AtomicLong                               _numMisses      = new AtomicLong();
+   private final AtomicLong                               _numEvictions   = new AtomicLong();
+
+   private final long                                     _maxWeight;
+
+   /**
+    * Keys of the tiles which are displayed in the map, they are not evicted
+    */
+   private volatile Set<String>                           _pinnedKeys     = Collections.emptySet();
+
+   private final ReentrantLock                            _evictLock      = new ReentrantLock();
+
+   private static class CacheEntry<V> {
+
+      private final V       value;
+      private final long    weight;
+
+      private volatile long lastAccess;
+
+      /**
+       * Number of accesses, is halved when values are evicted that values which were used often
+       * a long time ago can also be evicted
+       */
+      private final AtomicInteger numAccesses = new AtomicInteger();
+
+      private CacheEntry(final V value, final long weight, final long lastAccess) {
+
+         this.value = value;
+         this.weight = weight;
+         this.lastAccess = lastAccess;
+      }
+   }
+
+   /**
+    * Contains the access state of a cache entry when values are evicted, the state of the cache
+    * entry can be modified during sorting
+    */
+   private static class EvictionCandidate<V> {
+
+      private final String        key;
+      private final CacheEntry<V> cacheEntry;
+
+      private final long          lastAccess;
+      private final boolean       isUsedOften;
+
+      private EvictionCandidate(final String key, final CacheEntry<V> cacheEntry) {
+
+         this.key = key;
+         this.cacheEntry = cacheEntry;
+
+         lastAccess = cacheEntry.lastAccess;
+         isUsedOften = cacheEntry.numAccesses.get() > 1;
+      }
+   }
+
+   /**
+    * @param maxWeight
+    *           Max weight of all cached values, see {@link #getWeight(Object)}
+    */
+   public WeightedTileCache(final long maxWeight) {
+
+      _maxWeight = Math.max(1, maxWeight);
+   }
+
+   /**
+    * Evict values until the low mark is reached, this is done only in one thread.
+    */
+   private void evictValues() {
+
+      if (_evictLock.tryLock() == false) {
+
+         // another thread is evicting values
+         return;
+      }
+
+      try {
+
+         final long lowMarkWeight = (long) (_maxWeight * LOW_MARK_FACTOR);
+         final Set<String> pinnedKeys = _pinnedKeys;
+
+         final ArrayList<EvictionCandidate<V>> allCandidates = new ArrayList<>(_cache.size());
+
+         _cache.forEach((key, cacheEntry) -> {
+
+            if (pinnedKeys.contains(key) == false) {
+               allCandidates.add(new EvictionCandidate<>(key, cacheEntry));
+            }
+         });
+
+         Collections.sort(allCandidates, new Comparator<EvictionCandidate<V>>() {
+            @Override
+            public int compare(final EvictionCandidate<V> candidate1, final EvictionCandidate<V> candidate2) {
+
+               // values which are used more than once are evicted last
+               final int frequencyCompare = Boolean.compare(candidate1.isUsedOften, candidate2.isUsedOften);
+
+               if (frequencyCompare != 0) {
+                  return frequencyCompare;
+               }
+
+               return Long.compare(candidate1.lastAccess, candidate2.lastAccess);
+            }
+         });
+
+         for (final EvictionCandidate<V> candidate : allCandidates) {
+
+            final CacheEntry<V> cacheEntry = candidate.cacheEntry;
+
+            if (_usedWeight.get() <= lowMarkWeight) {
+
+               // age the access frequency of the not evicted values
+               cacheEntry.numAccesses.updateAndGet(numAccesses -> numAccesses >> 1);
+
+               continue;
+            }
+
+            final String key = candidate.key;
+
+            // the value could be replaced in the meantime
+            if (_cache.remove(key, cacheEntry)) {
+
+               _usedWeight.addAndGet(-cacheEntry.weight);
+               _numEvictions.incrementAndGet();
+
+               onEvict(key, cacheEntry.value);
+            }
+         }
+
+      } finally {
+         _evictLock.unlock();
+      }
+   }
+
+   /**
+    * @param key
+    * @return Returns the cached value or <code>null</code> when the value is not cached
+    */
+   public V get(final String key) {
+
+      final CacheEntry<V> cacheEntry = _cache.get(key);
+
+      if (cacheEntry == null) {
+
+         _numMisses.incrementAndGet();
+
+         return null;
+      }
+
+      cacheEntry.lastAccess = _accessCounter.incrementAndGet();
+      cacheEntry.numAccesses.incrementAndGet();
+
+      _numHits.incrementAndGet();
+
+      return cacheEntry.value;
+   }
+
+   public long getMaxWeight() {
+      return _maxWeight;
+   }
+
+   public long getNumEvictions() {
+      return _numEvictions.get();
+   }
+
+   public long getNumHits() {
+      return _numHits.get();
+   }
+
+   public long getNumMisses() {
+      return _numMisses.get();
+   }
+
+   public int getNumPinnedKeys() {
+      return _pinnedKeys.size();
+   }
+
+   public int getNumValues() {
+      return _cache.size();
+   }
+
+   public long getUsedWeight() {
+      return _usedWeight.get();
+   }
+
+   /**
+    * @return Returns a copy of all cached values
+    */
+   public Collection<V> getValues() {
+
+      final ArrayList<V> allValues = new ArrayList<>(_cache.size());
+
+      for (final CacheEntry<V> cacheEntry : _cache.values()) {
+         allValues.add(cacheEntry.value);
+      }
+
+      return allValues;
+   }
+
+   /**
+    * @param value
+    * @return Returns the weight of the value, e.g. 1 when the number of values is limited or the
+    *         number of bytes when the memory is limited
+    */
+   protected abstract long getWeight(V value);
+
+   /**
+    * Is called when a value is evicted from the cache, it is not called when a value is removed or
+    * replaced.
+    *
+    * @param key
+    * @param value
+    */
+   protected void onEvict(final String key, final V value) {}
+
+   /**
+    * Put a value into the cache, the least used values are evicted when the max weight is
+    * exceeded.
+    *
+    * @param key
+    * @param value
+    * @return Returns the previous value for the key or <code>null</code> when not available
+    */
+   public V put(final String key, final V value) {
+
+      final CacheEntry<V> newEntry = new CacheEntry<>(value, getWeight(value), _accessCounter.incrementAndGet());
+
+      final CacheEntry<V> oldEntry = _cache.put(key, newEntry);
+
+      long usedWeight = _usedWeight.addAndGet(newEntry.weight);
+
+      if (oldEntry != null) {
+         usedWeight = _usedWeight.addAndGet(-oldEntry.weight);
+      }
+
+      if (usedWeight > _maxWeight) {
+         evictValues();
+      }
+
+      return oldEntry == null ? null : oldEntry.value;
+   }
+
+   /**
+    * @param key
+    * @return Returns the removed value or <code>null</code> when the value is not cached
+    */
+   public V remove(final String key) {
+
+      final CacheEntry<V> oldEntry = _cache.remove(key);
+
+      if (oldEntry == null) {
+         return null;
+      }
+
+      _usedWeight.addAndGet(-oldEntry.weight);
+
+      return oldEntry.value;
+   }
+
+   /**
+    * Removes all values, {@link #onEvict(String, Object)} is not called.
+    */
+   public void removeAll() {
+
+      _evictLock.lock();
+      try {
+
+         for (final String key : _cache.keySet()) {
+            remove(key);
+         }
+
+      } finally {
+         _evictLock.unlock();
+      }
+   }
+
+   /**
+    * Set the keys of the tiles which are displayed in the map, the values for these keys are not
+    * evicted.
+    *
+    * @param pinnedKeys
+    *           This set must not be modified after it is set
+    */
+   public void setPinnedKeys(final Set<String> pinnedKeys) {
+
+      _pinnedKeys = pinnedKeys == null ? Collections.<String> emptySet() : pinnedKeys;
+   }
+
+   @Override
+   public String toString() {
+
+      return String.format("values:%d  weight:%d/%d  pinned:%d  hits:%d  misses:%d  evictions:%d", //$NON-NLS-1$
+            _cache.size(),
+            _usedWeight.get(),
+            _maxWeight,
+            _pinnedKeys.size(),
+            _numHits.get(),
+            _numMisses.get(),
+            _numEvictions.get());
+   }
+}
@@ -25,10 +25,11 @@ import de.byteholder.geoclipse.map.Projection;
 import de.byteholder.geoclipse.map.Tile;
 import de.byteholder.geoclipse.map.TileCache;
 import de.byteholder.geoclipse.map.TileImageCache;
-import de.byteholder.geoclipse.map.TileImageLoader;
+import de.byteholder.geoclipse.map.TileLoadScheduler;
 import de.byteholder.geoclipse.map.UI;
 import de.byteholder.geoclipse.map.event.ITileListener;
 import de.byteholder.geoclipse.map.event.TileEventId;
+import de.byteholder.geoclipse.preferences.IMappingPreferences;
 import de.byteholder.geoclipse.util.Util;
 
 import java.awt.Dimension;
@@ -38,11 +39,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.ThreadFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 import net.tourbook.common.map.CommonMapProvider;
@@ -68,14 +68,19 @@ import org.eclipse.swt.widgets.Display;
  */
 public abstract class MP extends CommonMapProvider implements Cloneable, Comparable<Object> {
 
-   private static final int TILE_CACHE_SIZE       = 2000;  //2000;
-   private static final int ERROR_CACHE_SIZE      = 10000; //10000;
-   private static final int IMAGE_CACHE_SIZE      = 200;   //200;
+   private static final int  TILE_CACHE_SIZE       = 2000;  //2000;
+   private static final int  ERROR_CACHE_SIZE      = 10000; //10000;
 
-   public static final int  OFFLINE_INFO_NOT_READ = -1;
+   /**
+    * Max memory of the native tile images, this is about 200 tiles with 256x256 pixel
+    */
+   private static final long IMAGE_CACHE_MEMORY    = 200L * 256 * 256 * 4;
+
+   public static final int   OFFLINE_INFO_NOT_READ = -1;
 
-   // loading tiles pool
    /**
+    * Loads tile images from a url or paints them, the number of threads is set in the preferences.
+    * <p>
     * OpenStreetMap do not allow bulk downloading and do not accept more than 2 concurrent download
     * threads.
     * <p>
@@ -93,10 +98,18 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
     *
     * </code>
     */
-   private static final int                                THREAD_POOL_SIZE             = 2;
-   private static ExecutorService                          _executorService;
+   private static final TileLoadScheduler                  _tileLoadScheduler           = new TileLoadScheduler(
+         "tile-pool", //$NON-NLS-1$
+         IMappingPreferences.TILE_LOADER_NUMBER_OF_THREADS);
+
+   /**
+    * Loads tile images from the offline cache, these tiles are not waiting until the slower tiles
+    * from a url are loaded.
+    */
+   private static final TileLoadScheduler                  _offlineTileLoadScheduler    = new TileLoadScheduler(
+         "tile-offline-pool", //$NON-NLS-1$
+         IMappingPreferences.TILE_LOADER_NUMBER_OF_OFFLINE_THREADS);
 
-   private static final ReentrantLock                      EXECUTOR_LOCK                = new ReentrantLock();
    private static final ReentrantLock                      RESET_LOCK                   = new ReentrantLock();
 
    /**
@@ -113,16 +126,7 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
    /**
     * Cache for tile images
     */
-   private static final TileImageCache                     _tileImageCache              = new TileImageCache(IMAGE_CACHE_SIZE);
-
-   /**
-    * This queue contains tiles which needs to be loaded, only the number of
-    * {@link #THREAD_POOL_SIZE} can be loaded at the same time, the other tiles are waiting in this
-    * queue. <br>
-    * <br>
-    * !!!!! THIS IS JDK 1.6 !!!!!!!
-    */
-   private static final LinkedBlockingDeque<Tile>          _tileWaitingQueue            = new LinkedBlockingDeque<>();
+   private static final TileImageCache                     _tileImageCache              = new TileImageCache(IMAGE_CACHE_MEMORY);
 
    /**
     * Listener which throws {@link ITileListener} events
@@ -131,6 +135,11 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
 
    private static final ListenerList<IOfflineInfoListener> _offlineReloadEventListeners = new ListenerList<>(ListenerList.IDENTITY);
 
+   /**
+    * Keys of the tiles which are visible in each map, the tiles of all maps are kept in the caches
+    */
+   private static final ConcurrentHashMap<Map, Set<String>> _allVisibleTileKeys         = new ConcurrentHashMap<>();
+
    private int                                             _dimmingAlphaValue           = 0xFF;
    private RGB                                             _dimmingColor;
 
@@ -299,6 +308,23 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
       _tileListeners.add(tileListener);
    }
 
+   /**
+    * Reset the loading state of tiles which are removed from the loading queue, they are queued
+    * again when they are displayed.
+    *
+    * @param allCanceledTiles
+    */
+   private static void cancelStaleTiles(final List<Tile> allCanceledTiles) {
+
+      for (final Tile canceledTile : allCanceledTiles) {
+
+         canceledTile.setLoading(false);
+         canceledTile.setFuture(null);
+
+         fireTileEvent(TileEventId.TILE_END_LOADING, canceledTile);
+      }
+   }
+
    public static void fireTileEvent(final TileEventId tileEventId, final Tile tile) {
       for (final Object listener : _tileListeners.getListeners()) {
          final ITileListener tileListener = (ITileListener) listener;
@@ -310,6 +336,13 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
       return _errorTiles;
    }
 
+   /**
+    * @return Returns the number of tiles which are waiting to be loaded
+    */
+   public static int getNumQueuedTiles() {
+      return _tileLoadScheduler.getNumQueuedTiles() + _offlineTileLoadScheduler.getNumQueuedTiles();
+   }
+
    public static TileCache getTileCache() {
       return _tileCache;
    }
@@ -318,8 +351,10 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
       return _tileListeners;
    }
 
-   public static LinkedBlockingDeque<Tile> getTileWaitingQueue() {
-      return _tileWaitingQueue;
+   private static void removeAllQueuedTiles() {
+
+      _tileLoadScheduler.removeAll();
+      _offlineTileLoadScheduler.removeAll();
    }
 
    public static void removeOfflineInfoListener(final IOfflineInfoListener listener) {
@@ -334,6 +369,71 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
       }
    }
 
+   /**
+    * Remove the visible tile keys of a map, e.g. when the map is disposed.
+    *
+    * @param map
+    */
+   public static void removeVisibleTileKeys(final Map map) {
+
+      if (_allVisibleTileKeys.remove(map) != null) {
+         updateVisibleTileKeys();
+      }
+   }
+
+   /**
+    * Set the map viewport, tiles which are near the viewport center are loaded first.
+    *
+    * @param zoom
+    * @param centerTileX
+    *           Horizontal viewport center in tile units
+    * @param centerTileY
+    *           Vertical viewport center in tile units
+    */
+   public static void setTileLoadingViewport(final int zoom, final double centerTileX, final double centerTileY) {
+
+      TileLoadScheduler.setViewport(zoom, centerTileX, centerTileY);
+   }
+
+   /**
+    * Set the keys of the tiles which are visible in a map, these tiles and their images are kept
+    * in the caches together with the visible tiles of the other maps.
+    *
+    * @param map
+    *           Map which is displaying the tiles
+    * @param visibleTileKeys
+    *           This set must not be modified after it is set
+    */
+   public static void setVisibleTileKeys(final Map map, final Set<String> visibleTileKeys) {
+
+      _allVisibleTileKeys.put(map, visibleTileKeys);
+
+      updateVisibleTileKeys();
+   }
+
+   /**
+    * Keep the tiles which are visible in all maps and their images in the caches and stop loading
+    * tiles which are not visible in any map.
+    */
+   private static void updateVisibleTileKeys() {
+
+      final Set<String> allVisibleTileKeys = new HashSet<>();
+
+      for (final Set<String> visibleTileKeys : _allVisibleTileKeys.values()) {
+         allVisibleTileKeys.addAll(visibleTileKeys);
+      }
+
+      _tileCache.setVisibleTileKeys(allVisibleTileKeys);
+      _tileImageCache.setVisibleTileKeys(allVisibleTileKeys);
+
+      /*
+       * Do not load tiles which are not visible any more after a map is zoomed or panned, tiles
+       * which are requested by another map are still visible in that map and are not canceled
+       */
+      cancelStaleTiles(_tileLoadScheduler.cancelStaleTiles(allVisibleTileKeys));
+      cancelStaleTiles(_offlineTileLoadScheduler.cancelStaleTiles(allVisibleTileKeys));
+   }
+
    @Override
    public Object clone() throws CloneNotSupportedException {
 
@@ -627,56 +727,6 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
       return _errorImage;
    }
 
-   /**
-    * @return Returns the {@link ExecutorService} which contains 20 threads to load or create map
-    *         images
-    */
-   private ExecutorService getExecutor() {
-
-      if (_executorService != null) {
-         return _executorService;
-      }
-
-      /*
-       * create thread pool, this is synched only once until the executor is created
-       */
-      EXECUTOR_LOCK.lock();
-      {
-         try {
-
-            // check again
-            if (_executorService != null) {
-               return _executorService;
-            }
-
-            final ThreadFactory threadFactory = new ThreadFactory() {
-
-               private int fCount = 0;
-
-               @Override
-               public Thread newThread(final Runnable r) {
-
-                  final String threadName = "tile-pool-" + fCount++; //$NON-NLS-1$
-
-                  final Thread thread = new Thread(r, threadName);
-
-                  thread.setPriority(Thread.MIN_PRIORITY);
-                  thread.setDaemon(true);
-
-                  return thread;
-               }
-            };
-
-            _executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE, threadFactory);
-
-         } finally {
-            EXECUTOR_LOCK.unlock();
-         }
-      }
-
-      return _executorService;
-   }
-
    public GeoPosition getFavoritePosition() {
       return _favoritePosition;
    }
@@ -1232,24 +1282,18 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
     * Put one tile into the tile image waiting queue
     *
     * @param tile
-    * @param isFiFo
-    * @throws InterruptedException
+    * @param isMapTile
     */
-   private void putOneTileInWaitingQueue(final Tile tile, final boolean isFiFo) throws InterruptedException {
+   private void putOneTileInWaitingQueue(final Tile tile, final boolean isMapTile) {
 
       tile.setLoading(true);
 
-      if (isFiFo) {
-         _tileWaitingQueue.addFirst(tile);
-      } else {
-         _tileWaitingQueue.addLast(tile);
-      }
-
-      // create loading task
-      final Future<?> future = getExecutor().submit(new TileImageLoader());
+      final TileLoadScheduler tileLoadScheduler = tile.isOfflimeImageAvailable()
+            ? _offlineTileLoadScheduler
+            : _tileLoadScheduler;
 
-      // keep loading task
-      tile.setFuture(future);
+      // create and keep loading task
+      tile.setFuture(tileLoadScheduler.queueTile(tile, isMapTile == false));
 
       fireTileEvent(TileEventId.TILE_IS_QUEUED, tile);
    }
@@ -1258,11 +1302,12 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
     * Put all tiles into a queue to load/create the tile image
     *
     * @param tile
-    * @param isFiFo
-    *           when <code>true</code> the waiting queue is working as FIFO, when <code>false</code>
-    *           it is a LIFO
+    * @param isMapTile
+    *           When <code>true</code> the tile is displayed in the map and is loaded by the
+    *           distance to the viewport center, when <code>false</code> the tile is loaded in the
+    *           background after the map tiles
     */
-   public void putTileInWaitingQueue(final Tile tile, final boolean isFiFo) {
+   public void putTileInWaitingQueue(final Tile tile, final boolean isMapTile) {
 
       // prevent to load it more than once
       if (tile.isLoading()) {
@@ -1271,7 +1316,7 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
 
       try {
 
-         putOneTileInWaitingQueue(tile, isFiFo);
+         putOneTileInWaitingQueue(tile, isMapTile);
 
          if (tile.isOfflimeImageAvailable() == false) {
 
@@ -1292,7 +1337,7 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
                }
 
                for (final Tile tileChild : tileChildren) {
-                  putOneTileInWaitingQueue(tileChild, isFiFo);
+                  putOneTileInWaitingQueue(tileChild, isMapTile);
                }
             }
          }
@@ -1314,7 +1359,7 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
       {
          try {
 
-            _tileWaitingQueue.clear();
+            removeAllQueuedTiles();
             _tileCache.stopLoadingTiles();
 
             if (keepTilesWithLoadingError == false) {
@@ -1338,7 +1383,7 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
     */
    public synchronized void resetOverlays() {
 
-      _tileWaitingQueue.clear();
+      removeAllQueuedTiles();
       _tileCache.stopLoadingTiles();
 
       _tileCache.resetOverlays();
@@ -1353,7 +1398,7 @@ public abstract class MP extends CommonMapProvider implements Cloneable, Compara
       {
          try {
 
-            _tileWaitingQueue.clear();
+            removeAllQueuedTiles();
             _tileCache.stopLoadingTiles();
 
             _errorTiles.removeParentTiles();
@@ -19,6 +19,7 @@ import de.byteholder.geoclipse.GeoclipseExtensions;
 import de.byteholder.geoclipse.Messages;
 import de.byteholder.geoclipse.logging.GeoException;
 import de.byteholder.geoclipse.map.TileImageCache;
+import de.byteholder.geoclipse.map.TilePackStore;
 import de.byteholder.geoclipse.map.UI;
 import de.byteholder.geoclipse.mapprovider.DialogMPCustom.PART_TYPE;
 import de.byteholder.geoclipse.preferences.IMappingPreferences;
@@ -449,6 +450,17 @@ public class MapProviderManager {
       _deleteUIDeletedFiles = 0;
       _deleteUICheckedFiles = 0;
 
+      if (isDeletePartImages) {
+
+         // part images in a pack file are removed from the pack index
+         TilePackStore.removePartImages(offlineFolder);
+
+      } else {
+
+         // open pack files cannot be deleted, the pack file channels are opened again when needed
+         TilePackStore.closePack(offlineFolder);
+      }
+
       try {
 
          final IRunnableWithProgress runnable = new IRunnableWithProgress() {
@@ -22,6 +22,10 @@ public interface IMappingPreferences {
    static final String        OFFLINE_CACHE_PATH                     = "OffLineCache_Path";                  //$NON-NLS-1$
    static final String        OFFLINE_CACHE_PERIOD_OF_VALIDITY       = "OffLineCache_PeriodOfValidity";      //$NON-NLS-1$
    static final String        OFFLINE_CACHE_MAX_SIZE                 = "OffLineCache_MaxCacheSize";          //$NON-NLS-1$
+   static final String        OFFLINE_CACHE_USE_TILE_PACK_STORE      = "OffLineCache_IsUseTilePackStore";    //$NON-NLS-1$
+
+   static final String        TILE_LOADER_NUMBER_OF_THREADS          = "TileLoader_NumberOfThreads";         //$NON-NLS-1$
+   static final String        TILE_LOADER_NUMBER_OF_OFFLINE_THREADS  = "TileLoader_NumberOfOfflineThreads";  //$NON-NLS-1$
 
    static final String        SHOW_MAP_TILE_INFO                     = "MapTileInfo_IsShowInfo";             //$NON-NLS-1$
 
@@ -46,8 +46,11 @@ public class Messages extends NLS {
    public static String        pref_cache_location;
    public static String        pref_cache_message_box_text;
    public static String        pref_cache_message_box_title;
+   public static String        pref_cache_number_of_offline_threads;
+   public static String        pref_cache_number_of_threads;
    public static String        pref_cache_use_default_location;
    public static String        pref_cache_use_offline;
+   public static String        pref_cache_use_tile_pack_store;
 
    public static String        pref_error_invalid_path;
 
@@ -151,6 +154,7 @@ public class Messages extends NLS {
    public static String        prefPage_cache_dlg_confirmDelete_title;
    public static String        prefPage_cache_group_offlineDirectory;
    public static String        prefPage_cache_group_offlineInfo;
+   public static String        prefPage_cache_group_tileLoading;
    public static String        prefPage_cache_jobNameReadOfflineInfo;
    public static String        prefPage_cache_label_files;
    public static String        prefPage_cache_label_path;
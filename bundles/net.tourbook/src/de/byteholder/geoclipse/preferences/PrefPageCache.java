@@ -34,6 +34,7 @@ import org.eclipse.jface.layout.GridLayoutFactory;
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.DirectoryFieldEditor;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.PreferencePage;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
@@ -53,6 +54,7 @@ import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.PlatformUI;
 
 import de.byteholder.geoclipse.map.TileImageCache;
+import de.byteholder.geoclipse.map.TilePackStore;
 
 /**
  * Cache for offline map images
@@ -79,10 +81,14 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 	private Group						_groupOffline;
 	private BooleanFieldEditor			_boolEditorUseOffLineCache;
 	private BooleanFieldEditor			_boolEditorUseDefaultLocation;
+	private BooleanFieldEditor			_boolEditorUseTilePackStore;
 	private Composite					_containerPath;
 
 	private DirectoryFieldEditor		_dirEditorCachePath;
 
+	private IntegerFieldEditor			_intEditorNumberOfThreads;
+	private IntegerFieldEditor			_intEditorNumberOfOfflineThreads;
+
 	private Label						_lblInfoPath;
 	private Label						_lblInfoPathValue;
 	private Label						_lblInfoFiles;
@@ -137,6 +143,8 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 
 			createUI_10_CacheSettings(offlineContainer);
 			createUI_20_CacheInfo(offlineContainer);
+
+			createUI_30_TileLoading(uiContainer);
 		}
 
 		/*
@@ -192,6 +200,16 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 					}
 				});
 			}
+
+			// field: store images in a pack file
+			_boolEditorUseTilePackStore = new BooleanFieldEditor(
+					IMappingPreferences.OFFLINE_CACHE_USE_TILE_PACK_STORE,
+					Messages.pref_cache_use_tile_pack_store,
+					_groupOffline);
+			_boolEditorUseTilePackStore.setPreferenceStore(prefStore);
+			_boolEditorUseTilePackStore.setPage(this);
+			_boolEditorUseTilePackStore.load();
+			new Label(_groupOffline, SWT.NONE);
 		}
 
 		// !!! set layout after the editor was created because the editor sets the parents layout
@@ -243,6 +261,39 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 		}
 	}
 
+	private void createUI_30_TileLoading(final Composite parent) {
+
+		final IPreferenceStore prefStore = getPreferenceStore();
+
+		final Group group = new Group(parent, SWT.NONE);
+		group.setText(Messages.prefPage_cache_group_tileLoading);
+		GridDataFactory.fillDefaults().grab(true, false).indent(0, 10).applyTo(group);
+		{
+			// field: number of threads which download or paint tile images
+			_intEditorNumberOfThreads = new IntegerFieldEditor(
+					IMappingPreferences.TILE_LOADER_NUMBER_OF_THREADS,
+					Messages.pref_cache_number_of_threads,
+					group);
+			_intEditorNumberOfThreads.setPreferenceStore(prefStore);
+			_intEditorNumberOfThreads.setPage(this);
+			_intEditorNumberOfThreads.setValidRange(1, 16);
+			_intEditorNumberOfThreads.load();
+
+			// field: number of threads which load offline images
+			_intEditorNumberOfOfflineThreads = new IntegerFieldEditor(
+					IMappingPreferences.TILE_LOADER_NUMBER_OF_OFFLINE_THREADS,
+					Messages.pref_cache_number_of_offline_threads,
+					group);
+			_intEditorNumberOfOfflineThreads.setPreferenceStore(prefStore);
+			_intEditorNumberOfOfflineThreads.setPage(this);
+			_intEditorNumberOfOfflineThreads.setValidRange(1, 16);
+			_intEditorNumberOfOfflineThreads.load();
+		}
+
+		// !!! set layout after the editor was created because the editor sets the parents layout
+		GridLayoutFactory.swtDefaults().numColumns(2).applyTo(group);
+	}
+
 	/**
 	 * Deletes all files and subdirectories. If a deletion fails, the method stops attempting to
 	 * delete and returns false.
@@ -286,6 +337,9 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 					_lblInfoWaitingValue.setText(Messages.prefPage_cache_status_deletingFiles);
 					_lblInfoWaitingValue.pack(true);
 
+					// open pack files cannot be deleted, the pack file channels are opened again when needed
+					TilePackStore.closeAll();
+
 					deleteDir(_tileCacheDir);
 					getOfflineInfo();
 				}
@@ -309,6 +363,7 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 		final boolean useDefaultLocation = _boolEditorUseDefaultLocation.getBooleanValue();
 
 		_boolEditorUseDefaultLocation.setEnabled(useOffLineCache, _groupOffline);
+		_boolEditorUseTilePackStore.setEnabled(useOffLineCache, _groupOffline);
 
 		// enable cache path editor, set default path
 		if (useOffLineCache) {
@@ -443,6 +498,9 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 
 		_boolEditorUseOffLineCache.loadDefault();
 		_boolEditorUseDefaultLocation.loadDefault();
+		_boolEditorUseTilePackStore.loadDefault();
+		_intEditorNumberOfThreads.loadDefault();
+		_intEditorNumberOfOfflineThreads.loadDefault();
 
 		enableControls();
 
@@ -473,9 +531,26 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 		if (prefStore.getString(IMappingPreferences.OFFLINE_CACHE_PATH).equals(_dirEditorCachePath.getStringValue()) == false) {
 			isModified = true;
 		}
+		if (prefStore.getBoolean(IMappingPreferences.OFFLINE_CACHE_USE_TILE_PACK_STORE) != _boolEditorUseTilePackStore
+				.getBooleanValue()) {
+			isModified = true;
+		}
+
+		// the loading threads are created when the first tile is loaded
+		if (prefStore.getInt(IMappingPreferences.TILE_LOADER_NUMBER_OF_THREADS) != _intEditorNumberOfThreads
+				.getIntValue()) {
+			isModified = true;
+		}
+		if (prefStore.getInt(IMappingPreferences.TILE_LOADER_NUMBER_OF_OFFLINE_THREADS) != _intEditorNumberOfOfflineThreads
+				.getIntValue()) {
+			isModified = true;
+		}
 
 		_boolEditorUseOffLineCache.store();
 		_boolEditorUseDefaultLocation.store();
+		_boolEditorUseTilePackStore.store();
+		_intEditorNumberOfThreads.store();
+		_intEditorNumberOfOfflineThreads.store();
 		_dirEditorCachePath.store();
 
 		if (isModified) {
@@ -575,6 +650,12 @@ public class PrefPageCache extends PreferencePage implements IWorkbenchPreferenc
 
 	private boolean validateData() {
 
+		if (_intEditorNumberOfThreads.isValid() == false || _intEditorNumberOfOfflineThreads.isValid() == false) {
+
+			// the error message is displayed from the field editor
+			return false;
+		}
+
 		boolean isValid = true;
 		final boolean useOffLineCache = _boolEditorUseOffLineCache.getBooleanValue();
 
@@ -17,6 +17,8 @@ package de.byteholder.geoclipse.preferences;
 
 import static org.eclipse.swt.events.SelectionListener.widgetSelectedAdapter;
 
+import de.byteholder.geoclipse.map.TileImageCache;
+import de.byteholder.geoclipse.map.TilePackStore;
 import de.byteholder.geoclipse.map.UI;
 import de.byteholder.geoclipse.mapprovider.DialogMP;
 import de.byteholder.geoclipse.mapprovider.DialogMPCustom;
@@ -2271,6 +2273,29 @@ public class PrefPage_Map2_Providers extends PreferencePage implements IWorkbenc
       return new MapProviderNavigator(nextMapProvider, isNextNext == 1);
    }
 
+   /**
+    * Count the tile images in an offline folder, the images in a tile pack are counted from the
+    * pack index without walking the folder.
+    *
+    * @param offlineFolder
+    */
+   private void getOfflineFolderInfo(final File offlineFolder) {
+
+      if (TileImageCache.isUseTilePackStore()) {
+
+         final long[] packInfo = TilePackStore.getPackInfo(offlineFolder);
+
+         if (packInfo != null) {
+            _offlineJobFileCounter += packInfo[0];
+            _offlineJobFileSize += packInfo[1];
+         }
+
+      } else {
+
+         getFilesInfo(offlineFolder.listFiles());
+      }
+   }
+
    /**
     * @return Returns the previous map provider or <code>null</code> when there is no WMS map
     *         provider
@@ -3255,14 +3280,14 @@ public class PrefPage_Map2_Providers extends PreferencePage implements IWorkbenc
 
                File tileCacheDir = basePath.append(tileOSFolder).toFile();
                if (tileCacheDir.exists()) {
-                  getFilesInfo(tileCacheDir.listFiles());
+                  getOfflineFolderInfo(tileCacheDir);
                } else {
                   skipReading = true;
                }
 
                tileCacheDir = basePath.append(MPProfile.WMS_CUSTOM_TILE_PATH).append(tileOSFolder).toFile();
                if (tileCacheDir.exists() && (_isOfflineJobCanceled == false)) {
-                  getFilesInfo(tileCacheDir.listFiles());
+                  getOfflineFolderInfo(tileCacheDir);
                } else {
                   skipReading = true;
                }
@@ -32,11 +32,19 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
       final IPreferenceStore store = TourbookPlugin.getDefault().getPreferenceStore();
 
       store.setDefault(IMappingPreferences.OFFLINE_CACHE_USE_OFFLINE, false);
+      store.setDefault(IMappingPreferences.OFFLINE_CACHE_USE_TILE_PACK_STORE, false);
       store.setDefault(IMappingPreferences.OFFLINE_CACHE_USE_DEFAULT_LOCATION, true);
 
       store.setDefault(IMappingPreferences.OFFLINE_CACHE_PERIOD_OF_VALIDITY, 7);
       store.setDefault(IMappingPreferences.OFFLINE_CACHE_MAX_SIZE, 100);
 
+      /*
+       * OpenStreetMap do not accept more than 2 concurrent download threads, offline images are
+       * only decoded
+       */
+      store.setDefault(IMappingPreferences.TILE_LOADER_NUMBER_OF_THREADS, 2);
+      store.setDefault(IMappingPreferences.TILE_LOADER_NUMBER_OF_OFFLINE_THREADS, 4);
+
       store.setDefault(IMappingPreferences.SHOW_MAP_TILE_INFO, true);
 
       store.setDefault(IMappingPreferences.THEME_FONT_LOGGING, "1|Lucida Console|9.0|0|"); //$NON-NLS-1$
@@ -1767,8 +1767,12 @@ public class Messages extends NLS {
    public static String Pref_Tour_Group_TourCache;
    public static String Pref_Tour_Label_FailedUpdateInfo;
    public static String Pref_Tour_Label_FailedUpdateInfo_BOLD;
+   public static String Pref_Tour_Label_TourCacheMemory;
+   public static String Pref_Tour_Label_TourCacheMemory_Tooltip;
+   public static String Pref_Tour_Label_TourCacheMemory_Unit;
    public static String Pref_Tour_Label_TourCacheSize;
    public static String Pref_Tour_Label_TourCacheSize_Info;
+   public static String Pref_Tour_Label_TourCacheStatistics;
 
    public static String Pref_TourDb_Dialog_TourDbSystemIsModified_Message;
    public static String Pref_TourDb_Dialog_TourDbSystemIsModified_Title;
@@ -2412,6 +2416,7 @@ public class Messages extends NLS {
    public static String Tour_Database_PostUpdate_034_SetTourGeoParts;
    public static String Tour_Database_PostUpdate_037_SetHasGeoData;
    public static String Tour_Database_PostUpdate_040_SetTourRecordingTime;
+   public static String Tour_Database_PostUpdate_041_ConvertSerieData;
    public static String Tour_Database_PostUpdate011_SetTourCreateTime;
    public static String Tour_Database_PostUpdate020_ConvertIntToFloat;
    public static String Tour_Database_PostUpdate021_SetTourStartEndTime;
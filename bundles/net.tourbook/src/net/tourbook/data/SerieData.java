@@ -18,6 +18,7 @@
  */
 package net.tourbook.data;
 
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.Arrays;
 
@@ -126,9 +127,84 @@ public class SerieData implements Serializable {
    public int[] powerSerie;
    public int[] deviceMarker;
 
+   /**
+    * Contains the packed data for the columns which are not yet decoded, is <code>null</code> when
+    * all columns are decoded.
+    * <p>
+    * The lazy columns must be accessed with their getter, e.g. {@link #getCadenceSerie20()}.
+    *
+    * @since Db-version 41
+    */
+   transient volatile SerieDataPacked _packedData;
+
+   private void decodeLazyColumn(final int columnId) {
+
+      final SerieDataPacked packedData = _packedData;
+
+      if (packedData != null) {
+         packedData.decodeLazyColumn(this, columnId);
+      }
+   }
+
+   /**
+    * @return Returns the cadence serie, it is decoded on first access.
+    */
+   public float[] getCadenceSerie20() {
+
+      decodeLazyColumn(SerieDataPacked.COLUMN_CADENCE_20);
+
+      return cadenceSerie20;
+   }
+
+   /**
+    * @return Returns the power serie, it is decoded on first access.
+    */
+   public float[] getPowerSerie20() {
+
+      decodeLazyColumn(SerieDataPacked.COLUMN_POWER_20);
+
+      return powerSerie20;
+   }
+
+   /**
+    * @return Returns the speed serie, it is decoded on first access.
+    */
+   public float[] getSpeedSerie20() {
+
+      decodeLazyColumn(SerieDataPacked.COLUMN_SPEED_20);
+
+      return speedSerie20;
+   }
+
+   private boolean isLazyColumnPending(final int columnId) {
+
+      final SerieDataPacked packedData = _packedData;
+
+      return packedData != null && packedData.isLazyColumnPending(columnId);
+   }
+
+   /**
+    * @return Returns <code>true</code> when a power serie is available, it is not decoded.
+    */
+   public boolean isPowerSerie20Available() {
+      return powerSerie20 != null || isLazyColumnPending(SerieDataPacked.COLUMN_POWER_20);
+   }
+
+   /**
+    * @return Returns <code>true</code> when a speed serie is available, it is not decoded.
+    */
+   public boolean isSpeedSerie20Available() {
+      return speedSerie20 != null || isLazyColumnPending(SerieDataPacked.COLUMN_SPEED_20);
+   }
+
    @Override
    public String toString() {
 
+      final SerieDataPacked packedData = _packedData;
+      if (packedData != null) {
+         packedData.decodeLazyColumns(this);
+      }
+
 // SET_FORMATTING_OFF
 
       // this formatted data are displayed in the tour info view
@@ -179,4 +255,15 @@ public class SerieData implements Serializable {
 
 // SET_FORMATTING_ON
 
+   /**
+    * Serie data are saved in the columnar format of {@link SerieDataPacked}, data which are saved
+    * with the default java serialization of this class can still be read.
+    *
+    * @return
+    * @throws ObjectStreamException
+    * @since Db-version 41
+    */
+   private Object writeReplace() throws ObjectStreamException {
+      return new SerieDataPacked(this);
+   }
 }
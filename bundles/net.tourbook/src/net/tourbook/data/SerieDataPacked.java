@@ -0,0 +1,1098 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.tourbook.common.util.StatusUtil;
+
+/**
+ * Columnar storage format for {@link SerieData}.
+ * <p>
+ * When a {@link SerieData} is serialized into the {@link TourData} blob, it is replaced with this
+ * object, see {@link SerieData#writeReplace()}. When the blob is deserialized,
+ * {@link #readResolve()} returns the decoded {@link SerieData}. Blobs which were saved with the
+ * default java serialization of {@link SerieData} can still be read.
+ * <p>
+ * Each data serie is saved in its own column:
+ *
+ * <pre>
+ * column id         byte
+ * encoding          byte, {@link #ENCODING_DEFLATE} is set when the column data are compressed
+ * number of values  varint
+ * data length       varint
+ * encoded length    varint, only when the column data are compressed
+ * data              byte[]
+ * </pre>
+ *
+ * All values are saved lossless. Integer values are delta encoded as zigzag varints, float values
+ * which contain only integers are saved as integers, other float/double values are saved as delta
+ * of their raw bits. Latitude/longitude values are quantized with 1E7 when all values can be
+ * restored exactly, e.g. when they are imported from a GPX file.
+ * <p>
+ * Cadence, power and speed columns are kept packed when the blob is deserialized, they are decoded
+ * on first access, see {@link SerieData#getCadenceSerie20()}.
+ *
+ * @since Db-version 41
+ */
+public class SerieDataPacked implements Externalizable {
+
+   private static final long   serialVersionUID            = 1L;
+
+   /**
+    * Version of the binary format, it must be increased when the format is modified in an
+    * incompatible way.
+    */
+   private static final int    FORMAT_VERSION              = 1;
+
+   private static final int    COLUMN_END                  = 0;
+
+   private static final int    COLUMN_TIME                 = 1;
+   private static final int    COLUMN_DISTANCE_20          = 2;
+   private static final int    COLUMN_ALTITUDE_20          = 3;
+   static final int            COLUMN_CADENCE_20           = 4;
+   private static final int    COLUMN_PULSE_20             = 5;
+   private static final int    COLUMN_TEMPERATURE_20       = 6;
+   static final int            COLUMN_SPEED_20             = 7;
+   static final int            COLUMN_POWER_20             = 8;
+   private static final int    COLUMN_GEARS                = 9;
+   private static final int    COLUMN_LATITUDE             = 10;
+   private static final int    COLUMN_LONGITUDE            = 11;
+   private static final int    COLUMN_PULSE_TIMES          = 12;
+   private static final int    COLUMN_RUNDYN_STANCE_TIME   = 13;
+   private static final int    COLUMN_RUNDYN_STANCE_BAL    = 14;
+   private static final int    COLUMN_RUNDYN_STEP_LENGTH   = 15;
+   private static final int    COLUMN_RUNDYN_VERT_OSC      = 16;
+   private static final int    COLUMN_RUNDYN_VERT_RATIO    = 17;
+   private static final int    COLUMN_SWIM_LENGTH_TYPE     = 18;
+   private static final int    COLUMN_SWIM_CADENCE         = 19;
+   private static final int    COLUMN_SWIM_STROKES         = 20;
+   private static final int    COLUMN_SWIM_STROKE_STYLE    = 21;
+   private static final int    COLUMN_SWIM_TIME            = 22;
+   private static final int    COLUMN_VISIBLE_SURFING      = 23;
+
+   /*
+    * Data series before db version 20
+    */
+   private static final int    COLUMN_DISTANCE             = 30;
+   private static final int    COLUMN_ALTITUDE             = 31;
+   private static final int    COLUMN_CADENCE              = 32;
+   private static final int    COLUMN_PULSE                = 33;
+   private static final int    COLUMN_TEMPERATURE          = 34;
+   private static final int    COLUMN_SPEED                = 35;
+   private static final int    COLUMN_POWER                = 36;
+   private static final int    COLUMN_DEVICE_MARKER        = 37;
+
+   private static final int    ENCODING_INT_DELTA          = 1;
+   private static final int    ENCODING_SHORT_DELTA        = 2;
+   private static final int    ENCODING_LONG_DELTA         = 3;
+   private static final int    ENCODING_FLOAT_AS_INT_DELTA = 4;
+   private static final int    ENCODING_FLOAT_BITS_DELTA   = 5;
+   private static final int    ENCODING_DOUBLE_E7_DELTA    = 6;
+   private static final int    ENCODING_DOUBLE_BITS_DELTA  = 7;
+   private static final int    ENCODING_BITS               = 8;
+
+   private static final int    ENCODING_DEFLATE            = 0x80;
+
+   /**
+    * Column data are compressed only when they are smaller than this ratio, otherwise the
+    * decompression time is not worth it.
+    */
+   private static final float  DEFLATE_MIN_RATIO           = 0.9f;
+
+   /**
+    * Columns smaller than this size are not compressed.
+    */
+   private static final int    DEFLATE_MIN_SIZE            = 64;
+
+   private static final double GEO_QUANTIZE_SCALE          = 1E7;
+
+   /**
+    * Max length of the packed data and of an inflated column, this is much more than a 24 hour tour
+    * with 1 second interval and all data series needs, a larger length is from corrupted data.
+    */
+   private static final int    MAX_PACKED_LENGTH           = 256 * 1024 * 1024;
+
+   /**
+    * Highest column id which can be decoded lazily.
+    */
+   private static final int    COLUMN_LAZY_MAX             = COLUMN_POWER_20;
+
+   private transient SerieData _serieData;
+
+   /**
+    * Packed data which are kept as long as not all lazy columns are decoded.
+    */
+   private transient byte[]    _packed;
+
+   /**
+    * Column position of the lazy columns which are not yet decoded, indexed by the column id:
+    * encoding, number of values, data offset, data length, encoded length
+    */
+   private transient int[][]   _lazyColumns;
+   private transient int       _numLazyColumns;
+
+   /**
+    * Growable byte buffer with varint support.
+    */
+   private static class ByteWriter {
+
+      private byte[] _buffer;
+      private int    _size;
+
+      private ByteWriter(final int initialSize) {
+         _buffer = new byte[Math.max(16, initialSize)];
+      }
+
+      private void ensureCapacity(final int additional) {
+
+         final int required = _size + additional;
+
+         if (required > _buffer.length) {
+            _buffer = Arrays.copyOf(_buffer, Math.max(required, _buffer.length * 2));
+         }
+      }
+
+      private void reset() {
+         _size = 0;
+      }
+
+      private byte[] toByteArray() {
+         return Arrays.copyOf(_buffer, _size);
+      }
+
+      private void write(final byte[] bytes, final int offset, final int length) {
+
+         ensureCapacity(length);
+
+         System.arraycopy(bytes, offset, _buffer, _size, length);
+         _size += length;
+      }
+
+      private void writeByte(final int value) {
+
+         ensureCapacity(1);
+
+         _buffer[_size++] = (byte) value;
+      }
+
+      private void writeVarInt(int value) {
+
+         ensureCapacity(5);
+
+         while ((value & ~0x7f) != 0) {
+            _buffer[_size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+         }
+
+         _buffer[_size++] = (byte) value;
+      }
+
+      private void writeVarLong(long value) {
+
+         ensureCapacity(10);
+
+         while ((value & ~0x7fL) != 0) {
+            _buffer[_size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+         }
+
+         _buffer[_size++] = (byte) value;
+      }
+   }
+
+   /**
+    * Reads varints from a byte array.
+    */
+   private static class ByteReader {
+
+      private final byte[] _buffer;
+      private final int    _end;
+
+      private int          _pos;
+
+      private ByteReader(final byte[] buffer, final int offset, final int length) {
+
+         _buffer = buffer;
+         _pos = offset;
+         _end = offset + length;
+      }
+
+      private int readByte() throws StreamCorruptedException {
+
+         if (_pos >= _end) {
+            throw new StreamCorruptedException("Unexpected end of packed serie data"); //$NON-NLS-1$
+         }
+
+         return _buffer[_pos++] & 0xff;
+      }
+
+      private int readVarInt() throws StreamCorruptedException {
+
+         int value = 0;
+
+         for (int shift = 0; shift < 32; shift += 7) {
+
+            final int b = readByte();
+
+            value |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+               return value;
+            }
+         }
+
+         throw new StreamCorruptedException("Invalid varint in packed serie data"); //$NON-NLS-1$
+      }
+
+      private long readVarLong() throws StreamCorruptedException {
+
+         long value = 0;
+
+         for (int shift = 0; shift < 64; shift += 7) {
+
+            final int b = readByte();
+
+            value |= (long) (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0) {
+               return value;
+            }
+         }
+
+         throw new StreamCorruptedException("Invalid varlong in packed serie data"); //$NON-NLS-1$
+      }
+   }
+
+   /**
+    * Public constructor which is needed for {@link Externalizable}, do not use it.
+    */
+   public SerieDataPacked() {}
+
+   SerieDataPacked(final SerieData serieData) {
+      _serieData = serieData;
+   }
+
+   private static int decodeZigZag(final int value) {
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   private static long decodeZigZag(final long value) {
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   /**
+    * Deserialize a {@link SerieData} blob as it is saved in the database, the blob can have the old
+    * java serialization format or the packed format.
+    *
+    * @param blob
+    * @return
+    * @throws IOException
+    */
+   public static SerieData deserialize(final byte[] blob) throws IOException {
+
+      try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(blob))) {
+
+         return (SerieData) ois.readObject();
+
+      } catch (final ClassNotFoundException e) {
+         throw new IOException(e);
+      }
+   }
+
+   private static int encodeZigZag(final int value) {
+      return (value << 1) ^ (value >> 31);
+   }
+
+   private static long encodeZigZag(final long value) {
+      return (value << 1) ^ (value >> 63);
+   }
+
+   /**
+    * @param values
+    * @return Returns <code>true</code> when all float values are integers which can be restored
+    *         exactly.
+    */
+   private static boolean isIntegral(final float[] values) {
+
+      for (final float value : values) {
+
+         if (Float.floatToRawIntBits(value) != Float.floatToRawIntBits((int) value)) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * @param columnId
+    * @return Returns <code>true</code> when a column is not decoded when the serie data are
+    *         deserialized, these columns are decoded on first access.
+    */
+   private static boolean isLazyColumn(final int columnId) {
+
+      return columnId == COLUMN_CADENCE_20
+            || columnId == COLUMN_SPEED_20
+            || columnId == COLUMN_POWER_20;
+   }
+
+   /**
+    * @param values
+    * @return Returns <code>true</code> when all values can be restored exactly from a 1E7
+    *         quantized value.
+    */
+   private static boolean isQuantizable(final double[] values) {
+
+      for (final double value : values) {
+
+         if (Math.abs(value) > 1000) {
+            return false;
+         }
+
+         final long quantized = Math.round(value * GEO_QUANTIZE_SCALE);
+
+         if (Double.doubleToRawLongBits(quantized / GEO_QUANTIZE_SCALE) != Double.doubleToRawLongBits(value)) {
+            return false;
+         }
+      }
+
+      return true;
+   }
+
+   /**
+    * Serialize a {@link SerieData} with the packed format in the same way as it is saved in the
+    * database blob.
+    *
+    * @param serieData
+    * @return
+    * @throws IOException
+    */
+   public static byte[] serialize(final SerieData serieData) throws IOException {
+
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+      try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+         oos.writeObject(serieData);
+      }
+
+      return baos.toByteArray();
+   }
+
+   private void decode(final byte[] packed) throws IOException {
+
+      final SerieData sd = new SerieData();
+      final ByteReader reader = new ByteReader(packed, 0, packed.length);
+
+      final Inflater inflater = new Inflater();
+
+      try {
+
+         while (true) {
+
+            final int columnId = reader.readByte();
+
+            if (columnId == COLUMN_END) {
+               break;
+            }
+
+            final int encoding = reader.readByte();
+            final int numValues = reader.readVarInt();
+            final int dataLength = reader.readVarInt();
+            final int encodedLength = (encoding & ENCODING_DEFLATE) != 0 ? reader.readVarInt() : dataLength;
+
+            final int dataOffset = reader._pos;
+
+            // each value needs at least 1 bit, so a corrupted number of values is not allocated
+            if (numValues < 0
+                  || dataLength < 0
+                  || encodedLength < 0
+                  || encodedLength > MAX_PACKED_LENGTH
+                  || numValues > encodedLength * 8L) {
+
+               throw new StreamCorruptedException("Invalid column length in packed serie data"); //$NON-NLS-1$
+            }
+
+            if (dataOffset + dataLength > reader._end) {
+               throw new StreamCorruptedException("Column data exceed packed serie data"); //$NON-NLS-1$
+            }
+
+            reader._pos += dataLength;
+
+            if (isLazyColumn(columnId)) {
+
+               // keep column packed until it is accessed
+
+               if (_lazyColumns == null) {
+                  _lazyColumns = new int[COLUMN_LAZY_MAX + 1][];
+               }
+
+               _lazyColumns[columnId] = new int[] { encoding, numValues, dataOffset, dataLength, encodedLength };
+               _numLazyColumns++;
+
+               continue;
+            }
+
+            decodeColumnData(sd, columnId, encoding, numValues, packed, dataOffset, dataLength, encodedLength, inflater);
+         }
+
+      } finally {
+         inflater.end();
+      }
+
+      if (_numLazyColumns > 0) {
+
+         _packed = packed;
+
+         sd._packedData = this;
+      }
+
+      _serieData = sd;
+   }
+
+   private boolean[] decodeBits(final ByteReader reader, final int numValues) throws StreamCorruptedException {
+
+      final boolean[] values = new boolean[numValues];
+
+      int bits = 0;
+
+      for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+
+         if ((valueIndex & 7) == 0) {
+            bits = reader.readByte();
+         }
+
+         values[valueIndex] = (bits & (1 << (valueIndex & 7))) != 0;
+      }
+
+      return values;
+   }
+
+// SET_FORMATTING_OFF
+
+   private void decodeColumn(final SerieData sd,
+                             final int columnId,
+                             final int encoding,
+                             final int numValues,
+                             final ByteReader reader) throws IOException {
+
+      switch (columnId) {
+
+      case COLUMN_TIME:                sd.timeSerie                  = decodeInts(reader, numValues);                break;
+
+      case COLUMN_DISTANCE_20:         sd.distanceSerie20            = decodeFloats(reader, encoding, numValues);    break;
+      case COLUMN_ALTITUDE_20:         sd.altitudeSerie20            = decodeFloats(reader, encoding, numValues);    break;
+      case COLUMN_CADENCE_20:          sd.cadenceSerie20             = decodeFloats(reader, encoding, numValues);    break;
+      case COLUMN_PULSE_20:            sd.pulseSerie20               = decodeFloats(reader, encoding, numValues);    break;
+      case COLUMN_TEMPERATURE_20:      sd.temperatureSerie20         = decodeFloats(reader, encoding, numValues);    break;
+      case COLUMN_SPEED_20:            sd.speedSerie20               = decodeFloats(reader, encoding, numValues);    break;
+      case COLUMN_POWER_20:            sd.powerSerie20               = decodeFloats(reader, encoding, numValues);    break;
+
+      case COLUMN_GEARS:               sd.gears                      = decodeLongs(reader, numValues);               break;
+      case COLUMN_LATITUDE:            sd.latitude                   = decodeDoubles(reader, encoding, numValues);   break;
+      case COLUMN_LONGITUDE:           sd.longitude                  = decodeDoubles(reader, encoding, numValues);   break;
+      case COLUMN_PULSE_TIMES:         sd.pulseTimes                 = decodeInts(reader, numValues);                break;
+
+      case COLUMN_RUNDYN_STANCE_TIME:  sd.runDyn_StanceTime          = decodeShorts(reader, numValues);              break;
+      case COLUMN_RUNDYN_STANCE_BAL:   sd.runDyn_StanceTimeBalance   = decodeShorts(reader, numValues);              break;
+      case COLUMN_RUNDYN_STEP_LENGTH:  sd.runDyn_StepLength          = decodeShorts(reader, numValues);              break;
+      case COLUMN_RUNDYN_VERT_OSC:     sd.runDyn_VerticalOscillation = decodeShorts(reader, numValues);              break;
+      case COLUMN_RUNDYN_VERT_RATIO:   sd.runDyn_VerticalRatio       = decodeShorts(reader, numValues);              break;
+
+      case COLUMN_SWIM_LENGTH_TYPE:    sd.swim_LengthType            = decodeShorts(reader, numValues);              break;
+      case COLUMN_SWIM_CADENCE:        sd.swim_Cadence               = decodeShorts(reader, numValues);              break;
+      case COLUMN_SWIM_STROKES:        sd.swim_Strokes               = decodeShorts(reader, numValues);              break;
+      case COLUMN_SWIM_STROKE_STYLE:   sd.swim_StrokeStyle           = decodeShorts(reader, numValues);              break;
+      case COLUMN_SWIM_TIME:           sd.swim_Time                  = decodeInts(reader, numValues);                break;
+
+      case COLUMN_VISIBLE_SURFING:     sd.visiblePoints_Surfing      = decodeBits(reader, numValues);                break;
+
+      case COLUMN_DISTANCE:            sd.distanceSerie              = decodeInts(reader, numValues);                break;
+      case COLUMN_ALTITUDE:            sd.altitudeSerie              = decodeInts(reader, numValues);                break;
+      case COLUMN_CADENCE:             sd.cadenceSerie               = decodeInts(reader, numValues);                break;
+      case COLUMN_PULSE:               sd.pulseSerie                 = decodeInts(reader, numValues);                break;
+      case COLUMN_TEMPERATURE:         sd.temperatureSerie           = decodeInts(reader, numValues);                break;
+      case COLUMN_SPEED:               sd.speedSerie                 = decodeInts(reader, numValues);                break;
+      case COLUMN_POWER:               sd.powerSerie                 = decodeInts(reader, numValues);                break;
+      case COLUMN_DEVICE_MARKER:       sd.deviceMarker               = decodeInts(reader, numValues);                break;
+
+      default:
+         // ignore unknown columns, they could be saved with a newer app version
+         break;
+      }
+   }
+
+// SET_FORMATTING_ON
+
+   private void decodeColumnData(final SerieData sd,
+                                 final int columnId,
+                                 final int encoding,
+                                 final int numValues,
+                                 final byte[] packed,
+                                 final int dataOffset,
+                                 final int dataLength,
+                                 final int encodedLength,
+                                 final Inflater inflater) throws IOException {
+
+      ByteReader columnReader;
+
+      if ((encoding & ENCODING_DEFLATE) != 0) {
+
+         final byte[] inflated = new byte[encodedLength];
+
+         inflater.reset();
+         inflater.setInput(packed, dataOffset, dataLength);
+
+         try {
+
+            if (inflater.inflate(inflated) != encodedLength) {
+               throw new StreamCorruptedException("Invalid compressed column in packed serie data"); //$NON-NLS-1$
+            }
+
+         } catch (final DataFormatException e) {
+            throw new IOException(e);
+         }
+
+         columnReader = new ByteReader(inflated, 0, encodedLength);
+
+      } else {
+
+         columnReader = new ByteReader(packed, dataOffset, dataLength);
+      }
+
+      decodeColumn(sd, columnId, encoding & ~ENCODING_DEFLATE, numValues, columnReader);
+   }
+
+   private double[] decodeDoubles(final ByteReader reader, final int encoding, final int numValues)
+         throws StreamCorruptedException {
+
+      final double[] values = new double[numValues];
+
+      long prevValue = 0;
+
+      for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+
+         prevValue += decodeZigZag(reader.readVarLong());
+
+         values[valueIndex] = encoding == ENCODING_DOUBLE_E7_DELTA
+               ? prevValue / GEO_QUANTIZE_SCALE
+               : Double.longBitsToDouble(prevValue);
+      }
+
+      return values;
+   }
+
+   private float[] decodeFloats(final ByteReader reader, final int encoding, final int numValues)
+         throws StreamCorruptedException {
+
+      final float[] values = new float[numValues];
+
+      int prevValue = 0;
+
+      for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+
+         prevValue += decodeZigZag(reader.readVarInt());
+
+         values[valueIndex] = encoding == ENCODING_FLOAT_AS_INT_DELTA
+               ? prevValue
+               : Float.intBitsToFloat(prevValue);
+      }
+
+      return values;
+   }
+
+   private int[] decodeInts(final ByteReader reader, final int numValues)
+         throws StreamCorruptedException {
+
+      final int[] values = new int[numValues];
+
+      int prevValue = 0;
+
+      for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+
+         prevValue += decodeZigZag(reader.readVarInt());
+         values[valueIndex] = prevValue;
+      }
+
+      return values;
+   }
+
+   /**
+    * Decode a column which was kept packed when the serie data were deserialized.
+    *
+    * @param sd
+    * @param columnId
+    */
+   synchronized void decodeLazyColumn(final SerieData sd, final int columnId) {
+
+      if (_lazyColumns == null) {
+         return;
+      }
+
+      final int[] lazyColumn = _lazyColumns[columnId];
+
+      if (lazyColumn == null) {
+         return;
+      }
+
+      final Inflater inflater = new Inflater();
+
+      try {
+
+         decodeColumnData(sd,
+               columnId,
+               lazyColumn[0],
+               lazyColumn[1],
+               _packed,
+               lazyColumn[2],
+               lazyColumn[3],
+               lazyColumn[4],
+               inflater);
+
+      } catch (final IOException e) {
+         StatusUtil.log(e);
+      } finally {
+         inflater.end();
+      }
+
+      _lazyColumns[columnId] = null;
+
+      if (--_numLazyColumns == 0) {
+
+         // all columns are decoded, release packed data
+
+         _lazyColumns = null;
+         _packed = null;
+
+         sd._packedData = null;
+      }
+   }
+
+   /**
+    * Decode all columns which are not yet decoded.
+    *
+    * @param sd
+    */
+   synchronized void decodeLazyColumns(final SerieData sd) {
+
+      for (int columnId = 0; columnId <= COLUMN_LAZY_MAX && _lazyColumns != null; columnId++) {
+         decodeLazyColumn(sd, columnId);
+      }
+   }
+
+   private long[] decodeLongs(final ByteReader reader, final int numValues)
+         throws StreamCorruptedException {
+
+      final long[] values = new long[numValues];
+
+      long prevValue = 0;
+
+      for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+
+         prevValue += decodeZigZag(reader.readVarLong());
+         values[valueIndex] = prevValue;
+      }
+
+      return values;
+   }
+
+   private short[] decodeShorts(final ByteReader reader, final int numValues)
+         throws StreamCorruptedException {
+
+      final short[] values = new short[numValues];
+
+      int prevValue = 0;
+
+      for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+
+         prevValue += decodeZigZag(reader.readVarInt());
+         values[valueIndex] = (short) prevValue;
+      }
+
+      return values;
+   }
+
+   private byte[] encode() {
+
+      final SerieData sd = _serieData;
+
+      final int numTimeSlices = sd.timeSerie == null ? 0 : sd.timeSerie.length;
+
+      final ByteWriter writer = new ByteWriter(numTimeSlices * 8);
+      final ByteWriter columnWriter = new ByteWriter(numTimeSlices * 4);
+
+      final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+      try {
+
+         writeInts(writer, columnWriter, deflater, COLUMN_TIME, sd.timeSerie);
+
+         writeFloats(writer, columnWriter, deflater, COLUMN_DISTANCE_20, sd.distanceSerie20);
+         writeFloats(writer, columnWriter, deflater, COLUMN_ALTITUDE_20, sd.altitudeSerie20);
+         writeFloats(writer, columnWriter, deflater, COLUMN_CADENCE_20, sd.cadenceSerie20);
+         writeFloats(writer, columnWriter, deflater, COLUMN_PULSE_20, sd.pulseSerie20);
+         writeFloats(writer, columnWriter, deflater, COLUMN_TEMPERATURE_20, sd.temperatureSerie20);
+         writeFloats(writer, columnWriter, deflater, COLUMN_SPEED_20, sd.speedSerie20);
+         writeFloats(writer, columnWriter, deflater, COLUMN_POWER_20, sd.powerSerie20);
+
+         writeLongs(writer, columnWriter, deflater, COLUMN_GEARS, sd.gears);
+         writeDoubles(writer, columnWriter, deflater, COLUMN_LATITUDE, sd.latitude);
+         writeDoubles(writer, columnWriter, deflater, COLUMN_LONGITUDE, sd.longitude);
+         writeInts(writer, columnWriter, deflater, COLUMN_PULSE_TIMES, sd.pulseTimes);
+
+         writeShorts(writer, columnWriter, deflater, COLUMN_RUNDYN_STANCE_TIME, sd.runDyn_StanceTime);
+         writeShorts(writer, columnWriter, deflater, COLUMN_RUNDYN_STANCE_BAL, sd.runDyn_StanceTimeBalance);
+         writeShorts(writer, columnWriter, deflater, COLUMN_RUNDYN_STEP_LENGTH, sd.runDyn_StepLength);
+         writeShorts(writer, columnWriter, deflater, COLUMN_RUNDYN_VERT_OSC, sd.runDyn_VerticalOscillation);
+         writeShorts(writer, columnWriter, deflater, COLUMN_RUNDYN_VERT_RATIO, sd.runDyn_VerticalRatio);
+
+         writeShorts(writer, columnWriter, deflater, COLUMN_SWIM_LENGTH_TYPE, sd.swim_LengthType);
+         writeShorts(writer, columnWriter, deflater, COLUMN_SWIM_CADENCE, sd.swim_Cadence);
+         writeShorts(writer, columnWriter, deflater, COLUMN_SWIM_STROKES, sd.swim_Strokes);
+         writeShorts(writer, columnWriter, deflater, COLUMN_SWIM_STROKE_STYLE, sd.swim_StrokeStyle);
+         writeInts(writer, columnWriter, deflater, COLUMN_SWIM_TIME, sd.swim_Time);
+
+         writeBits(writer, columnWriter, deflater, COLUMN_VISIBLE_SURFING, sd.visiblePoints_Surfing);
+
+         writeInts(writer, columnWriter, deflater, COLUMN_DISTANCE, sd.distanceSerie);
+         writeInts(writer, columnWriter, deflater, COLUMN_ALTITUDE, sd.altitudeSerie);
+         writeInts(writer, columnWriter, deflater, COLUMN_CADENCE, sd.cadenceSerie);
+         writeInts(writer, columnWriter, deflater, COLUMN_PULSE, sd.pulseSerie);
+         writeInts(writer, columnWriter, deflater, COLUMN_TEMPERATURE, sd.temperatureSerie);
+         writeInts(writer, columnWriter, deflater, COLUMN_SPEED, sd.speedSerie);
+         writeInts(writer, columnWriter, deflater, COLUMN_POWER, sd.powerSerie);
+         writeInts(writer, columnWriter, deflater, COLUMN_DEVICE_MARKER, sd.deviceMarker);
+
+      } finally {
+         deflater.end();
+      }
+
+      writer.writeByte(COLUMN_END);
+
+      return writer.toByteArray();
+   }
+
+   private synchronized byte[] getPackedData() {
+
+      if (_packed == null) {
+
+         // lazy columns are decoded in the meantime
+         return encode();
+      }
+
+      return _packed;
+   }
+
+   /**
+    * @return Returns the number of packed bytes which are kept until all lazy columns are decoded
+    */
+   synchronized int getPackedSize() {
+      return _packed == null ? 0 : _packed.length;
+   }
+
+   public SerieData getSerieData() {
+      return _serieData;
+   }
+
+   /**
+    * @param columnId
+    * @return Returns <code>true</code> when the column is available but not yet decoded.
+    */
+   synchronized boolean isLazyColumnPending(final int columnId) {
+      return _lazyColumns != null && _lazyColumns[columnId] != null;
+   }
+
+   @Override
+   public void readExternal(final ObjectInput in) throws IOException, ClassNotFoundException {
+
+      final int formatVersion = in.readUnsignedByte();
+
+      if (formatVersion > FORMAT_VERSION) {
+         throw new StreamCorruptedException(String.format(
+               "Packed serie data format %d is not supported, it is newer than %d", //$NON-NLS-1$
+               formatVersion,
+               FORMAT_VERSION));
+      }
+
+      final int packedLength = in.readInt();
+
+      if (packedLength < 0 || packedLength > MAX_PACKED_LENGTH) {
+         throw new StreamCorruptedException(String.format(
+               "Packed serie data length %d is not valid", //$NON-NLS-1$
+               packedLength));
+      }
+
+      final byte[] packed = new byte[packedLength];
+
+      in.readFully(packed);
+
+      decode(packed);
+   }
+
+   /**
+    * @return Returns the decoded {@link SerieData} which is set into {@link TourData}.
+    * @throws ObjectStreamException
+    */
+   private Object readResolve() throws ObjectStreamException {
+      return _serieData;
+   }
+
+   private void writeBits(final ByteWriter writer,
+                          final ByteWriter columnWriter,
+                          final Deflater deflater,
+                          final int columnId,
+                          final boolean[] values) {
+
+      if (values == null) {
+         return;
+      }
+
+      columnWriter.reset();
+
+      int bits = 0;
+
+      for (int valueIndex = 0; valueIndex < values.length; valueIndex++) {
+
+         if (values[valueIndex]) {
+            bits |= 1 << (valueIndex & 7);
+         }
+
+         if ((valueIndex & 7) == 7) {
+            columnWriter.writeByte(bits);
+            bits = 0;
+         }
+      }
+
+      if ((values.length & 7) != 0) {
+         columnWriter.writeByte(bits);
+      }
+
+      writeColumn(writer, columnWriter, deflater, columnId, ENCODING_BITS, values.length);
+   }
+
+   /**
+    * Append the encoded column data from the column writer into the writer and compress them when
+    * it is worth it.
+    */
+   private void writeColumn(final ByteWriter writer,
+                            final ByteWriter columnWriter,
+                            final Deflater deflater,
+                            final int columnId,
+                            final int encoding,
+                            final int numValues) {
+
+      final int encodedLength = columnWriter._size;
+
+      writer.writeByte(columnId);
+
+      if (encodedLength >= DEFLATE_MIN_SIZE) {
+
+         final int maxCompressedLength = (int) (encodedLength * DEFLATE_MIN_RATIO);
+         final byte[] compressed = new byte[maxCompressedLength];
+
+         deflater.reset();
+         deflater.setInput(columnWriter._buffer, 0, encodedLength);
+         deflater.finish();
+
+         final int compressedLength = deflater.deflate(compressed);
+
+         if (deflater.finished() && compressedLength < maxCompressedLength) {
+
+            writer.writeByte(encoding | ENCODING_DEFLATE);
+            writer.writeVarInt(numValues);
+            writer.writeVarInt(compressedLength);
+            writer.writeVarInt(encodedLength);
+            writer.write(compressed, 0, compressedLength);
+
+            return;
+         }
+      }
+
+      writer.writeByte(encoding);
+      writer.writeVarInt(numValues);
+      writer.writeVarInt(encodedLength);
+      writer.write(columnWriter._buffer, 0, encodedLength);
+   }
+
+   private void writeDoubles(final ByteWriter writer,
+                             final ByteWriter columnWriter,
+                             final Deflater deflater,
+                             final int columnId,
+                             final double[] values) {
+
+      if (values == null) {
+         return;
+      }
+
+      columnWriter.reset();
+
+      final boolean isQuantized = isQuantizable(values);
+
+      long prevValue = 0;
+
+      for (final double value : values) {
+
+         final long longValue = isQuantized
+               ? Math.round(value * GEO_QUANTIZE_SCALE)
+               : Double.doubleToRawLongBits(value);
+
+         columnWriter.writeVarLong(encodeZigZag(longValue - prevValue));
+         prevValue = longValue;
+      }
+
+      writeColumn(writer,
+            columnWriter,
+            deflater,
+            columnId,
+            isQuantized ? ENCODING_DOUBLE_E7_DELTA : ENCODING_DOUBLE_BITS_DELTA,
+            values.length);
+   }
+
+   @Override
+   public void writeExternal(final ObjectOutput out) throws IOException {
+
+      final SerieDataPacked packedData = _serieData._packedData;
+
+      /*
+       * Serie data which are loaded from the db are not modified, they are replaced in
+       * TourData.onPrePersist(), so the packed data can be written again without decoding the lazy
+       * columns
+       */
+      final byte[] packed = packedData != null
+            ? packedData.getPackedData()
+            : encode();
+
+      out.writeByte(FORMAT_VERSION);
+      out.writeInt(packed.length);
+      out.write(packed);
+   }
+
+   private void writeFloats(final ByteWriter writer,
+                            final ByteWriter columnWriter,
+                            final Deflater deflater,
+                            final int columnId,
+                            final float[] values) {
+
+      if (values == null) {
+         return;
+      }
+
+      columnWriter.reset();
+
+      final boolean isIntegral = isIntegral(values);
+
+      int prevValue = 0;
+
+      for (final float value : values) {
+
+         final int intValue = isIntegral
+               ? (int) value
+               : Float.floatToRawIntBits(value);
+
+         columnWriter.writeVarInt(encodeZigZag(intValue - prevValue));
+         prevValue = intValue;
+      }
+
+      writeColumn(writer,
+            columnWriter,
+            deflater,
+            columnId,
+            isIntegral ? ENCODING_FLOAT_AS_INT_DELTA : ENCODING_FLOAT_BITS_DELTA,
+            values.length);
+   }
+
+   private void writeInts(final ByteWriter writer,
+                          final ByteWriter columnWriter,
+                          final Deflater deflater,
+                          final int columnId,
+                          final int[] values) {
+
+      if (values == null) {
+         return;
+      }
+
+      columnWriter.reset();
+
+      int prevValue = 0;
+
+      for (final int value : values) {
+
+         columnWriter.writeVarInt(encodeZigZag(value - prevValue));
+         prevValue = value;
+      }
+
+      writeColumn(writer, columnWriter, deflater, columnId, ENCODING_INT_DELTA, values.length);
+   }
+
+   private void writeLongs(final ByteWriter writer,
+                           final ByteWriter columnWriter,
+                           final Deflater deflater,
+                           final int columnId,
+                           final long[] values) {
+
+      if (values == null) {
+         return;
+      }
+
+      columnWriter.reset();
+
+      long prevValue = 0;
+
+      for (final long value : values) {
+
+         columnWriter.writeVarLong(encodeZigZag(value - prevValue));
+         prevValue = value;
+      }
+
+      writeColumn(writer, columnWriter, deflater, columnId, ENCODING_LONG_DELTA, values.length);
+   }
+
+   private void writeShorts(final ByteWriter writer,
+                            final ByteWriter columnWriter,
+                            final Deflater deflater,
+                            final int columnId,
+                            final short[] values) {
+
+      if (values == null) {
+         return;
+      }
+
+      columnWriter.reset();
+
+      int prevValue = 0;
+
+      for (final short value : values) {
+
+         columnWriter.writeVarInt(encodeZigZag(value - prevValue));
+         prevValue = value;
+      }
+
+      writeColumn(writer, columnWriter, deflater, columnId, ENCODING_SHORT_DELTA, values.length);
+   }
+}
@@ -0,0 +1,717 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.data;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the time slices of an imported tour in primitive columns, this is an alternative to a
+ * {@link TimeData} list which needs one object for each time slice. The data series are created
+ * with {@link TourData#createTimeSeries(TimeSeriesBuilder, boolean)}.
+ * <p>
+ * The builder is used for devices which record absolute values, like {@link TimeData#absoluteTime},
+ * {@link TimeData#absoluteAltitude} and {@link TimeData#absoluteDistance}.
+ * <p>
+ * A column is created when a value is set the first time, values which are not set have the same
+ * <code>MIN_VALUE</code> as in {@link TimeData}, e.g. {@link Float#MIN_VALUE}.
+ */
+public class TimeSeriesBuilder {
+
+   private static final int    DEFAULT_CAPACITY   = 1000;
+
+   /**
+    * This value occurred in daum data and is ignored
+    */
+   private static final int    INVALID_PULSE_TIME = 65535;
+
+   private int                 _capacity;
+   private int                 _numTimeSlices;
+
+   private long[]              _absoluteTime;
+
+   private float[]             _absoluteAltitude;
+   private float[]             _absoluteDistance;
+   private float[]             _cadence;
+   private long[]              _gear;
+   private double[]            _latitude;
+   private double[]            _longitude;
+   private float[]             _power;
+   private float[]             _pulse;
+   private float[]             _speed;
+   private float[]             _temperature;
+
+   private short[]             _runDyn_StanceTime;
+   private short[]             _runDyn_StanceTimeBalance;
+   private short[]             _runDyn_StepLength;
+   private short[]             _runDyn_VerticalOscillation;
+   private short[]             _runDyn_VerticalRatio;
+
+   private final TIntArrayList _pulseTimes    = new TIntArrayList();
+
+   private final TIntArrayList _markerIndices = new TIntArrayList();
+   private final List<String>  _markerLabels  = new ArrayList<>();
+
+   public TimeSeriesBuilder() {
+      this(DEFAULT_CAPACITY);
+   }
+
+   /**
+    * @param initialCapacity
+    *           Number of time slices for which the columns are created, the columns are enlarged
+    *           when more time slices are added
+    */
+   public TimeSeriesBuilder(final int initialCapacity) {
+
+      _capacity = Math.max(initialCapacity, 1);
+
+      _absoluteTime = new long[_capacity];
+   }
+
+   /**
+    * Add a new time slice, the values which are set after this are set into this time slice.
+    *
+    * @param absoluteTime
+    *           Absolute time in milliseconds or {@link Long#MIN_VALUE} when the time is not
+    *           available
+    * @return Returns the serie index of the new time slice
+    */
+   public int addTimeSlice(final long absoluteTime) {
+
+      if (_numTimeSlices == _capacity) {
+         enlargeColumns();
+      }
+
+      _absoluteTime[_numTimeSlices] = absoluteTime;
+
+      return _numTimeSlices++;
+   }
+
+   private float[] createColumn(final float[] column) {
+
+      if (column != null) {
+         return column;
+      }
+
+      final float[] newColumn = new float[_capacity];
+      Arrays.fill(newColumn, Float.MIN_VALUE);
+
+      return newColumn;
+   }
+
+   private double[] createColumn(final double[] column) {
+
+      if (column != null) {
+         return column;
+      }
+
+      final double[] newColumn = new double[_capacity];
+      Arrays.fill(newColumn, Double.MIN_VALUE);
+
+      return newColumn;
+   }
+
+   private short[] createColumn(final short[] column) {
+
+      if (column != null) {
+         return column;
+      }
+
+      final short[] newColumn = new short[_capacity];
+      Arrays.fill(newColumn, Short.MIN_VALUE);
+
+      return newColumn;
+   }
+
+   private void enlargeColumns() {
+
+      final int newCapacity = _capacity * 2;
+
+// SET_FORMATTING_OFF
+
+      _absoluteTime                 = Arrays.copyOf(_absoluteTime, newCapacity);
+
+      // gear is not available when it is 0
+      _gear                         = _gear == null ? null : Arrays.copyOf(_gear, newCapacity);
+
+      _absoluteAltitude             = enlargeColumn(_absoluteAltitude, newCapacity);
+      _absoluteDistance             = enlargeColumn(_absoluteDistance, newCapacity);
+      _cadence                      = enlargeColumn(_cadence, newCapacity);
+      _latitude                     = enlargeColumn(_latitude, newCapacity);
+      _longitude                    = enlargeColumn(_longitude, newCapacity);
+      _power                        = enlargeColumn(_power, newCapacity);
+      _pulse                        = enlargeColumn(_pulse, newCapacity);
+      _speed                        = enlargeColumn(_speed, newCapacity);
+      _temperature                  = enlargeColumn(_temperature, newCapacity);
+
+      _runDyn_StanceTime            = enlargeColumn(_runDyn_StanceTime, newCapacity);
+      _runDyn_StanceTimeBalance     = enlargeColumn(_runDyn_StanceTimeBalance, newCapacity);
+      _runDyn_StepLength            = enlargeColumn(_runDyn_StepLength, newCapacity);
+      _runDyn_VerticalOscillation   = enlargeColumn(_runDyn_VerticalOscillation, newCapacity);
+      _runDyn_VerticalRatio         = enlargeColumn(_runDyn_VerticalRatio, newCapacity);
+
+// SET_FORMATTING_ON
+
+      _capacity = newCapacity;
+   }
+
+   private float[] enlargeColumn(final float[] column, final int newCapacity) {
+
+      if (column == null) {
+         return null;
+      }
+
+      final float[] newColumn = Arrays.copyOf(column, newCapacity);
+      Arrays.fill(newColumn, _capacity, newCapacity, Float.MIN_VALUE);
+
+      return newColumn;
+   }
+
+   private double[] enlargeColumn(final double[] column, final int newCapacity) {
+
+      if (column == null) {
+         return null;
+      }
+
+      final double[] newColumn = Arrays.copyOf(column, newCapacity);
+      Arrays.fill(newColumn, _capacity, newCapacity, Double.MIN_VALUE);
+
+      return newColumn;
+   }
+
+   private short[] enlargeColumn(final short[] column, final int newCapacity) {
+
+      if (column == null) {
+         return null;
+      }
+
+      final short[] newColumn = Arrays.copyOf(column, newCapacity);
+      Arrays.fill(newColumn, _capacity, newCapacity, Short.MIN_VALUE);
+
+      return newColumn;
+   }
+
+   float[] getAbsoluteAltitude() {
+      return getSerie(_absoluteAltitude);
+   }
+
+   float[] getAbsoluteDistance() {
+      return getSerie(_absoluteDistance);
+   }
+
+   /**
+    * @return Returns the absolute time column which can be larger than the number of time slices,
+    *         it must not be modified
+    */
+   long[] getAbsoluteTime() {
+      return _absoluteTime;
+   }
+
+   /**
+    * @param serieIndex
+    * @return Returns the absolute time of a time slice or {@link Long#MIN_VALUE} when it is not
+    *         available
+    */
+   public long getAbsoluteTime(final int serieIndex) {
+      return _absoluteTime[serieIndex];
+   }
+
+   float[] getCadence() {
+      return getSerie(_cadence);
+   }
+
+   long[] getGear() {
+      return _gear == null ? null : Arrays.copyOf(_gear, _numTimeSlices);
+   }
+
+   double[] getLatitude() {
+      return getSerie(_latitude);
+   }
+
+   double[] getLongitude() {
+      return getSerie(_longitude);
+   }
+
+   TIntArrayList getMarkerIndices() {
+      return _markerIndices;
+   }
+
+   List<String> getMarkerLabels() {
+      return _markerLabels;
+   }
+
+   /**
+    * @return Returns the power values or <code>null</code> when power is not available, values
+    *         which are not set are {@link Float#MIN_VALUE}
+    */
+   public float[] getPower() {
+      return getSerie(_power);
+   }
+
+   float[] getPulse() {
+      return getSerie(_pulse);
+   }
+
+   TIntArrayList getPulseTimes() {
+      return _pulseTimes;
+   }
+
+   short[] getRunDyn_StanceTime() {
+      return getSerie(_runDyn_StanceTime);
+   }
+
+   short[] getRunDyn_StanceTimeBalance() {
+      return getSerie(_runDyn_StanceTimeBalance);
+   }
+
+   short[] getRunDyn_StepLength() {
+      return getSerie(_runDyn_StepLength);
+   }
+
+   short[] getRunDyn_VerticalOscillation() {
+      return getSerie(_runDyn_VerticalOscillation);
+   }
+
+   short[] getRunDyn_VerticalRatio() {
+      return getSerie(_runDyn_VerticalRatio);
+   }
+
+   private double[] getSerie(final double[] column) {
+      return column == null ? null : Arrays.copyOf(column, _numTimeSlices);
+   }
+
+   private float[] getSerie(final float[] column) {
+      return column == null ? null : Arrays.copyOf(column, _numTimeSlices);
+   }
+
+   private short[] getSerie(final short[] column) {
+      return column == null ? null : Arrays.copyOf(column, _numTimeSlices);
+   }
+
+   /**
+    * @param latitude
+    * @param longitude
+    * @return Returns the serie index of the first time slice with this position or -1 when the
+    *         position is not available
+    */
+   public int getSerieIndex(final double latitude, final double longitude) {
+
+      for (int serieIndex = 0; serieIndex < _numTimeSlices; serieIndex++) {
+
+         final double sliceLatitude = _latitude == null ? Double.MIN_VALUE : _latitude[serieIndex];
+         final double sliceLongitude = _longitude == null ? Double.MIN_VALUE : _longitude[serieIndex];
+
+         if (sliceLatitude == latitude && sliceLongitude == longitude) {
+            return serieIndex;
+         }
+      }
+
+      return -1;
+   }
+
+   float[] getSpeed() {
+      return getSerie(_speed);
+   }
+
+   float[] getTemperature() {
+      return getSerie(_temperature);
+   }
+
+   /**
+    * @return Returns the number of time slices
+    */
+   public int size() {
+      return _numTimeSlices;
+   }
+
+   /**
+    * Sort the time slices by their absolute time, time slices with the same time keep their
+    * order. The columns are reordered with a sorted index and the markers are moved with their
+    * time slices, the pulse times are not sorted.
+    */
+   public void sortByTime() {
+
+      final Integer[] sortedIndices = new Integer[_numTimeSlices];
+
+      for (int serieIndex = 0; serieIndex < _numTimeSlices; serieIndex++) {
+         sortedIndices[serieIndex] = serieIndex;
+      }
+
+      final long[] allAbsoluteTimes = _absoluteTime;
+
+      // a stable sort keeps the order of time slices with the same time
+      Arrays.sort(sortedIndices, Comparator.comparingLong(serieIndex -> allAbsoluteTimes[serieIndex]));
+
+      final int[] newSerieIndices = new int[_numTimeSlices];
+
+      for (int newIndex = 0; newIndex < _numTimeSlices; newIndex++) {
+         newSerieIndices[sortedIndices[newIndex]] = newIndex;
+      }
+
+// SET_FORMATTING_OFF
+
+      _absoluteTime                 = sortColumn(_absoluteTime, sortedIndices);
+      _gear                         = sortColumn(_gear, sortedIndices);
+
+      _absoluteAltitude             = sortColumn(_absoluteAltitude, sortedIndices);
+      _absoluteDistance             = sortColumn(_absoluteDistance, sortedIndices);
+      _cadence                      = sortColumn(_cadence, sortedIndices);
+      _latitude                     = sortColumn(_latitude, sortedIndices);
+      _longitude                    = sortColumn(_longitude, sortedIndices);
+      _power                        = sortColumn(_power, sortedIndices);
+      _pulse                        = sortColumn(_pulse, sortedIndices);
+      _speed                        = sortColumn(_speed, sortedIndices);
+      _temperature                  = sortColumn(_temperature, sortedIndices);
+
+      _runDyn_StanceTime            = sortColumn(_runDyn_StanceTime, sortedIndices);
+      _runDyn_StanceTimeBalance     = sortColumn(_runDyn_StanceTimeBalance, sortedIndices);
+      _runDyn_StepLength            = sortColumn(_runDyn_StepLength, sortedIndices);
+      _runDyn_VerticalOscillation   = sortColumn(_runDyn_VerticalOscillation, sortedIndices);
+      _runDyn_VerticalRatio         = sortColumn(_runDyn_VerticalRatio, sortedIndices);
+
+// SET_FORMATTING_ON
+
+      for (int markerIndex = 0; markerIndex < _markerIndices.size(); markerIndex++) {
+         _markerIndices.set(markerIndex, newSerieIndices[_markerIndices.get(markerIndex)]);
+      }
+   }
+
+   private double[] sortColumn(final double[] column, final Integer[] sortedIndices) {
+
+      if (column == null) {
+         return null;
+      }
+
+      final double[] sortedColumn = column.clone();
+
+      for (int serieIndex = 0; serieIndex < sortedIndices.length; serieIndex++) {
+         sortedColumn[serieIndex] = column[sortedIndices[serieIndex]];
+      }
+
+      return sortedColumn;
+   }
+
+   private float[] sortColumn(final float[] column, final Integer[] sortedIndices) {
+
+      if (column == null) {
+         return null;
+      }
+
+      final float[] sortedColumn = column.clone();
+
+      for (int serieIndex = 0; serieIndex < sortedIndices.length; serieIndex++) {
+         sortedColumn[serieIndex] = column[sortedIndices[serieIndex]];
+      }
+
+      return sortedColumn;
+   }
+
+   private long[] sortColumn(final long[] column, final Integer[] sortedIndices) {
+
+      if (column == null) {
+         return null;
+      }
+
+      final long[] sortedColumn = column.clone();
+
+      for (int serieIndex = 0; serieIndex < sortedIndices.length; serieIndex++) {
+         sortedColumn[serieIndex] = column[sortedIndices[serieIndex]];
+      }
+
+      return sortedColumn;
+   }
+
+   private short[] sortColumn(final short[] column, final Integer[] sortedIndices) {
+
+      if (column == null) {
+         return null;
+      }
+
+      final short[] sortedColumn = column.clone();
+
+      for (int serieIndex = 0; serieIndex < sortedIndices.length; serieIndex++) {
+         sortedColumn[serieIndex] = column[sortedIndices[serieIndex]];
+      }
+
+      return sortedColumn;
+   }
+
+   /**
+    * Set the values of the last added time slice.
+    *
+    * @param absoluteAltitude
+    */
+   public void setAbsoluteAltitude(final float absoluteAltitude) {
+
+      _absoluteAltitude = createColumn(_absoluteAltitude);
+      _absoluteAltitude[_numTimeSlices - 1] = absoluteAltitude;
+   }
+
+   public void setAbsoluteDistance(final float absoluteDistance) {
+
+      _absoluteDistance = createColumn(_absoluteDistance);
+      _absoluteDistance[_numTimeSlices - 1] = absoluteDistance;
+   }
+
+   public void setCadence(final float cadence) {
+
+      _cadence = createColumn(_cadence);
+      _cadence[_numTimeSlices - 1] = cadence;
+   }
+
+   public void setGear(final long gear) {
+
+      if (_gear == null) {
+         _gear = new long[_capacity];
+      }
+
+      _gear[_numTimeSlices - 1] = gear;
+   }
+
+   /**
+    * @param latitude
+    *           Latitude or {@link Double#MIN_VALUE} when not available
+    * @param longitude
+    *           Longitude or {@link Double#MIN_VALUE} when not available
+    */
+   public void setLatLon(final double latitude, final double longitude) {
+
+      _latitude = createColumn(_latitude);
+      _longitude = createColumn(_longitude);
+
+      _latitude[_numTimeSlices - 1] = latitude;
+      _longitude[_numTimeSlices - 1] = longitude;
+   }
+
+   /**
+    * Create a device marker at the last added time slice.
+    *
+    * @param markerLabel
+    *           Marker label or <code>null</code> when the default label is used
+    */
+   public void setMarker(final String markerLabel) {
+
+      setMarker(_numTimeSlices - 1, markerLabel);
+   }
+
+   /**
+    * Create a device marker at a time slice, the label of an existing marker at this time slice is
+    * replaced.
+    *
+    * @param serieIndex
+    * @param markerLabel
+    *           Marker label or <code>null</code> when the default label is used
+    */
+   public void setMarker(final int serieIndex, final String markerLabel) {
+
+      final int markerIndex = _markerIndices.indexOf(serieIndex);
+
+      if (markerIndex == -1) {
+
+         _markerIndices.add(serieIndex);
+         _markerLabels.add(markerLabel);
+
+      } else {
+
+         _markerLabels.set(markerIndex, markerLabel);
+      }
+   }
+
+   public void setPower(final float power) {
+
+      _power = createColumn(_power);
+      _power[_numTimeSlices - 1] = power;
+   }
+
+   public void setPulse(final float pulse) {
+
+      setPulse(_numTimeSlices - 1, pulse);
+   }
+
+   /**
+    * Set the pulse of a time slice, e.g. when the heart rate is recorded separately.
+    *
+    * @param serieIndex
+    * @param pulse
+    */
+   public void setPulse(final int serieIndex, final float pulse) {
+
+      _pulse = createColumn(_pulse);
+      _pulse[serieIndex] = pulse;
+   }
+
+   /**
+    * @param pulseTimes
+    *           R-R intervals of the last added time slice, 0 values are ignored
+    */
+   public void setPulseTimes(final int[] pulseTimes) {
+
+      for (final int pulseTime : pulseTimes) {
+         if (pulseTime != 0 && pulseTime != INVALID_PULSE_TIME) {
+            _pulseTimes.add(pulseTime);
+         }
+      }
+   }
+
+   public void setRunDyn_StanceTime(final short stanceTime) {
+
+      _runDyn_StanceTime = createColumn(_runDyn_StanceTime);
+      _runDyn_StanceTime[_numTimeSlices - 1] = stanceTime;
+   }
+
+   public void setRunDyn_StanceTimeBalance(final short stanceTimeBalance) {
+
+      _runDyn_StanceTimeBalance = createColumn(_runDyn_StanceTimeBalance);
+      _runDyn_StanceTimeBalance[_numTimeSlices - 1] = stanceTimeBalance;
+   }
+
+   public void setRunDyn_StepLength(final short stepLength) {
+
+      _runDyn_StepLength = createColumn(_runDyn_StepLength);
+      _runDyn_StepLength[_numTimeSlices - 1] = stepLength;
+   }
+
+   public void setRunDyn_VerticalOscillation(final short verticalOscillation) {
+
+      _runDyn_VerticalOscillation = createColumn(_runDyn_VerticalOscillation);
+      _runDyn_VerticalOscillation[_numTimeSlices - 1] = verticalOscillation;
+   }
+
+   public void setRunDyn_VerticalRatio(final short verticalRatio) {
+
+      _runDyn_VerticalRatio = createColumn(_runDyn_VerticalRatio);
+      _runDyn_VerticalRatio[_numTimeSlices - 1] = verticalRatio;
+   }
+
+   public void setSpeed(final float speed) {
+
+      _speed = createColumn(_speed);
+      _speed[_numTimeSlices - 1] = speed;
+   }
+
+   public void setTemperature(final float temperature) {
+
+      _temperature = createColumn(_temperature);
+      _temperature[_numTimeSlices - 1] = temperature;
+   }
+
+   /**
+    * Set the values of a {@link TimeData} into the last added time slice, this is used by readers
+    * which fill one {@link TimeData} for each record. Values which are not available in the time
+    * data are not set, the absolute time is set with {@link #addTimeSlice(long)}.
+    *
+    * @param timeData
+    * @param isOnlyMissingValues
+    *           When <code>true</code> only the values which are not yet set in the last time slice
+    *           are set, e.g. when a duplicated record with the same time is merged, a marker and
+    *           pulse times are then ignored
+    */
+   public void setTimeData(final TimeData timeData, final boolean isOnlyMissingValues) {
+
+      final int serieIndex = _numTimeSlices - 1;
+
+// SET_FORMATTING_OFF
+
+      _absoluteAltitude             = setValue(_absoluteAltitude,             timeData.absoluteAltitude,           isOnlyMissingValues);
+      _absoluteDistance             = setValue(_absoluteDistance,             timeData.absoluteDistance,           isOnlyMissingValues);
+      _cadence                      = setValue(_cadence,                      timeData.cadence,                    isOnlyMissingValues);
+      _power                        = setValue(_power,                        timeData.power,                      isOnlyMissingValues);
+      _pulse                        = setValue(_pulse,                        timeData.pulse,                      isOnlyMissingValues);
+      _speed                        = setValue(_speed,                        timeData.speed,                      isOnlyMissingValues);
+      _temperature                  = setValue(_temperature,                  timeData.temperature,                isOnlyMissingValues);
+
+      _runDyn_StanceTime            = setValue(_runDyn_StanceTime,            timeData.runDyn_StanceTime,          isOnlyMissingValues);
+      _runDyn_StanceTimeBalance     = setValue(_runDyn_StanceTimeBalance,     timeData.runDyn_StanceTimeBalance,   isOnlyMissingValues);
+      _runDyn_StepLength            = setValue(_runDyn_StepLength,            timeData.runDyn_StepLength,          isOnlyMissingValues);
+      _runDyn_VerticalOscillation   = setValue(_runDyn_VerticalOscillation,   timeData.runDyn_VerticalOscillation, isOnlyMissingValues);
+      _runDyn_VerticalRatio         = setValue(_runDyn_VerticalRatio,         timeData.runDyn_VerticalRatio,       isOnlyMissingValues);
+
+// SET_FORMATTING_ON
+
+      if (timeData.latitude != Double.MIN_VALUE || timeData.longitude != Double.MIN_VALUE) {
+
+         // latitude and longitude columns are always created together
+         _latitude = setValue(createColumn(_latitude), timeData.latitude, isOnlyMissingValues);
+         _longitude = setValue(createColumn(_longitude), timeData.longitude, isOnlyMissingValues);
+      }
+
+      // gear is not available when it is 0
+      if (timeData.gear != 0 && (isOnlyMissingValues == false || _gear == null || _gear[serieIndex] == 0)) {
+         setGear(timeData.gear);
+      }
+
+      if (isOnlyMissingValues) {
+         return;
+      }
+
+      if (timeData.pulseTime != null) {
+         setPulseTimes(timeData.pulseTime);
+      }
+
+      if (timeData.marker != 0) {
+         setMarker(timeData.markerLabel);
+      }
+   }
+
+   private double[] setValue(final double[] column, final double value, final boolean isOnlyMissingValues) {
+
+      final int serieIndex = _numTimeSlices - 1;
+
+      if (value == Double.MIN_VALUE
+            || isOnlyMissingValues && column != null && column[serieIndex] != Double.MIN_VALUE) {
+         return column;
+      }
+
+      final double[] valueColumn = createColumn(column);
+      valueColumn[serieIndex] = value;
+
+      return valueColumn;
+   }
+
+   private float[] setValue(final float[] column, final float value, final boolean isOnlyMissingValues) {
+
+      final int serieIndex = _numTimeSlices - 1;
+
+      if (value == Float.MIN_VALUE
+            || isOnlyMissingValues && column != null && column[serieIndex] != Float.MIN_VALUE) {
+         return column;
+      }
+
+      final float[] valueColumn = createColumn(column);
+      valueColumn[serieIndex] = value;
+
+      return valueColumn;
+   }
+
+   private short[] setValue(final short[] column, final short value, final boolean isOnlyMissingValues) {
+
+      final int serieIndex = _numTimeSlices - 1;
+
+      if (value == Short.MIN_VALUE
+            || isOnlyMissingValues && column != null && column[serieIndex] != Short.MIN_VALUE) {
+         return column;
+      }
+
+      final short[] valueColumn = createColumn(column);
+      valueColumn[serieIndex] = value;
+
+      return valueColumn;
+   }
+}
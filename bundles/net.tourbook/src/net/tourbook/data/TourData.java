@@ -28,6 +28,7 @@ import java.awt.Point;
 import java.io.File;
 import java.io.PrintStream;
 import java.io.StringWriter;
+import java.lang.reflect.Array;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
@@ -87,8 +88,6 @@ import net.tourbook.photo.PhotoCache;
 import net.tourbook.photo.TourPhotoReference;
 import net.tourbook.preferences.ITourbookPreferences;
 import net.tourbook.srtm.ElevationSRTM3;
-import net.tourbook.srtm.GeoLat;
-import net.tourbook.srtm.GeoLon;
 import net.tourbook.srtm.NumberForm;
 import net.tourbook.tour.BreakTimeResult;
 import net.tourbook.tour.BreakTimeTool;
@@ -185,6 +184,21 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    public static final short           SURFING_VALUE_IS_NOT_SET          = -1;
 
+   /*
+    * Data series which are copied from {@link #serieData} on first access
+    */
+   private static final int            LAZY_SERIE_CADENCE                = 1 << 0;
+   private static final int            LAZY_SERIE_POWER                  = 1 << 1;
+   private static final int            LAZY_SERIE_SPEED                  = 1 << 2;
+   private static final int            LAZY_SERIE_ALL                    = LAZY_SERIE_CADENCE
+                                                                           | LAZY_SERIE_POWER
+                                                                           | LAZY_SERIE_SPEED;
+
+   /**
+    * Max number of projection/zoom levels for which the world positions are cached in a tour
+    */
+   private static final int            MAX_CACHED_WORLD_POSITIONS        = 4;
+
    /**
     * Device Id for manually created tours
     */
@@ -1073,6 +1087,13 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
    @Transient
    private boolean               isPowerSerieFromDevice               = false;
 
+   /**
+    * Contains the {@link #LAZY_SERIE_ALL} flags of the data series which are not yet copied from
+    * {@link #serieData}, these data series are decoded on first access.
+    */
+   @Transient
+   private volatile int          _lazySeries;
+
    @Transient
    private float[]               altimeterSerie;
 
@@ -1279,10 +1300,17 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
    public int                 mapZoomLevel;
 
    /**
-    * caches the world positions for the tour lat/long values for each zoom level
+    * caches the world positions for the tour lat/long values for each zoom level, the x and y
+    * values are interleaved
+    */
+   @Transient
+   private final TIntObjectHashMap<int[]>                      _tourWorldPosition   = new TIntObjectHashMap<>();
+
+   /**
+    * Keys of the cached world positions, the last used key is at the end
     */
    @Transient
-   private final TIntObjectHashMap<Point[]>                    _tourWorldPosition   = new TIntObjectHashMap<>();
+   private final TIntArrayList                                 _tourWorldPositionKeys = new TIntArrayList();
 
    /**
     * caches the world positions for the way point lat/long values for each zoom level
@@ -1658,6 +1686,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public void cleanupDataSeries() {
 
+      loadLazySeries();
+
       if (timeSerie == null) {
          return;
       }
@@ -1948,6 +1978,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public void clearComputedSeries() {
 
+      loadLazySeries();
+
       if (isSpeedSerieFromDevice == false) {
          speedSerie = null;
       }
@@ -2024,7 +2056,11 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public void clearWorldPositions() {
 
-      _tourWorldPosition.clear();
+      synchronized (_tourWorldPosition) {
+
+         _tourWorldPosition.clear();
+         _tourWorldPositionKeys.clear();
+      }
    }
 
    @Override
@@ -2786,6 +2822,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    private void computeAvg_Cadence() {
 
+      loadLazySerie(LAZY_SERIE_CADENCE);
+
       if (cadenceSerie == null) {
          return;
       }
@@ -2807,6 +2845,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    public float computeAvg_CadenceSegment(final int firstIndex, final int lastIndex) {
 
+      loadLazySerie(LAZY_SERIE_CADENCE);
+
       // check if data are available
       if (cadenceSerie == null || cadenceSerie.length == 0 || timeSerie == null || timeSerie.length == 0) {
          return 0;
@@ -3303,6 +3343,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public boolean computeCadenceZonesTimes() {
 
+      loadLazySerie(LAZY_SERIE_CADENCE);
+
       if (timeSerie == null || cadenceSerie == null) {
          return false;
       }
@@ -3381,6 +3423,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    private void computeDataSeries_NotSmoothed() {
 
+      loadLazySerie(LAZY_SERIE_SPEED);
+
       // check if the tour was created manually
       if (timeSerie == null || timeSerie.length == 0) {
          return;
@@ -3545,6 +3589,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    private void computeDataSeries_Smoothed() {
 
+      loadLazySerie(LAZY_SERIE_SPEED);
+
       // check if the tour was created manually
       if (timeSerie == null || timeSerie.length == 0) {
          return;
@@ -4444,6 +4490,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public void computeSpeedSerie() {
 
+      loadLazySerie(LAZY_SERIE_SPEED);
+
 //      final long start = System.nanoTime();
 
       if ((speedSerie != null)
@@ -4497,6 +4545,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    private void computeSpeedSerieFromDevice() {
 
+      loadLazySerie(LAZY_SERIE_SPEED);
+
       if (speedSerie == null) {
          return;
       }
@@ -4527,6 +4577,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    private void computeSpeedSerieInternalWithFixedInterval() {
 
+      loadLazySerie(LAZY_SERIE_SPEED);
+
       // distance is required
       if (distanceSerie == null) {
          return;
@@ -4641,6 +4693,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    private void computeSpeedSerieInternalWithVariableInterval() {
 
+      loadLazySerie(LAZY_SERIE_SPEED);
+
       // distance is required
       if (distanceSerie == null) {
          return;
@@ -5093,6 +5147,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public ArrayList<TourSegment> createSegmenterSegments(final BreakTimeTool btConfig) {
 
+      loadLazySerie(LAZY_SERIE_CADENCE);
+
       if ((segmentSerieIndex == null) || (segmentSerieIndex.length < 2)) {
 
          // at least two points are required to build a segment
@@ -5425,7 +5481,7 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
                // ignore lat/lon 0/0, this is in the ocean
                if (latitude != 0 || longitude != 0) {
-                  srtmValue = elevationSRTM3.getElevation(new GeoLat(latitude), new GeoLon(longitude));
+                  srtmValue = elevationSRTM3.getElevation(latitude, longitude);
                }
 
                /*
@@ -5916,66 +5972,270 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
       createTimeSeries_10_DataCompleting();
       createTimeSeries_50_PulseTimes(timeDataSerie);
+      createTimeSeries_60_TourValues(isDistance, isGear, recordingTime);
 
-      tourDistance = isDistance ? distanceSerie[serieSize - 1] : 0;
-      tourRecordingTime = recordingTime;
-      setTourEndTimeMS();
+      /*
+       * create marker after all other data are setup
+       */
+      if (isCreateMarker) {
 
-      if (isGear) {
-         // set shift counts
-         setGears(gearSerie);
+         for (int serieIndex = 0; serieIndex < serieSize; serieIndex++) {
+
+            final TimeData timeData = timeDataSerie[serieIndex];
+
+            if (timeData.marker != 0) {
+
+               int relativeTime = 0;
+               float distanceValue = 0;
+
+               if (timeSerie != null) {
+                  relativeTime = timeSerie[serieIndex];
+               }
+               if (distanceSerie != null) {
+                  distanceValue = distanceSerie[serieIndex];
+               }
+
+               createTourMarker(timeData.markerLabel, serieIndex, relativeTime, distanceValue);
+            }
+         }
       }
+      resetSortedMarkers();
+   }
 
-      cleanupDataSeries();
+   /**
+    * Convert the columns of a {@link TimeSeriesBuilder} into {@link TourData}, this is the same as
+    * {@link #createTimeSeries(List, boolean)} for absolute data but without creating a
+    * {@link TimeData} object for each time slice.
+    * <p>
+    * The array {@link #timeSerie} is always created.
+    *
+    * @param timeSeriesBuilder
+    * @param isCreateMarker
+    *           creates markers when <code>true</code>
+    */
+   public void createTimeSeries(final TimeSeriesBuilder timeSeriesBuilder, final boolean isCreateMarker) {
+
+      final int serieSize = timeSeriesBuilder.size();
+      if (serieSize == 0) {
+         return;
+      }
 
       /*
-       * Try to get distance values from lat/long values, this must be done after the cleanup which
-       * can set distanceSerie = null.
+       * time
        */
-      if (distanceSerie == null) {
-         TourManager.computeDistanceValuesFromGeoPosition(this);
+      final long[] allAbsoluteTimes = timeSeriesBuilder.getAbsoluteTime();
+      final long firstAbsoluteTime = allAbsoluteTimes[0];
+
+      final long startTime = firstAbsoluteTime == Long.MIN_VALUE ? 0 : firstAbsoluteTime;
+
+      // time in seconds relative to the tour start
+      long recordingTime = 0;
+      long lastValidTime = startTime;
+      long lastValidAbsoluteTime = startTime;
+
+      timeSerie = new int[serieSize];
+
+      for (int serieIndex = 1; serieIndex < serieSize; serieIndex++) {
+
+         final long absoluteTime = allAbsoluteTimes[serieIndex];
+
+         // absolute time is checked against last valid time because time can NOT be in the past
+         if (absoluteTime == Long.MIN_VALUE || absoluteTime < lastValidAbsoluteTime) {
+            recordingTime = lastValidTime;
+         } else {
+            recordingTime = (absoluteTime - startTime) / 1000;
+            lastValidAbsoluteTime = absoluteTime;
+         }
+
+         timeSerie[serieIndex] = (int) (lastValidTime = recordingTime);
       }
 
       /*
-       * Set time zone from geo position
+       * distance is always available for absolute data
        */
-      if (latitudeSerie != null) {
+      float[] allDistances = timeSeriesBuilder.getAbsoluteDistance();
 
-         // latitude can be null AFTER cleanup data series
+      if (allDistances == null) {
+         allDistances = new float[serieSize];
+         Arrays.fill(allDistances, Float.MIN_VALUE);
+      }
 
-         // get time zone from lat/lon
-         final double lat = latitudeSerie[0];
-         final double lon = longitudeSerie[0];
+      for (int serieIndex = 0; serieIndex < serieSize; serieIndex++) {
 
-         final String rawZoneId = TimezoneMapper.latLngToTimezoneString(lat, lon);
-         final ZoneId zoneId = ZoneId.of(rawZoneId);
+         final float absoluteDistance = allDistances[serieIndex];
 
-         setTimeZoneId(zoneId.getId());
+         if ((absoluteDistance == Float.MIN_VALUE) || (absoluteDistance >= Integer.MAX_VALUE)) {
+
+            allDistances[serieIndex] = serieIndex == 0 ? 0 : Float.MIN_VALUE;
+
+         } else if (serieIndex == 0) {
+
+            // rounding cannot be used because the tour id contains the last value from the distance serie
+            allDistances[serieIndex] = (int) (absoluteDistance);
+         }
       }
 
+      distanceSerie = allDistances;
+
       /*
-       * create marker after all other data are setup
+       * altitude
        */
-      if (isCreateMarker) {
+      final float[] allAltitudes = timeSeriesBuilder.getAbsoluteAltitude();
+
+      if (setupStartingValues_FirstValidValue(allAltitudes)) {
 
          for (int serieIndex = 0; serieIndex < serieSize; serieIndex++) {
+            if (allAltitudes[serieIndex] >= Integer.MAX_VALUE) {
+               allAltitudes[serieIndex] = Float.MIN_VALUE;
+            }
+         }
 
-            final TimeData timeData = timeDataSerie[serieIndex];
+         altitudeSerie = allAltitudes;
+      }
 
-            if (timeData.marker != 0) {
+      /*
+       * latitude & longitude
+       */
+      final double[] allLatitudes = timeSeriesBuilder.getLatitude();
+      final double[] allLongitudes = timeSeriesBuilder.getLongitude();
 
-               int relativeTime = 0;
-               float distanceValue = 0;
+      if (allLatitudes != null) {
 
-               if (timeSerie != null) {
-                  relativeTime = timeSerie[serieIndex];
-               }
-               if (distanceSerie != null) {
-                  distanceValue = distanceSerie[serieIndex];
-               }
+         for (int serieIndex = 0; serieIndex < serieSize; serieIndex++) {
+
+            final double latitude = allLatitudes[serieIndex];
+
+            if (latitude != Double.MIN_VALUE) {
+
+               // fill beginning of lat/lon data series with first valid values
+
+               Arrays.fill(allLatitudes, 0, serieIndex, latitude);
+               Arrays.fill(allLongitudes, 0, serieIndex, allLongitudes[serieIndex]);
+
+               latitudeSerie = allLatitudes;
+               longitudeSerie = allLongitudes;
+
+               break;
+            }
+         }
+      }
+
+      /*
+       * gear
+       */
+      final long[] allGears = timeSeriesBuilder.getGear();
+      boolean isGear = false;
+
+      if (allGears != null) {
+
+         for (int serieIndex = 0; serieIndex < serieSize; serieIndex++) {
+
+            final long gearValue = allGears[serieIndex];
+
+            if (gearValue != 0) {
+
+               // starting values are set to first valid gear value
+
+               Arrays.fill(allGears, 0, serieIndex, gearValue);
+
+               gearSerie = allGears;
+               isGear = true;
+
+               break;
+            }
+         }
+      }
+
+// SET_FORMATTING_OFF
+
+      final float[] allCadences                    = timeSeriesBuilder.getCadence();
+      final float[] allPowers                      = timeSeriesBuilder.getPower();
+      final float[] allPulses                      = timeSeriesBuilder.getPulse();
+      final float[] allSpeeds                      = timeSeriesBuilder.getSpeed();
+      final float[] allTemperatures                = timeSeriesBuilder.getTemperature();
+
+      final short[] allRunDyn_StanceTime           = timeSeriesBuilder.getRunDyn_StanceTime();
+      final short[] allRunDyn_StanceTimeBalance    = timeSeriesBuilder.getRunDyn_StanceTimeBalance();
+      final short[] allRunDyn_StepLength           = timeSeriesBuilder.getRunDyn_StepLength();
+      final short[] allRunDyn_VerticalOscillation  = timeSeriesBuilder.getRunDyn_VerticalOscillation();
+      final short[] allRunDyn_VerticalRatio        = timeSeriesBuilder.getRunDyn_VerticalRatio();
+
+// SET_FORMATTING_ON
+
+      // cadence, power and speed are not interpolated, ensure to set valid values
+      if (setupStartingValues_InvalidToZero(allCadences)) {
+         cadenceSerie = allCadences;
+      }
+
+      isPowerSerieFromDevice = setupStartingValues_InvalidToZero(allPowers);
+      if (isPowerSerieFromDevice) {
+         powerSerie = allPowers;
+      }
+
+      if (setupStartingValues_InvalidToZero(allSpeeds)) {
+         speedSerie = allSpeeds;
+         isSpeedSerieFromDevice = true;
+      }
+
+      if (setupStartingValues_Pulse(allPulses)) {
+         pulseSerie = allPulses;
+      }
+
+      if (setupStartingValues_FirstValidValue(allTemperatures)) {
+         temperatureSerie = allTemperatures;
+      }
+
+      /*
+       * Running Dynamics
+       */
+      if (setupStartingValues_RunDyn(allRunDyn_StanceTime)) {
+         runDyn_StanceTime = allRunDyn_StanceTime;
+      }
+      if (setupStartingValues_RunDyn(allRunDyn_StanceTimeBalance)) {
+         runDyn_StanceTimeBalance = allRunDyn_StanceTimeBalance;
+      }
+      if (setupStartingValues_RunDyn(allRunDyn_StepLength)) {
+         runDyn_StepLength = allRunDyn_StepLength;
+      }
+      if (setupStartingValues_RunDyn(allRunDyn_VerticalOscillation)) {
+         runDyn_VerticalOscillation = allRunDyn_VerticalOscillation;
+      }
+      if (setupStartingValues_RunDyn(allRunDyn_VerticalRatio)) {
+         runDyn_VerticalRatio = allRunDyn_VerticalRatio;
+      }
+
+      createTimeSeries_10_DataCompleting();
 
-               createTourMarker(timeData, serieIndex, relativeTime, distanceValue);
+      final TIntArrayList pulseTimes = timeSeriesBuilder.getPulseTimes();
+      if (pulseTimes.size() > 0) {
+         pulseTimeSerie = pulseTimes.toArray();
+      }
+
+      createTimeSeries_60_TourValues(true, isGear, recordingTime);
+
+      /*
+       * create marker after all other data are setup
+       */
+      if (isCreateMarker) {
+
+         final TIntArrayList allMarkerIndices = timeSeriesBuilder.getMarkerIndices();
+         final List<String> allMarkerLabels = timeSeriesBuilder.getMarkerLabels();
+
+         for (int markerIndex = 0; markerIndex < allMarkerIndices.size(); markerIndex++) {
+
+            final int serieIndex = allMarkerIndices.get(markerIndex);
+
+            int relativeTime = 0;
+            float distanceValue = 0;
+
+            if (timeSerie != null) {
+               relativeTime = timeSerie[serieIndex];
+            }
+            if (distanceSerie != null) {
+               distanceValue = distanceSerie[serieIndex];
             }
+
+            createTourMarker(allMarkerLabels.get(markerIndex), serieIndex, relativeTime, distanceValue);
          }
       }
       resetSortedMarkers();
@@ -6288,6 +6548,55 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       }
    }
 
+   /**
+    * Set tour values from the created data series and cleanup the data series.
+    *
+    * @param isDistance
+    * @param isGear
+    * @param recordingTime
+    */
+   private void createTimeSeries_60_TourValues(final boolean isDistance,
+                                               final boolean isGear,
+                                               final long recordingTime) {
+
+      tourDistance = isDistance ? distanceSerie[timeSerie.length - 1] : 0;
+      tourRecordingTime = recordingTime;
+      setTourEndTimeMS();
+
+      if (isGear) {
+         // set shift counts
+         setGears(gearSerie);
+      }
+
+      cleanupDataSeries();
+
+      /*
+       * Try to get distance values from lat/long values, this must be done after the cleanup which
+       * can set distanceSerie = null.
+       */
+      if (distanceSerie == null) {
+         TourManager.computeDistanceValuesFromGeoPosition(this);
+      }
+
+      /*
+       * Set time zone from geo position
+       */
+      if (latitudeSerie != null) {
+
+         // latitude can be null AFTER cleanup data series
+
+         // get time zone from lat/lon
+         final double lat = latitudeSerie[0];
+         final double lon = longitudeSerie[0];
+
+         final String rawZoneId = TimezoneMapper.latLngToTimezoneString(lat, lon);
+         final ZoneId zoneId = ZoneId.of(rawZoneId);
+
+         setTimeZoneId(zoneId.getId());
+      }
+
+   }
+
    /**
     * Creates a unique tour id depending on the tour start time and current time
     */
@@ -6365,12 +6674,13 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
    /**
     * Create a device marker at the current position
     *
-    * @param timeData
+    * @param markerLabel
+    *           Marker label or <code>null</code> when the default label is used
     * @param serieIndex
     * @param relativeTime
     * @param distanceAbsolute
     */
-   private void createTourMarker(final TimeData timeData,
+   private void createTourMarker(final String markerLabel,
                                  final int serieIndex,
                                  final int relativeTime,
                                  final float distanceAbsolute) {
@@ -6387,10 +6697,10 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       tourMarker.setDistance(distanceAbsolute);
       tourMarker.setSerieIndex(serieIndex);
 
-      if (timeData.markerLabel == null) {
+      if (markerLabel == null) {
          tourMarker.setLabel(Messages.tour_data_label_device_marker);
       } else {
-         tourMarker.setLabel(timeData.markerLabel);
+         tourMarker.setLabel(markerLabel);
       }
 
       tourMarkers.add(tourMarker);
@@ -6805,6 +7115,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    public boolean[] getCadenceGaps() {
 
+      loadLazySerie(LAZY_SERIE_CADENCE);
+
       if (cadenceSerie == null) {
          return null;
       }
@@ -6830,6 +7142,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    public float[] getCadenceSerie() {
 
+      loadLazySerie(LAZY_SERIE_CADENCE);
+
       if (isSwimCadence) {
 
          // cadence is computed from swim cadence, these cadence values are not saaved
@@ -6847,6 +7161,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public float[] getCadenceSerieWithMuliplier() {
 
+      loadLazySerie(LAZY_SERIE_CADENCE);
+
       if (isSwimCadence) {
 
          return getSwim_Cadence();
@@ -7299,6 +7615,104 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return maxSpeed;
    }
 
+   /**
+    * @return Returns the estimated number of bytes which are used by the data series and the cached
+    *         world positions of this tour. Computed data series are contained when they are already
+    *         created, so this value can grow when the tour is displayed.
+    */
+   public long getMemorySize() {
+
+      long memorySize = 0;
+
+// SET_FORMATTING_OFF
+
+      memorySize += getMemorySize_Serie(timeSerie)                     + getMemorySize_Serie(timeSerieDouble);
+      memorySize += getMemorySize_Serie(timeSerieHistory)              + getMemorySize_Serie(timeSerieHistoryDouble);
+      memorySize += getMemorySize_Serie(timeSerieWithTimeZoneAdjustment);
+
+      memorySize += getMemorySize_Serie(distanceSerie)                 + getMemorySize_Serie(distanceSerieDouble)        + getMemorySize_Serie(distanceSerieDoubleImperial);
+      memorySize += getMemorySize_Serie(altitudeSerie)                 + getMemorySize_Serie(altitudeSerieSmoothed);
+      memorySize += getMemorySize_Serie(altitudeSerieImperial)         + getMemorySize_Serie(altitudeSerieImperialSmoothed);
+      memorySize += getMemorySize_Serie(srtmSerie)                     + getMemorySize_Serie(srtmSerieImperial);
+      memorySize += getMemorySize_Serie(cadenceSerie)                  + getMemorySize_Serie(cadenceSerieWithMultiplier) + getMemorySize_Serie(_cadenceGaps);
+      memorySize += getMemorySize_Serie(pulseSerie)                    + getMemorySize_Serie(pulseSerieSmoothed)         + getMemorySize_Serie(pulseTimeSerie);
+      memorySize += getMemorySize_Serie(temperatureSerie)              + getMemorySize_Serie(temperatureSerieImperial);
+      memorySize += getMemorySize_Serie(speedSerie)                    + getMemorySize_Serie(speedSerieImperial);
+      memorySize += getMemorySize_Serie(paceSerieSeconds)              + getMemorySize_Serie(paceSerieSecondsImperial);
+      memorySize += getMemorySize_Serie(paceSerieMinute)               + getMemorySize_Serie(paceSerieMinuteImperial);
+      memorySize += getMemorySize_Serie(powerSerie);
+      memorySize += getMemorySize_Serie(altimeterSerie)                + getMemorySize_Serie(altimeterSerieImperial);
+      memorySize += getMemorySize_Serie(gradientSerie)                 + getMemorySize_Serie(tourCompareSerie);
+      memorySize += getMemorySize_Serie(latitudeSerie)                 + getMemorySize_Serie(longitudeSerie);
+      memorySize += getMemorySize_Serie(gearSerie)                     + getMemorySize_Serie(breakTimeSerie);
+      memorySize += getMemorySize_Serie(geoGrid);
+
+      memorySize += getMemorySize_Serie(dataSerie2ndAlti)              + getMemorySize_Serie(dataSerieDiffTo2ndAlti);
+      memorySize += getMemorySize_Serie(dataSerieAdjustedAlti)         + getMemorySize_Serie(dataSerieSpline);
+
+      memorySize += getMemorySize_Serie(runDyn_StanceTime)             + getMemorySize_Serie(_runDyn_StanceTime_UI);
+      memorySize += getMemorySize_Serie(runDyn_StanceTimeBalance)      + getMemorySize_Serie(_runDyn_StanceTimeBalance_UI);
+      memorySize += getMemorySize_Serie(runDyn_StepLength)             + getMemorySize_Serie(_runDyn_StepLength_UI)             + getMemorySize_Serie(_runDyn_StepLength_UI_Imperial);
+      memorySize += getMemorySize_Serie(runDyn_VerticalOscillation)    + getMemorySize_Serie(_runDyn_VerticalOscillation_UI)    + getMemorySize_Serie(_runDyn_VerticalOscillation_UI_Imperial);
+      memorySize += getMemorySize_Serie(runDyn_VerticalRatio)          + getMemorySize_Serie(_runDyn_VerticalRatio_UI);
+
+      memorySize += getMemorySize_Serie(swim_Time);
+      memorySize += getMemorySize_Serie(swim_LengthType)               + getMemorySize_Serie(_swim_LengthType_UI);
+      memorySize += getMemorySize_Serie(swim_Strokes)                  + getMemorySize_Serie(_swim_Strokes_UI);
+      memorySize += getMemorySize_Serie(swim_StrokeStyle)              + getMemorySize_Serie(_swim_StrokeStyle_UI);
+      memorySize += getMemorySize_Serie(swim_Cadence)                  + getMemorySize_Serie(_swim_Cadence_UI);
+      memorySize += getMemorySize_Serie(_swim_Swolf);
+
+      memorySize += getMemorySize_Serie(visibleDataPointSerie)         + getMemorySize_Serie(visiblePoints_ForSurfing);
+
+// SET_FORMATTING_ON
+
+      if (_gears != null) {
+         for (final float[] gears : _gears) {
+            memorySize += getMemorySize_Serie(gears);
+         }
+      }
+
+      // packed data series which are not yet decoded
+      if (serieData != null) {
+
+         final SerieDataPacked packedData = serieData._packedData;
+         if (packedData != null) {
+            memorySize += packedData.getPackedSize();
+         }
+      }
+
+      // world positions which are cached when the tour is painted in the map
+      memorySize += getWorldPositionMemory();
+
+      return memorySize;
+   }
+
+   /**
+    * @param serie
+    *           Array with primitive values or <code>null</code>
+    * @return Returns the estimated number of bytes which are used by the array
+    */
+   private static long getMemorySize_Serie(final Object serie) {
+
+      if (serie == null) {
+         return 0;
+      }
+
+      final Class<?> componentType = serie.getClass().getComponentType();
+
+      final int elementSize = componentType == double.class || componentType == long.class
+            ? 8
+            : componentType == short.class
+                  ? 2
+                  : componentType == boolean.class || componentType == byte.class
+                        ? 1
+                        : 4;
+
+      // 16 bytes for the array header
+      return 16 + (long) Array.getLength(serie) * elementSize;
+   }
+
    public int getMergedAltitudeOffset() {
       return mergedAltitudeOffset;
    }
@@ -7482,10 +7896,15 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    public float[] getPowerSerie() {
 
+      loadLazySerie(LAZY_SERIE_POWER);
+
       if (powerSerie != null || isPowerSerieFromDevice) {
          return powerSerie;
       }
 
+      // speed is needed to compute the power
+      loadLazySerie(LAZY_SERIE_SPEED);
+
       if (speedSerie == null || gradientSerie == null) {
          computeDataSeries_Smoothed();
       }
@@ -7835,6 +8254,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
    public float[] getSpeedSerieFromDevice() {
 
+      loadLazySerie(LAZY_SERIE_SPEED);
+
       if (isSpeedSerieFromDevice) {
          return speedSerie;
       }
@@ -7935,10 +8356,18 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return startAltitude;
    }
 
+   public short getStartDay() {
+      return startDay;
+   }
+
    public float getStartDistance() {
       return startDistance;
    }
 
+   public short getStartMonth() {
+      return startMonth;
+   }
+
    public short getStartPulse() {
       return startPulse;
    }
@@ -7959,6 +8388,10 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return startWeekYear;
    }
 
+   public short getStartYear() {
+      return startYear;
+   }
+
    public short getSurfing_MinDistance() {
       return surfing_MinDistance;
    }
@@ -8482,10 +8915,26 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
    /**
     * @param zoomLevel
     * @param projectionId
-    * @return Returns the world position for the supplied zoom level and projection id
+    * @return Returns the world position for the supplied zoom level and projection id, the x and y
+    *         values are interleaved, or <code>null</code> when they are not cached
     */
-   public Point[] getWorldPositionForTour(final String projectionId, final int zoomLevel) {
-      return _tourWorldPosition.get(projectionId.hashCode() + zoomLevel);
+   public int[] getWorldPositionForTour(final String projectionId, final int zoomLevel) {
+
+      final int cacheKey = projectionId.hashCode() + zoomLevel;
+
+      synchronized (_tourWorldPosition) {
+
+         final int[] worldPositions = _tourWorldPosition.get(cacheKey);
+
+         if (worldPositions != null) {
+
+            // keep last used key at the end
+            _tourWorldPositionKeys.remove(cacheKey);
+            _tourWorldPositionKeys.add(cacheKey);
+         }
+
+         return worldPositions;
+      }
    }
 
    /**
@@ -8494,7 +8943,28 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     * @return Returns the world position for way points
     */
    public TIntObjectHashMap<Point> getWorldPositionForWayPoints(final String projectionId, final int zoomLevel) {
-      return _twpWorldPosition.get(projectionId.hashCode() + zoomLevel);
+
+      synchronized (_tourWorldPosition) {
+         return _twpWorldPosition.get(projectionId.hashCode() + zoomLevel);
+      }
+   }
+
+   /**
+    * @return Returns the number of bytes which are used for the cached world positions of this
+    *         tour
+    */
+   public long getWorldPositionMemory() {
+
+      long numBytes = 0;
+
+      synchronized (_tourWorldPosition) {
+
+         for (final int[] worldPositions : _tourWorldPosition.valueCollection()) {
+            numBytes += worldPositions.length * Integer.BYTES;
+         }
+      }
+
+      return numBytes;
    }
 
    /**
@@ -8817,6 +9287,63 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return isWeatherDataFromApi;
    }
 
+   /**
+    * Copy a data serie from {@link #serieData} when it is accessed the first time, the serie data
+    * are decoded only when they are needed.
+    *
+    * @param lazySerie
+    *           One of the {@link #LAZY_SERIE_ALL} flags
+    */
+   private void loadLazySerie(final int lazySerie) {
+
+      if ((_lazySeries & lazySerie) == 0) {
+
+         // serie is already loaded
+         return;
+      }
+
+      synchronized (this) {
+
+         if ((_lazySeries & lazySerie) == 0) {
+            return;
+         }
+
+         switch (lazySerie) {
+         case LAZY_SERIE_CADENCE:
+            cadenceSerie = serieData.getCadenceSerie20();
+            break;
+
+         case LAZY_SERIE_POWER:
+            powerSerie = serieData.getPowerSerie20();
+            break;
+
+         case LAZY_SERIE_SPEED:
+            speedSerie = serieData.getSpeedSerie20();
+            break;
+
+         default:
+            break;
+         }
+
+         _lazySeries &= ~lazySerie;
+      }
+   }
+
+   /**
+    * Copy all data series from {@link #serieData} which are not yet loaded, this must be done
+    * before the lazy data series fields are accessed directly.
+    */
+   private void loadLazySeries() {
+
+      if (_lazySeries == 0) {
+         return;
+      }
+
+      loadLazySerie(LAZY_SERIE_CADENCE);
+      loadLazySerie(LAZY_SERIE_POWER);
+      loadLazySerie(LAZY_SERIE_SPEED);
+   }
+
    /**
     * Called after the object was loaded from the persistence store
     */
@@ -8844,12 +9371,18 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       }
 
       altitudeSerie = serieData.altitudeSerie20;
-      cadenceSerie = serieData.cadenceSerie20;
       distanceSerie = serieData.distanceSerie20;
       pulseSerie = serieData.pulseSerie20;
       temperatureSerie = serieData.temperatureSerie20;
-      powerSerie = serieData.powerSerie20;
-      speedSerie = serieData.speedSerie20;
+
+      /*
+       * Cadence, power and speed are decoded on first access, they are not needed e.g. when tours
+       * are compared
+       */
+      cadenceSerie = null;
+      powerSerie = null;
+      speedSerie = null;
+      _lazySeries = LAZY_SERIE_ALL;
 
       latitudeSerie = serieData.latitude;
       longitudeSerie = serieData.longitude;
@@ -8859,11 +9392,11 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
 
       pulseTimeSerie = serieData.pulseTimes;
 
-      if (powerSerie != null) {
+      if (serieData.isPowerSerie20Available()) {
          isPowerSerieFromDevice = true;
       }
 
-      if (speedSerie != null) {
+      if (serieData.isSpeedSerie20Available()) {
          isSpeedSerieFromDevice = true;
       }
 
@@ -8898,6 +9431,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     */
    public void onPrePersist() {
 
+      loadLazySeries();
+
       /*
        * Create new data series
        */
@@ -9034,7 +9569,14 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
    }
 
    public void setCadenceSerie(final float[] cadenceSerieData) {
-      cadenceSerie = cadenceSerieData;
+
+      // lock the same as loadLazySerie() that the set serie is not overwritten with the lazy serie
+      synchronized (this) {
+
+         _lazySeries &= ~LAZY_SERIE_CADENCE;
+
+         cadenceSerie = cadenceSerieData;
+      }
    }
 
    public void setCadenceZone_FastTime(final int cadenceZone_FastTime) {
@@ -9404,7 +9946,14 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     * @param powerSerie
     */
    public void setPowerSerie(final float[] powerSerie) {
-      this.powerSerie = powerSerie;
+
+      synchronized (this) {
+
+         _lazySeries &= ~LAZY_SERIE_POWER;
+
+         this.powerSerie = powerSerie;
+      }
+
       this.isPowerSerieFromDevice = true;
    }
 
@@ -9443,7 +9992,14 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     * @param speedSerie
     */
    public void setSpeedSerie(final float[] speedSerie) {
-      this.speedSerie = speedSerie;
+
+      synchronized (this) {
+
+         _lazySeries &= ~LAZY_SERIE_SPEED;
+
+         this.speedSerie = speedSerie;
+      }
+
       this.isSpeedSerieFromDevice = speedSerie != null;
    }
 
@@ -9904,6 +10460,33 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return isAvailable;
    }
 
+   /**
+    * @param serie
+    *           Can be <code>null</code>
+    * @return Returns <code>true</code> when the serie contains a valid value, the starting invalid
+    *         values are then set to the first valid value.
+    */
+   private static boolean setupStartingValues_FirstValidValue(final float[] serie) {
+
+      if (serie == null) {
+         return false;
+      }
+
+      for (int serieIndex = 0; serieIndex < serie.length; serieIndex++) {
+
+         final float value = serie[serieIndex];
+
+         if (value != Float.MIN_VALUE) {
+
+            Arrays.fill(serie, 0, serieIndex, value);
+
+            return true;
+         }
+      }
+
+      return false;
+   }
+
    private boolean setupStartingValues_Gear(final TimeData[] timeDataSerie) {
 
       final TimeData firstTimeData = timeDataSerie[0];
@@ -9945,6 +10528,39 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return isAvailable;
    }
 
+   /**
+    * @param serie
+    *           Can be <code>null</code>
+    * @return Returns <code>true</code> when the serie contains a valid value, all invalid values
+    *         are then set to 0.
+    */
+   private static boolean setupStartingValues_InvalidToZero(final float[] serie) {
+
+      if (serie == null) {
+         return false;
+      }
+
+      boolean isAvailable = false;
+
+      for (final float value : serie) {
+         if (value != Float.MIN_VALUE) {
+            isAvailable = true;
+            break;
+         }
+      }
+
+      if (isAvailable) {
+
+         for (int serieIndex = 0; serieIndex < serie.length; serieIndex++) {
+            if (serie[serieIndex] == Float.MIN_VALUE) {
+               serie[serieIndex] = 0;
+            }
+         }
+      }
+
+      return isAvailable;
+   }
+
    private boolean setupStartingValues_LatLon(final TimeData[] timeDataSerie) {
 
       final int serieSize = timeDataSerie.length;
@@ -10021,6 +10637,37 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return isAvailable;
    }
 
+   /**
+    * @param allPulses
+    *           Can be <code>null</code>
+    * @return Returns <code>true</code> when pulse values are available, when the first value is
+    *         invalid, the starting values are set to the first value which is larger than 0.
+    */
+   private static boolean setupStartingValues_Pulse(final float[] allPulses) {
+
+      if (allPulses == null) {
+         return false;
+      }
+
+      if (allPulses[0] != Float.MIN_VALUE) {
+         return true;
+      }
+
+      for (int serieIndex = 0; serieIndex < allPulses.length; serieIndex++) {
+
+         final float pulse = allPulses[serieIndex];
+
+         if (pulse > 0) {
+
+            Arrays.fill(allPulses, 0, serieIndex, pulse);
+
+            return true;
+         }
+      }
+
+      return false;
+   }
+
    private boolean setupStartingValues_Pulse(final TimeData[] timeDataSerie) {
 
       final TimeData firstTimeData = timeDataSerie[0];
@@ -10061,6 +10708,40 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
       return isAvailable;
    }
 
+   /**
+    * @param serie
+    *           Can be <code>null</code>
+    * @return Returns <code>true</code> when the serie contains a valid value, the starting invalid
+    *         values are then set to the first valid value and all other invalid values are set to
+    *         0.
+    */
+   private static boolean setupStartingValues_RunDyn(final short[] serie) {
+
+      if (serie == null) {
+         return false;
+      }
+
+      for (int serieIndex = 0; serieIndex < serie.length; serieIndex++) {
+
+         final short value = serie[serieIndex];
+
+         if (value != Short.MIN_VALUE) {
+
+            Arrays.fill(serie, 0, serieIndex, value);
+
+            for (int invalidIndex = serieIndex + 1; invalidIndex < serie.length; invalidIndex++) {
+               if (serie[invalidIndex] == Short.MIN_VALUE) {
+                  serie[invalidIndex] = 0;
+               }
+            }
+
+            return true;
+         }
+      }
+
+      return false;
+   }
+
    private boolean setupStartingValues_RunDyn_StanceTime(final TimeData[] timeDataSerie) {
 
       final TimeData firstTimeData = timeDataSerie[0];
@@ -10435,8 +11116,26 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
     * @param zoomLevel
     * @param projectionId
     */
-   public void setWorldPixelForTour(final Point[] worldPositions, final int zoomLevel, final String projectionId) {
-      _tourWorldPosition.put(projectionId.hashCode() + zoomLevel, worldPositions);
+   public void setWorldPixelForTour(final int[] worldPositions, final int zoomLevel, final String projectionId) {
+
+      final int cacheKey = projectionId.hashCode() + zoomLevel;
+
+      synchronized (_tourWorldPosition) {
+
+         _tourWorldPosition.put(cacheKey, worldPositions);
+
+         _tourWorldPositionKeys.remove(cacheKey);
+         _tourWorldPositionKeys.add(cacheKey);
+
+         // remove the least used world positions
+         while (_tourWorldPositionKeys.size() > MAX_CACHED_WORLD_POSITIONS) {
+
+            final int removedKey = _tourWorldPositionKeys.removeAt(0);
+
+            _tourWorldPosition.remove(removedKey);
+            _twpWorldPosition.remove(removedKey);
+         }
+      }
    }
 
    /**
@@ -10450,7 +11149,9 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
                                          final int zoomLevel,
                                          final String projectionId) {
 
-      _twpWorldPosition.put(projectionId.hashCode() + zoomLevel, worldPositions);
+      synchronized (_tourWorldPosition) {
+         _twpWorldPosition.put(projectionId.hashCode() + zoomLevel, worldPositions);
+      }
    }
 
    @Override
@@ -10482,6 +11183,8 @@ public class TourData implements Comparable<Object>, IXmlSerializable, Cloneable
    @Override
    public String toXml() {
 
+      loadLazySeries();
+
       try {
          final JAXBContext context = JAXBContext.newInstance(TourData.class);
          final Marshaller marshaller = context.createMarshaller();
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.database;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import net.tourbook.common.util.StatusUtil;
+import net.tourbook.data.TourData;
+
+/**
+ * Computes values for many tours in a pipeline, the stages are running in parallel
+ *
+ * <pre>
+ * Load        1 thread     Loads the tours from the db, one entity manager is used for a batch of tours
+ * Compute     n threads    {@link IComputeTourValues#computeTourValues(TourData)} and
+ *                          {@link TourData#computeComputedValues()}
+ * Save        1 thread     Saves the modified tours in batches, one transaction for each batch
+ * </pre>
+ *
+ * The caller thread gets the processed tours with {@link #getNextProcessedTour()} and calls
+ * {@link IComputeTourValues#getSubTaskText(TourData)}, so that this method is called from only one
+ * thread.
+ */
+class ComputeTourValuesPipeline {
+
+   /**
+    * Number of tours which are loaded with the same entity manager
+    */
+   private static final int                    LOAD_BATCH_SIZE      = 100;
+
+   /**
+    * Number of tours which are saved in one transaction
+    */
+   private static final int                    SAVE_BATCH_SIZE      = 50;
+
+   private static final int                    POLL_TIMEOUT         = 100;
+
+   private static final int                    NUMBER_OF_THREADS    = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+   /**
+    * Is used when a tour is processed but was not saved
+    */
+   private static final ProcessedTour          TOUR_NOT_SAVED       = new ProcessedTour(null);
+
+   private final IComputeTourValues            _runner;
+   private final List<Long>                    _allTourIds;
+
+   private final BlockingQueue<TourData>       _loadedTours         = new ArrayBlockingQueue<>(NUMBER_OF_THREADS * 4);
+   private final BlockingQueue<TourData>       _computedTours       = new ArrayBlockingQueue<>(SAVE_BATCH_SIZE * 2);
+   private final BlockingQueue<ProcessedTour>  _processedTours      = new LinkedBlockingQueue<>();
+
+   private final CountDownLatch                _computeDoneLatch    = new CountDownLatch(NUMBER_OF_THREADS);
+
+   private volatile boolean                    _isCanceled;
+   private volatile boolean                    _isLoadingDone;
+   private volatile boolean                    _isSavingDone;
+
+   /**
+    * Contains the saved tour or <code>null</code> when the tour was not saved
+    */
+   static class ProcessedTour {
+
+      final TourData savedTourData;
+
+      private ProcessedTour(final TourData savedTourData) {
+         this.savedTourData = savedTourData;
+      }
+   }
+
+   ComputeTourValuesPipeline(final IComputeTourValues runner, final List<Long> allTourIds) {
+
+      _runner = runner;
+      _allTourIds = allTourIds;
+   }
+
+   /**
+    * Stop loading and computing tours, tours which are already computed will still be saved.
+    */
+   void cancel() {
+      _isCanceled = true;
+   }
+
+   /**
+    * @return Returns the next processed tour or <code>null</code> when a tour was not processed
+    *         within the poll timeout.
+    * @throws InterruptedException
+    */
+   ProcessedTour getNextProcessedTour() throws InterruptedException {
+      return _processedTours.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * @return Returns <code>true</code> when all stages are done and all processed tours are
+    *         consumed.
+    */
+   boolean isDone() {
+      return _isSavingDone && _processedTours.isEmpty();
+   }
+
+   private void runCompute() {
+
+      try {
+
+         while (true) {
+
+            final TourData tourData = _loadedTours.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+
+            if (tourData == null) {
+
+               if (_isLoadingDone && _loadedTours.isEmpty()) {
+                  break;
+               }
+
+               continue;
+            }
+
+            boolean isModified = false;
+
+            if (_isCanceled == false) {
+
+               try {
+
+                  if (_runner.computeTourValues(tourData)) {
+
+                     // ensure that all computed values are set
+                     tourData.computeComputedValues();
+
+                     isModified = true;
+                  }
+
+               } catch (final Exception e) {
+                  StatusUtil.log(e);
+               }
+            }
+
+            if (isModified) {
+               _computedTours.put(tourData);
+            } else {
+               _processedTours.put(TOUR_NOT_SAVED);
+            }
+         }
+
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } finally {
+         _computeDoneLatch.countDown();
+      }
+   }
+
+   private void runLoad() {
+
+      EntityManager em = null;
+
+      try {
+
+         int numLoadedTours = 0;
+
+         for (final Long tourId : _allTourIds) {
+
+            if (_isCanceled) {
+               break;
+            }
+
+            if (em == null || numLoadedTours % LOAD_BATCH_SIZE == 0) {
+
+               if (em != null) {
+                  em.close();
+               }
+
+               em = TourDatabase.getInstance().getEntityManager();
+            }
+
+            TourData tourData = null;
+
+            try {
+
+               tourData = em.find(TourData.class, tourId);
+
+               // detach tour, the persistence context would otherwise grow with each loaded tour
+               em.clear();
+
+            } catch (final Exception e) {
+               StatusUtil.log(e);
+            }
+
+            numLoadedTours++;
+
+            if (tourData == null) {
+               _processedTours.put(TOUR_NOT_SAVED);
+            } else {
+               _loadedTours.put(tourData);
+            }
+         }
+
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } finally {
+
+         if (em != null) {
+            em.close();
+         }
+
+         _isLoadingDone = true;
+      }
+   }
+
+   private void runSave() {
+
+      final ArrayList<TourData> allBatchTours = new ArrayList<>();
+
+      try {
+
+         while (true) {
+
+            final TourData tourData = _computedTours.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+
+            if (tourData != null) {
+
+               allBatchTours.add(tourData);
+
+               if (allBatchTours.size() < SAVE_BATCH_SIZE) {
+                  continue;
+               }
+
+            } else if (allBatchTours.isEmpty()) {
+
+               if (_computeDoneLatch.getCount() == 0 && _computedTours.isEmpty()) {
+                  break;
+               }
+
+               continue;
+            }
+
+            // save a full batch or the available tours when computing is slower than saving
+            saveBatch(allBatchTours);
+         }
+
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } finally {
+
+         if (allBatchTours.size() > 0) {
+            saveBatch(allBatchTours);
+         }
+
+         _isSavingDone = true;
+      }
+   }
+
+   private void saveBatch(final ArrayList<TourData> allBatchTours) {
+
+      final HashMap<Long, TourData> allSavedTours = new HashMap<>();
+
+      try {
+
+         for (final TourData savedTourData : TourDatabase.saveTours_Batch(allBatchTours)) {
+            allSavedTours.put(savedTourData.getTourId(), savedTourData);
+         }
+
+      } catch (final Exception e) {
+         StatusUtil.log(e);
+      }
+
+      for (final TourData tourData : allBatchTours) {
+
+         final TourData savedTourData = allSavedTours.get(tourData.getTourId());
+
+         _processedTours.add(savedTourData == null
+               ? TOUR_NOT_SAVED
+               : new ProcessedTour(savedTourData));
+      }
+
+      allBatchTours.clear();
+   }
+
+   /**
+    * Start all pipeline stages
+    */
+   void start() {
+
+      final ThreadFactory threadFactory = new ThreadFactory() {
+
+         private int __threadNumber;
+
+         @Override
+         public Thread newThread(final Runnable r) {
+
+            final String threadName = "Computing tour values - " + __threadNumber++; //$NON-NLS-1$
+
+            final Thread thread = new Thread(r, threadName);
+
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+
+            return thread;
+         }
+      };
+
+      final ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS + 2, threadFactory);
+
+      executor.submit(() -> runLoad());
+      executor.submit(() -> runSave());
+
+      for (int threadIndex = 0; threadIndex < NUMBER_OF_THREADS; threadIndex++) {
+         executor.submit(() -> runCompute());
+      }
+
+      // threads are terminated when all tasks are done
+      executor.shutdown();
+   }
+}
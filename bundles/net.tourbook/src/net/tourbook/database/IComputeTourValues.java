@@ -19,10 +19,15 @@ import net.tourbook.data.TourData;
 
 /**
  * Interface to compute tour values for {@link TourData}
+ * <p>
+ * {@link #computeTourValues(TourData)} is called concurrently for different tours,
+ * {@link #getSubTaskText(TourData)} and {@link #getResultText()} are called from one thread.
  */
 public interface IComputeTourValues {
 
 	/**
+	 * This method is called concurrently from several threads, shared state must be thread safe.
+	 * 
 	 * @param originalTourData
 	 *            {@link TourData} which is not yet modified
 	 * @return Returns <code>true</code> when {@link TourData} was modified and the tour needs to be
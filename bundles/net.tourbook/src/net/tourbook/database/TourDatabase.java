@@ -18,7 +18,10 @@ package net.tourbook.database;
 import com.mchange.v2.c3p0.ComboPooledDataSource;
 import com.skedgo.converter.TimezoneMapper;
 
+import gnu.trove.set.hash.TIntHashSet;
+
 import java.beans.PropertyVetoException;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
@@ -59,6 +62,7 @@ import net.tourbook.common.NIO;
 import net.tourbook.common.time.TimeTools;
 import net.tourbook.common.util.StatusUtil;
 import net.tourbook.common.util.Util;
+import net.tourbook.data.SerieDataPacked;
 import net.tourbook.data.TourBike;
 import net.tourbook.data.TourData;
 import net.tourbook.data.TourMarker;
@@ -70,6 +74,7 @@ import net.tourbook.data.TourTag;
 import net.tourbook.data.TourTagCategory;
 import net.tourbook.data.TourType;
 import net.tourbook.data.TourWayPoint;
+import net.tourbook.database.ComputeTourValuesPipeline.ProcessedTour;
 import net.tourbook.preferences.ITourbookPreferences;
 import net.tourbook.search.FTSearchManager;
 import net.tourbook.tag.TagCollection;
@@ -78,6 +83,7 @@ import net.tourbook.tour.TourManager;
 import net.tourbook.tourType.TourTypeImage;
 import net.tourbook.ui.TourTypeFilter;
 import net.tourbook.ui.UI;
+import net.tourbook.ui.views.tourCatalog.TourDataNormalizerCache;
 
 import org.apache.derby.drda.NetworkServerControl;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -102,8 +108,9 @@ public class TourDatabase {
    /**
     * Version for the database which is required that the tourbook application works successfully
     */
-   private static final int TOURBOOK_DB_VERSION = 40;
+   private static final int TOURBOOK_DB_VERSION = 41;
 
+//   private static final int TOURBOOK_DB_VERSION = 41; // 20.2
 //   private static final int TOURBOOK_DB_VERSION = 40; // 19.10
 //   private static final int TOURBOOK_DB_VERSION = 39; // 19.7
 //   private static final int TOURBOOK_DB_VERSION = 38; // 19.6
@@ -218,6 +225,11 @@ public class TourDatabase {
 
    private static final String                            PERSISTENCE_UNIT_NAME           = "tourdatabase";                                         //$NON-NLS-1$
 
+   /**
+    * Number of tours which are loaded with one query in {@link #getToursFromDb(long[])}
+    */
+   private static final int                               LOAD_TOURS_CHUNK_SIZE           = 100;
+
    private static final String                            DERBY_DATABASE                  = "derby-database";                                       //$NON-NLS-1$
    private static final String                            DERBY_DB_TOURBOOK               = "tourbook";                                             //$NON-NLS-1$
    private static String                                  DERBY_DRIVER_CLASS;
@@ -869,56 +881,54 @@ public class TourDatabase {
 
             monitor.beginTask(Messages.tour_database_computeComputeValues_mainTask, tourList.size());
 
-            // loop over all tours and compute values
-            for (final Long tourId : tourList) {
+            /*
+             * Tours are loaded, computed and saved in parallel, the processed tours are
+             * consumed in this thread
+             */
+            final ComputeTourValuesPipeline pipeline = new ComputeTourValuesPipeline(runner, tourList);
+            pipeline.start();
 
-               final TourData dbTourData = getTourFromDb(tourId);
-               TourData savedTourData = null;
+            while (pipeline.isDone() == false) {
 
-               if (dbTourData != null) {
-                  if (runner.computeTourValues(dbTourData)) {
+               final ProcessedTour processedTour = pipeline.getNextProcessedTour();
 
-                     // ensure that all computed values are set
-                     dbTourData.computeComputedValues();
+               if (processedTour != null) {
 
-                     savedTourData = saveTour(dbTourData, false);
-                  }
-               }
+                  tourCounter[0]++;
 
-               tourCounter[0]++;
+                  /*
+                   * This must be called for every tour because it can compute values ! ! !
+                   */
+                  final String runnerSubTaskText = runner.getSubTaskText(processedTour.savedTourData);
 
-               /*
-                * This must be called in every iteration because it can compute values ! ! !
-                */
-               final String runnerSubTaskText = runner.getSubTaskText(savedTourData);
+                  final long currentTime = System.currentTimeMillis();
+                  if (currentTime > lastUIUpdateTime + 200) {
 
-               final long currentTime = System.currentTimeMillis();
-               if (currentTime > lastUIUpdateTime + 200) {
+                     lastUIUpdateTime = currentTime;
 
-                  lastUIUpdateTime = currentTime;
+                     // create sub task text
+                     final StringBuilder sb = new StringBuilder();
+                     sb.append(NLS.bind(Messages.tour_database_computeComputeValues_subTask,
+                           new Object[] { tourCounter[0], tourListSize[0], }));
 
-                  // create sub task text
-                  final StringBuilder sb = new StringBuilder();
-                  sb.append(NLS.bind(Messages.tour_database_computeComputeValues_subTask,
-                        new Object[] { tourCounter[0], tourListSize[0], }));
+                     sb.append(UI.DASH_WITH_DOUBLE_SPACE);
+                     sb.append(tourCounter[0] * 100 / tourListSize[0]);
+                     sb.append(UI.SYMBOL_PERCENTAGE);
 
-                  sb.append(UI.DASH_WITH_DOUBLE_SPACE);
-                  sb.append(tourCounter[0] * 100 / tourListSize[0]);
-                  sb.append(UI.SYMBOL_PERCENTAGE);
+                     if (runnerSubTaskText != null) {
+                        sb.append(UI.DASH_WITH_DOUBLE_SPACE);
+                        sb.append(runnerSubTaskText);
+                     }
 
-                  if (runnerSubTaskText != null) {
-                     sb.append(UI.DASH_WITH_DOUBLE_SPACE);
-                     sb.append(runnerSubTaskText);
+                     monitor.subTask(sb.toString());
                   }
-
-                  monitor.subTask(sb.toString());
+                  monitor.worked(1);
                }
-               monitor.worked(1);
 
-               // check if canceled
-               if (monitor.isCanceled()) {
+               // check if canceled, already computed tours are still saved
+               if (monitor.isCanceled() && isCanceled[0] == false) {
                   isCanceled[0] = true;
-                  break;
+                  pipeline.cancel();
                }
             }
          }
@@ -996,6 +1006,7 @@ public class TourDatabase {
       final int[] numCurrentlyProcessedTours = new int[] { 0 };
       final int[] numAllTours = new int[] { 0 };
       final boolean[] isCanceled = new boolean[] { false };
+      final boolean[] isUpdated = new boolean[] { false };
 
       /*
        * Runnable to compute values
@@ -1018,6 +1029,12 @@ public class TourDatabase {
             } finally {
 
                Util.closeSql(conn);
+
+               if (isUpdated[0]) {
+
+                  // the tours are updated with SQL and not saved, the updated columns can be summarized in the rollup
+                  TourStatisticRollup.invalidate();
+               }
             }
 
          }
@@ -1054,6 +1071,8 @@ public class TourDatabase {
 
                      stmtUpdate.executeUpdate();
 
+                     isUpdated[0] = true;
+
 //                     numComputedTour++;
 
                   } else {
@@ -1200,6 +1219,9 @@ public class TourDatabase {
 
          conn = TourDatabase.getInstance().getConnection();
 
+         // get tour day before the tour is removed
+         final int tourDay = TourStatisticRollup.getTourDay(conn, tourId);
+
 // SET_FORMATTING_OFF
 
          final String sqlWhere_TourId           = " WHERE tourId=?";                         //$NON-NLS-1$
@@ -1228,6 +1250,17 @@ public class TourDatabase {
             prepStmt.close();
          }
 
+         TourGeoPartIndex.removeTour(tourId);
+         TourDataNormalizerCache.removeTour(tourId);
+
+         if (tourDay != -1) {
+
+            final TIntHashSet allTourDays = new TIntHashSet();
+            allTourDays.add(tourDay);
+
+            TourStatisticRollup.updateTourDays(allTourDays);
+         }
+
       } catch (final SQLException e) {
          System.out.println(sql);
          UI.showSQLException(e);
@@ -2024,6 +2057,93 @@ public class TourDatabase {
       return tourTypeName;
    }
 
+   /**
+    * Loads many tours with a few queries and one entity manager, this is much faster than loading
+    * each tour with {@link #getTourFromDb(Long)}.
+    * <p>
+    * The tours are loaded in chunks of {@link #LOAD_TOURS_CHUNK_SIZE} tours, the lazy data series
+    * are not decoded, they are decoded when they are accessed.
+    *
+    * @param tourIds
+    * @return Returns the loaded tours in the same order as the tour id's, tours which are not in
+    *         the database are not contained.
+    */
+   public static ArrayList<TourData> getToursFromDb(final long[] tourIds) {
+
+      final ArrayList<TourData> allTours = new ArrayList<>(tourIds.length);
+
+      if (tourIds.length == 0) {
+         return allTours;
+      }
+
+      final EntityManager em = TourDatabase.getInstance().getEntityManager();
+      if (em == null) {
+         return allTours;
+      }
+
+      final HashMap<Long, TourData> allLoadedTours = new HashMap<>(tourIds.length);
+
+      try {
+
+         for (int chunkStart = 0; chunkStart < tourIds.length; chunkStart += LOAD_TOURS_CHUNK_SIZE) {
+
+            final int chunkEnd = Math.min(chunkStart + LOAD_TOURS_CHUNK_SIZE, tourIds.length);
+
+            final StringBuilder sbTourIds = new StringBuilder();
+            for (int tourIndex = chunkStart; tourIndex < chunkEnd; tourIndex++) {
+
+               if (tourIndex > chunkStart) {
+                  sbTourIds.append(',');
+               }
+
+               sbTourIds.append(tourIds[tourIndex]);
+            }
+
+            final Query emQuery = em.createQuery(UI.EMPTY_STRING
+
+                  + "SELECT tourData" //$NON-NLS-1$
+                  + " FROM " + TourData.class.getSimpleName() + " AS tourData" //$NON-NLS-1$ //$NON-NLS-2$
+                  + " WHERE tourData.tourId IN (" + sbTourIds.toString() + ")"); //$NON-NLS-1$ //$NON-NLS-2$
+
+            final List<?> resultList = emQuery.getResultList();
+
+            // detach loaded tours, the persistence context would otherwise keep all tours
+            em.clear();
+
+            for (final Object result : resultList) {
+
+               if (result instanceof TourData) {
+
+                  final TourData tourData = (TourData) result;
+
+                  allLoadedTours.put(tourData.getTourId(), tourData);
+               }
+            }
+         }
+
+      } catch (final Exception e) {
+
+         StatusUtil.showStatus(e);
+
+      } finally {
+
+         em.close();
+      }
+
+      // keep requested sort order
+      for (final long tourId : tourIds) {
+
+         // a tour id can be requested multiple times
+         final TourData tourData = allLoadedTours.get(tourId);
+
+         if (tourData != null) {
+            allTours.add(tourData);
+         }
+      }
+
+      return allTours;
+   }
+
    /**
     * Checks if a field exceeds the max length
     *
@@ -2223,33 +2343,7 @@ public class TourDatabase {
     */
    public static TourData saveTour(final TourData tourData, final boolean isUpdateModifiedDate) {
 
-      /*
-       * prevent saving a tour which was deleted before
-       */
-      if (tourData.isTourDeleted) {
-         return null;
-      }
-
-      /*
-       * History tour or multiple tours cannot be saved
-       */
-      if (tourData.isHistoryTour || tourData.isMultipleTours()) {
-         return null;
-      }
-
-      /*
-       * prevent saving a tour when a person is not set, this check is for internal use that all
-       * data are valid
-       */
-      if (tourData.getTourPerson() == null) {
-         StatusUtil.log("Cannot save a tour without a person: " + tourData); //$NON-NLS-1$
-         return null;
-      }
-
-      /*
-       * check size of varcar fields
-       */
-      if (tourData.isValidForSave() == false) {
+      if (saveTour_IsSaveable(tourData) == false) {
          return null;
       }
 
@@ -2272,6 +2366,9 @@ public class TourDatabase {
 
       TourData persistedEntity = null;
 
+      // contains the tour day before and after the tour is saved
+      final TIntHashSet allTourDays = new TIntHashSet();
+
       if (em != null) {
 
          final EntityTransaction ts = em.getTransaction();
@@ -2299,6 +2396,8 @@ public class TourDatabase {
                      tourData.setDateTimeModified(dtSaved);
                   }
 
+                  allTourDays.add(TourStatisticRollup.getTourDay(tourDataEntity));
+
                   persistedEntity = em.merge(tourData);
                }
             }
@@ -2335,6 +2434,12 @@ public class TourDatabase {
 
          saveTour_GeoParts(persistedEntity);
 
+         // normalized data must be computed again
+         TourDataNormalizerCache.removeTour(persistedEntity.getTourId());
+
+         allTourDays.add(TourStatisticRollup.getTourDay(persistedEntity));
+         TourStatisticRollup.updateTourDays(allTourDays);
+
          // update ft index
          final ArrayList<TourData> allTours = new ArrayList<>();
          allTours.add(persistedEntity);
@@ -2400,6 +2505,8 @@ public class TourDatabase {
             conn.commit();
          }
 
+         TourGeoPartIndex.updateTour(tourData);
+
       } catch (final SQLException e) {
          UI.showSQLException(e);
       } finally {
@@ -2428,6 +2535,197 @@ public class TourDatabase {
 // TODO remove SYSTEM.OUT.PRINTLN
    }
 
+   /**
+    * @param tourData
+    * @return Returns <code>true</code> when the tour can be saved
+    */
+   private static boolean saveTour_IsSaveable(final TourData tourData) {
+
+      /*
+       * prevent saving a tour which was deleted before
+       */
+      if (tourData.isTourDeleted) {
+         return false;
+      }
+
+      /*
+       * History tour or multiple tours cannot be saved
+       */
+      if (tourData.isHistoryTour || tourData.isMultipleTours()) {
+         return false;
+      }
+
+      /*
+       * prevent saving a tour when a person is not set, this check is for internal use that all
+       * data are valid
+       */
+      if (tourData.getTourPerson() == null) {
+         StatusUtil.log("Cannot save a tour without a person: " + tourData); //$NON-NLS-1$
+         return false;
+      }
+
+      /*
+       * check size of varcar fields
+       */
+      if (tourData.isValidForSave() == false) {
+         return false;
+      }
+
+      return true;
+   }
+
+   /**
+    * Persist many {@link TourData} with one transaction, this is much faster than saving each tour
+    * with {@link #saveTour(TourData, boolean)} because the transaction overhead occurs only once
+    * and the fulltext index is updated once for all tours.
+    * <p>
+    * The modified date is not updated, this is used to save computed values. When the batch
+    * transaction fails, each tour is saved separately, so that one invalid tour do not prevent
+    * that the other tours are saved.
+    *
+    * @param allTourData
+    * @return Returns all persisted tours, tours which could not be saved are not contained.
+    */
+   static ArrayList<TourData> saveTours_Batch(final List<TourData> allTourData) {
+
+      final ArrayList<TourData> allPersistedTours = new ArrayList<>();
+
+      final ArrayList<TourData> allSaveableTours = new ArrayList<>();
+      for (final TourData tourData : allTourData) {
+
+         if (saveTour_IsSaveable(tourData)) {
+
+            // ensure HR zones are computed
+            tourData.getNumberOfHrZones();
+
+            checkUnsavedTransientInstances(tourData);
+
+            allSaveableTours.add(tourData);
+         }
+      }
+
+      if (allSaveableTours.isEmpty()) {
+         return allPersistedTours;
+      }
+
+      /*
+       * Removed cached data
+       */
+      TourManager.clearMultipleTourData();
+
+      final long dtSaved = TimeTools.createdNowAsYMDhms();
+
+      EntityManager em = TourDatabase.getInstance().getEntityManager();
+      if (em == null) {
+         return allPersistedTours;
+      }
+
+      boolean isSaved = false;
+
+      // contains the tour days before and after the tours are saved
+      final TIntHashSet allTourDays = new TIntHashSet();
+
+      final EntityTransaction ts = em.getTransaction();
+
+      try {
+
+         ts.begin();
+         {
+            for (final TourData tourData : allSaveableTours) {
+
+               tourData.onPrePersist();
+
+               final TourData tourDataEntity = em.find(TourData.class, tourData.getTourId());
+               if (tourDataEntity == null) {
+
+                  // tour is not yet persisted
+
+                  tourData.setDateTimeCreated(dtSaved);
+
+                  em.persist(tourData);
+
+               } else {
+
+                  allTourDays.add(TourStatisticRollup.getTourDay(tourDataEntity));
+
+                  em.merge(tourData);
+               }
+            }
+         }
+         ts.commit();
+
+         isSaved = true;
+
+      } catch (final Exception e) {
+
+         StatusUtil.log(e);
+
+      } finally {
+         if (ts.isActive()) {
+            ts.rollback();
+         }
+         em.close();
+      }
+
+      if (isSaved == false) {
+
+         // save each tour separately, this will also show the save error
+
+         for (final TourData tourData : allSaveableTours) {
+
+            final TourData persistedEntity = saveTour(tourData, false);
+
+            if (persistedEntity != null) {
+               allPersistedTours.add(persistedEntity);
+            }
+         }
+
+         return allPersistedTours;
+      }
+
+      /*
+       * Reload all saved tours with one entity manager
+       */
+      em = TourDatabase.getInstance().getEntityManager();
+      try {
+
+         for (final TourData tourData : allSaveableTours) {
+
+            final TourData persistedEntity = em.find(TourData.class, tourData.getTourId());
+
+            if (persistedEntity != null) {
+               allPersistedTours.add(persistedEntity);
+            }
+         }
+
+      } catch (final Exception e) {
+         StatusUtil.log(e);
+      } finally {
+         em.close();
+      }
+
+      for (final TourData persistedEntity : allPersistedTours) {
+
+         TourManager.getInstance().updateTourInCache(persistedEntity);
+
+         updateCachedFields(persistedEntity);
+
+         saveTour_GeoParts(persistedEntity);
+
+         // normalized data must be computed again
+         TourDataNormalizerCache.removeTour(persistedEntity.getTourId());
+
+         allTourDays.add(TourStatisticRollup.getTourDay(persistedEntity));
+      }
+
+      TourStatisticRollup.updateTourDays(allTourDays);
+
+      // update ft index for all tours at once
+      FTSearchManager.updateIndex(allPersistedTours);
+
+      return allPersistedTours;
+   }
+
    public static void updateActiveTourTypeList(final TourTypeFilter tourTypeFilter) {
 
       switch (tourTypeFilter.getFilterType()) {
@@ -2606,6 +2904,12 @@ public class TourDatabase {
          }
       }
 
+      if (isUpdated) {
+
+         // the week columns are summarized in the rollup
+         TourStatisticRollup.invalidate();
+      }
+
       return isUpdated;
    }
 
@@ -4884,6 +5188,13 @@ public class TourDatabase {
             isPostUpdate40 = true;
          }
 
+         // 40 -> 41
+         boolean isPostUpdate41 = false;
+         if (currentDbVersion == 40) {
+            currentDbVersion = newVersion = updateDbDesign_040_to_041(conn, splashManager);
+            isPostUpdate41 = true;
+         }
+
          /*
           * Update version number
           */
@@ -4939,6 +5250,9 @@ public class TourDatabase {
          if (isPostUpdate40) {
             updateDbDesign_039_to_040_PostUpdate(conn, splashManager);
          }
+         if (isPostUpdate41) {
+            updateDbDesign_040_to_041_PostUpdate(conn, splashManager);
+         }
 
       } catch (final SQLException e) {
          UI.showSQLException(e);
@@ -7453,6 +7767,143 @@ public class TourDatabase {
             net.tourbook.common.UI.formatHhMmSs(timeDiff / 1000)));
    }
 
+   private int updateDbDesign_040_to_041(final Connection conn, final SplashManager splashManager) throws SQLException {
+
+      final int newDbVersion = 41;
+
+      logDb_UpdateStart(newDbVersion);
+      updateMonitor(splashManager, newDbVersion);
+
+      // the table structure is not modified, the serie data blobs are converted in the post update
+
+      logDb_UpdateEnd(newDbVersion);
+
+      return newDbVersion;
+   }
+
+   /**
+    * Convert {@link TourData#serieData} blobs from the default java serialization into the columnar
+    * format of {@link SerieDataPacked}.
+    * <p>
+    * The blobs are converted with plain JDBC, this is much faster than loading and saving each tour
+    * with the entity manager.
+    *
+    * @param conn
+    * @param splashManager
+    * @throws SQLException
+    */
+   private void updateDbDesign_040_to_041_PostUpdate(final Connection conn, final SplashManager splashManager)
+         throws SQLException {
+
+      final ArrayList<Long> allTours = getAllTourIds();
+
+      final int numTours = allTours.size();
+      int tourIndex = 1;
+
+      final long startTime = System.currentTimeMillis();
+
+      long sizeBefore = 0;
+      long sizeAfter = 0;
+
+      final PreparedStatement stmtSelect = conn.prepareStatement(
+
+            "SELECT serieData" //                  //$NON-NLS-1$
+
+                  + " FROM " + TABLE_TOUR_DATA //  //$NON-NLS-1$
+
+                  + " WHERE tourId=?"); //         //$NON-NLS-1$
+
+      final PreparedStatement stmtUpdate = conn.prepareStatement(
+
+            "UPDATE " + TABLE_TOUR_DATA //         //$NON-NLS-1$
+
+                  + " SET" //                      //$NON-NLS-1$
+
+                  + " serieData=?" //              // 1 //$NON-NLS-1$
+
+                  + " WHERE tourId=?"); //         // 2 //$NON-NLS-1$
+
+      try {
+
+         long lastUpdateTime = startTime;
+
+         // loop: all tours
+         for (final Long tourId : allTours) {
+
+            if (splashManager != null) {
+
+               final long currentTime = System.currentTimeMillis();
+               final float timeDiff = currentTime - lastUpdateTime;
+
+               // reduce logging
+               if (timeDiff > 500) {
+
+                  lastUpdateTime = currentTime;
+
+                  final String percent = String.format("%.1f", (float) tourIndex / numTours * 100.0);//$NON-NLS-1$
+
+                  splashManager.setMessage(NLS.bind(
+                        Messages.Tour_Database_PostUpdate_041_ConvertSerieData,
+                        new Object[] { tourIndex, numTours, percent }));
+               }
+
+               tourIndex++;
+            }
+
+            stmtSelect.setLong(1, tourId);
+
+            final ResultSet result = stmtSelect.executeQuery();
+
+            if (result.next()) {
+
+               final byte[] oldBlob = result.getBytes(1);
+
+               if (oldBlob != null) {
+
+                  try {
+
+                     final byte[] newBlob = SerieDataPacked.serialize(SerieDataPacked.deserialize(oldBlob));
+
+                     stmtUpdate.setBytes(1, newBlob);
+                     stmtUpdate.setLong(2, tourId);
+                     stmtUpdate.executeUpdate();
+
+                     sizeBefore += oldBlob.length;
+                     sizeAfter += newBlob.length;
+
+                  } catch (final IOException e) {
+
+                     // keep the old blob, it can still be read
+                     StatusUtil.log(NLS.bind("Cannot convert serie data of tour {0}", tourId), e); //$NON-NLS-1$
+                  }
+               }
+            }
+
+            result.close();
+         }
+
+         // update UI otherwise < 100% is displayed
+         if (splashManager != null) {
+            splashManager.setMessage(NLS.bind(
+                  Messages.Tour_Database_PostUpdate_041_ConvertSerieData,
+                  new Object[] { tourIndex - 1, numTours, 100 }));
+         }
+
+      } finally {
+
+         stmtSelect.close();
+         stmtUpdate.close();
+      }
+
+      final long timeDiff = System.currentTimeMillis() - startTime;
+
+      StatusUtil.logInfo(String.format(
+            "Database postupdate 40 -> 41 in %s mm:ss, serie data %d kB -> %d kB", //$NON-NLS-1$
+            net.tourbook.common.UI.formatHhMmSs(timeDiff / 1000),
+            sizeBefore / 1024,
+            sizeAfter / 1024));
+   }
+
 //   private int updateDbDesign_034_to_035(final Connection conn, final IProgressMonitor monitor) throws SQLException {
 //
 //      final int newDbVersion = 35;
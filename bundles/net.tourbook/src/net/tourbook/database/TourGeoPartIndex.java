@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.database;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+import net.tourbook.common.util.StatusUtil;
+import net.tourbook.common.util.Util;
+import net.tourbook.data.TourData;
+import net.tourbook.ui.UI;
+
+/**
+ * In-memory index of the {@link TourDatabase#TABLE_TOUR_GEO_PARTS} table, it contains for each
+ * geo part the tours which are crossing this geo part.
+ * <p>
+ * Tour id's are mapped to a dense tour index, so that the tours for many geo parts can be
+ * collected and filtered with a {@link BitSet}.
+ * <p>
+ * The index is loaded from the database when it is used the first time and then updated when the
+ * geo parts of a tour are saved or a tour is deleted.
+ */
+public class TourGeoPartIndex {
+
+   private static final Object                          INDEX_LOCK       = new Object();
+
+   private static boolean                               _isIndexLoaded;
+
+   /**
+    * Key is the geo part, value contains the tour indices of all tours with this geo part
+    */
+   private static final TIntObjectHashMap<TIntArrayList> _allGeoPartTours = new TIntObjectHashMap<>();
+
+   /**
+    * Key is the tour index, value contains the geo parts of the tour, this is used to remove a tour
+    * from the index
+    */
+   private static final TIntObjectHashMap<int[]>         _allTourGeoParts = new TIntObjectHashMap<>();
+
+   /**
+    * Key is the tour id, value is the tour index
+    */
+   private static final TLongIntHashMap                  _allTourIndices  = new TLongIntHashMap();
+
+   /**
+    * Contains the tour id for a tour index, a tour index is not reused when a tour is deleted
+    */
+   private static final TLongArrayList                   _allTourIds      = new TLongArrayList();
+
+   private TourGeoPartIndex() {}
+
+   private static void addTour(final long tourId, final int[] geoParts) {
+
+      final int tourIndex = getTourIndex(tourId);
+
+      _allTourGeoParts.put(tourIndex, geoParts);
+
+      for (final int geoPart : geoParts) {
+         addTour_GeoPart(tourIndex, geoPart);
+      }
+   }
+
+   private static void addTour_GeoPart(final int tourIndex, final int geoPart) {
+
+      TIntArrayList geoPartTours = _allGeoPartTours.get(geoPart);
+
+      if (geoPartTours == null) {
+
+         geoPartTours = new TIntArrayList(4);
+
+         _allGeoPartTours.put(geoPart, geoPartTours);
+      }
+
+      geoPartTours.add(tourIndex);
+   }
+
+   /**
+    * @param tourId
+    * @return Returns the tour index for the tour id, a new index is created when it is not yet
+    *         available
+    */
+   private static int getTourIndex(final long tourId) {
+
+      if (_allTourIndices.containsKey(tourId)) {
+         return _allTourIndices.get(tourId);
+      }
+
+      final int tourIndex = _allTourIds.size();
+
+      _allTourIds.add(tourId);
+      _allTourIndices.put(tourId, tourIndex);
+
+      return tourIndex;
+   }
+
+   /**
+    * @param geoParts
+    *           Requested geo parts
+    * @param allFilterTourIds
+    *           When not <code>null</code> then only tours with these id's are returned
+    * @return Returns the id's of all tours which are having at least one of the geo parts, sorted
+    *         by the tour index
+    */
+   public static long[] getTourIds(final int[] geoParts, final long[] allFilterTourIds) {
+
+      synchronized (INDEX_LOCK) {
+
+         loadIndex();
+
+         final BitSet geoPartTours = new BitSet(_allTourIds.size());
+
+         for (final int geoPart : geoParts) {
+
+            final TIntArrayList allTourIndices = _allGeoPartTours.get(geoPart);
+
+            if (allTourIndices == null) {
+               continue;
+            }
+
+            for (int listIndex = 0; listIndex < allTourIndices.size(); listIndex++) {
+               geoPartTours.set(allTourIndices.getQuick(listIndex));
+            }
+         }
+
+         if (allFilterTourIds != null) {
+
+            final BitSet filterTours = new BitSet(_allTourIds.size());
+
+            for (final long filterTourId : allFilterTourIds) {
+
+               if (_allTourIndices.containsKey(filterTourId)) {
+                  filterTours.set(_allTourIndices.get(filterTourId));
+               }
+            }
+
+            geoPartTours.and(filterTours);
+         }
+
+         final long[] tourIds = new long[geoPartTours.cardinality()];
+
+         int tourIdIndex = 0;
+
+         for (int tourIndex = geoPartTours.nextSetBit(0); tourIndex >= 0; tourIndex = geoPartTours.nextSetBit(tourIndex + 1)) {
+            tourIds[tourIdIndex++] = _allTourIds.getQuick(tourIndex);
+         }
+
+         return tourIds;
+      }
+   }
+
+   /**
+    * Load all geo parts from the database, this is done only once.
+    */
+   private static void loadIndex() {
+
+      if (_isIndexLoaded) {
+         return;
+      }
+
+      final long start = System.currentTimeMillis();
+
+      final String sql = "SELECT TourId, GeoPart FROM " + TourDatabase.TABLE_TOUR_GEO_PARTS; //$NON-NLS-1$
+
+      // remove data from a previous load which has failed
+      _allGeoPartTours.clear();
+      _allTourGeoParts.clear();
+      _allTourIndices.clear();
+      _allTourIds.clear();
+
+      Connection conn = null;
+
+      try {
+
+         conn = TourDatabase.getInstance().getConnection();
+
+         final TIntObjectHashMap<TIntArrayList> allLoadedTourGeoParts = new TIntObjectHashMap<>();
+
+         try (final PreparedStatement statement = conn.prepareStatement(sql);
+               final ResultSet result = statement.executeQuery()) {
+
+            while (result.next()) {
+
+               final int tourIndex = getTourIndex(result.getLong(1));
+               final int geoPart = result.getInt(2);
+
+               addTour_GeoPart(tourIndex, geoPart);
+
+               TIntArrayList tourGeoParts = allLoadedTourGeoParts.get(tourIndex);
+
+               if (tourGeoParts == null) {
+
+                  tourGeoParts = new TIntArrayList();
+
+                  allLoadedTourGeoParts.put(tourIndex, tourGeoParts);
+               }
+
+               tourGeoParts.add(geoPart);
+            }
+         }
+
+         allLoadedTourGeoParts.forEachEntry((tourIndex, tourGeoParts) -> {
+
+            _allTourGeoParts.put(tourIndex, tourGeoParts.toArray());
+
+            return true;
+         });
+
+         _isIndexLoaded = true;
+
+      } catch (final SQLException e) {
+
+         StatusUtil.log(sql);
+         UI.showSQLException(e);
+
+      } finally {
+
+         Util.closeSql(conn);
+      }
+
+      StatusUtil.logInfo(String.format("Loaded geo part index: %d tours, %d geo parts - %d ms", //$NON-NLS-1$
+            _allTourGeoParts.size(),
+            _allGeoPartTours.size(),
+            System.currentTimeMillis() - start));
+   }
+
+   /**
+    * Remove a tour from the index
+    *
+    * @param tourId
+    */
+   static void removeTour(final long tourId) {
+
+      synchronized (INDEX_LOCK) {
+
+         if (_isIndexLoaded == false) {
+
+            // the database is read when the index is loaded
+            return;
+         }
+
+         removeTour_FromGeoParts(tourId);
+      }
+   }
+
+   private static void removeTour_FromGeoParts(final long tourId) {
+
+      if (_allTourIndices.containsKey(tourId) == false) {
+         return;
+      }
+
+      final int tourIndex = _allTourIndices.get(tourId);
+
+      final int[] tourGeoParts = _allTourGeoParts.remove(tourIndex);
+
+      if (tourGeoParts == null) {
+         return;
+      }
+
+      for (final int geoPart : tourGeoParts) {
+
+         final TIntArrayList geoPartTours = _allGeoPartTours.get(geoPart);
+
+         if (geoPartTours == null) {
+            continue;
+         }
+
+         geoPartTours.remove(tourIndex);
+
+         if (geoPartTours.isEmpty()) {
+            _allGeoPartTours.remove(geoPart);
+         }
+      }
+   }
+
+   /**
+    * Replace the geo parts of a tour with {@link TourData#geoGrid}
+    *
+    * @param tourData
+    */
+   static void updateTour(final TourData tourData) {
+
+      synchronized (INDEX_LOCK) {
+
+         if (_isIndexLoaded == false) {
+
+            // the database is read when the index is loaded
+            return;
+         }
+
+         final long tourId = tourData.getTourId();
+
+         removeTour_FromGeoParts(tourId);
+
+         final int[] geoGrid = tourData.geoGrid;
+
+         if (geoGrid != null && geoGrid.length > 0) {
+            addTour(tourId, geoGrid.clone());
+         }
+      }
+   }
+}
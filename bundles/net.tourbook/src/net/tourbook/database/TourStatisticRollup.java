@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.database;
+
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import net.tourbook.common.util.StatusUtil;
+import net.tourbook.common.util.Util;
+import net.tourbook.data.TourData;
+import net.tourbook.ui.UI;
+
+/**
+ * Maintains the {@link #TABLE_TOUR_STATISTIC_DAY} table which contains the summarized tour values
+ * for each person, tour type and day, so that the week, month and year statistics are computed
+ * from a few pre-aggregated rows instead of all tours.
+ * <p>
+ * The table contains only derived data, it is rebuilt from {@link TourDatabase#TABLE_TOUR_DATA}
+ * when it is used the first time after the app is started and then updated when tours are saved
+ * or deleted.
+ * <p>
+ * The person and tour type columns are having the same names as in
+ * {@link TourDatabase#TABLE_TOUR_DATA}, when the table is aliased with <code>TourData</code>, the
+ * person and tour type app filter can be used.
+ */
+public class TourStatisticRollup {
+
+   public static final String  TABLE_TOUR_STATISTIC_DAY = "TourStatisticDay";                         //$NON-NLS-1$
+
+   private static final String NL                       = UI.NEW_LINE;
+
+// SET_FORMATTING_OFF
+
+   private static final String SQL_ROLLUP_COLUMNS       = UI.EMPTY_STRING
+
+         + " TourPerson_PersonId,   " + NL //$NON-NLS-1$
+         + " TourType_TypeId,       " + NL //$NON-NLS-1$
+         + " StartYear,             " + NL //$NON-NLS-1$
+         + " StartMonth,            " + NL //$NON-NLS-1$
+         + " StartDay,              " + NL //$NON-NLS-1$
+         + " StartWeek,             " + NL //$NON-NLS-1$
+         + " StartWeekYear,         " + NL //$NON-NLS-1$
+
+         + " NumTours,              " + NL //$NON-NLS-1$
+         + " TourDistance,          " + NL //$NON-NLS-1$
+         + " TourAltUp,             " + NL //$NON-NLS-1$
+         + " TourRecordingTime,     " + NL //$NON-NLS-1$
+         + " TourDrivingTime,       " + NL //$NON-NLS-1$
+         + " TourMovingTime         " + NL //$NON-NLS-1$
+   ;
+
+   private static final String SQL_GROUP_COLUMNS        = UI.EMPTY_STRING
+
+         + " TourPerson_PersonId,   " + NL //$NON-NLS-1$
+         + " TourType_TypeId,       " + NL //$NON-NLS-1$
+         + " StartYear,             " + NL //$NON-NLS-1$
+         + " StartMonth,            " + NL //$NON-NLS-1$
+         + " StartDay,              " + NL //$NON-NLS-1$
+         + " StartWeek,             " + NL //$NON-NLS-1$
+         + " StartWeekYear          " + NL //$NON-NLS-1$
+   ;
+
+   /**
+    * Summarizes the tours, {@link #SQL_WHERE_TOUR_DAY} or an empty string must be appended
+    */
+   private static final String SQL_INSERT_FROM_TOUR_DATA = UI.EMPTY_STRING
+
+         + "INSERT INTO " + TABLE_TOUR_STATISTIC_DAY + " (" + SQL_ROLLUP_COLUMNS + ")" + NL //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+         + " SELECT" + NL //$NON-NLS-1$
+
+         + SQL_GROUP_COLUMNS + "," + NL //$NON-NLS-1$
+
+         + " COUNT(*),                 " + NL //$NON-NLS-1$
+         + " SUM(TourDistance),        " + NL //$NON-NLS-1$
+         + " SUM(TourAltUp),           " + NL //$NON-NLS-1$
+         + " SUM(TourRecordingTime),   " + NL //$NON-NLS-1$
+         + " SUM(TourDrivingTime),     " + NL //$NON-NLS-1$
+
+         // this is the moving duration in the statistics
+         + " SUM(CASE WHEN TourDrivingTime > 0 THEN TourDrivingTime ELSE TourRecordingTime END)" + NL //$NON-NLS-1$
+
+         + " FROM " + TourDatabase.TABLE_TOUR_DATA + NL //$NON-NLS-1$
+   ;
+
+   private static final String SQL_WHERE_TOUR_DAY       = " WHERE StartYear=? AND StartMonth=? AND StartDay=?" + NL; //$NON-NLS-1$
+
+   private static final String SQL_GROUP_BY             = " GROUP BY " + SQL_GROUP_COLUMNS; //$NON-NLS-1$
+
+// SET_FORMATTING_ON
+
+   private static final Object ROLLUP_LOCK              = new Object();
+
+   /**
+    * Is <code>true</code> when the rollup table is rebuilt in this session and is updated when
+    * tours are saved
+    */
+   private static boolean      _isRollupAvailable;
+
+   private TourStatisticRollup() {}
+
+   private static void createTable(final Statement stmt) throws SQLException {
+
+      stmt.execute(UI.EMPTY_STRING
+
+            + "CREATE TABLE " + TABLE_TOUR_STATISTIC_DAY + "   (  " + NL //$NON-NLS-1$ //$NON-NLS-2$
+
+            + "   TourPerson_PersonId   BIGINT,                   " + NL //$NON-NLS-1$
+            + "   TourType_TypeId       BIGINT,                   " + NL //$NON-NLS-1$
+            + "   StartYear             SMALLINT,                 " + NL //$NON-NLS-1$
+            + "   StartMonth            SMALLINT,                 " + NL //$NON-NLS-1$
+            + "   StartDay              SMALLINT,                 " + NL //$NON-NLS-1$
+            + "   StartWeek             SMALLINT,                 " + NL //$NON-NLS-1$
+            + "   StartWeekYear         SMALLINT,                 " + NL //$NON-NLS-1$
+
+            + "   NumTours              INTEGER,                  " + NL //$NON-NLS-1$
+            + "   TourDistance          DOUBLE,                   " + NL //$NON-NLS-1$
+            + "   TourAltUp             BIGINT,                   " + NL //$NON-NLS-1$
+            + "   TourRecordingTime     BIGINT,                   " + NL //$NON-NLS-1$
+            + "   TourDrivingTime       BIGINT,                   " + NL //$NON-NLS-1$
+            + "   TourMovingTime        BIGINT                    " + NL //$NON-NLS-1$
+
+            + ")"); //$NON-NLS-1$
+
+      stmt.execute("CREATE INDEX " + TABLE_TOUR_STATISTIC_DAY + "_StartYear ON " + TABLE_TOUR_STATISTIC_DAY + " (StartYear)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      stmt.execute("CREATE INDEX " + TABLE_TOUR_STATISTIC_DAY + "_StartWeekYear ON " + TABLE_TOUR_STATISTIC_DAY + " (StartWeekYear)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+   }
+
+   /**
+    * @param conn
+    * @param tourId
+    * @return Returns the start day of a saved tour as <code>yyyymmdd</code> or <code>-1</code>
+    *         when the tour is not available
+    * @throws SQLException
+    */
+   static int getTourDay(final Connection conn, final long tourId) throws SQLException {
+
+      final PreparedStatement stmt = conn.prepareStatement("SELECT StartYear, StartMonth, StartDay FROM " //$NON-NLS-1$
+            + TourDatabase.TABLE_TOUR_DATA
+            + " WHERE TourId=?"); //$NON-NLS-1$
+
+      stmt.setLong(1, tourId);
+
+      int tourDay = -1;
+
+      final ResultSet result = stmt.executeQuery();
+      if (result.next()) {
+         tourDay = result.getInt(1) * 10000 + result.getInt(2) * 100 + result.getInt(3);
+      }
+
+      stmt.close();
+
+      return tourDay;
+   }
+
+   /**
+    * @param tourData
+    *           Tour with the date which is saved in the database
+    * @return Returns the tour start day as <code>yyyymmdd</code>
+    */
+   static int getTourDay(final TourData tourData) {
+
+      return tourData.getStartYear() * 10000
+            + tourData.getStartMonth() * 100
+            + tourData.getStartDay();
+   }
+
+   /**
+    * The rollup table is rebuilt the next time when it is used, e.g. when the week columns of all
+    * tours are modified.
+    */
+   static void invalidate() {
+
+      synchronized (ROLLUP_LOCK) {
+         _isRollupAvailable = false;
+      }
+   }
+
+   /**
+    * Rebuilds the rollup table when it is used the first time in this session.
+    *
+    * @return Returns <code>true</code> when the statistic values can be read from
+    *         {@link #TABLE_TOUR_STATISTIC_DAY}
+    */
+   public static boolean isRollupAvailable() {
+
+      synchronized (ROLLUP_LOCK) {
+
+         if (_isRollupAvailable) {
+            return true;
+         }
+
+         final long start = System.currentTimeMillis();
+
+         Connection conn = null;
+
+         try {
+
+            conn = TourDatabase.getInstance().getConnection();
+
+            final Statement stmt = conn.createStatement();
+
+            if (isTableAvailable(conn)) {
+               stmt.execute("DELETE FROM " + TABLE_TOUR_STATISTIC_DAY); //$NON-NLS-1$
+            } else {
+               createTable(stmt);
+            }
+
+            stmt.execute(SQL_INSERT_FROM_TOUR_DATA + SQL_GROUP_BY);
+            stmt.close();
+
+            _isRollupAvailable = true;
+
+            StatusUtil.logInfo(String.format("Rebuilt statistic rollup - %d ms", System.currentTimeMillis() - start)); //$NON-NLS-1$
+
+         } catch (final SQLException e) {
+
+            // statistics are computed from all tours
+
+            StatusUtil.log(e);
+
+         } finally {
+            Util.closeSql(conn);
+         }
+
+         return _isRollupAvailable;
+      }
+   }
+
+   private static boolean isTableAvailable(final Connection conn) throws SQLException {
+
+      final DatabaseMetaData meta = conn.getMetaData();
+
+      ResultSet result = null;
+
+      try {
+
+         result = meta.getTables(null, TourDatabase.TABLE_SCHEMA, TABLE_TOUR_STATISTIC_DAY.toUpperCase(), null);
+
+         return result.next();
+
+      } finally {
+         Util.closeSql(result);
+      }
+   }
+
+   /**
+    * Summarize again all tours for the days, this must be called after tours are saved or
+    * deleted.
+    *
+    * @param allTourDays
+    *           Days as <code>yyyymmdd</code> which must be updated, this contains the tour days
+    *           before and after the tours are saved
+    */
+   static void updateTourDays(final TIntHashSet allTourDays) {
+
+      synchronized (ROLLUP_LOCK) {
+
+         if (_isRollupAvailable == false) {
+
+            // all tours are summarized when the rollup is used
+            return;
+         }
+
+         Connection conn = null;
+
+         try {
+
+            conn = TourDatabase.getInstance().getConnection();
+            conn.setAutoCommit(false);
+
+            final PreparedStatement stmtDelete = conn.prepareStatement("DELETE FROM " + TABLE_TOUR_STATISTIC_DAY + SQL_WHERE_TOUR_DAY); //$NON-NLS-1$
+            final PreparedStatement stmtInsert = conn.prepareStatement(SQL_INSERT_FROM_TOUR_DATA + SQL_WHERE_TOUR_DAY + SQL_GROUP_BY);
+
+            for (final int tourDay : allTourDays.toArray()) {
+
+               final int year = tourDay / 10000;
+               final int month = tourDay / 100 % 100;
+               final int day = tourDay % 100;
+
+               for (final PreparedStatement stmt : new PreparedStatement[] { stmtDelete, stmtInsert }) {
+
+                  stmt.setInt(1, year);
+                  stmt.setInt(2, month);
+                  stmt.setInt(3, day);
+
+                  stmt.executeUpdate();
+               }
+            }
+
+            conn.commit();
+
+            stmtDelete.close();
+            stmtInsert.close();
+
+         } catch (final SQLException e) {
+
+            StatusUtil.log(e);
+
+            // rebuild all when the rollup is used the next time
+            _isRollupAvailable = false;
+
+         } finally {
+            Util.closeSql(conn);
+         }
+      }
+   }
+}
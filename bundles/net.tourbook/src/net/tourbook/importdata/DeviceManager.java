@@ -36,6 +36,17 @@ public class DeviceManager {
 	private static List<TourbookDevice>	_deviceList;
 	private static List<ExternalDevice>	_externalDeviceList;
 
+	/**
+	 * Creates new instances of all devices which can import data, these instances are not shared
+	 * with {@link #getDeviceList()} and can be used in another thread.
+	 * 
+	 * @return Returns an unsorted list with new device instances
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<TourbookDevice> createDeviceList() {
+		return readDeviceExtensions(TourbookPlugin.EXT_POINT_DEVICE_DATA_READER);
+	}
+
 	/**
 	 * Read devices from the extension registry which can import data
 	 * 
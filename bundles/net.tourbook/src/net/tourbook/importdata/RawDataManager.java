@@ -33,7 +33,14 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import net.tourbook.Messages;
 import net.tourbook.application.PerspectiveFactoryRawData;
@@ -117,6 +124,17 @@ public class RawDataManager {
 
    public static final int          ADJUST_IMPORT_YEAR_IS_DISABLED      = -1;
 
+   /**
+    * Number of files which are imported concurrently
+    */
+   private static final int         NUMBER_OF_IMPORT_THREADS            = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+   /**
+    * Number of files which are imported ahead of the file which is currently processed, this
+    * limits the memory for imported tours which are not yet processed
+    */
+   private static final int         IMPORT_AHEAD_SIZE                   = NUMBER_OF_IMPORT_THREADS * 2;
+
    static final ComboEnumEntry<?>[] ALL_IMPORT_TOUR_TYPE_CONFIG;
 
    private static boolean           _importState_IsAutoOpenImportLog    = RawDataView.STATE_IS_AUTO_OPEN_IMPORT_LOG_VIEW_DEFAULT;
@@ -182,6 +200,13 @@ public class RawDataManager {
    private List<TourbookDevice>            _devicesBySortPriority;
 
    private HashMap<String, TourbookDevice> _devicesByExtension;
+
+   /**
+    * Device instances which are used to import files concurrently, devices are not thread safe, so
+    * each import thread is using its own device list
+    */
+   private final ConcurrentLinkedQueue<List<TourbookDevice>> _parallelImportDevices = new ConcurrentLinkedQueue<>();
+
    private final ArrayList<TourType>       _tempTourTypes                      = new ArrayList<>();
    private final ArrayList<TourTag>        _tempTourTags                       = new ArrayList<>();
 
@@ -203,6 +228,17 @@ public class RawDataManager {
       }
    }
 
+   /**
+    * Result of a file which is imported in an import thread
+    */
+   private static class ParallelImportResult {
+
+      boolean                       isImported;
+
+      final HashMap<Long, TourData> newlyImportedTours      = new HashMap<>();
+      final ArrayList<String>       additionalImportedFiles = new ArrayList<>();
+   }
+
    public static enum ReImport {
 
       AllTimeSlices, //
@@ -339,6 +375,30 @@ public class RawDataManager {
       }
    }
 
+   /**
+    * Sort devices by the extension sorting priority and then by the device id
+    *
+    * @param allDevices
+    */
+   private static void sortDevicesByPriority(final List<TourbookDevice> allDevices) {
+
+      Collections.sort(allDevices, new Comparator<TourbookDevice>() {
+         @Override
+         public int compare(final TourbookDevice o1, final TourbookDevice o2) {
+
+            // 1. sort by prio
+            final int sortByPrio = o1.extensionSortPriority - o2.extensionSortPriority;
+
+            // 2. sort by name
+            if (sortByPrio == 0) {
+               return o1.deviceId.compareTo(o2.deviceId);
+            }
+
+            return sortByPrio;
+         }
+      });
+   }
+
    public void actionImportFromDevice() {
 
       final DataTransferWizardDialog dialog = new DataTransferWizardDialog(//
@@ -1278,6 +1338,29 @@ public class RawDataManager {
       _invalidFilesList.clear();
    }
 
+   private ExecutorService createParallelImportExecutor() {
+
+      final ThreadFactory threadFactory = new ThreadFactory() {
+
+         private int __threadNumber;
+
+         @Override
+         public Thread newThread(final Runnable r) {
+
+            final String threadName = "Importing tour files - " + __threadNumber++; //$NON-NLS-1$
+
+            final Thread thread = new Thread(r, threadName);
+
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setDaemon(true);
+
+            return thread;
+         }
+      };
+
+      return Executors.newFixedThreadPool(NUMBER_OF_IMPORT_THREADS, threadFactory);
+   }
+
    public DeviceData getDeviceData() {
       return _deviceData;
    }
@@ -1289,21 +1372,7 @@ public class RawDataManager {
          _devicesBySortPriority = new ArrayList<>(DeviceManager.getDeviceList());
 
          // sort device list by sorting priority
-         Collections.sort(_devicesBySortPriority, new Comparator<TourbookDevice>() {
-            @Override
-            public int compare(final TourbookDevice o1, final TourbookDevice o2) {
-
-               // 1. sort by prio
-               final int sortByPrio = o1.extensionSortPriority - o2.extensionSortPriority;
-
-               // 2. sort by name
-               if (sortByPrio == 0) {
-                  return o1.deviceId.compareTo(o2.deviceId);
-               }
-
-               return sortByPrio;
-            }
-         });
+         sortDevicesByPriority(_devicesBySortPriority);
 
          _devicesByExtension = new HashMap<>();
 
@@ -1759,6 +1828,150 @@ public class RawDataManager {
       return newFile.getAbsolutePath();
    }
 
+   /**
+    * Imports a file in an import thread, only devices which have the file extension are used.
+    *
+    * @param importFilePath
+    * @param alreadyImportedTours
+    *           Tours which were displayed in the import view when the import was started, this map
+    *           is shared between the import threads and must not be modified.
+    * @return Returns the imported tours which are not yet displayed in the import view.
+    */
+   private ParallelImportResult importRawData_Parallel(final String importFilePath,
+                                                       final HashMap<Long, TourData> alreadyImportedTours) {
+
+      List<TourbookDevice> deviceList = _parallelImportDevices.poll();
+
+      if (deviceList == null) {
+
+         deviceList = DeviceManager.createDeviceList();
+
+         sortDevicesByPriority(deviceList);
+      }
+
+      final ParallelImportResult importResult = new ParallelImportResult();
+
+      try {
+
+         final String fileExtension = new org.eclipse.core.runtime.Path(importFilePath).getFileExtension();
+
+         // device data can be modified by the device
+         final DeviceData deviceData = new DeviceData();
+         deviceData.importId = _deviceData.importId;
+
+         for (final TourbookDevice device : deviceList) {
+
+            final String deviceFileExtension = device.fileExtension;
+
+            if (deviceFileExtension.equals("*") == false //$NON-NLS-1$
+                  && deviceFileExtension.equalsIgnoreCase(fileExtension) == false) {
+               continue;
+            }
+
+            device.setIsChecksumValidation(_importState_IsChecksumValidation);
+
+            if (device.validateRawData(importFilePath) == false) {
+               continue;
+            }
+
+            if (_importState_ImportYear != -1) {
+               device.setImportYear(_importState_ImportYear);
+            }
+
+            device.setMergeTracks(_importState_IsMergeTracks);
+            device.setCreateTourIdWithTime(_importState_IsCreateTourIdWithTime);
+            device.setConvertWayPoints(_importState_IsConvertWayPoints);
+
+            importResult.newlyImportedTours.clear();
+
+            if (device.processDeviceData(
+                  importFilePath,
+                  deviceData,
+                  alreadyImportedTours,
+                  importResult.newlyImportedTours)) {
+
+               importResult.isImported = true;
+
+               final ArrayList<String> deviceImportedFiles = device.getAdditionalImportedFiles();
+               if (deviceImportedFiles != null) {
+                  importResult.additionalImportedFiles.addAll(deviceImportedFiles);
+               }
+
+               break;
+            }
+         }
+
+      } finally {
+
+         // reuse device instances for the next file
+         _parallelImportDevices.offer(deviceList);
+      }
+
+      return importResult;
+   }
+
+   /**
+    * Adds the tours from a file which was imported in an import thread to the import view, like it
+    * is done in {@link #importRawData(File, String, boolean, FileCollisionBehavior, boolean)}
+    *
+    * @param importResult
+    * @param importFilePath
+    */
+   private void importRawData_Parallel_Merge(final ParallelImportResult importResult, final String importFilePath) {
+
+      _newlyImportedTours.clear();
+
+      for (final Entry<Long, TourData> entry : importResult.newlyImportedTours.entrySet()) {
+
+         final Long tourId = entry.getKey();
+
+         // a tour which was imported from a previous file is ignored, like in a sequential import
+         if (_toursInImportView.containsKey(tourId) == false) {
+            _newlyImportedTours.put(tourId, entry.getValue());
+         }
+      }
+
+      _toursInImportView.putAll(_newlyImportedTours);
+
+      _lastImportedFileName = importFilePath;
+      _importedFileNames.add(importFilePath);
+      _importedFileNamesChildren.addAll(importResult.additionalImportedFiles);
+   }
+
+   /**
+    * @param fileExtension
+    * @return Returns <code>true</code> when all devices, which can import files with this
+    *         extension, support a parallel import and do not need a user confirmation.
+    */
+   private boolean isParallelImport(final String fileExtension) {
+
+      if (fileExtension == null || fileExtension.length() == 0) {
+         return false;
+      }
+
+      boolean isDeviceAvailable = false;
+
+      for (final TourbookDevice device : getDeviceListSortedByPriority()) {
+
+         final String deviceFileExtension = device.fileExtension;
+
+         if (deviceFileExtension.equalsIgnoreCase(fileExtension)) {
+
+            isDeviceAvailable = true;
+
+         } else if (deviceFileExtension.equals("*") == false) { //$NON-NLS-1$
+
+            continue;
+         }
+
+         if (device.isParallelImportSupported() == false || device.userConfirmationRequired()) {
+            return false;
+         }
+      }
+
+      return isDeviceAvailable;
+   }
+
    public boolean isSetBodyWeight() {
       return _importState_IsSetBodyWeight;
    }
@@ -1907,58 +2120,121 @@ public class RawDataManager {
 
             int importCounter = 0;
 
-            // loop: import all selected files
-            for (final ImportFile filePath : importFilePaths) {
+            /*
+             * Files, which devices support it, are imported concurrently ahead of the currently
+             * processed file. The results are processed in the file order, so that the import
+             * view contains the same tours as with a sequential import.
+             */
+            final HashMap<Long, TourData> alreadyImportedTours = new HashMap<>(_toursInImportView);
+            final List<Future<ParallelImportResult>> allParallelImports = new ArrayList<>(Collections.nCopies(importSize, null));
 
-               if (monitor.isCanceled()) {
+            final ExecutorService importExecutor = createParallelImportExecutor();
+            int submitIndex = 0;
 
-                  // stop importing but process imported tours
+            try {
 
-                  importRunState.isImportCanceled = true;
+               // loop: import all selected files
+               for (int fileIndex = 0; fileIndex < importSize; fileIndex++) {
 
-                  break;
-               }
+                  final ImportFile filePath = importFilePaths.get(fileIndex);
 
-               final String osFilePath = filePath.filePath.toOSString();
+                  if (monitor.isCanceled()) {
 
-               final String subTask = NLS.bind(
-                     Messages.import_data_importTours_subTask, //
-                     new Object[] { ++imported, importSize, osFilePath });
+                     // stop importing but process imported tours
 
-               monitor.worked(1);
-               monitor.subTask(subTask);
+                     importRunState.isImportCanceled = true;
 
-               // ignore files which are imported as children from other imported files
-               if (_importedFileNamesChildren.contains(osFilePath)) {
-                  continue;
-               }
+                     break;
+                  }
 
-               if (importRawData(new File(osFilePath), null, false, null, true)) {
+                  // keep the import threads busy
+                  for (; submitIndex < importSize && submitIndex <= fileIndex + IMPORT_AHEAD_SIZE; submitIndex++) {
 
-                  importCounter++;
+                     final IPath submitFilePath = importFilePaths.get(submitIndex).filePath;
 
-                  // update state
-                  for (final TourData importedTourData : _newlyImportedTours.values()) {
+                     if (isParallelImport(submitFilePath.getFileExtension())) {
 
-                     importedTourData.isBackupImportFile = filePath.isBackupImportFile;
+                        final String submitOSFilePath = submitFilePath.toOSString();
 
-                     TourLogManager.addSubLog(//
-                           TourLogState.IMPORT_OK,
-                           NLS.bind(LOG_IMPORT_TOUR_IMPORTED,
-                                 importedTourData.getTourStartTime().format(TimeTools.Formatter_DateTime_S),
-                                 osFilePath));
+                        allParallelImports.set(submitIndex,
+                              importExecutor.submit(() -> importRawData_Parallel(submitOSFilePath, alreadyImportedTours)));
+                     }
                   }
 
-                  TourLogManager.addSubLog(//
-                        TourLogState.INFO,
-                        NLS.bind(LOG_IMPORT_TOURS_IMPORTED_FROM_FILE, _newlyImportedTours.size(), osFilePath));
+                  // release the import result when it is processed
+                  final Future<ParallelImportResult> parallelImport = allParallelImports.set(fileIndex, null);
 
-               } else {
+                  final String osFilePath = filePath.filePath.toOSString();
+
+                  final String subTask = NLS.bind(
+                        Messages.import_data_importTours_subTask, //
+                        new Object[] { ++imported, importSize, osFilePath });
+
+                  monitor.worked(1);
+                  monitor.subTask(subTask);
+
+                  // ignore files which are imported as children from other imported files
+                  if (_importedFileNamesChildren.contains(osFilePath)) {
+                     continue;
+                  }
+
+                  ParallelImportResult parallelImportResult = null;
+
+                  if (parallelImport != null) {
+
+                     try {
+                        parallelImportResult = parallelImport.get();
+                     } catch (final ExecutionException e) {
+                        // the file is imported again sequentially which is logging the error
+                     }
+                  }
+
+                  final boolean isImported;
 
-                  _invalidFilesList.add(osFilePath);
+                  if (parallelImportResult != null && parallelImportResult.isImported) {
 
-                  TourLogManager.addSubLog(TourLogState.IMPORT_ERROR, osFilePath);
+                     importRawData_Parallel_Merge(parallelImportResult, osFilePath);
+
+                     isImported = true;
+
+                  } else {
+
+                     // import sequentially, this is also trying devices with other file extensions
+                     isImported = importRawData(new File(osFilePath), null, false, null, true);
+                  }
+
+                  if (isImported) {
+
+                     importCounter++;
+
+                     // update state
+                     for (final TourData importedTourData : _newlyImportedTours.values()) {
+
+                        importedTourData.isBackupImportFile = filePath.isBackupImportFile;
+
+                        TourLogManager.addSubLog(//
+                              TourLogState.IMPORT_OK,
+                              NLS.bind(LOG_IMPORT_TOUR_IMPORTED,
+                                    importedTourData.getTourStartTime().format(TimeTools.Formatter_DateTime_S),
+                                    osFilePath));
+                     }
+
+                     TourLogManager.addSubLog(//
+                           TourLogState.INFO,
+                           NLS.bind(LOG_IMPORT_TOURS_IMPORTED_FROM_FILE, _newlyImportedTours.size(), osFilePath));
+
+                  } else {
+
+                     _invalidFilesList.add(osFilePath);
+
+                     TourLogManager.addSubLog(TourLogState.IMPORT_ERROR, osFilePath);
+                  }
                }
+
+            } finally {
+
+               // discard imports which are not yet processed when the import is canceled
+               importExecutor.shutdownNow();
             }
 
             save_InvalidFilesToIgnore_InTxt();
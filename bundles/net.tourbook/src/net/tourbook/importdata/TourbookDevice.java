@@ -241,6 +241,20 @@ public abstract class TourbookDevice implements IRawDataReader {
     */
    public abstract int getStartSequenceSize();
 
+   /**
+    * Files are imported concurrently only when all devices, which can read the file extension,
+    * support it. A device supports parallel import when
+    * {@link #processDeviceData(String, DeviceData, java.util.HashMap, java.util.HashMap)} does not
+    * share state between different instances of the device, each import thread is using its own
+    * device instance.
+    *
+    * @return Returns <code>true</code> when files for this device can be imported concurrently,
+    *         default is <code>false</code>.
+    */
+   public boolean isParallelImportSupported() {
+      return false;
+   }
+
    /**
     * Check if the file is a valid device xml file.
     *
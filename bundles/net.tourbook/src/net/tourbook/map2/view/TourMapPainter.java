@@ -92,6 +92,12 @@ public class TourMapPainter extends MapPainter {
    private static final int                MARKER_MARGIN     = 2;
    private static final int                MARKER_POLE       = 16;
 
+   /**
+    * Max number of tile indices which are kept, the maps and map previews can paint different
+    * tours at different zoom levels
+    */
+   private static final int                MAX_TOUR_TILE_INDICES = 8;
+
    final static IPreferenceStore           _prefStore        = TourbookPlugin.getPrefStore();
 
    private static IPropertyChangeListener  _prefChangeListener;
@@ -125,6 +131,12 @@ public class TourMapPainter extends MapPainter {
 
    private final static NumberFormat       _nf1              = NumberFormat.getNumberInstance();
 
+   /**
+    * Tile indices for the painted tours, projections and zoom levels, the last used index is the
+    * first in the list
+    */
+   private static final ArrayList<TourTileIndex> _allTourTileIndices = new ArrayList<>();
+
    /*
     * UI resources
     */
@@ -948,7 +960,33 @@ public class TourMapPainter extends MapPainter {
          TourData prevTourData = null;
          final long geoCompareRefTourId = ReferenceTourManager.getGeoCompareReferenceTourId();
 
-         for (final TourData tourData : tourDataList) {
+         // get the tour segments which are inside of this tile
+         final MP mp = map.getMapProvider();
+         final TourTileIndex tourTileIndex = getTourTileIndex(
+               tourDataList,
+               mp,
+               map.getZoom(),
+               mp.getProjection().getId());
+
+         final int[] tileSegments = tourTileIndex.getTileSegments(tile.getX(), tile.getY());
+         final int numTileSegmentValues = tileSegments == null ? 0 : tileSegments.length;
+
+         int tourSegmentPos = 0;
+
+         for (int tourIndex = 0; tourIndex < tourDataList.size(); tourIndex++) {
+
+            final TourData tourData = tourDataList.get(tourIndex);
+
+            // get the segments of the current tour, segments are sorted by the tour index
+            while (tourSegmentPos < numTileSegmentValues && tileSegments[tourSegmentPos] < tourIndex) {
+               tourSegmentPos += TourTileIndex.SEGMENT_SIZE;
+            }
+
+            final int firstTourSegmentPos = tourSegmentPos;
+
+            while (tourSegmentPos < numTileSegmentValues && tileSegments[tourSegmentPos] == tourIndex) {
+               tourSegmentPos += TourTileIndex.SEGMENT_SIZE;
+            }
 
             if (tourData == null) {
                continue;
@@ -1003,7 +1041,10 @@ public class TourMapPainter extends MapPainter {
                   systemColorBlue,
                   isGeoCompareRefTour,
                   refTourStartIndex,
-                  refTourEndIndex);
+                  refTourEndIndex,
+                  tileSegments,
+                  firstTourSegmentPos,
+                  tourSegmentPos);
 
             isContentInTile = isContentInTile || isDrawTourInTile;
 
@@ -1408,7 +1449,16 @@ public class TourMapPainter extends MapPainter {
                                       final Color systemColorBlue,
                                       final boolean isGeoCompareRefTour,
                                       final int refTourStartIndex,
-                                      final int refTourEndIndex) {
+                                      final int refTourEndIndex,
+                                      final int[] tileSegments,
+                                      final int firstTourSegmentPos,
+                                      final int endTourSegmentPos) {
+
+      if (firstTourSegmentPos == endTourSegmentPos) {
+
+         // tour positions are not inside of this tile
+         return false;
+      }
 
       boolean isTourInTile = false;
       final Long tourId = tourData.getTourId();
@@ -1438,7 +1488,7 @@ public class TourMapPainter extends MapPainter {
        * world positions are cached to optimize performance when multiple tours are selected
        */
       final String projectionId = mp.getProjection().getId();
-      Point tourWorldPixelPosAll[] = tourData.getWorldPositionForTour(projectionId, mapZoomLevel);
+      int tourWorldPixelPosAll[] = tourData.getWorldPositionForTour(projectionId, mapZoomLevel);
 
       if ((tourWorldPixelPosAll == null)) {
 
@@ -1451,6 +1501,23 @@ public class TourMapPainter extends MapPainter {
                projectionId);
       }
 
+      final int numSerieValues = longitudeSerie.length;
+      final boolean isDrawLine = _prefIsDrawLine && _isFastPainting == false;
+
+      /*
+       * The first visible data point is painted with a dot, this state must be set also when the
+       * positions before a tour segment are skipped
+       */
+      int firstVisibleSerieIndex = Integer.MAX_VALUE;
+      if (visibleDataPointSerie != null) {
+         for (int serieIndex = 1; serieIndex < numSerieValues; serieIndex++) {
+            if (visibleDataPointSerie[serieIndex]) {
+               firstVisibleSerieIndex = serieIndex;
+               break;
+            }
+         }
+      }
+
       gcTile.setForeground(systemColorBlue);
       gcTile.setBackground(systemColorBlue);
 
@@ -1495,8 +1562,52 @@ public class TourMapPainter extends MapPainter {
 
          gcTile.setLineWidth(_lineWidth);
 
+         int tourSegmentPos = firstTourSegmentPos;
+         int segmentEndSerieIndex = -1;
+
          for (int serieIndex = 0; serieIndex < longitudeSerie.length; serieIndex++) {
 
+            if (_isFastPainting == false && serieIndex > segmentEndSerieIndex) {
+
+               /*
+                * Skip the positions which are not needed to paint this tile, only the tour
+                * segments inside of the tile and the positions before and after a segment, which
+                * are the line start and end, are painted
+                */
+
+               if (tourSegmentPos >= endTourSegmentPos) {
+
+                  // all tour segments are painted
+                  break;
+               }
+
+               int segmentStartSerieIndex = tileSegments[tourSegmentPos + 1];
+               segmentEndSerieIndex = tileSegments[tourSegmentPos + 2];
+
+               tourSegmentPos += TourTileIndex.SEGMENT_SIZE;
+
+               if (isDrawLine) {
+
+                  segmentStartSerieIndex = Math.max(0, segmentStartSerieIndex - 1);
+                  segmentEndSerieIndex = Math.min(numSerieValues - 1, segmentEndSerieIndex + 1);
+               }
+
+               if (segmentStartSerieIndex > serieIndex) {
+
+                  serieIndex = segmentStartSerieIndex;
+
+                  // set visible state like when the skipped positions were checked
+                  if (visibleDataPointSerie != null) {
+
+                     isPrevVisibleDataPoint = serieIndex > 1 && visibleDataPointSerie[serieIndex - 1];
+
+                     if (firstVisibleSerieIndex < serieIndex) {
+                        isFirstVisibleDataPoint = true;
+                     }
+                  }
+               }
+            }
+
             if (_isFastPainting) {
 
                serieIndex += _fastPainting_SkippedValues;
@@ -1506,9 +1617,8 @@ public class TourMapPainter extends MapPainter {
                }
             }
 
-            final Point tourWorldPixel = tourWorldPixelPosAll[serieIndex];
-            final int tourWorldPixelX = tourWorldPixel.x;
-            final int tourWorldPixelY = tourWorldPixel.y;
+            final int tourWorldPixelX = tourWorldPixelPosAll[serieIndex * 2];
+            final int tourWorldPixelY = tourWorldPixelPosAll[serieIndex * 2 + 1];
 
             int devX = tourWorldPixelX - tileWorldPixelX;
             int devY = tourWorldPixelY - tileWorldPixelY;
@@ -1522,7 +1632,7 @@ public class TourMapPainter extends MapPainter {
                isInRefTourPart = serieIndex >= refTourStartIndex && serieIndex <= refTourEndIndex;
             }
 
-            if (_prefIsDrawLine && _isFastPainting == false) {
+            if (isDrawLine) {
 
                // draw as a line
 
@@ -1691,6 +1801,16 @@ public class TourMapPainter extends MapPainter {
                }
             }
          }
+
+         if (isDrawLine && visibleDataPointSerie != null && numSerieValues > 1) {
+
+            // set visible state like when all positions were checked, it is used for the next line
+            isPrevVisibleDataPoint = visibleDataPointSerie[numSerieValues - 1];
+
+            if (firstVisibleSerieIndex < numSerieValues) {
+               isFirstVisibleDataPoint = true;
+            }
+         }
       }
 
       return isTourInTile;
@@ -2140,6 +2260,91 @@ public class TourMapPainter extends MapPainter {
       return _colorCache.getColor((int) colorValue);
    }
 
+   /**
+    * @param tourDataList
+    * @param mp
+    * @param mapZoomLevel
+    * @param projectionId
+    * @return Returns the tile index for the painted tours, it is created when the tours or their
+    *         world positions have changed
+    */
+   private TourTileIndex getTourTileIndex(final ArrayList<TourData> tourDataList,
+                                          final MP mp,
+                                          final int mapZoomLevel,
+                                          final String projectionId) {
+
+      synchronized (_allTourTileIndices) {
+
+         for (int indexIndex = 0; indexIndex < _allTourTileIndices.size(); indexIndex++) {
+
+            final TourTileIndex tourTileIndex = _allTourTileIndices.get(indexIndex);
+
+            if (tourTileIndex.isValid(tourDataList, projectionId, mapZoomLevel)) {
+
+               // keep the last used index
+               if (indexIndex > 0) {
+                  _allTourTileIndices.remove(indexIndex);
+                  _allTourTileIndices.add(0, tourTileIndex);
+               }
+
+               return tourTileIndex;
+            }
+         }
+
+         final int numTours = tourDataList.size();
+
+         final TourData[] allTourData = tourDataList.toArray(new TourData[numTours]);
+         final int[][] allWorldPositions = new int[numTours][];
+
+         for (int tourIndex = 0; tourIndex < numTours; tourIndex++) {
+
+            final TourData tourData = allTourData[tourIndex];
+
+            if (tourData == null) {
+               continue;
+            }
+
+            final double[] latitudeSerie = tourData.latitudeSerie;
+            final double[] longitudeSerie = tourData.longitudeSerie;
+
+            if (latitudeSerie == null || longitudeSerie == null) {
+               continue;
+            }
+
+            int[] tourWorldPixelPosAll = tourData.getWorldPositionForTour(projectionId, mapZoomLevel);
+
+            if (tourWorldPixelPosAll == null) {
+
+               tourWorldPixelPosAll = initWorldPixelTour(
+                     tourData,
+                     mp,
+                     mapZoomLevel,
+                     latitudeSerie,
+                     longitudeSerie,
+                     projectionId);
+            }
+
+            allWorldPositions[tourIndex] = tourWorldPixelPosAll;
+         }
+
+         final TourTileIndex newTourTileIndex = new TourTileIndex(
+               allTourData,
+               allWorldPositions,
+               projectionId,
+               mapZoomLevel,
+               mp.getTileSize());
+
+         _allTourTileIndices.add(0, newTourTileIndex);
+
+         // remove the least recently used index, it could be invalid for the modified tours
+         if (_allTourTileIndices.size() > MAX_TOUR_TILE_INDICES) {
+            _allTourTileIndices.remove(_allTourTileIndices.size() - 1);
+         }
+
+         return newTourTileIndex;
+      }
+   }
+
    /**
     * world pixels are not yet cached, create them now
     *
@@ -2149,24 +2354,27 @@ public class TourMapPainter extends MapPainter {
     * @param latitudeSerie
     * @param longitudeSerie
     * @param projectionId
-    * @return
+    * @return Returns the world pixels, the x and y values are interleaved
     */
-   private Point[] initWorldPixelTour(final TourData tourData,
+   private int[] initWorldPixelTour(final TourData tourData,
                                       final MP mp,
                                       final int mapZoomLevel,
                                       final double[] latitudeSerie,
                                       final double[] longitudeSerie,
                                       final String projectionId) {
 
-      final Point[] tourWorldPixelPosAll = new Point[latitudeSerie.length];
+      final int[] tourWorldPixelPosAll = new int[latitudeSerie.length * 2];
 
       for (int serieIndex = 0; serieIndex < longitudeSerie.length; serieIndex++) {
 
          // convert lat/long into world pixels which depends on the map projection
 
-         tourWorldPixelPosAll[serieIndex] = mp.geoToPixel(//
+         final Point worldPixel = mp.geoToPixel(
                new GeoPosition(latitudeSerie[serieIndex], longitudeSerie[serieIndex]),
                mapZoomLevel);
+
+         tourWorldPixelPosAll[serieIndex * 2] = worldPixel.x;
+         tourWorldPixelPosAll[serieIndex * 2 + 1] = worldPixel.y;
       }
 
       tourData.setWorldPixelForTour(tourWorldPixelPosAll, mapZoomLevel, projectionId);
@@ -2346,8 +2554,15 @@ public class TourMapPainter extends MapPainter {
                                           final int tileWorldPixelTop,
                                           final int tileWorldPixelBottom) {
       /*
-       * check tours
+       * check tours, the tile index contains the tour positions which are inside of a tile
        */
+      final int tileSize = mp.getTileSize();
+      final TourTileIndex tourTileIndex = getTourTileIndex(tourDataList, mp, mapZoomLevel, projectionId);
+
+      if (tourTileIndex.getTileSegments(tileWorldPixelLeft / tileSize, tileWorldPixelTop / tileSize) != null) {
+         return true;
+      }
+
       for (final TourData tourData : tourDataList) {
 
          // check tour data
@@ -2355,49 +2570,6 @@ public class TourMapPainter extends MapPainter {
             continue;
          }
 
-         // check if position is available
-         final double[] latitudeSerie = tourData.latitudeSerie;
-         final double[] longitudeSerie = tourData.longitudeSerie;
-         if (latitudeSerie != null && longitudeSerie != null) {
-
-            /*
-             * world positions are cached to optimize performance when multiple tours are selected
-             */
-            Point tourWorldPixelPosAll[] = tourData.getWorldPositionForTour(projectionId, mapZoomLevel);
-            if ((tourWorldPixelPosAll == null)) {
-
-               // world pixels are not yet cached, create them now
-
-               tourWorldPixelPosAll = initWorldPixelTour(
-                     tourData,
-                     mp,
-                     mapZoomLevel,
-                     latitudeSerie,
-                     longitudeSerie,
-                     projectionId);
-            }
-
-            for (int serieIndex = 0; serieIndex < longitudeSerie.length; serieIndex++) {
-
-               final Point tourWorldPixel = tourWorldPixelPosAll[serieIndex];
-
-               // this is an inline for: tileViewport.contains(tileWorldPos.x, tileWorldPos.y)
-               final int tourWorldPixelX = tourWorldPixel.x;
-               final int tourWorldPixelY = tourWorldPixel.y;
-
-               // check if position is within the tile viewport
-               if ((tourWorldPixelX >= tileWorldPixelLeft)
-                     && (tourWorldPixelY >= tileWorldPixelTop)
-                     && tourWorldPixelX < tileWorldPixelRight
-                     && tourWorldPixelY < tileWorldPixelBottom) {
-
-                  // current position is inside the tile
-
-                  return true;
-               }
-            }
-         }
-
          /*
           * check way points
           */
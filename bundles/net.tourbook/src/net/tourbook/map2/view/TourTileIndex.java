@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.map2.view;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.List;
+
+import net.tourbook.data.TourData;
+
+/**
+ * Spatial index for the tours which are painted in the map at one zoom level. It contains for each
+ * tile the segments of the tours which are inside of the tile, so that painting a tile do not need
+ * to check all positions of all tours.
+ * <p>
+ * A segment contains the index of the tour in the painted tour list and the first and last serie
+ * index of consecutive positions which are inside of the tile.
+ */
+class TourTileIndex {
+
+   /**
+    * Number of int values for one segment: tour index, first serie index, last serie index
+    */
+   static final int                       SEGMENT_SIZE = 3;
+
+   private final String                   _projectionId;
+   private final int                      _zoomLevel;
+
+   private final TourData[]               _allTourData;
+   private final int[][]                  _allWorldPositions;
+
+   /**
+    * Key is the tile position, value contains the segments of all tours which are inside of the
+    * tile, sorted by the tour index and serie index
+    */
+   private final TLongObjectHashMap<int[]> _allTileSegments = new TLongObjectHashMap<>();
+
+   /**
+    * @param allTourData
+    *           Painted tours, can contain <code>null</code>
+    * @param allWorldPositions
+    *           World positions for each tour with interleaved x and y values or <code>null</code>
+    *           when a tour do not have geo positions
+    * @param projectionId
+    * @param zoomLevel
+    * @param tileSize
+    */
+   TourTileIndex(final TourData[] allTourData,
+                 final int[][] allWorldPositions,
+                 final String projectionId,
+                 final int zoomLevel,
+                 final int tileSize) {
+
+      _allTourData = allTourData;
+      _allWorldPositions = allWorldPositions;
+      _projectionId = projectionId;
+      _zoomLevel = zoomLevel;
+
+      final TLongObjectHashMap<TIntArrayList> allTileSegments = new TLongObjectHashMap<>();
+
+      for (int tourIndex = 0; tourIndex < allWorldPositions.length; tourIndex++) {
+
+         final int[] worldPositions = allWorldPositions[tourIndex];
+
+         if (worldPositions == null || worldPositions.length == 0) {
+            continue;
+         }
+
+         final int numPositions = worldPositions.length / 2;
+
+         long segmentTileKey = 0;
+         int segmentFirstIndex = 0;
+
+         for (int serieIndex = 0; serieIndex < numPositions; serieIndex++) {
+
+            final long tileKey = getTileKey(
+                  Math.floorDiv(worldPositions[serieIndex * 2], tileSize),
+                  Math.floorDiv(worldPositions[serieIndex * 2 + 1], tileSize));
+
+            if (serieIndex == 0) {
+
+               segmentTileKey = tileKey;
+
+            } else if (tileKey != segmentTileKey) {
+
+               // position is in another tile
+
+               addSegment(allTileSegments, segmentTileKey, tourIndex, segmentFirstIndex, serieIndex - 1);
+
+               segmentTileKey = tileKey;
+               segmentFirstIndex = serieIndex;
+            }
+         }
+
+         addSegment(allTileSegments, segmentTileKey, tourIndex, segmentFirstIndex, numPositions - 1);
+      }
+
+      for (final long tileKey : allTileSegments.keys()) {
+         _allTileSegments.put(tileKey, allTileSegments.get(tileKey).toArray());
+      }
+   }
+
+   private static void addSegment(final TLongObjectHashMap<TIntArrayList> allTileSegments,
+                                  final long tileKey,
+                                  final int tourIndex,
+                                  final int firstSerieIndex,
+                                  final int lastSerieIndex) {
+
+      TIntArrayList tileSegments = allTileSegments.get(tileKey);
+
+      if (tileSegments == null) {
+
+         tileSegments = new TIntArrayList(SEGMENT_SIZE);
+
+         allTileSegments.put(tileKey, tileSegments);
+      }
+
+      tileSegments.add(tourIndex);
+      tileSegments.add(firstSerieIndex);
+      tileSegments.add(lastSerieIndex);
+   }
+
+   private static long getTileKey(final int tileX, final int tileY) {
+
+      return ((long) tileX << 32) | (tileY & 0xffffffffL);
+   }
+
+   /**
+    * @param tileX
+    * @param tileY
+    * @return Returns the segments of all tours which are inside of the tile, each segment has
+    *         {@link #SEGMENT_SIZE} values, or <code>null</code> when a tour is not inside of the
+    *         tile
+    */
+   int[] getTileSegments(final int tileX, final int tileY) {
+
+      return _allTileSegments.get(getTileKey(tileX, tileY));
+   }
+
+   /**
+    * @param allTourData
+    * @param projectionId
+    * @param zoomLevel
+    * @return Returns <code>true</code> when this index is created for the tours and their current
+    *         world positions
+    */
+   boolean isValid(final List<TourData> allTourData, final String projectionId, final int zoomLevel) {
+
+      if (zoomLevel != _zoomLevel
+            || projectionId.equals(_projectionId) == false
+            || allTourData.size() != _allTourData.length) {
+
+         return false;
+      }
+
+      for (int tourIndex = 0; tourIndex < _allTourData.length; tourIndex++) {
+
+         final TourData tourData = allTourData.get(tourIndex);
+
+         if (tourData != _allTourData[tourIndex]) {
+            return false;
+         }
+
+         if (tourData == null) {
+            continue;
+         }
+
+         final int[] worldPositions = _allWorldPositions[tourIndex];
+
+         if (worldPositions == null) {
+
+            // geo positions could be added to the tour
+            if (tourData.latitudeSerie != null && tourData.longitudeSerie != null) {
+               return false;
+            }
+
+         } else if (tourData.getWorldPositionForTour(projectionId, zoomLevel) != worldPositions) {
+
+            // world positions are reset when the data series are modified
+            return false;
+         }
+      }
+
+      return true;
+   }
+}
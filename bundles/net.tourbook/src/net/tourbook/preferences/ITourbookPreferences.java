@@ -33,8 +33,9 @@ public interface ITourbookPreferences {
    /*
     * system
     */
-   public static final String TOUR_CACHE_SIZE      = "TourCacheSize";        //$NON-NLS-1$
-   public static final String CLEAR_TOURDATA_CACHE = "CLEAR_TOURDATA_CACHE"; //$NON-NLS-1$
+   public static final String TOUR_CACHE_SIZE       = "TourCacheSize";        //$NON-NLS-1$
+   public static final String TOUR_CACHE_MAX_MEMORY = "TourCacheMaxMemory";   //$NON-NLS-1$
+   public static final String CLEAR_TOURDATA_CACHE  = "CLEAR_TOURDATA_CACHE"; //$NON-NLS-1$
 
    /*
     * tour database
@@ -19,6 +19,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.tourbook.Messages;
 import net.tourbook.application.TourbookPlugin;
@@ -935,7 +936,8 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
 
       saveState();
 
-      final int[] oldBreakTime = { 0 };
+      // old values are summarized concurrently, new values are summarized in one thread
+      final AtomicInteger oldBreakTime = new AtomicInteger();
       final int[] newBreakTime = { 0 };
 
       final IComputeTourValues computeTourValueConfig = new IComputeTourValues() {
@@ -947,7 +949,7 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
 
             // get old break time
             final int tourDrivingTime = (int) oldTourData.getTourDrivingTime();
-            oldBreakTime[0] += tourRecordingTime - tourDrivingTime;
+            oldBreakTime.addAndGet(tourRecordingTime - tourDrivingTime);
 
             // force the break time to be recomputed with the current values which are already store in the pref store
             oldTourData.setBreakTimeSerie(null);
@@ -964,7 +966,7 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
             return NLS.bind(
                   Messages.Compute_BreakTime_ForAllTour_Job_Result, //
                   new Object[] {
-                        net.tourbook.common.UI.format_hh_mm_ss(oldBreakTime[0]),
+                        net.tourbook.common.UI.format_hh_mm_ss(oldBreakTime.get()),
                         net.tourbook.common.UI.format_hh_mm_ss(newBreakTime[0]), });
          }
 
@@ -985,7 +987,7 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
                subTaskText = NLS.bind(
                      Messages.Compute_BreakTime_ForAllTour_Job_SubTask, //
                      new Object[] {
-                           net.tourbook.common.UI.format_hh_mm_ss(oldBreakTime[0]),
+                           net.tourbook.common.UI.format_hh_mm_ss(oldBreakTime.get()),
                            net.tourbook.common.UI.format_hh_mm_ss(newBreakTime[0]), });
             }
 
@@ -1087,7 +1089,9 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
 
       saveState();
 
-      final int[] elevation = new int[] { 0, 0 };
+      // old values are summarized concurrently, new values are summarized in one thread
+      final AtomicInteger oldElevation = new AtomicInteger();
+      final int[] newElevation = { 0 };
 
       final IComputeTourValues computeTourValueConfig = new IComputeTourValues() {
 
@@ -1095,7 +1099,7 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
          public boolean computeTourValues(final TourData oldTourData) {
 
             // keep old value
-            elevation[0] += oldTourData.getTourAltUp();
+            oldElevation.addAndGet(oldTourData.getTourAltUp());
 
             return oldTourData.computeAltitudeUpDown();
          }
@@ -1114,7 +1118,7 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
          @Override
          public String getResultText() {
 
-            final int elevationDifference = elevation[1] - elevation[0];
+            final int elevationDifference = newElevation[0] - oldElevation.get();
             final String differenceResult = getElevationDifferenceString(elevationDifference);
 
             return NLS.bind(
@@ -1134,9 +1138,9 @@ public class PrefPageComputedValues extends PreferencePage implements IWorkbench
             if (savedTourData != null) {
 
                // summarize new values
-               elevation[1] += savedTourData.getTourAltUp();
+               newElevation[0] += savedTourData.getTourAltUp();
 
-               final int elevationDifference = elevation[1] - elevation[0];
+               final int elevationDifference = newElevation[0] - oldElevation.get();
                final String differenceResult = getElevationDifferenceString(elevationDifference);
 
                subTaskText = NLS.bind(
@@ -24,6 +24,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.tourbook.Messages;
 import net.tourbook.application.TourbookPlugin;
@@ -365,15 +366,16 @@ public class PrefPagePeople extends PreferencePage implements IWorkbenchPreferen
 
       setErrorMessage(null);
 
-      final int[] tourCounter = { 0 };
-      final int[] tourCounterWithHrZones = { 0 };
+      // tour values are computed concurrently
+      final AtomicInteger tourCounter = new AtomicInteger();
+      final AtomicInteger tourCounterWithHrZones = new AtomicInteger();
 
       final IComputeTourValues computeTourValueConfig = new IComputeTourValues() {
 
          @Override
          public boolean computeTourValues(final TourData originalTourData) {
 
-            tourCounter[0]++;
+            tourCounter.incrementAndGet();
 
             if (isCheckPeople) {
 
@@ -398,7 +400,7 @@ public class PrefPagePeople extends PreferencePage implements IWorkbenchPreferen
             for (final int hrZone : allHrZones) {
                if (hrZone != -1) {
                   // hr zone is set
-                  tourCounterWithHrZones[0]++;
+                  tourCounterWithHrZones.incrementAndGet();
                   return true;
                }
             }
@@ -410,13 +412,13 @@ public class PrefPagePeople extends PreferencePage implements IWorkbenchPreferen
          public String getResultText() {
 
             return NLS.bind(Messages.Compute_HrZones_Job_ComputeAllTours_Result, //
-                  new Object[] { tourCounterWithHrZones[0] });
+                  new Object[] { tourCounterWithHrZones.get() });
          }
 
          @Override
          public String getSubTaskText(final TourData savedTourData) {
             return NLS.bind(Messages.Compute_HrZones_Job_ComputeAllTours_SubTask, //
-                  new Object[] { tourCounterWithHrZones[0], tourCounter[0] });
+                  new Object[] { tourCounterWithHrZones.get(), tourCounter.get() });
          }
       };
 
@@ -23,6 +23,7 @@ import net.tourbook.application.TourbookPlugin;
 import net.tourbook.common.UI;
 import net.tourbook.common.util.StatusUtil;
 import net.tourbook.database.TourDatabase;
+import net.tourbook.tour.TourManager;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.dialogs.MessageDialog;
@@ -76,6 +77,9 @@ public class PrefPageTour extends PreferencePage implements IWorkbenchPreference
 	 * UI controls
 	 */
 	private Spinner					_spinnerTourCacheSize;
+	private Spinner					_spinnerTourCacheMemory;
+
+	private Label					_lblTourCacheStatistics;
 
 	private Button					_rdoDbSystemEmbedded;
 	private Button					_rdoDbSystemServer;
@@ -167,6 +171,49 @@ public class PrefPageTour extends PreferencePage implements IWorkbenchPreference
 			_spinnerTourCacheSize.setMinimum(0);
 			_spinnerTourCacheSize.setMaximum(100000);
 			_spinnerTourCacheSize.addMouseWheelListener(_defaultMouseWheelListener);
+
+			/*
+			 * label: cache memory
+			 */
+			label = new Label(group, NONE);
+			GridDataFactory.fillDefaults()//
+					.align(SWT.BEGINNING, SWT.CENTER)
+					.applyTo(label);
+			label.setText(Messages.Pref_Tour_Label_TourCacheMemory);
+			label.setToolTipText(Messages.Pref_Tour_Label_TourCacheMemory_Tooltip);
+
+			final Composite container = new Composite(group, SWT.NONE);
+			GridDataFactory.fillDefaults().grab(true, false).applyTo(container);
+			GridLayoutFactory.fillDefaults().numColumns(2).applyTo(container);
+			{
+				// spinner: cache memory
+				_spinnerTourCacheMemory = new Spinner(container, SWT.BORDER);
+				GridDataFactory.fillDefaults()//
+						.hint(_defaultSpinnerWidth, SWT.DEFAULT)
+						.align(SWT.BEGINNING, SWT.CENTER)
+						.applyTo(_spinnerTourCacheMemory);
+				_spinnerTourCacheMemory.setMinimum(10);
+				_spinnerTourCacheMemory.setMaximum(100000);
+				_spinnerTourCacheMemory.setToolTipText(Messages.Pref_Tour_Label_TourCacheMemory_Tooltip);
+				_spinnerTourCacheMemory.addMouseWheelListener(_defaultMouseWheelListener);
+
+				// label: unit
+				label = new Label(container, NONE);
+				GridDataFactory.fillDefaults()//
+						.align(SWT.BEGINNING, SWT.CENTER)
+						.applyTo(label);
+				label.setText(Messages.Pref_Tour_Label_TourCacheMemory_Unit);
+			}
+
+			/*
+			 * label: cache statistics
+			 */
+			_lblTourCacheStatistics = new Label(group, SWT.WRAP);
+			GridDataFactory.fillDefaults()//
+					.grab(true, false)
+					.indent(0, verticalIndent)
+					.span(2, 1)
+					.applyTo(_lblTourCacheStatistics);
 		}
 	}
 
@@ -276,6 +323,8 @@ public class PrefPageTour extends PreferencePage implements IWorkbenchPreference
 
 		_spinnerTourCacheSize.setSelection(//
 				_prefStore.getDefaultInt(ITourbookPreferences.TOUR_CACHE_SIZE));
+		_spinnerTourCacheMemory.setSelection(//
+				_prefStore.getDefaultInt(ITourbookPreferences.TOUR_CACHE_MAX_MEMORY));
 
 		final boolean isEmbedded = _prefStore.getDefaultBoolean(ITourbookPreferences.TOUR_DATABASE_IS_DERBY_EMBEDDED);
 		_rdoDbSystemEmbedded.setSelection(isEmbedded);
@@ -339,6 +388,9 @@ public class PrefPageTour extends PreferencePage implements IWorkbenchPreference
 	private void restoreState() {
 
 		_spinnerTourCacheSize.setSelection(_prefStore.getInt(ITourbookPreferences.TOUR_CACHE_SIZE));
+		_spinnerTourCacheMemory.setSelection(_prefStore.getInt(ITourbookPreferences.TOUR_CACHE_MAX_MEMORY));
+
+		_lblTourCacheStatistics.setText(TourManager.getInstance().getTourCacheStatistics());
 
 		// tour db system
 		final boolean isEmbedded = _prefStore.getBoolean(ITourbookPreferences.TOUR_DATABASE_IS_DERBY_EMBEDDED);
@@ -353,6 +405,10 @@ public class PrefPageTour extends PreferencePage implements IWorkbenchPreference
 				ITourbookPreferences.TOUR_CACHE_SIZE,
 				_spinnerTourCacheSize.getSelection());
 
+		_prefStore.setValue(//
+				ITourbookPreferences.TOUR_CACHE_MAX_MEMORY,
+				_spinnerTourCacheMemory.getSelection());
+
 		_prefStore.setValue(//
 				ITourbookPreferences.TOUR_DATABASE_IS_DERBY_EMBEDDED,
 				_rdoDbSystemEmbedded.getSelection());
@@ -55,6 +55,9 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
        */
       store.setDefault(ITourbookPreferences.TOUR_CACHE_SIZE, 500);
 
+      // MByte, 1/4 of the available heap but not more than 512 MByte
+      store.setDefault(ITourbookPreferences.TOUR_CACHE_MAX_MEMORY, (int) Math.min(512, Runtime.getRuntime().maxMemory() / 4 / 1024 / 1024));
+
       /*
        * tour database, default is embedded
        */
@@ -1,14 +1,14 @@
 /*******************************************************************************
- * Copyright (C) 2005, 2009  Wolfgang Schramm and Contributors
- * 
+ * Copyright (C) 2005, 2020  Wolfgang Schramm and Contributors
+ *
  * This program is free software; you can redistribute it and/or modify it under
  * the terms of the GNU General Public License as published by the Free Software
  * Foundation version 2 of the License.
- * 
+ *
  * This program is distributed in the hope that it will be useful, but WITHOUT
  * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
  * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
- * 
+ *
  * You should have received a copy of the GNU General Public License along with
  * this program; if not, write to the Free Software Foundation,
  * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
@@ -18,35 +18,63 @@
  */
 package net.tourbook.srtm;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * SRTM3 elevation data, the elevation values are read from memory mapped files.
+ * <p>
+ * The elevation lookup is thread safe and do not need a lock when the SRTM3 file is already
+ * opened. The coordinates are computed in the same way as with {@link GeoLat} and {@link GeoLon}
+ * but without creating these objects.
+ */
 public final class ElevationSRTM3 extends ElevationBase {
 
-	private static final String									ELEVATION_ID	= "SRTM3";										//$NON-NLS-1$
+	private static final String										ELEVATION_ID	= "SRTM3";								//$NON-NLS-1$
+
+	/**
+	 * Max number of SRTM3 files which are kept open, the least recently used file is closed when
+	 * more files are opened
+	 */
+	private static final int										MAX_OPEN_FILES	= 32;
+
+	/**
+	 * Distance between two elevation values (3 seconds) in {@link GeoCoord#decimal} units
+	 */
+	private static final int										GRID_DECIMAL	= 3 * GeoCoord.fakts;
 
-	private static final HashMap<Integer, SRTM3ElevationFile>	fileMap			= new HashMap<Integer, SRTM3ElevationFile>();	// default initial 16 Files
-	private static SRTM3ElevationFile							srtm3I;
+	/**
+	 * Contains the opened SRTM3 files, key is created from the lat/lon degrees. This map is not
+	 * modified, it is replaced when a file is opened or closed, so it can be read without a lock.
+	 */
+	private static volatile TIntObjectHashMap<SRTM3ElevationFile>	_fileMap		= new TIntObjectHashMap<>();
 
-	private class SRTM3ElevationFile {
+	private static final ReentrantLock								_fileMapLock	= new ReentrantLock();
+	private static final AtomicLong									_accessCounter	= new AtomicLong();
 
-		ElevationFile	elevationFile;
+	private static class SRTM3ElevationFile {
 
-		private SRTM3ElevationFile(final GeoLat lat, final GeoLon lon) {
+		private ElevationFile	elevationFile;
 
-//			System.out.println(lat + " - " + lon); //$NON-NLS-1$
-//			// TODO remove SYSTEM.OUT.PRINTLN
+		private volatile long	lastAccess;
+
+		private SRTM3ElevationFile(	final boolean isSouth,
+									final int latDegrees,
+									final boolean isWest,
+									final int lonDegrees) {
 
 			final String srtm3DataPath = getElevationDataPath("srtm3"); //$NON-NLS-1$
 			final String srtm3Suffix = ".hgt"; //$NON-NLS-1$
 
 			final String fileName = new String(srtm3DataPath
 					+ File.separator
-					+ lat.direction
-					+ NumberForm.n2((lat.direction == GeoLat.DIRECTION_NORTH) ? lat.degrees : lat.degrees + 1)
-					+ lon.direction
-					+ NumberForm.n3((lon.direction == GeoLon.DIRECTION_EAST) ? lon.degrees : lon.degrees + 1)
+					+ (isSouth ? GeoLat.DIRECTION_SOUTH : GeoLat.DIRECTION_NORTH)
+					+ NumberForm.n2(isSouth ? latDegrees + 1 : latDegrees)
+					+ (isWest ? GeoLon.DIRECTION_WEST : GeoLon.DIRECTION_EAST)
+					+ NumberForm.n3(isWest ? lonDegrees + 1 : lonDegrees)
 					+ srtm3Suffix);
 
 			try {
@@ -56,179 +84,306 @@ public final class ElevationSRTM3 extends ElevationBase {
 			}
 		}
 
-		private float getElevation(final GeoLat lat, final GeoLon lon) {
-			return elevationFile.get(srtmFileOffset(lat, lon));
+		private void close() {
+
+			if (elevationFile != null) {
+				elevationFile.close();
+			}
 		}
 
-		//    Offset in the SRTM3-File
-		private int srtmFileOffset(final GeoLat lat, final GeoLon lon) {
+		private float getElevation(final int offset) {
 
-			if (lat.direction == GeoLat.DIRECTION_SOUTH) {
-				if (lon.direction == GeoLon.DIRECTION_EAST) {
+			if (elevationFile == null) {
+				// file could not be opened
+				return -32767;
+			}
 
-					// SOUTH - EAST
+			return elevationFile.get(offset);
+		}
+	}
 
-					return 1201//
-							* (lat.minutes * 20 + lat.seconds / 3)
-							+ lon.minutes
-							* 20
-							+ lon.seconds
-							/ 3;
-				} else {
+	public ElevationSRTM3() {
+		gridLat.setDegreesMinutesSecondsDirection(0, 0, 3, 'N');
+		gridLon.setDegreesMinutesSecondsDirection(0, 0, 3, 'E');
+	}
 
-					// SOUTH - WEST
+	/**
+	 * Clears the file cache by closing and removing all evaluation files
+	 */
+	public static void clearElevationFileCache() {
 
-					return 1201//
-							* (lat.minutes * 20 + lat.seconds / 3)
-							+ 1200
-							- lon.minutes
-							* 20
-							- lon.seconds
-							/ 3;
-				}
-			} else {
+		_fileMapLock.lock();
+		try {
+
+			// close all files
+			for (final SRTM3ElevationFile srtm3File : _fileMap.valueCollection()) {
+				srtm3File.close();
+			}
 
-				if (lon.direction == GeoLon.DIRECTION_EAST) {
+			_fileMap = new TIntObjectHashMap<>();
 
-					// NORTH -EAST
+		} finally {
+			_fileMapLock.unlock();
+		}
+	}
 
-					return 1201//
-							* (1200 - lat.minutes * 20 - lat.seconds / 3)
-							+ lon.minutes
-							* 20
-							+ lon.seconds
-							/ 3;
-				} else {
+	/**
+	 * @param decimal
+	 * @return Returns the grid position to the left like {@link GeoCoord#toLeft(GeoCoord)}
+	 */
+	private static int gridToLeft(final int decimal) {
 
-					// NORTH - WEST
+		int gridDecimal = decimal;
 
-					return 1201
-							* (1200 - lat.minutes * 20 - lat.seconds / 3)
-							+ 1200
-							- lon.minutes
-							* 20
-							- lon.seconds
-							/ 3;
-				}
-			}
+		if (gridDecimal < 0) {
+			gridDecimal -= GRID_DECIMAL;
 		}
-//		public int srtmFileOffset(final GeoLat lat, final GeoLon lon) {
-//
-//			if (lat.isSouth()) {
-//				if (lon.isEast()) {
-//					return 1201
-//					* (lat.getMinutes() * 20 + lat.getSeconds() / 3)
-//					+ lon.getMinutes()
-//					* 20
-//					+ lon.getSeconds()
-//					/ 3;
-//				} else {
-//					return 1201
-//					* (lat.getMinutes() * 20 + lat.getSeconds() / 3)
-//					+ 1200
-//					- lon.getMinutes()
-//					* 20
-//					- lon.getSeconds()
-//					/ 3;
-//				}
-//			} else {
-//				if (lon.isEast()) {
-//					return 1201
-//					* (1200 - lat.getMinutes() * 20 - lat.getSeconds() / 3)
-//					+ lon.getMinutes()
-//					* 20
-//					+ lon.getSeconds()
-//					/ 3;
-//				} else {
-//					return 1201
-//					* (1200 - lat.getMinutes() * 20 - lat.getSeconds() / 3)
-//					+ 1200
-//					- lon.getMinutes()
-//					* 20
-//					- lon.getSeconds()
-//					/ 3;
-//				}
-//			}
-//		}
+
+		return gridDecimal / GRID_DECIMAL * GRID_DECIMAL;
 	}
 
-	public ElevationSRTM3() {
-		gridLat.setDegreesMinutesSecondsDirection(0, 0, 3, 'N');
-		gridLon.setDegreesMinutesSecondsDirection(0, 0, 3, 'E');
+	/**
+	 * @param decimal
+	 * @return Returns the grid position to the right like {@link GeoCoord#toRight(GeoCoord)}
+	 */
+	private static int gridToRight(final int decimal) {
+
+		int gridDecimal = decimal / GRID_DECIMAL * GRID_DECIMAL;
+
+		if (gridDecimal >= 0) {
+			gridDecimal += GRID_DECIMAL;
+		}
+
+		return gridDecimal;
 	}
 
 	/**
-	 * Clears the file cache by closing and removing all evaluation files
+	 * Opens a SRTM3 file, the least recently used file is closed when too many files are open.
 	 */
-	public static synchronized void clearElevationFileCache() {
+	private static SRTM3ElevationFile openFile(	final int fileKey,
+												final boolean isSouth,
+												final int latDegrees,
+												final boolean isWest,
+												final int lonDegrees) {
+
+		_fileMapLock.lock();
+		try {
+
+			// check again, the file could be opened in another thread
+			SRTM3ElevationFile srtm3File = _fileMap.get(fileKey);
+
+			if (srtm3File != null) {
+				return srtm3File;
+			}
+
+			srtm3File = new SRTM3ElevationFile(isSouth, latDegrees, isWest, lonDegrees);
+
+			final TIntObjectHashMap<SRTM3ElevationFile> newFileMap = new TIntObjectHashMap<>(_fileMap);
+
+			while (newFileMap.size() >= MAX_OPEN_FILES) {
+
+				// close least recently used file
+
+				int lruKey = 0;
+				SRTM3ElevationFile lruFile = null;
+
+				for (final int key : newFileMap.keys()) {
 
-		// close all files
-		for (final Entry<Integer, SRTM3ElevationFile> entry : fileMap.entrySet()) {
-			entry.getValue().elevationFile.close();
+					final SRTM3ElevationFile openFile = newFileMap.get(key);
+
+					if (lruFile == null || openFile.lastAccess < lruFile.lastAccess) {
+						lruKey = key;
+						lruFile = openFile;
+					}
+				}
+
+				newFileMap.remove(lruKey);
+
+				/*
+				 * The mapped buffer is still valid when the channel is closed, so other threads
+				 * which are reading from this file are not affected.
+				 */
+				lruFile.close();
+			}
+
+			newFileMap.put(fileKey, srtm3File);
+
+			_fileMap = newFileMap;
+
+			return srtm3File;
+
+		} finally {
+			_fileMapLock.unlock();
 		}
+	}
+
+	/**
+	 * Thread safe elevation lookup which do not create {@link GeoLat} and {@link GeoLon} objects.
+	 *
+	 * @param latitude
+	 * @param longitude
+	 * @return Returns the elevation, it is {@link Float#MIN_VALUE} when the elevation cannot be
+	 *         interpolated from valid values.
+	 */
+	public float getElevation(final double latitude, final double longitude) {
+
+		// convert into the same units as GeoLat/GeoLon
+		final int latDecimal = (int) (latitude * GeoCoord.faktg);
+		final int lonDecimal = (int) (longitude * GeoCoord.faktg);
 
-		fileMap.clear();
+		return getElevationDecimal(latDecimal, lonDecimal);
 	}
 
 	@Override
 	public float getElevation(final GeoLat lat, final GeoLon lon) {
+		return getElevationDecimal(lat.decimal, lon.decimal);
+	}
 
-		if (lat.tertias != 0) {
-			return getElevationGrid(lat, lon);
-		}
-		if (lon.tertias != 0) {
-			return getElevationGrid(lat, lon);
+	private float getElevationDecimal(final int latDecimal, final int lonDecimal) {
+
+		if (latDecimal % GRID_DECIMAL != 0 || lonDecimal % GRID_DECIMAL != 0) {
+
+			// position is between the grid values
+			return (float) getElevationInterpolated(latDecimal, lonDecimal);
 		}
-		if (lat.seconds % 3 != 0) {
-			return getElevationGrid(lat, lon);
+
+		return getElevationFromFile(latDecimal, lonDecimal);
+	}
+
+	@Override
+	public double getElevationDouble(final GeoLat lat, final GeoLon lon) {
+
+		if (lat.decimal == 0 && lon.decimal == 0) {
+			return 0.;
 		}
-		if (lon.seconds % 3 != 0) {
-			return getElevationGrid(lat, lon);
+
+		if (lat.decimal % GRID_DECIMAL != 0 || lon.decimal % GRID_DECIMAL != 0) {
+			return getElevationInterpolated(lat.decimal, lon.decimal);
 		}
 
-		int i = lon.degrees;
-		if (lon.direction == GeoLon.DIRECTION_WEST) {
-			i += 256;
+		return getElevationFromFile(lat.decimal, lon.decimal);
+	}
+
+	/**
+	 * @param latDecimal
+	 *            Latitude which is on a grid position
+	 * @param lonDecimal
+	 *            Longitude which is on a grid position
+	 * @return Returns the elevation value from the SRTM3 file
+	 */
+	private float getElevationFromFile(final int latDecimal, final int lonDecimal) {
+
+		final boolean isSouth = latDecimal < 0;
+		final boolean isWest = lonDecimal < 0;
+
+		final int latAbs = isSouth ? -latDecimal : latDecimal;
+		final int lonAbs = isWest ? -lonDecimal : lonDecimal;
+
+		final int latDegrees = latAbs / GeoCoord.faktg;
+		final int lonDegrees = lonAbs / GeoCoord.faktg;
+
+		// position within the degree in grid units, this is the same as minutes * 20 + seconds / 3
+		final int latGrid = (latAbs - latDegrees * GeoCoord.faktg) / GRID_DECIMAL;
+		final int lonGrid = (lonAbs - lonDegrees * GeoCoord.faktg) / GRID_DECIMAL;
+
+		int fileKey = lonDegrees;
+		if (isWest) {
+			fileKey += 256;
 		}
-		i *= 1024;
-		i += lat.degrees;
-		if (lat.direction == GeoLat.DIRECTION_SOUTH) {
-			i += 256;
+		fileKey *= 1024;
+		fileKey += latDegrees;
+		if (isSouth) {
+			fileKey += 256;
 		}
 
-		final Integer ii = new Integer(i);
-		srtm3I = fileMap.get(ii);
+		SRTM3ElevationFile srtm3File = _fileMap.get(fileKey);
 
-		if (srtm3I == null) {
+		if (srtm3File == null) {
 			// first time only
-			srtm3I = new SRTM3ElevationFile(lat, lon);
-			fileMap.put(ii, srtm3I);
+			srtm3File = openFile(fileKey, isSouth, latDegrees, isWest, lonDegrees);
 		}
 
-		return srtm3I.getElevation(lat, lon);
+		srtm3File.lastAccess = _accessCounter.incrementAndGet();
 
-	}
+		// offset in the SRTM3 file
+		final int rowOffset = 1201 * (isSouth ? latGrid : 1200 - latGrid);
+		final int columnOffset = isWest ? 1200 - lonGrid : lonGrid;
 
-	@Override
-	public double getElevationDouble(final GeoLat lat, final GeoLon lon) {
+		return srtm3File.getElevation(rowOffset + columnOffset);
+	}
 
-		if (lat.decimal == 0 && lon.decimal == 0) {
-			return 0.;
+	/**
+	 * Interpolates the elevation from the 4 surrounding grid values, this is the same as
+	 * {@link ElevationBase#getElevationGridDouble(GeoLat, GeoLon)} but without shared state.
+	 *
+	 * @return Returns {@link Float#MIN_VALUE} when all 4 grid values are invalid
+	 */
+	private double getElevationInterpolated(final int latDecimal, final int lonDecimal) {
+
+		final int firstLat = gridToLeft(latDecimal);
+		final int lastLat = gridToRight(latDecimal);
+		final int firstLon = gridToLeft(lonDecimal);
+		final int lastLon = gridToRight(lonDecimal);
+
+		float elev1 = getElevationFromFile(lastLat, firstLon);
+		float elev2 = getElevationFromFile(lastLat, lastLon);
+		float elev3 = getElevationFromFile(firstLat, firstLon);
+		float elev4 = getElevationFromFile(firstLat, lastLon);
+
+		// adjust invalid values
+		final boolean isValidElev1 = isValid(elev1);
+		final boolean isValidElev2 = isValid(elev2);
+		final boolean isValidElev3 = isValid(elev3);
+		final boolean isValidElev4 = isValid(elev4);
+
+		int numValid = 0;
+		double elevSum = 0;
+
+		if (isValidElev1) {
+			numValid++;
+			elevSum += elev1;
 		}
-		if (lat.tertias != 0) {
-			return getElevationGridDouble(lat, lon);
+		if (isValidElev2) {
+			numValid++;
+			elevSum += elev2;
 		}
-		if (lon.tertias != 0) {
-			return getElevationGridDouble(lat, lon);
+		if (isValidElev3) {
+			numValid++;
+			elevSum += elev3;
 		}
-		if (lat.seconds % 3 != 0) {
-			return getElevationGridDouble(lat, lon);
+		if (isValidElev4) {
+			numValid++;
+			elevSum += elev4;
 		}
-		if (lon.seconds % 3 != 0) {
-			return getElevationGridDouble(lat, lon);
+
+		if (numValid == 0) {
+			return Float.MIN_VALUE;
 		}
 
-		return getElevation(lat, lon);
+		if (numValid != 4) {
+
+			final float elevMid = (float) (elevSum / numValid);
+
+			if (!isValidElev1) {
+				elev1 = elevMid;
+			}
+			if (!isValidElev2) {
+				elev2 = elevMid;
+			}
+			if (!isValidElev3) {
+				elev3 = elevMid;
+			}
+			if (!isValidElev4) {
+				elev4 = elevMid;
+			}
+		}
+
+		double p = latDecimal - firstLat;
+		p /= lastLat - firstLat;
+		double q = lonDecimal - firstLon;
+		q /= lastLon - firstLon;
+
+		return ((1 - q) * p * elev1 + q * p * elev2 + (1 - q) * (1 - p) * elev3 + q * (1 - p) * elev4 + 0.5);
 	}
 
 	@Override
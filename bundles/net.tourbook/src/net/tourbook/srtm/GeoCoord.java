@@ -34,7 +34,6 @@ public class GeoCoord {
    final static private String  patternString[] = new String[PATTERN_ANZ];
 
    final static private Pattern pattern[]       = new Pattern[PATTERN_ANZ];
-   static private Matcher       matcher         = null;
    public char                  direction;
    int                          degrees;                                   // 1 Degrees in NS-Direction = 110.946 km
 
@@ -66,14 +65,7 @@ public class GeoCoord {
     * ^= ein oder mehrere Nachkommastellen
     ***********************************************************************************/
 
-   public GeoCoord() {
-      degrees = 0;
-      minutes = 0;
-      seconds = 0;
-      decimal = 0;
-      tertias = 0;
-
-      direction = directionPlus();
+   static {
 
       // Kommentar s. o.
       patternString[0] = new String("([-+]?)([0-9]{1,3}):([0-9]{1,2})"); //$NON-NLS-1$
@@ -87,10 +79,20 @@ public class GeoCoord {
       patternString[8] = new String("([-+]?)([0-9]{1,3}):([0-9]{1,2}):([0-9]{1,2}\\.[0-9]+)"); //$NON-NLS-1$
       patternString[9] = new String("([-+]?)([0-9]{1,3})([0-9]{2})([0-9]{2}\\.[0-9]+)"); //$NON-NLS-1$
 
+      // the patterns are compiled only once and not for each coordinate
       for (int i = 0; i < PATTERN_ANZ; i++) {
          pattern[i] = Pattern.compile(patternString[i]);
       }
+   }
 
+   public GeoCoord() {
+      degrees = 0;
+      minutes = 0;
+      seconds = 0;
+      decimal = 0;
+      tertias = 0;
+
+      direction = directionPlus();
    }
 
    public double acos() {
@@ -288,6 +290,7 @@ public class GeoCoord {
    public void set(String s) {
 
       int pat;
+      Matcher matcher = null;
       s = normalize(s);
 
       for (pat = 0; pat < PATTERN_ANZ; pat++) {
@@ -98,6 +98,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import de.byteholder.geoclipse.map.TileImageCache;
+import de.byteholder.geoclipse.map.TilePackStore;
 import de.byteholder.geoclipse.mapprovider.MP;
 
 public final class PrefPageSRTMColors extends PreferencePage implements IWorkbenchPreferencePage, ITourViewer {
@@ -1092,6 +1093,10 @@ public final class PrefPageSRTMColors extends PreferencePage implements IWorkben
 				return;
 			}
 
+			if (TileImageCache.isUseTilePackStore()) {
+				TilePackStore.removeFolder(tileCacheOSPathFolder.append(profile.getTilePath()));
+			}
+
 			// get profile folder
 			final File profileFolder = tileCacheOSPathFolder.append(profile.getTilePath()).toFile();
 			if (profileFolder.exists() == false) {
@@ -1135,6 +1140,10 @@ public final class PrefPageSRTMColors extends PreferencePage implements IWorkben
 
 					// profile key has changed
 
+					if (TileImageCache.isUseTilePackStore()) {
+						TilePackStore.removeFolder(tileCacheOSPathFolder.append(profile.getTilePath()));
+					}
+
 					// get profile folder
 					final File profileFolder = tileCacheOSPathFolder.append(profile.getTilePath()).toFile();
 					if (profileFolder.exists() == false) {
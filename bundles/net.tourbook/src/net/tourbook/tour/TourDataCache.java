@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2005, 2011  Wolfgang Schramm and Contributors
+ * Copyright (C) 2005, 2020  Wolfgang Schramm and Contributors
  * 
  * This program is free software; you can redistribute it and/or modify it under
  * the terms of the GNU General Public License as published by the Free Software
@@ -15,98 +15,248 @@
  *******************************************************************************/
 package net.tourbook.tour;
 
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import net.tourbook.data.TourData;
 
 /**
- * Cache for {@link TourData}
+ * Cache for {@link TourData}, the cache is limited by the number of tours and by the estimated
+ * memory of the tour data series, see {@link TourData#getMemorySize()}.
+ * <p>
+ * Reading from the cache is lock free, when a limit is exceeded, the least recently used tours are
+ * evicted.
  */
 class TourDataCache {
 
-	private final ConcurrentHashMap<Long, TourData>	_tourCache;
-	private final Queue<Long>						_fifoQueue;
+	/**
+	 * When a limit is exceeded, tours are evicted until this part of the limit is reached, so that
+	 * not each new tour is evicting another tour.
+	 */
+	private static final float							LOW_MARK_FACTOR	= 0.9f;
 
-	private int										_cacheSize;
-	private int										_cacheLowMark;
+	private final ConcurrentHashMap<Long, CacheEntry>	_tourCache		= new ConcurrentHashMap<>();
 
-	private static final ReentrantLock				CACHE_LOCK	= new ReentrantLock();
+	/**
+	 * Is incremented for each access, the entry with the smallest access number is the least
+	 * recently used entry.
+	 */
+	private final AtomicLong							_accessCounter	= new AtomicLong();
 
-	public TourDataCache(final int cacheSize) {
+	private final AtomicLong							_numHits		= new AtomicLong();
+	private final AtomicLong							_numMisses		= new AtomicLong();
+	private final AtomicLong							_numEvictions	= new AtomicLong();
 
-		_cacheSize = cacheSize;
-		_cacheLowMark = Math.max(1, cacheSize - 100);
+	private final int									_maxTours;
+	private volatile long								_maxMemory;
 
-		_tourCache = new ConcurrentHashMap<Long, TourData>();
-		_fifoQueue = new ArrayBlockingQueue<Long>(_cacheSize);
+	/**
+	 * Estimated memory of all cached tours, is guarded by {@link #_cacheLock}
+	 */
+	private long										_usedMemory;
+
+	private final ReentrantLock							_cacheLock		= new ReentrantLock();
+
+	private static class CacheEntry {
+
+		private final TourData	tourData;
+		private long			memorySize;
+
+		private volatile long	lastAccess;
+
+		private CacheEntry(final TourData tourData, final long lastAccess) {
+
+			this.tourData = tourData;
+			this.lastAccess = lastAccess;
+
+			memorySize = tourData.getMemorySize();
+		}
+	}
+
+	/**
+	 * @param maxTours
+	 *            Max number of cached tours
+	 * @param maxMemory
+	 *            Max estimated memory in bytes for all cached tours
+	 */
+	public TourDataCache(final int maxTours, final long maxMemory) {
+
+		_maxTours = Math.max(1, maxTours);
+		_maxMemory = maxMemory;
 	}
 
 	public void clear() {
 
-		CACHE_LOCK.lock();
-		{
-			try {
-				_tourCache.clear();
-				_fifoQueue.clear();
-			} finally {
-				CACHE_LOCK.unlock();
+		_cacheLock.lock();
+		try {
+
+			_tourCache.clear();
+			_usedMemory = 0;
+
+		} finally {
+			_cacheLock.unlock();
+		}
+	}
+
+	/**
+	 * Evict the least recently used tours until the cache is below the low marks, this must be
+	 * called when the cache is locked.
+	 *
+	 * @param keepTourId
+	 *            This tour is not evicted
+	 */
+	private void evictTours(final Long keepTourId) {
+
+		if (_tourCache.size() <= _maxTours && _usedMemory <= _maxMemory) {
+			return;
+		}
+
+		/*
+		 * Tours can use more memory since they were cached because computed data series are
+		 * created when a tour is displayed -> estimate memory again
+		 */
+		_usedMemory = 0;
+		for (final CacheEntry cacheEntry : _tourCache.values()) {
+
+			cacheEntry.memorySize = cacheEntry.tourData.getMemorySize();
+			_usedMemory += cacheEntry.memorySize;
+		}
+
+		if (_tourCache.size() <= _maxTours && _usedMemory <= _maxMemory) {
+			return;
+		}
+
+		final int lowMarkTours = (int) (_maxTours * LOW_MARK_FACTOR);
+		final long lowMarkMemory = (long) (_maxMemory * LOW_MARK_FACTOR);
+
+		final ArrayList<CacheEntry> allEntries = new ArrayList<>(_tourCache.values());
+		Collections.sort(allEntries, new Comparator<CacheEntry>() {
+			@Override
+			public int compare(final CacheEntry entry1, final CacheEntry entry2) {
+				return Long.compare(entry1.lastAccess, entry2.lastAccess);
+			}
+		});
+
+		for (final CacheEntry cacheEntry : allEntries) {
+
+			if (_tourCache.size() <= lowMarkTours && _usedMemory <= lowMarkMemory) {
+				break;
 			}
+
+			final Long tourId = cacheEntry.tourData.getTourId();
+			if (tourId.equals(keepTourId)) {
+				continue;
+			}
+
+			_tourCache.remove(tourId);
+			_usedMemory -= cacheEntry.memorySize;
+
+			_numEvictions.incrementAndGet();
 		}
 	}
 
+	/**
+	 * @param tourId
+	 * @return Returns the cached tour or <code>null</code> when the tour is not cached
+	 */
 	public TourData get(final Long tourId) {
-		return _tourCache.get(tourId);
+
+		final CacheEntry cacheEntry = _tourCache.get(tourId);
+
+		if (cacheEntry == null) {
+
+			_numMisses.incrementAndGet();
+
+			return null;
+		}
+
+		cacheEntry.lastAccess = _accessCounter.incrementAndGet();
+
+		_numHits.incrementAndGet();
+
+		return cacheEntry.tourData;
 	}
 
-	public ConcurrentHashMap<Long, TourData> getCache() {
-		return _tourCache;
+	/**
+	 * @return Returns a copy of all cached tours
+	 */
+	public ArrayList<TourData> getAllTourData() {
+
+		final ArrayList<TourData> allTourData = new ArrayList<>(_tourCache.size());
+
+		for (final CacheEntry cacheEntry : _tourCache.values()) {
+			allTourData.add(cacheEntry.tourData);
+		}
+
+		return allTourData;
 	}
 
-	public void put(final Long tourId, final TourData tourData) {
+	public long getMaxMemory() {
+		return _maxMemory;
+	}
 
-		CACHE_LOCK.lock();
-		{
-			try {
+	public long getNumEvictions() {
+		return _numEvictions.get();
+	}
 
-				final int fifoQueueSize = _fifoQueue.size();
+	public long getNumHits() {
+		return _numHits.get();
+	}
 
-				// MUST test with >= otherwise a Queue full exceptions occures
-				if (fifoQueueSize >= _cacheSize) {
+	public long getNumMisses() {
+		return _numMisses.get();
+	}
 
-//					final long start = System.nanoTime();
+	public int getNumTours() {
+		return _tourCache.size();
+	}
 
-					for (int adjustedQueueSize = fifoQueueSize; adjustedQueueSize > _cacheLowMark; adjustedQueueSize--) {
+	/**
+	 * @return Returns the estimated memory in bytes of all cached tours when they were cached or
+	 *         evicted the last time
+	 */
+	public long getUsedMemory() {
 
-						// remove all entries until the cache low mark is reached
+		_cacheLock.lock();
+		try {
+			return _usedMemory;
+		} finally {
+			_cacheLock.unlock();
+		}
+	}
 
-						final Long head = _fifoQueue.poll();
-						_tourCache.remove(head);
-					}
+	/**
+	 * @param tourId
+	 * @return Returns <code>true</code> when the tour is cached, the hit/miss counters are not
+	 *         modified
+	 */
+	public boolean isCached(final Long tourId) {
+		return _tourCache.containsKey(tourId);
+	}
 
-//					final long end = System.nanoTime();
-//					System.out.println("TourDataCache: removed "
-//							+ (queueSize - MAX_TOUR_CACHE_ENTRIES_LOW)
-//							+ " items in "
-//							+ ((end - start) / 1000000.0)
-//							+ "ms");
-//					// TODO remove SYSTEM.OUT.PRINTLN
-				}
+	public void put(final Long tourId, final TourData tourData) {
 
-				// remove entry which has the same tour id
-				if (_tourCache.containsKey(tourId)) {
-					_tourCache.remove(tourId);
-					_fifoQueue.remove(tourId);
-				}
+		final CacheEntry newEntry = new CacheEntry(tourData, _accessCounter.incrementAndGet());
 
-				_tourCache.put(tourId, tourData);
-				_fifoQueue.add(tourId);
+		_cacheLock.lock();
+		try {
 
-			} finally {
-				CACHE_LOCK.unlock();
+			// replace entry which has the same tour id
+			final CacheEntry oldEntry = _tourCache.put(tourId, newEntry);
+			if (oldEntry != null) {
+				_usedMemory -= oldEntry.memorySize;
 			}
+
+			_usedMemory += newEntry.memorySize;
+
+			evictTours(tourId);
+
+		} finally {
+			_cacheLock.unlock();
 		}
 	}
 
@@ -114,15 +264,37 @@ class TourDataCache {
 
 		if (_tourCache.containsKey(tourId)) {
 
-			CACHE_LOCK.lock();
-			{
-				try {
-					_tourCache.remove(tourId);
-					_fifoQueue.remove(tourId);
-				} finally {
-					CACHE_LOCK.unlock();
+			_cacheLock.lock();
+			try {
+
+				final CacheEntry oldEntry = _tourCache.remove(tourId);
+				if (oldEntry != null) {
+					_usedMemory -= oldEntry.memorySize;
 				}
+
+			} finally {
+				_cacheLock.unlock();
 			}
 		}
 	}
+
+	/**
+	 * Set a new memory limit, tours are evicted when the limit is exceeded.
+	 *
+	 * @param maxMemory
+	 *            Max estimated memory in bytes for all cached tours
+	 */
+	public void setMaxMemory(final long maxMemory) {
+
+		_cacheLock.lock();
+		try {
+
+			_maxMemory = maxMemory;
+
+			evictTours(null);
+
+		} finally {
+			_cacheLock.unlock();
+		}
+	}
 }
@@ -15,6 +15,8 @@
  *******************************************************************************/
 package net.tourbook.tour;
 
+import gnu.trove.map.hash.TIntIntHashMap;
+
 import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -22,11 +24,17 @@ import java.sql.SQLException;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoField;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Formatter;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.tourbook.Messages;
 import net.tourbook.application.TourbookPlugin;
@@ -196,6 +204,16 @@ public class TourManager {
 
    public static final int     GRAPH_TOUR_COMPARE                              = 2000;
    //
+   /**
+    * Number of tours which are loaded with one bulk request in {@link #loadTourData}
+    */
+   private static final int    LOAD_TOUR_DATA_CHUNK_SIZE                       = 50;
+   //
+   /**
+    * Number of threads which are computing SRTM values in {@link #setAltitudeValuesFromSRTM}
+    */
+   private static final int    NUMBER_OF_SRTM_THREADS                          = Math.max(1, Runtime.getRuntime().availableProcessors());
+   //
    //
    /**
     * Contains all graph id's which are displayed as a graph in the tour chart and correspond to a
@@ -317,9 +335,11 @@ public class TourManager {
    private TourManager() {
 
       final int cacheSize = _prefStore.getInt(ITourbookPreferences.TOUR_CACHE_SIZE);
+      final long cacheMemory = getTourCacheMaxMemory();
+
       if (cacheSize > 0) {
 
-         _tourDataCache = new TourDataCache(cacheSize);
+         _tourDataCache = new TourDataCache(cacheSize, cacheMemory);
 
       } else {
 
@@ -330,7 +350,7 @@ public class TourManager {
           * new TourData entity is created. So each opened view gets a new tourdata for the same
           * tour which causes LOTs of troubles.
           */
-         _tourDataCache = new TourDataCache(10);
+         _tourDataCache = new TourDataCache(10, cacheMemory);
       }
 
       createAvgCallbacks();
@@ -354,6 +374,11 @@ public class TourManager {
                   }
                });
 
+            } else if (property.equals(ITourbookPreferences.TOUR_CACHE_MAX_MEMORY)) {
+
+               // the memory limit can be modified without a restart
+               _tourDataCache.setMaxMemory(getTourCacheMaxMemory());
+
             } else if (property.equals(ITourbookPreferences.APP_DATA_FILTER_IS_MODIFIED)) {
 
                /*
@@ -1572,6 +1597,14 @@ public class TourManager {
       return getInstance().getTourData(requestedTourId);
    }
 
+   /**
+    * @return Returns the max memory in bytes which can be used by the tour data cache
+    */
+   private static long getTourCacheMaxMemory() {
+
+      return _prefStore.getInt(ITourbookPreferences.TOUR_CACHE_MAX_MEMORY) * 1024L * 1024L;
+   }
+
    /**
     * @return Returns the instance of the {@link TourDataEditorView} or <code>null</code> when this
     *         part is not opened
@@ -1796,8 +1829,7 @@ public class TourManager {
 
       for (; tourIndex[0] < numTourIds;) {
 
-         final Long tourId = allTourIds.get(tourIndex[0]);
-         loadTourData_OneTour(tourId, allTourData, isCheckLatLon, newOverlayKey);
+         tourIndex[0] = loadTourData_Chunk(allTourIds, tourIndex[0], allTourData, isCheckLatLon, newOverlayKey);
 
          /*
           * Check if this is a long duration -> run in progress monitor
@@ -1807,8 +1839,6 @@ public class TourManager {
             isLongDuration = true;
             break;
          }
-
-         ++tourIndex[0];
       }
 
       if (isLongDuration) {
@@ -1822,22 +1852,25 @@ public class TourManager {
 
                   monitor.beginTask(Messages.Tour_Data_LoadTourData_Monitor, numTourIds);
 
+                  monitor.worked(tourIndex[0]);
+                  loadCounter[0] = tourIndex[0];
+
                   for (; tourIndex[0] < numTourIds;) {
 
                      monitor.subTask(NLS.bind(Messages.Tour_Data_LoadTourData_Monitor_SubTask,
-                           ++loadCounter[0],
+                           loadCounter[0],
                            numTourIds));
 
                      if (monitor.isCanceled()) {
                         break;
                      }
 
-                     final Long tourId = allTourIds.get(tourIndex[0]);
-                     loadTourData_OneTour(tourId, allTourData, isCheckLatLon, newOverlayKey);
+                     final int chunkStart = tourIndex[0];
 
-                     monitor.worked(1);
+                     tourIndex[0] = loadTourData_Chunk(allTourIds, chunkStart, allTourData, isCheckLatLon, newOverlayKey);
+                     loadCounter[0] = tourIndex[0];
 
-                     ++tourIndex[0];
+                     monitor.worked(tourIndex[0] - chunkStart);
                   }
                }
             };
@@ -1863,21 +1896,35 @@ public class TourManager {
       return _allLoaded_TourData_Key;
    }
 
-   private static void loadTourData_OneTour(final Long tourId,
-                                            final ArrayList<TourData> allTourData,
-                                            final boolean isCheckLatLon,
-                                            final long[] newOverlayKey) {
+   /**
+    * Loads the next {@link #LOAD_TOUR_DATA_CHUNK_SIZE} tours with one bulk request
+    *
+    * @return Returns the index of the next tour which is not yet loaded
+    */
+   private static int loadTourData_Chunk(final ArrayList<Long> allTourIds,
+                                         final int chunkStart,
+                                         final ArrayList<TourData> allTourData,
+                                         final boolean isCheckLatLon,
+                                         final long[] newOverlayKey) {
+
+      final int chunkEnd = Math.min(chunkStart + LOAD_TOUR_DATA_CHUNK_SIZE, allTourIds.size());
 
-      final TourData tourData = getInstance().getTourData(tourId);
+      final ArrayList<TourData> allChunkTours = new ArrayList<>();
+      getInstance().getTourData(allChunkTours, new ArrayList<>(allTourIds.subList(chunkStart, chunkEnd)));
 
-      if (isCheckLatLon == false || isLatLonAvailable(tourData)) {
+      for (final TourData tourData : allChunkTours) {
 
-         // keep tour data for each tour id
-         allTourData.add(tourData);
+         if (isCheckLatLon == false || isLatLonAvailable(tourData)) {
 
-         // update key for all tours
-         newOverlayKey[0] += tourData.getTourId();
+            // keep tour data for each tour id
+            allTourData.add(tourData);
+
+            // update key for all tours
+            newOverlayKey[0] += tourData.getTourId();
+         }
       }
+
+      return chunkEnd;
    }
 
    /**
@@ -2619,17 +2666,124 @@ public class TourManager {
       BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
          @Override
          public void run() {
+            retValue[0] = setAltitudeValuesFromSRTM_Parallel(tourDataList);
+         }
+      });
 
-            for (final TourData tourData : tourDataList) {
+      return retValue[0];
+   }
+
+   /**
+    * Replace the altitude values with SRTM values in parallel. The tours are sorted by their SRTM
+    * tile, so that all threads are reading the same few SRTM files at the same time and each file
+    * is opened only once, otherwise the tours would access the SRTM files in a random order.
+    *
+    * @param tourDataList
+    * @return Returns <code>true</code> when the altitude values of at least one tour are replaced
+    */
+   private static boolean setAltitudeValuesFromSRTM_Parallel(final ArrayList<TourData> tourDataList) {
+
+      final int numTours = tourDataList.size();
+
+      // sort key contains the tile key in the upper and the tour index in the lower 32 bits
+      final long[] allSortKeys = new long[numTours];
+
+      for (int tourIndex = 0; tourIndex < numTours; tourIndex++) {
+
+         final int tileKey = setAltitudeValuesFromSRTM_TileKey(tourDataList.get(tourIndex));
+
+         allSortKeys[tourIndex] = ((long) tileKey << 32) | tourIndex;
+      }
+
+      Arrays.sort(allSortKeys);
+
+      final AtomicInteger nextSortIndex = new AtomicInteger();
 
-               final boolean isReplaced = tourData.replaceAltitudeWithSRTM();
+      final ForkJoinPool srtmPool = new ForkJoinPool(NUMBER_OF_SRTM_THREADS);
+      final ArrayList<ForkJoinTask<Boolean>> allSRTMTasks = new ArrayList<>();
 
-               retValue[0] = retValue[0] || isReplaced;
+      boolean isReplaced = false;
+
+      try {
+
+         for (int threadIndex = 0; threadIndex < NUMBER_OF_SRTM_THREADS; threadIndex++) {
+
+            // each task is computing the next tour in the tile order
+            allSRTMTasks.add(srtmPool.submit(() -> {
+
+               boolean isTaskReplaced = false;
+
+               int sortIndex;
+               while ((sortIndex = nextSortIndex.getAndIncrement()) < numTours) {
+
+                  final TourData tourData = tourDataList.get((int) allSortKeys[sortIndex]);
+
+                  isTaskReplaced = tourData.replaceAltitudeWithSRTM() || isTaskReplaced;
+               }
+
+               return isTaskReplaced;
+            }));
+         }
+
+         for (final ForkJoinTask<Boolean> srtmTask : allSRTMTasks) {
+
+            try {
+
+               isReplaced = srtmTask.get() || isReplaced;
+
+            } catch (final ExecutionException e) {
+               StatusUtil.log(e);
             }
          }
-      });
 
-      return retValue[0];
+      } catch (final InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } finally {
+         srtmPool.shutdown();
+      }
+
+      return isReplaced;
+   }
+
+   /**
+    * @param tourData
+    * @return Returns the key of the SRTM tile (1x1 degree) which contains the most geo parts of the
+    *         tour or -1 when the tour do not have geo positions
+    */
+   private static int setAltitudeValuesFromSRTM_TileKey(final TourData tourData) {
+
+      final int[] geoGrid = tourData.geoGrid;
+
+      if (geoGrid == null) {
+         return -1;
+      }
+
+      final TIntIntHashMap allTileParts = new TIntIntHashMap();
+
+      int maxTileKey = -1;
+      int maxTileParts = 0;
+
+      for (final int geoPart : geoGrid) {
+
+         // geo part = (lat * 100 + 9_000) * 100_000 + (lon * 100 + 18_000)
+         final int latPart = geoPart / 100_000 - 9_000;
+         final int lonPart = geoPart % 100_000 - 18_000;
+
+         final int tileLat = Math.floorDiv(latPart, 100);
+         final int tileLon = Math.floorDiv(lonPart, 100);
+
+         final int tileKey = (tileLat + 90) * 1_000 + (tileLon + 180);
+
+         final int numTileParts = allTileParts.adjustOrPutValue(tileKey, 1, 1);
+
+         if (numTileParts > maxTileParts) {
+
+            maxTileParts = numTileParts;
+            maxTileKey = tileKey;
+         }
+      }
+
+      return maxTileKey;
    }
 
    /**
@@ -4417,6 +4571,27 @@ public class TourManager {
       return _activeTourChart;
    }
 
+   /**
+    * @return Returns a text with the usage and the hit/miss/eviction counters of the tour data
+    *         cache
+    */
+   public String getTourCacheStatistics() {
+
+      final long numHits = _tourDataCache.getNumHits();
+      final long numMisses = _tourDataCache.getNumMisses();
+      final long numRequests = numHits + numMisses;
+
+      return NLS.bind(Messages.Pref_Tour_Label_TourCacheStatistics,
+            new Object[] {
+                  _tourDataCache.getNumTours(),
+                  _tourDataCache.getUsedMemory() / 1024 / 1024,
+                  _tourDataCache.getMaxMemory() / 1024 / 1024,
+                  numHits,
+                  numMisses,
+                  numRequests == 0 ? 0 : numHits * 100 / numRequests,
+                  _tourDataCache.getNumEvictions() });
+   }
+
    /**
     * @param tourIds
     * @return Returns a list with {@link TourData} for all tour ids. <code>Null</code> is returned
@@ -4444,8 +4619,55 @@ public class TourManager {
     */
    public void getTourData(final ArrayList<TourData> allTourData, final ArrayList<Long> tourIds) {
 
+      /*
+       * Load all tours which are not yet cached with one bulk request
+       */
+      final TourData tourDataInEditor = _tourDataEditorInstance == null
+            ? null
+            : _tourDataEditorInstance.getTourData();
+
+      final long[] notCachedTourIds = new long[tourIds.size()];
+      int numNotCachedTours = 0;
+
+      for (final Long tourId : tourIds) {
+
+         if (tourId == null
+               || _tourDataCache.isCached(tourId)
+               || tourDataInEditor != null && tourDataInEditor.getTourId().equals(tourId)) {
+            continue;
+         }
+
+         notCachedTourIds[numNotCachedTours++] = tourId;
+      }
+
+      final HashMap<Long, TourData> allLoadedTours = new HashMap<>();
+
+      if (numNotCachedTours > 1) {
+
+         for (final TourData tourDataFromDb : TourDatabase.getToursFromDb(Arrays.copyOf(notCachedTourIds, numNotCachedTours))) {
+
+            // cache tour data
+            _tourDataCache.put(tourDataFromDb.getTourId(), tourDataFromDb);
+
+            allLoadedTours.put(tourDataFromDb.getTourId(), tourDataFromDb);
+         }
+      }
+
       for (final Long tourId : tourIds) {
-         allTourData.add(getTourData(tourId));
+
+         final TourData loadedTourData = allLoadedTours.get(tourId);
+
+         if (loadedTourData != null) {
+
+            replaceTourInTourEditor(loadedTourData);
+
+            allTourData.add(loadedTourData);
+
+         } else {
+
+            // tour is cached, in the tour editor or not in the database
+            allTourData.add(getTourData(tourId));
+         }
       }
    }
 
@@ -4669,7 +4891,7 @@ public class TourManager {
 
    public void resetMapPositions() {
 
-      for (final TourData tourData : _tourDataCache.getCache().values()) {
+      for (final TourData tourData : _tourDataCache.getAllTourData()) {
          tourData.mapCenterPositionLatitude = Double.MIN_VALUE;
          tourData.mapCenterPositionLongitude = Double.MIN_VALUE;
       }
@@ -66,6 +66,11 @@ public class SQLFilter {
 
    private boolean           _isTagFilterActive;
 
+   /**
+    * Is <code>true</code> when the where clause contains only the person and tour type filter
+    */
+   private boolean           _isPersonAndTourTypeFilterOnly = true;
+
    private int               _lastParameterIndex;
 
    /**
@@ -104,6 +109,8 @@ public class SQLFilter {
       if (appFilter.contains(SQLAppFilter.Photo) && TourbookPlugin.getActivePhotoFilter()) {
 
          sb.append(" AND TourData.numberOfPhotos > 0\n"); //$NON-NLS-1$
+
+         _isPersonAndTourTypeFilterOnly = false;
       }
 
       /*
@@ -126,6 +133,8 @@ public class SQLFilter {
 
          sb.append(tourSqlData.getWhereString());
          _parameters.addAll(tourSqlData.getParameters());
+
+         _isPersonAndTourTypeFilterOnly = false;
       }
 
       /*
@@ -138,6 +147,8 @@ public class SQLFilter {
 
             sb.append(tourSqlGeoData.getWhereString());
             _parameters.addAll(tourSqlGeoData.getParameters());
+
+            _isPersonAndTourTypeFilterOnly = false;
          }
       }
 
@@ -153,6 +164,7 @@ public class SQLFilter {
          if (tourTagSqlData != null) {
 
             _isTagFilterActive = true;
+            _isPersonAndTourTypeFilterOnly = false;
 
             sb.append(tourTagSqlData.getWhereString());
             _parameters.addAll(tourTagSqlData.getParameters());
@@ -178,6 +190,15 @@ public class SQLFilter {
       return _sqlWhereClause;
    }
 
+   /**
+    * @return Returns <code>true</code> when only the person and tour type filter are used, then the
+    *         tours can be filtered with the columns of a table which summarizes tours, e.g.
+    *         {@link net.tourbook.database.TourStatisticRollup#TABLE_TOUR_STATISTIC_DAY}
+    */
+   public boolean isPersonAndTourTypeFilterOnly() {
+      return _isPersonAndTourTypeFilterOnly;
+   }
+
    /**
     * @return Returns <code>true</code> when the tag filter is being used, it is enabled and has at
     *         least 1 tag
@@ -32,6 +32,7 @@ import net.tourbook.common.util.StatusUtil;
 import net.tourbook.common.util.Util;
 import net.tourbook.data.NormalizedGeoData;
 import net.tourbook.database.TourDatabase;
+import net.tourbook.database.TourGeoPartIndex;
 import net.tourbook.ui.SQLFilter;
 
 public class GeoPartTourLoader {
@@ -59,133 +60,113 @@ public class GeoPartTourLoader {
       _loadingExecutor = Executors.newSingleThreadExecutor(threadFactory);
    }
 
-   private static boolean loadTourGeoPartsFromDB(final GeoPartItem loaderItem) {
+   /**
+    * @param appFilter
+    * @return Returns the id's of all tours which are not filtered out by the app filter or
+    *         <code>null</code> when the tours could not be loaded.
+    */
+   private static long[] loadAppFilterTourIds(final SQLFilter appFilter) {
 
-      if (loaderItem.isCanceled) {
-         return false;
-      }
+      final char NL = UI.NEW_LINE;
 
-      final long start = System.currentTimeMillis();
+      final String select = UI.EMPTY_STRING
 
-      final int[] requestedGeoParts = loaderItem.geoParts;
-      final int numGeoParts = requestedGeoParts.length;
+            + "SELECT" + NL //                                       //$NON-NLS-1$
 
-      if (numGeoParts == 0) {
+            + " TourId" + NL //                                      //$NON-NLS-1$
+            + " FROM " + TourDatabase.TABLE_TOUR_DATA + NL //         //$NON-NLS-1$
 
-         // there are no geoparts, set empty list to have valid data
-
-         loaderItem.tourIds = new long[] {};
-
-         return true;
-      }
+// this is very slow
+//          // get tag id's
+//          + (" LEFT OUTER JOIN " + TourDatabase.JOINTABLE__TOURDATA__TOURTAG + " jTdataTtag") + NL //$NON-NLS-1$ //$NON-NLS-2$
+//          + (" ON tourID = jTdataTtag.TourData_tourId") + NL //$NON-NLS-1$
 
-      final boolean isAppFilter = loaderItem.isUseAppFilter;
-
-      /*
-       * Create sql parameters
-       */
-      final StringBuilder sqlInParameters = new StringBuilder();
-      for (int partIndex = 0; partIndex < numGeoParts; partIndex++) {
-         if (partIndex == 0) {
-            sqlInParameters.append(" ?"); //$NON-NLS-1$
-         } else {
-            sqlInParameters.append(", ?"); //$NON-NLS-1$
-         }
-      }
+            + " WHERE 1=1 " + appFilter.getWhereClause() + NL//      //$NON-NLS-1$
+      ;
 
       Connection conn = null;
-      String select = null;
 
       try {
 
-// this is very slow
-//       final SQLFilter appFilter = new SQLFilter(SQLFilter.TAG_FILTER);
-         final SQLFilter appFilter = new SQLFilter();
-
-         final char NL = UI.NEW_LINE;
-
-         final String selectGeoPart = UI.EMPTY_STRING
+         conn = TourDatabase.getInstance().getConnection();
 
-               + "SELECT" + NL //                       //$NON-NLS-1$
+         try (final PreparedStatement statement = conn.prepareStatement(select)) {
 
-               + " DISTINCT TourId " + NL //                           //$NON-NLS-1$
+            appFilter.setParameters(statement, 1);
 
-               + (" FROM " + TourDatabase.TABLE_TOUR_GEO_PARTS + NL) //      //$NON-NLS-1$
-               + (" WHERE GeoPart IN (" + sqlInParameters + ")") + NL //      //$NON-NLS-1$ //$NON-NLS-2$
-         ;
+            try (final ResultSet result = statement.executeQuery()) {
 
-         if (isAppFilter) {
+               final TLongArrayList tourIds = new TLongArrayList();
 
-            final String selectAppFilter = UI.EMPTY_STRING
+               while (result.next()) {
+                  tourIds.add(result.getLong(1));
+               }
 
-                  + "SELECT" + NL //                    //$NON-NLS-1$
+               return tourIds.toArray();
+            }
+         }
 
-                  + " TourId" + NL //                                 //$NON-NLS-1$
-                  + " FROM " + TourDatabase.TABLE_TOUR_DATA + NL //         //$NON-NLS-1$
+      } catch (final SQLException e) {
 
-// this is very slow
-//                // get tag id's
-//                + (" LEFT OUTER JOIN " + TourDatabase.JOINTABLE__TOURDATA__TOURTAG + " jTdataTtag") + NL //$NON-NLS-1$ //$NON-NLS-2$
-//                + (" ON tourID = jTdataTtag.TourData_tourId") + NL //$NON-NLS-1$
+         StatusUtil.log(select);
+         net.tourbook.ui.UI.showSQLException(e);
 
-                  + " WHERE 1=1 " + appFilter.getWhereClause() + NL//         //$NON-NLS-1$
-            ;
+      } finally {
 
-            select = selectGeoPart
+         Util.closeSql(conn);
+      }
 
-                  + " AND TourId IN (" + selectAppFilter + ")"; //$NON-NLS-1$ //$NON-NLS-2$
-         } else {
+      return null;
+   }
 
-            select = selectGeoPart;
-         }
+   /**
+    * Get the tours for the requested geo parts from the {@link TourGeoPartIndex}, when the app
+    * filter is used, the app filter tours are intersected with the geo part tours.
+    *
+    * @param loaderItem
+    * @return
+    */
+   private static boolean loadTourGeoParts(final GeoPartItem loaderItem) {
 
-         conn = TourDatabase.getInstance().getConnection();
+      if (loaderItem.isCanceled) {
+         return false;
+      }
 
-         /*
-          * Fill parameters
-          */
-         final PreparedStatement statement = conn.prepareStatement(select);
+      final long start = System.currentTimeMillis();
 
-         for (int partIndex = 0; partIndex < numGeoParts; partIndex++) {
-            statement.setInt(partIndex + 1, requestedGeoParts[partIndex]);
-         }
+      final int[] requestedGeoParts = loaderItem.geoParts;
+      final int numGeoParts = requestedGeoParts.length;
 
-         if (isAppFilter) {
-            appFilter.setParameters(statement, 1 + numGeoParts);
-         }
+      if (numGeoParts == 0) {
 
-         /*
-          * Get tour id's
-          */
-         final ResultSet result = statement.executeQuery();
+         // there are no geoparts, set empty list to have valid data
 
-         final TLongArrayList tourIds = new TLongArrayList();
+         loaderItem.tourIds = new long[] {};
 
-         while (result.next()) {
-            tourIds.add(result.getLong(1));
-         }
+         return true;
+      }
 
-         loaderItem.tourIds = tourIds.toArray();
+      long[] allFilterTourIds = null;
 
-      } catch (final SQLException e) {
+      if (loaderItem.isUseAppFilter) {
 
-         StatusUtil.log(select);
-         net.tourbook.ui.UI.showSQLException(e);
+// this is very slow
+//       final SQLFilter appFilter = new SQLFilter(SQLFilter.TAG_FILTER);
+         final SQLFilter appFilter = new SQLFilter();
 
-      } finally {
+         allFilterTourIds = loadAppFilterTourIds(appFilter);
 
-         Util.closeSql(conn);
+         if (allFilterTourIds == null) {
+            return false;
+         }
       }
 
+      loaderItem.tourIds = TourGeoPartIndex.getTourIds(requestedGeoParts, allFilterTourIds);
+
       final long timeDiff = System.currentTimeMillis() - start;
 
       loaderItem.sqlRunningTime = timeDiff;
 
-//      System.out.println(
-//            (UI.timeStampNano() + " [" + GeoPart_TourLoader.class.getSimpleName() + "] ")
-//                  + "loadTourGeoPartsFromDB\t" + timeDiff + " ms");
-//// TODO remove SYSTEM.OUT.PRINTLN
-
       if (loaderItem.isCanceled) {
          return false;
       }
@@ -238,7 +219,7 @@ public class GeoPartTourLoader {
                return;
             }
 
-            if (loadTourGeoPartsFromDB(loaderItem)) {
+            if (loadTourGeoParts(loaderItem)) {
                geoPartView.compare_40_CompareTours(loaderItem);
             }
          }
@@ -21,12 +21,19 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 
 import net.tourbook.Messages;
 import net.tourbook.application.PerspectiveFactoryCompareTours;
+import net.tourbook.common.util.StatusUtil;
 import net.tourbook.common.util.Util;
 import net.tourbook.data.TourCompared;
 import net.tourbook.data.TourData;
@@ -54,12 +61,122 @@ import org.eclipse.ui.WorkbenchException;
  */
 public class TourCompareManager {
 
+   private static final int                              NUMBER_OF_COMPARE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+   private static final int                              WAIT_TIMEOUT              = 100;
+
    private static TourCompareManager                     _instance;
 
    private RefTourItem[]                                 _refTourItems;
    private TourData[]                                    _refToursData;
 
-   private final ArrayList<TVICompareResultComparedTour> _comparedTourItems = new ArrayList<>();
+   /**
+    * Normalized altitude of the reference tours, they are normalized only once for each compare
+    * run
+    */
+   private float[][]                                     _refToursNormalizedAltitude;
+
+   /**
+    * Distance between the start and end index of the reference tours
+    */
+   private float[]                                       _refToursDistance;
+
+   private final ArrayList<TVICompareResultComparedTour> _comparedTourItems        = new ArrayList<>();
+
+   /**
+    * Computes the altitude difference between the reference tour and the compared tour for a range
+    * of start positions in the compared tour, a long range is split and computed in parallel.
+    */
+   private static class AltitudeDiffTask extends RecursiveAction {
+
+      private static final long serialVersionUID     = 1L;
+
+      /**
+       * Number of altitude values which are compared in one task without splitting it
+       */
+      private static final long SEQUENTIAL_THRESHOLD = 100_000;
+
+      private final float[]     _normRefAltitudes;
+      private final float[]     _normCompAltitudes;
+      private final float[]     _normCompAltiDiff;
+
+      private final int         _firstCompareIndex;
+      private final int         _lastCompareIndex;
+
+      /**
+       * @param normRefAltitudes
+       * @param normCompAltitudes
+       * @param normCompAltiDiff
+       *           Contains the altitude difference for each start position in the compared tour,
+       *           it is -1 when the reference tour exceeds the compared tour
+       * @param firstCompareIndex
+       * @param lastCompareIndex
+       *           Exclusive last index
+       */
+      private AltitudeDiffTask(final float[] normRefAltitudes,
+                               final float[] normCompAltitudes,
+                               final float[] normCompAltiDiff,
+                               final int firstCompareIndex,
+                               final int lastCompareIndex) {
+
+         _normRefAltitudes = normRefAltitudes;
+         _normCompAltitudes = normCompAltitudes;
+         _normCompAltiDiff = normCompAltiDiff;
+
+         _firstCompareIndex = firstCompareIndex;
+         _lastCompareIndex = lastCompareIndex;
+      }
+
+      @Override
+      protected void compute() {
+
+         final int numCompareIndices = _lastCompareIndex - _firstCompareIndex;
+
+         if (numCompareIndices < 2 || (long) numCompareIndices * _normRefAltitudes.length <= SEQUENTIAL_THRESHOLD) {
+
+            computeDirectly();
+
+         } else {
+
+            final int middleIndex = _firstCompareIndex + numCompareIndices / 2;
+
+            invokeAll(
+                  new AltitudeDiffTask(_normRefAltitudes, _normCompAltitudes, _normCompAltiDiff, _firstCompareIndex, middleIndex),
+                  new AltitudeDiffTask(_normRefAltitudes, _normCompAltitudes, _normCompAltiDiff, middleIndex, _lastCompareIndex));
+         }
+      }
+
+      private void computeDirectly() {
+
+         final int compareLastIndex = _normCompAltitudes.length;
+
+         for (int normCompareIndex = _firstCompareIndex; normCompareIndex < _lastCompareIndex; normCompareIndex++) {
+
+            float altitudeDiff = -1;
+
+            // loop: all data in the reference tour
+            for (int normRefIndex = 0; normRefIndex < _normRefAltitudes.length; normRefIndex++) {
+
+               final int compareRefIndex = normCompareIndex + normRefIndex;
+
+               /*
+                * make sure the ref index is not bigger than the compare index, this can happen
+                * when the reference data exeed the compare data
+                */
+               if (compareRefIndex == compareLastIndex) {
+                  altitudeDiff = -1;
+                  break;
+               }
+
+               // get the altitude difference between the reference and the compared value
+               altitudeDiff += Math.abs(_normRefAltitudes[normRefIndex] - _normCompAltitudes[compareRefIndex]);
+            }
+
+            // keep altitude difference
+            _normCompAltiDiff[normCompareIndex] = altitudeDiff;
+         }
+      }
+   }
 
    /**
     * internal constructor
@@ -221,96 +338,112 @@ public class TourCompareManager {
    }
 
    /**
-    * @param refTourIndex
-    *           Index into refTourContext and refToursData
+    * Compares a tour with all reference tours, the tour is normalized only once for all reference
+    * tours.
+    *
     * @param compareTourData
     *           Tour data of the tour which will be compared
-    * @return returns the start index for the ref tour in the compare tour
+    * @return Returns the compare results for all reference tours
     */
-   private TVICompareResultComparedTour compareTour(final int refTourIndex, final TourData compareTourData) {
+   private TVICompareResultComparedTour[] compareTour(final TourData compareTourData) {
 
-      final TVICompareResultComparedTour compareResultItem = new TVICompareResultComparedTour();
+      final int numRefTours = _refTourItems.length;
+
+      final TVICompareResultComparedTour[] allCompareResults = new TVICompareResultComparedTour[numRefTours];
 
       /*
        * normalize the compare tour
        */
-      final TourDataNormalizer compareTourNormalizer = new TourDataNormalizer();
       final float[] compareTourDataDistance = compareTourData.getMetricDistanceSerie();
       final int[] compareTourDataTime = compareTourData.timeSerie;
 
-      if (compareTourDataDistance == null || compareTourDataTime == null) {
-         return compareResultItem;
+      float[] normCompDistances = null;
+      float[] normCompAltitudes = null;
+
+      if (compareTourDataDistance != null && compareTourDataTime != null) {
+
+         // get the normalized tour which will be compared, it is normalized only when it is not cached
+         final TourDataNormalizer compareTourNormalizer = TourDataNormalizerCache.getNormalizedTour(compareTourData);
+
+         normCompDistances = compareTourNormalizer.getNormalizedDistance();
+         normCompAltitudes = compareTourNormalizer.getNormalizedAltitude();
       }
 
-      final int numTourSlices = compareTourDataDistance.length;
+      // loop: all reference tours
+      for (int refTourIndex = 0; refTourIndex < numRefTours; refTourIndex++) {
 
-      // normalize the tour which will be compared
-      compareTourNormalizer.normalizeAltitude(compareTourData, 0, numTourSlices - 1);
+         final TVICompareResultComparedTour compareResultItem;
 
-      final float[] normCompDistances = compareTourNormalizer.getNormalizedDistance();
-      final float[] normCompAltitudes = compareTourNormalizer.getNormalizedAltitude();
+         if (normCompAltitudes == null || normCompDistances == null) {
 
-      if (normCompAltitudes == null || normCompDistances == null) {
-         return compareResultItem;
-      }
+            compareResultItem = new TVICompareResultComparedTour();
 
-      final int numCompareSlices = normCompAltitudes.length;
+         } else {
 
-      final float[] normCompAltiDiff = new float[numCompareSlices];
+            compareResultItem = compareTour_WithRefTour(
+                  refTourIndex,
+                  compareTourData,
+                  normCompDistances,
+                  normCompAltitudes);
+         }
 
-      /*
-       * reference tour
-       */
-      final RefTourItem refTour = _refTourItems[refTourIndex];
-      final int refMeasureStartIndex = refTour.startIndex;
-      final int refMeasureEndIndex = refTour.endIndex;
+         compareResultItem.refTour = _refTourItems[refTourIndex];
+         compareResultItem.comparedTourData = compareTourData;
 
-      // get the reference tour
-      final TourData refTourData = _refToursData[refTourIndex];
-      if (refTourData == null) {
-         return compareResultItem;
+         allCompareResults[refTourIndex] = compareResultItem;
       }
 
-      // normalize the reference tour
-      final TourDataNormalizer refTourNormalizer = new TourDataNormalizer();
-      refTourNormalizer.normalizeAltitude(refTourData, refMeasureStartIndex, refMeasureEndIndex);
+      return allCompareResults;
+   }
+
+   /**
+    * @param refTourIndex
+    *           Index into refTourContext and refToursData
+    * @param compareTourData
+    *           Tour data of the tour which will be compared
+    * @param normCompDistances
+    *           Normalized distance of the compared tour
+    * @param normCompAltitudes
+    *           Normalized altitude of the compared tour
+    * @return returns the start index for the ref tour in the compare tour
+    */
+   private TVICompareResultComparedTour compareTour_WithRefTour(final int refTourIndex,
+                                                                final TourData compareTourData,
+                                                                final float[] normCompDistances,
+                                                                final float[] normCompAltitudes) {
+
+      final TVICompareResultComparedTour compareResultItem = new TVICompareResultComparedTour();
+
+      final float[] compareTourDataDistance = compareTourData.getMetricDistanceSerie();
+      final int[] compareTourDataTime = compareTourData.timeSerie;
+
+      final int numTourSlices = compareTourDataDistance.length;
+      final int numCompareSlices = normCompAltitudes.length;
 
-      final float[] normRefAltitudes = refTourNormalizer.getNormalizedAltitude();
+      /*
+       * reference tour, it is normalized in loadRefTours()
+       */
+      final float[] normRefAltitudes = _refToursNormalizedAltitude[refTourIndex];
       if (normRefAltitudes == null) {
          return compareResultItem;
       }
 
+      /*
+       * compute the altitude difference for all start positions, this is spread across the fork
+       * join pool when many values are compared
+       */
+      final float[] normCompAltiDiff = new float[numCompareSlices];
+
+      new AltitudeDiffTask(normRefAltitudes, normCompAltitudes, normCompAltiDiff, 0, numCompareSlices).invoke();
+
       float minAltiDiff = Float.MAX_VALUE;
 
       // start index of the reference tour in the compare tour
       int normCompareIndexStart = -1;
 
-      final int compareLastIndex = numCompareSlices;
-
       for (int normCompareIndex = 0; normCompareIndex < numCompareSlices; normCompareIndex++) {
 
-         float altitudeDiff = -1;
-
-         // loop: all data in the reference tour
-         for (int normRefIndex = 0; normRefIndex < normRefAltitudes.length; normRefIndex++) {
-
-            final int compareRefIndex = normCompareIndex + normRefIndex;
-
-            /*
-             * make sure the ref index is not bigger than the compare index, this can happen
-             * when the reference data exeed the compare data
-             */
-            if (compareRefIndex == compareLastIndex) {
-               altitudeDiff = -1;
-               break;
-            }
-
-            // get the altitude difference between the reference and the compared value
-            altitudeDiff += Math.abs(normRefAltitudes[normRefIndex] - normCompAltitudes[compareRefIndex]);
-         }
-
-         // keep altitude difference
-         normCompAltiDiff[normCompareIndex] = altitudeDiff;
+         final float altitudeDiff = normCompAltiDiff[normCompareIndex];
 
          /*
           * find the lowest altitude difference, this will be the start point of the reference
@@ -328,8 +461,7 @@ public class TourCompareManager {
       }
 
       // get distance for the reference tour
-      final float[] distanceSerie = refTourData.getMetricDistanceSerie();
-      final float refDistance = distanceSerie[refMeasureEndIndex] - distanceSerie[refMeasureStartIndex];
+      final float refDistance = _refToursDistance[refTourIndex];
 
       // get the start/end point in the compared tour
       final float compDistanceStart = normCompDistances[normCompareIndexStart];
@@ -366,7 +498,7 @@ public class TourCompareManager {
       /*
        * create data serie for altitude difference
        */
-      final float[] normDistanceSerie = compareTourNormalizer.getNormalizedDistance();
+      final float[] normDistanceSerie = normCompDistances;
       final float[] compAltiDif = new float[numTourSlices];
 
       final int maxNormIndex = normDistanceSerie.length - 1;
@@ -412,6 +544,9 @@ public class TourCompareManager {
 
    /**
     * Compares all reference tours with all compare tours
+    * <p>
+    * The compared tours are loaded and compared in parallel, each tour is normalized only once and
+    * compared with all reference tours.
     *
     * @param refTours
     * @param comparedTours
@@ -420,14 +555,14 @@ public class TourCompareManager {
 
       _refTourItems = refTours;
       _refToursData = new TourData[refTours.length];
+      _refToursNormalizedAltitude = new float[refTours.length][];
+      _refToursDistance = new float[refTours.length];
 
       final int tours2Compare = comparedTours.length * refTours.length;
 
       final Job compareJob = new Job(Messages.tourCatalog_view_compare_job_title) {
 
-         private void compareTourJob(final RefTourItem[] refTourItems,
-                                     final Object[] comparedTours,
-                                     final IProgressMonitor monitor) {
+         private void compareTourJob(final Object[] comparedTours, final IProgressMonitor monitor) {
 
             int tourCounter = 0;
             _comparedTourItems.clear();
@@ -435,6 +570,9 @@ public class TourCompareManager {
             // get all reference tours
             loadRefTours();
 
+            final ForkJoinPool comparePool = new ForkJoinPool(NUMBER_OF_COMPARE_THREADS);
+            final ArrayList<ForkJoinTask<TVICompareResultComparedTour[]>> allCompareTasks = new ArrayList<>();
+
             // loop: all compare tours
             for (final Object tour : comparedTours) {
 
@@ -449,45 +587,79 @@ public class TourCompareManager {
                   continue;
                }
 
-               // load compared tour from the database
-               final TourData compareTourData = TourManager.getInstance().getTourData(tourId);
+               allCompareTasks.add(comparePool.submit(() -> {
 
-               if (compareTourData != null
-                     && compareTourData.timeSerie != null
-                     && compareTourData.timeSerie.length > 0) {
+                  // load compared tour from the database
+                  final TourData compareTourData = TourManager.getInstance().getTourData(tourId);
 
-                  // loop: all reference tours
-                  for (int refTourIndex = 0; refTourIndex < refTourItems.length; refTourIndex++) {
+                  if (compareTourData != null
+                        && compareTourData.timeSerie != null
+                        && compareTourData.timeSerie.length > 0) {
+
+                     return compareTour(compareTourData);
+                  }
+
+                  return null;
+               }));
+            }
+
+            try {
+
+               // loop: get the compare results in the order of the compared tours
+               for (final ForkJoinTask<TVICompareResultComparedTour[]> compareTask : allCompareTasks) {
+
+                  TVICompareResultComparedTour[] allCompareResults = null;
+
+                  while (true) {
 
                      if (monitor.isCanceled()) {
-                        showCompareResults();
                         return;
                      }
 
-                     // compare the tour
-                     final TVICompareResultComparedTour compareResult = compareTour(
-                           refTourIndex,
-                           compareTourData);
+                     try {
 
-                     // ignore tours which could not be compared
-                     if (compareResult.computedStartIndex != -1) {
+                        allCompareResults = compareTask.get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+                        break;
+
+                     } catch (final TimeoutException e) {
+                        // check cancel state
+                     } catch (final ExecutionException e) {
+                        StatusUtil.log(e);
+                        break;
+                     } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                     }
+                  }
+
+                  if (allCompareResults == null) {
+                     continue;
+                  }
 
-                        compareResult.refTour = refTourItems[refTourIndex];
-                        compareResult.comparedTourData = compareTourData;
+                  // loop: all reference tours
+                  for (final TVICompareResultComparedTour compareResult : allCompareResults) {
 
+                     // ignore tours which could not be compared
+                     if (compareResult.computedStartIndex != -1) {
                         _comparedTourItems.add(compareResult);
                      }
+                  }
 
-                     // update the message in the progress monitor
-                     monitor.subTask(NLS.bind(//
-                           Messages.tourCatalog_view_compare_job_subtask,
-                           ++tourCounter,
-                           tours2Compare));
+                  tourCounter += allCompareResults.length;
 
-                     monitor.worked(1);
-                  }
+                  // update the message in the progress monitor
+                  monitor.subTask(NLS.bind(//
+                        Messages.tourCatalog_view_compare_job_subtask,
+                        tourCounter,
+                        tours2Compare));
+
+                  monitor.worked(allCompareResults.length);
                }
 
+            } finally {
+
+               // stop comparing when the job is canceled
+               comparePool.shutdownNow();
             }
          }
 
@@ -496,7 +668,7 @@ public class TourCompareManager {
 
             monitor.beginTask(Messages.tourCatalog_view_compare_job_task, tours2Compare);
 
-            compareTourJob(refTours, comparedTours, monitor);
+            compareTourJob(comparedTours, monitor);
 
             monitor.done();
 
@@ -532,9 +704,8 @@ public class TourCompareManager {
    }
 
    /**
-    * Get the tour data for all reference tours
-    *
-    * @param refTourContext
+    * Get the tour data for all reference tours and normalize them, the normalized reference tours
+    * are shared when the tours are compared.
     */
    private void loadRefTours() {
 
@@ -542,8 +713,28 @@ public class TourCompareManager {
 
          final RefTourItem refTour = _refTourItems[tourIndex];
 
-         _refTourItems[tourIndex] = refTour;
-         _refToursData[tourIndex] = TourManager.getInstance().getTourData(refTour.tourId);
+         final TourData refTourData = TourManager.getInstance().getTourData(refTour.tourId);
+
+         _refToursData[tourIndex] = refTourData;
+
+         if (refTourData == null) {
+            continue;
+         }
+
+         final int refMeasureStartIndex = refTour.startIndex;
+         final int refMeasureEndIndex = refTour.endIndex;
+
+         // normalize the reference tour
+         final TourDataNormalizer refTourNormalizer = new TourDataNormalizer();
+         refTourNormalizer.normalizeAltitude(refTourData, refMeasureStartIndex, refMeasureEndIndex);
+
+         _refToursNormalizedAltitude[tourIndex] = refTourNormalizer.getNormalizedAltitude();
+
+         // get distance for the reference tour
+         final float[] distanceSerie = refTourData.getMetricDistanceSerie();
+         if (distanceSerie != null) {
+            _refToursDistance[tourIndex] = distanceSerie[refMeasureEndIndex] - distanceSerie[refMeasureStartIndex];
+         }
       }
    }
 
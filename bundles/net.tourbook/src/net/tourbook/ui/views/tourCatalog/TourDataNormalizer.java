@@ -21,6 +21,12 @@ public class TourDataNormalizer {
 
 	public static final int	NORMALIZED_DISTANCE	= 100;
 
+	/**
+	 * Version of the normalization algorithm, it must be increased when the normalized data are
+	 * computed differently, then the data in the {@link TourDataNormalizerCache} are recomputed.
+	 */
+	static final int		NORMALIZER_VERSION	= 1;
+
 	private float[]			normalizedDistance	= null;
 	private float[]			normalizedAltitude	= null;
 
@@ -116,4 +122,16 @@ public class TourDataNormalizer {
 			normDistance += NORMALIZED_DISTANCE;
 		}
 	}
+
+	/**
+	 * Set normalized data which were computed previously
+	 * 
+	 * @param normalizedDistance
+	 * @param normalizedAltitude
+	 */
+	void setNormalizedData(final float[] normalizedDistance, final float[] normalizedAltitude) {
+
+		this.normalizedDistance = normalizedDistance;
+		this.normalizedAltitude = normalizedAltitude;
+	}
 }
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (C) 2005, 2020 Wolfgang Schramm and Contributors
+ *
+ * This program is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation version 2 of the License.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *******************************************************************************/
+package net.tourbook.ui.views.tourCatalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import net.tourbook.application.TourbookPlugin;
+import net.tourbook.common.util.StatusUtil;
+import net.tourbook.data.TourData;
+
+/**
+ * Caches the normalized distance and altitude of a whole tour in a side file, so that the tour
+ * must not be normalized again when it is compared the next time.
+ * <p>
+ * A cache file contains the {@link TourDataNormalizer#NORMALIZER_VERSION} and a hash of the
+ * altitude and distance serie, the tour is normalized again when one of them has changed. The cache
+ * file is removed when a tour is saved or deleted.
+ */
+public class TourDataNormalizerCache {
+
+   private static final String CACHE_FOLDER_NAME    = "tour-normalizer-cache"; //$NON-NLS-1$
+   private static final String CACHE_FILE_EXTENSION = ".norm";                 //$NON-NLS-1$
+   private static final String TEMP_FILE_EXTENSION  = ".tmp";                  //$NON-NLS-1$
+
+   private static File         _cacheFolder;
+
+   private TourDataNormalizerCache() {}
+
+   private static long computeSourceHash(final float[] altitudeSerie, final float[] distanceSerie) {
+
+      long hash = 1;
+
+      hash = 31 * hash + altitudeSerie.length;
+      hash = 31 * hash + distanceSerie.length;
+
+      for (final float altitude : altitudeSerie) {
+         hash = 31 * hash + Float.floatToIntBits(altitude);
+      }
+
+      for (final float distance : distanceSerie) {
+         hash = 31 * hash + Float.floatToIntBits(distance);
+      }
+
+      return hash;
+   }
+
+   private static File getCacheFile(final Long tourId) {
+
+      final File cacheFolder = getCacheFolder();
+
+      if (cacheFolder == null) {
+         return null;
+      }
+
+      return new File(cacheFolder, tourId + CACHE_FILE_EXTENSION);
+   }
+
+   private static synchronized File getCacheFolder() {
+
+      if (_cacheFolder == null) {
+
+         final File cacheFolder = TourbookPlugin.getDefault().getStateLocation().append(CACHE_FOLDER_NAME).toFile();
+
+         if (cacheFolder.exists() == false && cacheFolder.mkdirs() == false) {
+            return null;
+         }
+
+         _cacheFolder = cacheFolder;
+      }
+
+      return _cacheFolder;
+   }
+
+   /**
+    * @param tourData
+    * @return Returns the normalized data of the whole tour, they are read from the cache file or
+    *         are normalized and saved in the cache file. The normalized data are <code>null</code>
+    *         when the tour do not contain altitude or distance values.
+    */
+   public static TourDataNormalizer getNormalizedTour(final TourData tourData) {
+
+      final TourDataNormalizer tourNormalizer = new TourDataNormalizer();
+
+      final float[] altitudeSerie = tourData.altitudeSerie;
+      final float[] distanceSerie = tourData.getMetricDistanceSerie();
+
+      if (altitudeSerie == null || distanceSerie == null || distanceSerie.length == 0) {
+         return tourNormalizer;
+      }
+
+      final Long tourId = tourData.getTourId();
+      final File cacheFile = tourId == null ? null : getCacheFile(tourId);
+
+      final long sourceHash = computeSourceHash(altitudeSerie, distanceSerie);
+
+      if (cacheFile != null && readCacheFile(cacheFile, sourceHash, tourNormalizer)) {
+         return tourNormalizer;
+      }
+
+      tourNormalizer.normalizeAltitude(tourData, 0, distanceSerie.length - 1);
+
+      if (cacheFile != null) {
+         writeCacheFile(cacheFile, sourceHash, tourNormalizer);
+      }
+
+      return tourNormalizer;
+   }
+
+   /**
+    * @param cacheFile
+    * @param sourceHash
+    * @param tourNormalizer
+    * @return Returns <code>true</code> when valid normalized data are read into the normalizer
+    */
+   private static boolean readCacheFile(final File cacheFile,
+                                        final long sourceHash,
+                                        final TourDataNormalizer tourNormalizer) {
+
+      if (cacheFile.exists() == false) {
+         return false;
+      }
+
+      try (DataInputStream inStream = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+
+         if (inStream.readInt() != TourDataNormalizer.NORMALIZER_VERSION
+               || inStream.readLong() != sourceHash) {
+
+            // cached data are outdated
+            return false;
+         }
+
+         final int numValues = inStream.readInt();
+
+         final float[] normalizedDistance = new float[numValues];
+         final float[] normalizedAltitude = new float[numValues];
+
+         for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+            normalizedDistance[valueIndex] = inStream.readFloat();
+         }
+
+         for (int valueIndex = 0; valueIndex < numValues; valueIndex++) {
+            normalizedAltitude[valueIndex] = inStream.readFloat();
+         }
+
+         tourNormalizer.setNormalizedData(normalizedDistance, normalizedAltitude);
+
+         return true;
+
+      } catch (final IOException e) {
+
+         // a corrupted file is overwritten with new data
+         return false;
+      }
+   }
+
+   /**
+    * Remove the cached data of a tour, this is called when a tour is saved or deleted.
+    *
+    * @param tourId
+    */
+   public static void removeTour(final Long tourId) {
+
+      if (tourId == null) {
+         return;
+      }
+
+      final File cacheFile = getCacheFile(tourId);
+
+      if (cacheFile != null && cacheFile.exists()) {
+         cacheFile.delete();
+      }
+   }
+
+   private static void writeCacheFile(final File cacheFile,
+                                      final long sourceHash,
+                                      final TourDataNormalizer tourNormalizer) {
+
+      final float[] normalizedDistance = tourNormalizer.getNormalizedDistance();
+      final float[] normalizedAltitude = tourNormalizer.getNormalizedAltitude();
+
+      if (normalizedDistance == null || normalizedAltitude == null) {
+         return;
+      }
+
+      // write into a temp file that a partly written file is never read
+      final File tempFile = new File(cacheFile.getPath() + Thread.currentThread().getId() + TEMP_FILE_EXTENSION);
+
+      try {
+
+         try (DataOutputStream outStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+
+            outStream.writeInt(TourDataNormalizer.NORMALIZER_VERSION);
+            outStream.writeLong(sourceHash);
+            outStream.writeInt(normalizedDistance.length);
+
+            for (final float distance : normalizedDistance) {
+               outStream.writeFloat(distance);
+            }
+
+            for (final float altitude : normalizedAltitude) {
+               outStream.writeFloat(altitude);
+            }
+         }
+
+         Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+      } catch (final IOException e) {
+
+         StatusUtil.log(e);
+
+         tempFile.delete();
+      }
+   }
+}